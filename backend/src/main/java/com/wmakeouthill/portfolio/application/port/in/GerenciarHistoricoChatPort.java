@@ -1,6 +1,7 @@
 package com.wmakeouthill.portfolio.application.port.in;
 
 import com.wmakeouthill.portfolio.domain.entity.MensagemChat;
+import com.wmakeouthill.portfolio.domain.model.HistoricoChat;
 
 import java.util.List;
 
@@ -23,10 +24,19 @@ public interface GerenciarHistoricoChatPort {
      * Retorna apenas as últimas N mensagens para otimização de tokens.
      * 
      * @param sessionId identificador único da sessão/navegador
-     * @return lista de mensagens do histórico (máximo N mensagens)
+     * @return lista imutável de mensagens do histórico (máximo N mensagens)
      */
     List<MensagemChat> obterHistorico(String sessionId);
     
+    /**
+     * Como {@link #obterHistorico}, mas com o total de tokens da janela já
+     * somado (cada mensagem é contada uma única vez, ao entrar no histórico).
+     * 
+     * @param sessionId identificador único da sessão/navegador
+     * @return janela do histórico e seus tokens
+     */
+    HistoricoChat obterHistoricoContado(String sessionId);
+    
     /**
      * Limpa o histórico de mensagens da sessão especificada.
      * Útil quando usuário inicia nova conversa.
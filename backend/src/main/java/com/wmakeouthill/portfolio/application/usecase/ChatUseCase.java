@@ -5,6 +5,8 @@ import com.wmakeouthill.portfolio.application.dto.ChatResponse;
 import com.wmakeouthill.portfolio.application.dto.MediaPart;
 import com.wmakeouthill.portfolio.application.port.in.GerenciarHistoricoChatPort;
 import com.wmakeouthill.portfolio.domain.entity.MensagemChat;
+import com.wmakeouthill.portfolio.domain.model.PromptEstruturado;
+import com.wmakeouthill.portfolio.domain.model.PromptSistema;
 import com.wmakeouthill.portfolio.domain.service.PortfolioPromptService;
 import com.wmakeouthill.portfolio.domain.service.TokenBudgetService;
 import com.wmakeouthill.portfolio.domain.service.TokenBudgetService.TokenBudgetResult;
@@ -14,6 +16,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.function.Consumer;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -26,6 +30,21 @@ public class ChatUseCase {
     private final GerarCurriculoUseCase gerarCurriculoUseCase;
 
     public ChatResponse execute(ChatRequest request, String sessionId, String language) {
+        return conversar(request, sessionId, language, null);
+    }
+
+    /**
+     * Variante em streaming de {@link #execute}: o texto da resposta é entregue
+     * em trechos para {@code aoReceberTrecho} conforme o modelo gera. A resposta
+     * completa é devolvida no fim e registrada no histórico como no fluxo normal.
+     */
+    public ChatResponse executeStream(ChatRequest request, String sessionId, String language,
+            Consumer<String> aoReceberTrecho) {
+        return conversar(request, sessionId, language, aoReceberTrecho);
+    }
+
+    private ChatResponse conversar(ChatRequest request, String sessionId, String language,
+            Consumer<String> aoReceberTrecho) {
         String mensagemUsuarioTexto = normalizarMensagem(request);
         if (mensagemUsuarioTexto.isBlank()) {
             return new ChatResponse("");
@@ -39,25 +58,26 @@ public class ChatUseCase {
         gerenciarHistoricoChatPort.adicionarMensagem(sessionId, mensagemUsuario);
 
         // Carrega system prompt otimizado baseado na mensagem do usuário (on-demand)
-        String systemPrompt = portfolioPromptService.obterSystemPromptOtimizado(mensagemUsuarioTexto, language);
-        var historico = gerenciarHistoricoChatPort.obterHistorico(sessionId);
+        PromptEstruturado prompt = portfolioPromptService.obterPromptEstruturado(mensagemUsuarioTexto, language);
+        var historico = gerenciarHistoricoChatPort.obterHistoricoContado(sessionId);
 
         // Otimiza tokens se necessário (reduz histórico/contextos se perto do limite)
-        TokenBudgetResult budgetResult = tokenBudgetService.otimizar(systemPrompt, historico, mensagemUsuarioTexto);
+        TokenBudgetResult budgetResult = tokenBudgetService.otimizar(prompt, historico, mensagemUsuarioTexto);
 
-        if (budgetResult.foiReduzido()) {
-            log.info("Token budget otimizado: {} tokens estimados", budgetResult.tokensEstimados());
-        }
+        logarTokensEntrada(budgetResult);
 
         // Usa o router para selecionar o modelo correto (Gemini ou GPT)
         String modeloSelecionado = request.modeloEfetivo();
         log.info("Modelo de IA selecionado: {}", modeloSelecionado);
 
-        ChatResponse resposta = aiChatRouter.chat(
-                budgetResult.systemPromptOtimizado(),
-                budgetResult.historicoOtimizado(),
-                mensagemUsuarioTexto,
-                modeloSelecionado);
+        // A redução só descarta passagens variáveis, então o prefixo estável
+        // sobrevive e continua cacheável no provedor.
+        PromptSistema promptFinal = budgetResult.promptOtimizado();
+        ChatResponse resposta = aoReceberTrecho == null
+                ? aiChatRouter.chat(promptFinal, budgetResult.historicoOtimizado(), mensagemUsuarioTexto,
+                        modeloSelecionado)
+                : aiChatRouter.chatStream(promptFinal, budgetResult.historicoOtimizado(), mensagemUsuarioTexto,
+                        modeloSelecionado, aoReceberTrecho);
         registrarRespostaNoHistorico(sessionId, resposta);
 
         return sinalizarCurriculoSeSolicitado(mensagemUsuarioTexto, resposta);
@@ -100,12 +120,13 @@ public class ChatUseCase {
                 ? "Analise o(s) anexo(s) que enviei e responda de forma útil."
                 : mensagemUsuarioTexto;
 
-        String systemPrompt = portfolioPromptService.obterSystemPromptOtimizado(mensagemParaIa, language);
-        var historico = gerenciarHistoricoChatPort.obterHistorico(sessionId);
-        TokenBudgetResult budgetResult = tokenBudgetService.otimizar(systemPrompt, historico, mensagemParaIa);
+        PromptEstruturado prompt = portfolioPromptService.obterPromptEstruturado(mensagemParaIa, language);
+        var historico = gerenciarHistoricoChatPort.obterHistoricoContado(sessionId);
+        TokenBudgetResult budgetResult = tokenBudgetService.otimizar(prompt, historico, mensagemParaIa);
+        logarTokensEntrada(budgetResult);
 
         ChatResponse resposta = aiChatRouter.chat(
-                budgetResult.systemPromptOtimizado(),
+                budgetResult.promptOtimizado(),
                 budgetResult.historicoOtimizado(),
                 mensagemParaIa,
                 request.modeloEfetivo(),
@@ -140,6 +161,16 @@ public class ChatUseCase {
         return mensagem.trim();
     }
 
+    /**
+     * Loga os tokens de entrada já somados pelo {@link TokenBudgetService}; os
+     * adapters não recontam o system prompt só para isso.
+     */
+    private void logarTokensEntrada(TokenBudgetResult budgetResult) {
+        log.info("Tokens estimados de entrada: {} (histórico: {} mensagens, reduzido: {})",
+                budgetResult.tokensEstimados(), budgetResult.historicoOtimizado().size(),
+                budgetResult.foiReduzido());
+    }
+
     private void registrarRespostaNoHistorico(String sessionId, ChatResponse resposta) {
         if (resposta.reply() == null || resposta.reply().isBlank()) {
             return;
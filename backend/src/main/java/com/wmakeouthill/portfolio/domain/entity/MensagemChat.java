@@ -4,11 +4,24 @@ import java.time.LocalDateTime;
 
 /**
  * Entidade de domínio representando uma mensagem do chat.
+ *
+ * <p>
+ * {@code tokens} é o custo do conteúdo, contado uma única vez quando a mensagem
+ * entra no histórico; {@link #NAO_CONTADO} enquanto ninguém contou.
+ * </p>
  */
 public record MensagemChat(
         String role,
         String content,
-        LocalDateTime timestamp) {
+        LocalDateTime timestamp,
+        int tokens) {
+
+    public static final int NAO_CONTADO = -1;
+
+    public MensagemChat(String role, String content, LocalDateTime timestamp) {
+        this(role, content, timestamp, NAO_CONTADO);
+    }
+
     public static MensagemChat criarMensagemUsuario(String conteudo) {
         return new MensagemChat("user", conteudo, LocalDateTime.now());
     }
@@ -20,4 +33,12 @@ public record MensagemChat(
     public static MensagemChat criarMensagemSistema(String conteudo) {
         return new MensagemChat("system", conteudo, LocalDateTime.now());
     }
+
+    public boolean tokensContados() {
+        return tokens >= 0;
+    }
+
+    public MensagemChat comTokens(int tokens) {
+        return new MensagemChat(role, content, timestamp, tokens);
+    }
 }
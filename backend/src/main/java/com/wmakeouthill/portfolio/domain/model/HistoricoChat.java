@@ -0,0 +1,24 @@
+package com.wmakeouthill.portfolio.domain.model;
+
+import com.wmakeouthill.portfolio.domain.entity.MensagemChat;
+
+import java.util.List;
+
+/**
+ * Janela do histórico de uma sessão que vai para a IA, com o total de tokens
+ * já somado: o orçamento decide sem recontar nenhuma mensagem.
+ *
+ * @param mensagens mensagens da janela, da mais antiga para a mais recente,
+ *                  cada uma com seus {@link MensagemChat#tokens() tokens}
+ * @param tokens    soma dos tokens das mensagens
+ */
+public record HistoricoChat(List<MensagemChat> mensagens, int tokens) {
+
+  public HistoricoChat {
+    mensagens = mensagens == null ? List.of() : List.copyOf(mensagens);
+  }
+
+  public static HistoricoChat vazio() {
+    return new HistoricoChat(List.of(), 0);
+  }
+}
@@ -0,0 +1,11 @@
+package com.wmakeouthill.portfolio.domain.model;
+
+/**
+ * Passagem recuperada para o contexto da IA, pronta para entrar no prompt.
+ *
+ * @param conteudo texto da passagem, já com o cabeçalho 「nome」 do documento
+ * @param tokens   custo estimado em tokens de {@code conteudo}, calculado uma
+ *                 única vez na indexação
+ */
+public record PassagemContexto(String conteudo, int tokens) {
+}
@@ -12,6 +12,8 @@ import java.util.Set;
  * @param projeto indica se o markdown pertence à pasta de projetos
  * @param preferencialFallback indica se deve ser usado como fallback fixo
  * @param tags conjunto de tags temáticas para busca contextual
+ * @param sha  identificador de versão do conteúdo (blob sha do git), quando a
+ *             fonte o fornece; {@code null} caso contrário
  */
 public record PortfolioMarkdownResource(
     String nome,
@@ -19,7 +21,12 @@ public record PortfolioMarkdownResource(
     String conteudo,
     boolean projeto,
     boolean preferencialFallback,
-    Set<String> tags
+    Set<String> tags,
+    String sha
 ) {
-}
 
+  public PortfolioMarkdownResource(String nome, String caminho, String conteudo, boolean projeto,
+      boolean preferencialFallback, Set<String> tags) {
+    this(nome, caminho, conteudo, projeto, preferencialFallback, tags, null);
+  }
+}
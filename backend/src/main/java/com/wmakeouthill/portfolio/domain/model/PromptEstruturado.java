@@ -0,0 +1,110 @@
+package com.wmakeouthill.portfolio.domain.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * System prompt antes de virar texto: o prefixo estável, as seções variáveis
+ * (contexto recuperado, projetos mencionados) com o custo e a relevância de
+ * cada passagem, e um sufixo fixo. O orçamento de tokens descarta passagens
+ * aqui, das menos relevantes para as mais, e o texto só é montado uma vez, em
+ * {@link #renderizar()}.
+ *
+ * @param prefixoEstavel prompt base + passagens fixas (ver {@link PromptSistema})
+ * @param secoes         seções variáveis, na ordem em que entram no prompt
+ * @param sufixo         texto final (ex.: instrução de idioma)
+ */
+public record PromptEstruturado(String prefixoEstavel, List<Secao> secoes, String sufixo) {
+
+  private static final String SEPARADOR = "\n---\n";
+
+  /**
+   * @param cabecalho texto que abre a seção; omitido se nenhuma passagem sobrar
+   * @param passagens passagens da seção, na ordem em que aparecem
+   */
+  public record Secao(String cabecalho, List<PassagemPontuada> passagens) {
+
+    public Secao {
+      cabecalho = cabecalho == null ? "" : cabecalho;
+      passagens = passagens == null ? List.of() : List.copyOf(passagens);
+    }
+  }
+
+  /**
+   * @param passagem   passagem com seu custo em tokens
+   * @param relevancia quanto maior, mais tarde a passagem é descartada
+   */
+  public record PassagemPontuada(PassagemContexto passagem, double relevancia) {
+  }
+
+  public PromptEstruturado {
+    prefixoEstavel = prefixoEstavel == null ? "" : prefixoEstavel;
+    secoes = secoes == null ? List.of() : List.copyOf(secoes);
+    sufixo = sufixo == null ? "" : sufixo;
+  }
+
+  /** Prompt já montado, sem passagens descartáveis. */
+  public static PromptEstruturado simples(String systemPrompt) {
+    return new PromptEstruturado("", List.of(), systemPrompt);
+  }
+
+  /** Passagens de todas as seções, na ordem do prompt (os índices de {@link #sem}). */
+  public List<PassagemPontuada> passagens() {
+    List<PassagemPontuada> todas = new ArrayList<>();
+    for (Secao secao : secoes) {
+      todas.addAll(secao.passagens());
+    }
+    return todas;
+  }
+
+  /** Cópia sem as passagens marcadas em {@code removidas} (índices de {@link #passagens()}). */
+  public PromptEstruturado sem(BitSet removidas) {
+    if (removidas.isEmpty()) {
+      return this;
+    }
+    List<Secao> restantes = new ArrayList<>(secoes.size());
+    int indice = 0;
+    for (Secao secao : secoes) {
+      List<PassagemPontuada> mantidas = new ArrayList<>(secao.passagens().size());
+      for (PassagemPontuada passagem : secao.passagens()) {
+        if (!removidas.get(indice++)) {
+          mantidas.add(passagem);
+        }
+      }
+      restantes.add(new Secao(secao.cabecalho(), mantidas));
+    }
+    return new PromptEstruturado(prefixoEstavel, restantes, sufixo);
+  }
+
+  /** Monta o texto: cada seção com passagens vira cabeçalho + passagens separadas por {@code ---}. */
+  public PromptSistema renderizar() {
+    StringBuilder variavel = new StringBuilder(tamanhoVariavel());
+    for (Secao secao : secoes) {
+      if (secao.passagens().isEmpty()) {
+        continue;
+      }
+      variavel.append(secao.cabecalho());
+      for (PassagemPontuada passagem : secao.passagens()) {
+        String conteudo = passagem.passagem().conteudo();
+        if (conteudo != null && !conteudo.isBlank()) {
+          variavel.append(SEPARADOR).append(conteudo.trim());
+        }
+      }
+    }
+    variavel.append(sufixo);
+    return new PromptSistema(prefixoEstavel, variavel.toString());
+  }
+
+  private int tamanhoVariavel() {
+    int tamanho = sufixo.length();
+    for (Secao secao : secoes) {
+      tamanho += secao.cabecalho().length();
+      for (PassagemPontuada passagem : secao.passagens()) {
+        String conteudo = passagem.passagem().conteudo();
+        tamanho += SEPARADOR.length() + (conteudo == null ? 0 : conteudo.length());
+      }
+    }
+    return tamanho;
+  }
+}
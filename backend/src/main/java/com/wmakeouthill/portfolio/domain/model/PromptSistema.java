@@ -0,0 +1,42 @@
+package com.wmakeouthill.portfolio.domain.model;
+
+/**
+ * System prompt separado em duas partes: um prefixo byte-estável (prompt base +
+ * passagens sempre incluídas, como currículo e stacks), idêntico entre
+ * requisições enquanto o conteúdo não muda, e a parte variável da pergunta
+ * (contexto recuperado, projetos mencionados). O prefixo pode ser registrado
+ * uma vez no provedor como cache de contexto e apenas referenciado nas
+ * chamadas seguintes.
+ *
+ * @param prefixoEstavel início do prompt que não depende da mensagem
+ * @param variavel       restante do prompt, montado por requisição
+ */
+public record PromptSistema(String prefixoEstavel, String variavel) {
+
+  public PromptSistema {
+    prefixoEstavel = prefixoEstavel == null ? "" : prefixoEstavel;
+    variavel = variavel == null ? "" : variavel;
+  }
+
+  /**
+   * Reconstrói a divisão de um prompt completo (ex.: depois de reduzido pelo
+   * orçamento de tokens): se ele ainda começa com o prefixo, o prefixo é
+   * preservado; senão o prompt inteiro vira parte variável.
+   */
+  public static PromptSistema dividir(String prefixoEstavel, String completo) {
+    String texto = completo == null ? "" : completo;
+    if (prefixoEstavel != null && !prefixoEstavel.isEmpty() && texto.startsWith(prefixoEstavel)) {
+      return new PromptSistema(prefixoEstavel, texto.substring(prefixoEstavel.length()));
+    }
+    return new PromptSistema("", texto);
+  }
+
+  public boolean temPrefixo() {
+    return !prefixoEstavel.isEmpty();
+  }
+
+  /** Prompt inteiro, para provedores sem cache de contexto. */
+  public String completo() {
+    return prefixoEstavel + variavel;
+  }
+}
@@ -0,0 +1,41 @@
+package com.wmakeouthill.portfolio.domain.port;
+
+import com.wmakeouthill.portfolio.domain.entity.MensagemChat;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Porta de domínio para persistir o histórico do chat, permitindo que um
+ * restart (deploy) continue as conversas em andamento em vez de obrigar o
+ * usuário a reenviar o contexto.
+ *
+ * Falhas de escrita não devem propagar: a camada em memória continua sendo a
+ * fonte das respostas. Implementações concretas devem ficar na camada de
+ * infraestrutura.
+ */
+public interface HistoricoChatStorePort {
+
+  /**
+   * Lê as sessões gravadas que ainda não expiraram.
+   *
+   * @param maxMensagens quantas mensagens (as mais recentes) manter por sessão
+   * @return mensagens de cada sessão, da mais antiga para a mais recente
+   */
+  Map<String, List<MensagemChat>> carregar(int maxMensagens);
+
+  /**
+   * Acrescenta uma mensagem ao histórico persistido da sessão.
+   *
+   * @param sessionId identificador único da sessão/navegador
+   * @param mensagem  mensagem, já com os tokens contados
+   */
+  void registrar(String sessionId, MensagemChat mensagem);
+
+  /**
+   * Descarta o histórico persistido da sessão.
+   *
+   * @param sessionId identificador único da sessão/navegador
+   */
+  void removerSessao(String sessionId);
+}
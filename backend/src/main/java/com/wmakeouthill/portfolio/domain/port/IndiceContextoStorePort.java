@@ -0,0 +1,31 @@
+package com.wmakeouthill.portfolio.domain.port;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+/**
+ * Porta de domínio para persistir o snapshot binário do índice de contextos da
+ * IA, permitindo que um restart volte a servir contexto sem depender do GitHub.
+ *
+ * Implementações concretas devem ficar na camada de infraestrutura.
+ */
+public interface IndiceContextoStorePort {
+
+  /**
+   * Lê o último snapshot gravado para o idioma.
+   *
+   * @param idioma código de idioma ("pt" | "en")
+   * @return bytes do snapshot (possivelmente um arquivo mapeado em memória), ou
+   *         vazio se não houver snapshot utilizável
+   */
+  Optional<ByteBuffer> carregar(String idioma);
+
+  /**
+   * Substitui o snapshot do idioma. Falhas de escrita não devem propagar: o
+   * snapshot é só uma otimização de inicialização.
+   *
+   * @param idioma   código de idioma ("pt" | "en")
+   * @param conteudo bytes do snapshot
+   */
+  void salvar(String idioma, byte[] conteudo);
+}
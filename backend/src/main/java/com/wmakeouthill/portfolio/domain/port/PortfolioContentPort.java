@@ -3,6 +3,7 @@ package com.wmakeouthill.portfolio.domain.port;
 import com.wmakeouthill.portfolio.domain.model.PortfolioMarkdownResource;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -39,6 +40,27 @@ public interface PortfolioContentPort {
     return carregarMarkdownsDetalhados();
   }
 
+  /**
+   * Versão incremental de {@link #carregarMarkdownsDetalhados(String)}: para cada
+   * documento cujo {@code sha} não mudou em relação ao recurso já conhecido
+   * (mesmo caminho), a implementação pode devolver o próprio recurso conhecido
+   * sem baixar o conteúdo de novo.
+   *
+   * <p>
+   * É a variante usada pelo índice de contexto, que divide cada documento em
+   * passagens: devolve o conteúdo integral, enquanto as demais podem cortar
+   * arquivos longos.
+   * </p>
+   *
+   * @param language             código de idioma (ex.: "pt", "en")
+   * @param conhecidosPorCaminho recursos da carga anterior, indexados por
+   *                             {@link PortfolioMarkdownResource#caminho()}
+   */
+  default List<PortfolioMarkdownResource> carregarMarkdownsDetalhados(String language,
+      Map<String, PortfolioMarkdownResource> conhecidosPorCaminho) {
+    return carregarMarkdownsDetalhados(language);
+  }
+
   /**
    * Carrega o markdown associado a um projeto específico, identificado por um
    * nome
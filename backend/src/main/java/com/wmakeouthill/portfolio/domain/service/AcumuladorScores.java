@@ -0,0 +1,79 @@
+package com.wmakeouthill.portfolio.domain.service;
+
+/**
+ * Acumuladores de uma consulta (score BM25, cobertura, matches de tag),
+ * indexados pelo id do documento, e as seleções de top-k dos dois estágios do
+ * ranking, reaproveitados entre as consultas da mesma thread.
+ *
+ * <p>
+ * Cada documento tocado pela consulta é anotado em {@link #tocados} e só esses
+ * são zerados em {@link #limpar()}: o custo por consulta segue o número de
+ * postings lidos, não o tamanho do corpus. Os arrays crescem quando aparece um
+ * snapshot maior e nunca encolhem; snapshots e idiomas diferentes dividem o
+ * mesmo acumulador, já que ele sempre volta zerado. Além do resultado, a
+ * consulta só aloca o que é proporcional aos candidatos.
+ * </p>
+ */
+final class AcumuladorScores {
+
+  private static final ThreadLocal<AcumuladorScores> POR_THREAD = ThreadLocal.withInitial(AcumuladorScores::new);
+
+  double[] scores = new double[0];
+  int[] cobertura = new int[0];
+  int[] matchesTag = new int[0];
+  /** Último token da consulta (1-based) que somou cobertura ao documento. */
+  int[] ultimoToken = new int[0];
+  int[] tocados = new int[0];
+  int qtdTocados;
+  /** Candidatos lexicais (heap sobre {@link #scores}). */
+  final SelecaoTopK candidatos = new SelecaoTopK(0, null);
+  /** Seleção final do re-rank (heap sobre {@link #combinados}). */
+  final SelecaoTopK finais = new SelecaoTopK(0, null);
+  /** Score combinado do re-rank, por posição do candidato. */
+  private double[] combinados = new double[0];
+
+  /** Acumulador zerado da thread atual, com espaço para {@code totalDocumentos}. */
+  static AcumuladorScores daThread(int totalDocumentos) {
+    AcumuladorScores acumulador = POR_THREAD.get();
+    acumulador.garantirCapacidade(totalDocumentos);
+    return acumulador;
+  }
+
+  /** Scores combinados do re-rank com espaço para {@code qtdCandidatos}; o conteúdo anterior não é zerado. */
+  double[] combinados(int qtdCandidatos) {
+    if (combinados.length < qtdCandidatos) {
+      combinados = new double[qtdCandidatos];
+    }
+    return combinados;
+  }
+
+  /** Anota {@code doc} como tocado; chamar antes de somar qualquer coisa nele. */
+  void tocar(int doc) {
+    if (cobertura[doc] == 0 && matchesTag[doc] == 0) {
+      tocados[qtdTocados++] = doc;
+    }
+  }
+
+  /** Zera só as posições tocadas desde a última limpeza. */
+  void limpar() {
+    for (int i = 0; i < qtdTocados; i++) {
+      int doc = tocados[i];
+      scores[doc] = 0;
+      cobertura[doc] = 0;
+      matchesTag[doc] = 0;
+      ultimoToken[doc] = 0;
+    }
+    qtdTocados = 0;
+  }
+
+  private void garantirCapacidade(int totalDocumentos) {
+    if (scores.length >= totalDocumentos) {
+      return;
+    }
+    scores = new double[totalDocumentos];
+    cobertura = new int[totalDocumentos];
+    matchesTag = new int[totalDocumentos];
+    ultimoToken = new int[totalDocumentos];
+    tocados = new int[totalDocumentos];
+  }
+}
@@ -0,0 +1,259 @@
+package com.wmakeouthill.portfolio.domain.service;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Keywords de todos os projetos compiladas uma única vez por recarga, para que
+ * detectar projetos numa mensagem seja uma passada linear sobre o texto,
+ * independente de quantos projetos existam.
+ *
+ * <p>
+ * Três camadas, com a mesma semântica da comparação keyword a keyword:
+ * </p>
+ * <ul>
+ * <li>autômato de Aho-Corasick com todas as keywords normalizadas: casa
+ * qualquer keyword que apareça como substring da mensagem;</li>
+ * <li>mapa stem → projetos: casa palavras da mensagem com o mesmo stem de uma
+ * keyword (plural, "-es");</li>
+ * <li>dicionário de deleções ({@link IndiceSimilaridade}) sobre os stems das
+ * keywords: typos a até {@value #DISTANCIA_MAXIMA} edições.</li>
+ * </ul>
+ *
+ * <p>
+ * Imutável: a recarga compila um novo autômato e troca a referência.
+ * </p>
+ */
+final class AutomatoKeywords {
+
+  private static final int DISTANCIA_MAXIMA = 2;
+  private static final int[] NENHUM = new int[0];
+
+  static final AutomatoKeywords VAZIO = compilar(Map.of());
+
+  /** Nomes dos projetos; as saídas do autômato são índices neste array. */
+  private final String[] projetos;
+  private final Set<String> nomesProjetos;
+
+  /** Transições do nó: rótulos ordenados e nó de destino de cada um. */
+  private final char[][] rotulos;
+  private final int[][] destinos;
+  private final int[] falha;
+  /** Projetos cujas keywords terminam neste nó (incluindo via links de falha). */
+  private final int[][] saidas;
+
+  private final Map<String, int[]> projetosPorStem;
+  private final IndiceSimilaridade similaridade;
+
+  private AutomatoKeywords(String[] projetos, char[][] rotulos, int[][] destinos, int[] falha,
+      int[][] saidas, Map<String, int[]> projetosPorStem, IndiceSimilaridade similaridade) {
+    this.projetos = projetos;
+    this.nomesProjetos = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(projetos)));
+    this.rotulos = rotulos;
+    this.destinos = destinos;
+    this.falha = falha;
+    this.saidas = saidas;
+    this.projetosPorStem = projetosPorStem;
+    this.similaridade = similaridade;
+  }
+
+  /**
+   * Compila as keywords de cada projeto (nome → keywords, em qualquer caixa ou
+   * acentuação). Keywords vazias são ignoradas.
+   */
+  static AutomatoKeywords compilar(Map<String, List<String>> keywordsPorProjeto) {
+    String[] projetos = new TreeMap<>(keywordsPorProjeto).keySet().toArray(String[]::new);
+    List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+    List<Set<Integer>> proprias = new ArrayList<>();
+    trie.add(new TreeMap<>());
+    proprias.add(new LinkedHashSet<>());
+    Map<String, Set<Integer>> porStem = new HashMap<>();
+
+    for (int projeto = 0; projeto < projetos.length; projeto++) {
+      for (String keyword : keywordsPorProjeto.get(projetos[projeto])) {
+        String normalizada = keyword == null ? "" : normalizar(keyword);
+        if (normalizada.isEmpty()) {
+          continue;
+        }
+        int no = 0;
+        for (int i = 0; i < normalizada.length(); i++) {
+          Integer proximo = trie.get(no).get(normalizada.charAt(i));
+          if (proximo == null) {
+            proximo = trie.size();
+            trie.get(no).put(normalizada.charAt(i), proximo);
+            trie.add(new TreeMap<>());
+            proprias.add(new LinkedHashSet<>());
+          }
+          no = proximo;
+        }
+        proprias.get(no).add(projeto);
+        porStem.computeIfAbsent(stem(normalizada), s -> new LinkedHashSet<>()).add(projeto);
+      }
+    }
+
+    int nos = trie.size();
+    char[][] rotulos = new char[nos][];
+    int[][] destinos = new int[nos][];
+    for (int no = 0; no < nos; no++) {
+      TreeMap<Character, Integer> filhos = trie.get(no);
+      rotulos[no] = new char[filhos.size()];
+      destinos[no] = new int[filhos.size()];
+      int i = 0;
+      for (Map.Entry<Character, Integer> filho : filhos.entrySet()) {
+        rotulos[no][i] = filho.getKey();
+        destinos[no][i] = filho.getValue();
+        i++;
+      }
+    }
+
+    // Links de falha em largura: o sufixo próprio mais longo que também é
+    // prefixo de alguma keyword. As saídas herdam as do nó de falha.
+    int[] falha = new int[nos];
+    int[][] saidas = new int[nos][];
+    saidas[0] = paraArray(proprias.get(0));
+    ArrayDeque<Integer> fila = new ArrayDeque<>();
+    for (int filho : destinos[0]) {
+      falha[filho] = 0;
+      saidas[filho] = paraArray(proprias.get(filho));
+      fila.add(filho);
+    }
+    while (!fila.isEmpty()) {
+      int no = fila.poll();
+      for (int i = 0; i < rotulos[no].length; i++) {
+        char c = rotulos[no][i];
+        int filho = destinos[no][i];
+        int f = falha[no];
+        while (f != 0 && transicao(rotulos, destinos, f, c) < 0) {
+          f = falha[f];
+        }
+        int alvo = transicao(rotulos, destinos, f, c);
+        falha[filho] = alvo >= 0 ? alvo : 0;
+        Set<Integer> uniao = new LinkedHashSet<>(proprias.get(filho));
+        for (int herdada : saidas[falha[filho]]) {
+          uniao.add(herdada);
+        }
+        saidas[filho] = paraArray(uniao);
+        fila.add(filho);
+      }
+    }
+
+    Map<String, int[]> projetosPorStem = new HashMap<>(porStem.size() * 2);
+    porStem.forEach((stem, ids) -> projetosPorStem.put(stem, paraArray(ids)));
+    return new AutomatoKeywords(projetos, rotulos, destinos, falha, saidas, Map.copyOf(projetosPorStem),
+        IndiceSimilaridade.construir(projetosPorStem.keySet(), DISTANCIA_MAXIMA));
+  }
+
+  /** Nomes de todos os projetos compilados. */
+  Set<String> projetos() {
+    return nomesProjetos;
+  }
+
+  /**
+   * Projetos cujas keywords aparecem na mensagem (substring), têm o mesmo stem
+   * de uma palavra dela ou estão a poucas edições de uma palavra dela.
+   */
+  Set<String> detectar(String mensagem) {
+    if (mensagem == null || mensagem.isBlank() || projetos.length == 0) {
+      return Set.of();
+    }
+    String texto = normalizar(mensagem);
+    boolean[] encontrados = new boolean[projetos.length];
+    Set<String> stems = new LinkedHashSet<>();
+
+    int estado = 0;
+    int inicioPalavra = -1;
+    for (int i = 0; i <= texto.length(); i++) {
+      char c = i < texto.length() ? texto.charAt(i) : ' ';
+      if (i < texto.length()) {
+        int proximo;
+        while ((proximo = transicao(rotulos, destinos, estado, c)) < 0 && estado != 0) {
+          estado = falha[estado];
+        }
+        estado = Math.max(proximo, 0);
+        for (int projeto : saidas[estado]) {
+          encontrados[projeto] = true;
+        }
+      }
+      if (ehCaractereDePalavra(c)) {
+        if (inicioPalavra < 0) {
+          inicioPalavra = i;
+        }
+      } else if (inicioPalavra >= 0) {
+        if (i - inicioPalavra > 2) {
+          stems.add(stem(texto.substring(inicioPalavra, i)));
+        }
+        inicioPalavra = -1;
+      }
+    }
+
+    for (String stem : stems) {
+      marcar(projetosPorStem.get(stem), encontrados);
+      for (String similar : similaridade.similares(stem)) {
+        marcar(projetosPorStem.get(similar), encontrados);
+      }
+    }
+
+    Set<String> detectados = new LinkedHashSet<>();
+    for (int projeto = 0; projeto < projetos.length; projeto++) {
+      if (encontrados[projeto]) {
+        detectados.add(projetos[projeto]);
+      }
+    }
+    return detectados;
+  }
+
+  /** Minúsculas, sem acentos (NFD sem marcas combinantes) e sem espaços nas pontas. */
+  static String normalizar(String texto) {
+    return Normalizer.normalize(texto, Normalizer.Form.NFD)
+        .replaceAll("\\p{M}", "")
+        .toLowerCase(Locale.ROOT)
+        .trim();
+  }
+
+  /** Stem leve para texto já normalizado: remove "-es" ou "-s" finais. */
+  static String stem(String palavra) {
+    if (palavra.length() <= 3) {
+      return palavra;
+    }
+    if (palavra.endsWith("es")) {
+      return palavra.substring(0, palavra.length() - 2);
+    }
+    if (palavra.endsWith("s")) {
+      return palavra.substring(0, palavra.length() - 1);
+    }
+    return palavra;
+  }
+
+  private static int transicao(char[][] rotulos, int[][] destinos, int no, char c) {
+    int posicao = Arrays.binarySearch(rotulos[no], c);
+    return posicao >= 0 ? destinos[no][posicao] : -1;
+  }
+
+  /** Mesmo critério do {@code \w} de regex: letra ou dígito ASCII e sublinhado. */
+  private static boolean ehCaractereDePalavra(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+  }
+
+  private static void marcar(int[] ids, boolean[] encontrados) {
+    if (ids == null) {
+      return;
+    }
+    for (int id : ids) {
+      encontrados[id] = true;
+    }
+  }
+
+  private static int[] paraArray(Set<Integer> ids) {
+    return ids.isEmpty() ? NENHUM : ids.stream().mapToInt(Integer::intValue).toArray();
+  }
+}
@@ -0,0 +1,14 @@
+package com.wmakeouthill.portfolio.domain.service;
+
+/**
+ * Passagem indexada pronta para o prompt (já com o cabeçalho 「nome」 do
+ * documento), com seu custo em tokens pré-calculado e os metadados do
+ * documento de origem usados no fallback.
+ */
+record ContextChunk(
+    String id,
+    String conteudo,
+    int tokens,
+    boolean projeto,
+    boolean preferencialFallback) {
+}
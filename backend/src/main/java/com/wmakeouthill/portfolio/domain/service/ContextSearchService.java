@@ -1,32 +1,57 @@
 package com.wmakeouthill.portfolio.domain.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wmakeouthill.portfolio.domain.model.PassagemContexto;
 import com.wmakeouthill.portfolio.domain.model.PortfolioMarkdownResource;
+import com.wmakeouthill.portfolio.domain.port.IndiceContextoStorePort;
 import com.wmakeouthill.portfolio.domain.port.PortfolioContentPort;
 import com.wmakeouthill.portfolio.infrastructure.utils.TokenCounter;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.text.Normalizer;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.function.Predicate;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ContextSearchService {
 
-  private static final int MAX_FALLBACK = 5;
   private static final double MIN_SCORE = 0.4;
+  /** Peso (sobre o BM25) de um termo que só casou por similaridade (typo). */
+  private static final double PESO_SIMILAR = 0.5;
+  /** Candidatos lexicais por passagem pedida que seguem para o re-rank por cosseno. */
+  private static final int FATOR_CANDIDATOS = 3;
+  private static final int MAX_CANDIDATOS = 90;
+  /** Peso do cosseno TF-IDF somado ao score lexical normalizado (0..1) no re-rank. */
+  private static final double PESO_COSSENO = 0.5;
+  private static final int[] SEM_CHUNKS = new int[0];
 
-  private static final Set<String> STOPWORDS = Set.of(
+  /** Já na forma stemizada, para casar com o termo que sai do {@link Tokenizador}. */
+  private static final DicionarioTermos STOPWORDS = DicionarioTermos.de(Stream.of(
       // PT - preposições, artigos, pronomes, conjunções (só as com >2 chars que passam no filtro)
       "dos", "das", "nos", "nas", "uns", "uma", "umas", "que", "por",
       "para", "com", "sem", "ate", "sob", "lhe", "vos", "lhes", "seu",
@@ -37,188 +62,490 @@ public class ContextSearchService {
       "had", "does", "did", "will", "can", "your", "his", "her", "its",
       "our", "their", "from", "with", "this", "that", "they", "them",
       "not", "but", "what", "who", "how", "about"
-  );
+  ).map(Tokenizador::normalizarTermo).distinct().toList());
 
   private static final long CACHE_TTL_MS = 30 * 60 * 1000; // 30 minutos
+  private static final int MAX_CONSULTAS_EM_CACHE = 500;
 
   private final PortfolioContentPort portfolioContentPort;
   private final MarkdownPassageSplitter passageSplitter;
+  private final IndiceContextoStorePort indiceStore;
   private final TokenCounter tokenCounter = TokenCounter.getInstance();
 
-  private final List<ContextChunk> contextChunks = new ArrayList<>();
-  private final List<ContextChunk> fallbackChunks = new ArrayList<>();
-  private volatile long ultimoCarregamento = 0;
-  private String idiomaAtual = "pt";
+  /**
+   * Snapshot imutável do índice por idioma. Leitores só fazem {@code get()} e
+   * nunca bloqueiam; a recarga monta um snapshot novo fora da thread da
+   * requisição e publica com uma troca atômica da referência.
+   */
+  private final Map<String, AtomicReference<IndiceBusca>> indicesPorIdioma = Map.of(
+      "pt", new AtomicReference<>(),
+      "en", new AtomicReference<>());
+
+  /** Recarga em andamento por idioma, para não reconstruir o mesmo índice em paralelo. */
+  private final Map<String, CompletableFuture<IndiceBusca>> recargasEmAndamento = new ConcurrentHashMap<>();
+
+  /**
+   * Resultado de buscas recentes. A chave carrega a versão do snapshot, então um
+   * índice novo nunca serve resultado do anterior; a publicação ainda limpa o
+   * cache para liberar memória.
+   */
+  private final Cache<String, List<PassagemContexto>> consultasEmCache = Caffeine.newBuilder()
+      .maximumSize(MAX_CONSULTAS_EM_CACHE)
+      .expireAfterWrite(Duration.ofMillis(CACHE_TTL_MS))
+      .build();
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+    Thread t = new Thread(r, "context-index");
+    t.setDaemon(true);
+    return t;
+  });
 
+  /**
+   * Publica na hora o snapshot gravado em disco (se houver) e agenda a
+   * revalidação contra o GitHub em background: o boot não depende do GitHub e,
+   * após um restart, o contexto já está pronto antes da primeira requisição.
+   */
   @PostConstruct
   void carregarContextos() {
-    recarregarContextos("pt");
+    indicesPorIdioma.keySet().forEach(idioma -> {
+      restaurarSnapshot(idioma);
+      agendarRecarga(idioma);
+    });
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Reconstrói o índice do idioma a partir do repositório GitHub e aguarda a
+   * publicação. Buscas concorrentes seguem servindo o snapshot anterior.
+   */
+  public void recarregarContextos(String language) {
+    aguardar(agendarRecarga(normalizarIdioma(language)), normalizarIdioma(language));
+  }
+
+  /**
+   * Agenda a reconstrução dos índices de todos os idiomas. Até o snapshot novo
+   * ficar pronto, o atual continua atendendo as buscas.
+   */
+  public void invalidarCache() {
+    indicesPorIdioma.keySet().forEach(this::agendarRecarga);
+    log.info("Cache de contextos da IA invalidado; reconstrução agendada em background");
+  }
+
+  /**
+   * Metadados (sem o conteúdo bruto) dos documentos do snapshot publicado do
+   * idioma; vazio se o índice ainda não foi carregado. Não dispara carga.
+   */
+  public List<PortfolioMarkdownResource> recursosIndexados(String language) {
+    IndiceBusca atual = indicesPorIdioma.get(normalizarIdioma(language)).get();
+    if (atual == null) {
+      return List.of();
+    }
+    return atual.segmentos().values().stream().map(SegmentoDocumento::recurso).toList();
+  }
+
+  /**
+   * Passagens do documento com esse nome (ex.: um projeto mencionado no chat),
+   * exatamente como foram fatiadas na indexação. Em inglês, sem versão traduzida
+   * indexada, cai para a versão em português. Vazio se o documento não está no
+   * índice.
+   */
+  public Optional<List<PassagemContexto>> passagensDoDocumento(String nome, String language) {
+    String idioma = normalizarIdioma(language);
+    Optional<List<PassagemContexto>> passagens = obterIndice(idioma).passagens().porNome(nome);
+    if (passagens.isEmpty() && !"pt".equals(idioma)) {
+      return obterIndice("pt").passagens().porNome(nome);
+    }
+    return passagens;
+  }
+
+  /**
+   * Passagens dos documentos preferenciais (currículo, stacks) no idioma, com
+   * fallback para pt. Não dependem da pergunta, então formam o prefixo estável
+   * do system prompt.
+   */
+  public List<PassagemContexto> passagensFixas(String language) {
+    String idioma = normalizarIdioma(language);
+    List<PassagemContexto> fixas = obterIndice(idioma).passagens().preferenciais();
+    if (fixas.isEmpty() && !"pt".equals(idioma)) {
+      return obterIndice("pt").passagens().preferenciais();
+    }
+    return fixas;
   }
 
   /**
-   * Recarrega os contextos do repositório GitHub.
-   * Chamado automaticamente se o cache expirou.
+   * Versão do snapshot pt usado como fallback por {@link #passagensDoDocumento}
+   * e {@link #passagensFixas} em outros idiomas, para chaves de cache de quem
+   * guarda o resultado montado com essas passagens. Vazio em pt, cuja versão já
+   * está na {@link #chaveNormalizada chave normalizada}.
    */
-  public synchronized void recarregarContextos(String language) {
+  public String versaoFallback(String language) {
     String idioma = normalizarIdioma(language);
+    return "pt".equals(idioma) ? "" : "pt#" + obterIndice("pt").versao();
+  }
+
+  private void restaurarSnapshot(String idioma) {
+    long inicio = System.nanoTime();
+    try {
+      indiceStore.carregar(idioma).ifPresent(bytes -> {
+        IndiceBusca restaurado = IndiceBuscaCodec.decodificar(bytes);
+        indicesPorIdioma.get(idioma).compareAndSet(null, restaurado);
+        log.info("Snapshot de contextos restaurado do disco (lang={}): {} chunks em {} ms",
+            idioma, restaurado.chunks().size(), (System.nanoTime() - inicio) / 1_000_000);
+      });
+    } catch (RuntimeException e) {
+      // Snapshot corrompido ou de outra versão: descarta e segue com a carga do GitHub.
+      log.warn("Snapshot de contextos em disco ignorado (lang={}): {}", idioma, e.toString());
+    }
+  }
+
+  private void persistirSnapshot(String idioma, IndiceBusca indice) {
+    try {
+      indiceStore.salvar(idioma, IndiceBuscaCodec.codificar(indice));
+    } catch (RuntimeException e) {
+      log.warn("Falha ao persistir snapshot de contextos (lang={}): {}", idioma, e.toString());
+    }
+  }
+
+  /**
+   * Devolve o snapshot publicado do idioma. Se o TTL expirou, agenda a recarga e
+   * segue com o snapshot antigo; só o primeiro uso de um idioma (ainda sem
+   * snapshot) espera a construção inicial.
+   */
+  private IndiceBusca obterIndice(String idioma) {
+    IndiceBusca atual = indicesPorIdioma.get(idioma).get();
+    if (atual == null) {
+      return aguardar(agendarRecarga(idioma), idioma);
+    }
+    if (System.currentTimeMillis() - atual.carregadoEm() > CACHE_TTL_MS) {
+      log.debug("Índice de contextos expirado (lang={}), recarregando em background...", idioma);
+      agendarRecarga(idioma);
+    }
+    return atual;
+  }
+
+  private CompletableFuture<IndiceBusca> agendarRecarga(String idioma) {
+    CompletableFuture<IndiceBusca> nova = new CompletableFuture<>();
+    CompletableFuture<IndiceBusca> existente = recargasEmAndamento.putIfAbsent(idioma, nova);
+    if (existente != null) {
+      return existente;
+    }
+    try {
+      executor.execute(() -> executarRecarga(idioma, nova));
+    } catch (RejectedExecutionException e) {
+      recargasEmAndamento.remove(idioma, nova);
+      nova.completeExceptionally(e);
+    }
+    return nova;
+  }
+
+  private void executarRecarga(String idioma, CompletableFuture<IndiceBusca> resultado) {
+    try {
+      IndiceBusca anterior = indicesPorIdioma.get(idioma).get();
+      IndiceBusca novo = construirIndice(idioma, anterior);
+      if (novo.chunks().isEmpty() && anterior != null && !anterior.chunks().isEmpty()) {
+        // GitHub indisponível costuma devolver lista vazia: mantém o snapshot bom
+        // e só renova o carimbo, para não tentar de novo a cada requisição.
+        log.warn("Recarga de contextos (lang={}) não trouxe passagens; mantendo snapshot anterior", idioma);
+        novo = anterior.renovado();
+      }
+      indicesPorIdioma.get(idioma).set(novo);
+      if (anterior == null || novo.versao() != anterior.versao()) {
+        consultasEmCache.invalidateAll();
+      }
+      resultado.complete(novo);
+      if (!novo.chunks().isEmpty() && (anterior == null || novo.indice() != anterior.indice())) {
+        persistirSnapshot(idioma, novo);
+      }
+    } catch (RuntimeException e) {
+      log.error("Falha ao reconstruir índice de contextos (lang={})", idioma, e);
+      resultado.completeExceptionally(e);
+    } finally {
+      recargasEmAndamento.remove(idioma, resultado);
+    }
+  }
+
+  private IndiceBusca aguardar(CompletableFuture<IndiceBusca> recarga, String idioma) {
+    try {
+      return recarga.join();
+    } catch (CompletionException | CancellationException e) {
+      IndiceBusca atual = indicesPorIdioma.get(idioma).get();
+      return atual != null ? atual : IndiceBusca.VAZIO;
+    }
+  }
+
+  /**
+   * Monta um snapshot novo do idioma. Documentos cujo sha não mudou desde o
+   * snapshot anterior reaproveitam o segmento já fatiado e stemizado (e nem são
+   * baixados de novo); só os novos/alterados passam pelo split + stemming. O
+   * índice global é então remontado juntando os segmentos.
+   */
+  private IndiceBusca construirIndice(String idioma, IndiceBusca anterior) {
     log.info("Recarregando contextos do repositório GitHub (lang={})...", idioma);
-    List<PortfolioMarkdownResource> recursos = portfolioContentPort.carregarMarkdownsDetalhados(idioma);
-    contextChunks.clear();
-    int indice = 0;
+    Map<String, SegmentoDocumento> segmentosAnteriores = anterior == null ? Map.of() : anterior.segmentos();
+    Map<String, PortfolioMarkdownResource> conhecidos = new HashMap<>();
+    segmentosAnteriores.forEach((caminho, segmento) -> conhecidos.put(caminho, segmento.recurso()));
+
+    List<PortfolioMarkdownResource> recursos = portfolioContentPort.carregarMarkdownsDetalhados(idioma, conhecidos);
+    Map<String, SegmentoDocumento> segmentos = new LinkedHashMap<>();
+    DicionarioTermos termosDaCarga = new DicionarioTermos(4096);
+    int reaproveitados = 0;
     for (PortfolioMarkdownResource recurso : recursos) {
-      Set<String> tagStems = normalizarTags(recurso.tags());
-      // Fatiar cada documento em passagens: a busca recupera só os trechos
-      // relevantes, em vez do arquivo inteiro (que inflava o prompt a ~70k tokens).
-      for (String passagem : passageSplitter.dividir(recurso.conteudo())) {
-        String conteudo = "「" + recurso.nome() + "」\n" + passagem;
-        contextChunks.add(new ContextChunk(
-            recurso.nome() + "-" + indice++,
-            conteudo,
-            extrairStems(passagem),
-            recurso.projeto(),
-            recurso.preferencialFallback(),
-            tagStems));
+      String chave = chaveVersao(recurso);
+      SegmentoDocumento existente = segmentosAnteriores.get(recurso.caminho());
+      if (existente != null && existente.chave().equals(chave)) {
+        segmentos.put(recurso.caminho(), existente);
+        reaproveitados++;
+      } else {
+        segmentos.put(recurso.caminho(), segmentar(recurso, chave, termosDaCarga));
       }
     }
-    atualizarFallback();
-    ultimoCarregamento = System.currentTimeMillis();
-    idiomaAtual = idioma;
-    log.info("Contextos recarregados: {} chunks disponíveis", contextChunks.size());
+
+    if (anterior != null && reaproveitados == segmentos.size()
+        && segmentos.keySet().equals(segmentosAnteriores.keySet())) {
+      log.info("Contextos inalterados (lang={}): {} documentos com o mesmo sha", idioma, segmentos.size());
+      return anterior.renovado();
+    }
+
+    IndiceBusca indice = IndiceBusca.montar(segmentos, System.currentTimeMillis());
+    log.info("Contextos recarregados (lang={}): {} chunks disponíveis ({} de {} documentos reaproveitados)",
+        idioma, indice.chunks().size(), reaproveitados, segmentos.size());
+    return indice;
   }
 
   /**
-   * Verifica se o cache expirou e recarrega se necessário.
+   * Fatiar um documento em passagens e extrair os termos de cada uma: a busca
+   * recupera só os trechos relevantes, em vez do arquivo inteiro (que inflava o
+   * prompt a ~70k tokens). Os termos saem do {@link Tokenizador} já internados
+   * em {@code termosDaCarga}: cada termo distinto vira uma única String. A
+   * tokenização lê as passagens direto do documento, pelos offsets do splitter.
    */
-  public synchronized void invalidarCache() {
-    contextChunks.clear();
-    fallbackChunks.clear();
-    ultimoCarregamento = 0;
-    log.info("Cache de contextos da IA invalidado");
+  private SegmentoDocumento segmentar(PortfolioMarkdownResource recurso, String chave,
+      DicionarioTermos termosDaCarga) {
+    List<String> conteudos = new ArrayList<>();
+    List<List<String>> termos = new ArrayList<>();
+    String documento = recurso.conteudo();
+    String rotulo = "「" + recurso.nome() + "」\n";
+    for (MarkdownPassageSplitter.Passagem passagem : passageSplitter.delimitar(documento)) {
+      StringBuilder conteudo = new StringBuilder(rotulo.length() + passagem.tamanho()).append(rotulo);
+      passagem.anexarEm(conteudo, documento);
+      conteudos.add(conteudo.toString());
+      List<String> termosPassagem = new ArrayList<>();
+      Tokenizador.Consumidor coletor = (termo, tamanho) ->
+          termosPassagem.add(termosDaCarga.termo(termosDaCarga.internar(termo, tamanho)));
+      Tokenizador.tokenizar(passagem.cabecalho(documento), coletor);
+      Tokenizador.tokenizar(passagem.corpo(documento), coletor);
+      termos.add(List.copyOf(termosPassagem));
+    }
+    int[] tokens = conteudos.stream().mapToInt(tokenCounter::estimarTokens).toArray();
+    return new SegmentoDocumento(recurso, chave, List.copyOf(conteudos), tokens, List.copyOf(termos),
+        normalizarTags(recurso.tags()));
   }
 
-  private void verificarCacheExpirado(String idioma) {
-    String idiomaNorm = normalizarIdioma(idioma);
-    if (!idiomaNorm.equals(idiomaAtual) || System.currentTimeMillis() - ultimoCarregamento > CACHE_TTL_MS) {
-      log.debug("Cache de contextos expirado ou idioma mudou ({} -> {}), recarregando...", idiomaAtual, idiomaNorm);
-      recarregarContextos(idiomaNorm);
+  /** Versão do documento: o blob sha quando a fonte fornece, senão um hash do conteúdo. */
+  private String chaveVersao(PortfolioMarkdownResource recurso) {
+    if (recurso.sha() != null && !recurso.sha().isBlank()) {
+      return recurso.sha();
     }
+    String conteudo = recurso.conteudo() == null ? "" : recurso.conteudo();
+    return "len" + conteudo.length() + "-" + Integer.toHexString(conteudo.hashCode());
   }
 
   /**
    * Recupera as passagens mais relevantes para a mensagem, respeitando dois
    * limites: número máximo de passagens e teto de tokens acumulados. Garante ao
    * menos a passagem mais relevante quando há match (mesmo que ela sozinha
-   * exceda o orçamento), para nunca devolver contexto vazio à toa.
+   * exceda o orçamento), para nunca devolver contexto vazio à toa. Perguntas
+   * repetidas (mesma {@link #chaveNormalizada chave normalizada}, teto e
+   * orçamento) são servidas do cache sem passar pelo ranking.
    *
    * @param mensagem        pergunta do usuário
    * @param maxPassagens    teto de passagens
    * @param orcamentoTokens teto de tokens estimados acumulados
    * @param language        idioma ("pt" | "en")
    */
-  public List<String> buscarContextos(String mensagem, int maxPassagens, int orcamentoTokens, String language) {
-    // Verifica se precisa recarregar contextos
-    verificarCacheExpirado(language);
+  public List<PassagemContexto> buscarContextos(String mensagem, int maxPassagens, int orcamentoTokens,
+      String language) {
+    String idioma = normalizarIdioma(language);
+    IndiceBusca busca = obterIndice(idioma);
+    String chave = chaveNormalizada(mensagem, idioma, busca) + "|" + maxPassagens + "|" + orcamentoTokens;
+    return consultasEmCache.get(chave, c -> buscarNoIndice(busca, mensagem, maxPassagens, orcamentoTokens));
+  }
 
-    List<String> tokens = tokenizar(mensagem);
+  /**
+   * Forma canônica de uma mensagem para chaves de cache: idioma, versão do
+   * snapshot publicado e os termos distintos (stemizados, sem stopwords) em
+   * ordem. Perguntas que só diferem em caixa, acento, pontuação, plural ou ordem
+   * das palavras geram a mesma chave.
+   */
+  public String chaveNormalizada(String mensagem, String language) {
+    String idioma = normalizarIdioma(language);
+    return chaveNormalizada(mensagem, idioma, obterIndice(idioma));
+  }
+
+  private String chaveNormalizada(String mensagem, String idioma, IndiceBusca busca) {
+    Set<String> termos = new TreeSet<>();
+    Tokenizador.tokenizar(mensagem, (termo, tamanho) -> {
+      if (STOPWORDS.id(termo, tamanho) < 0) {
+        termos.add(new String(termo, 0, tamanho));
+      }
+    });
+    return idioma + "#" + busca.versao() + ":" + String.join(",", termos);
+  }
+
+  private List<PassagemContexto> buscarNoIndice(IndiceBusca busca, String mensagem, int maxPassagens,
+      int orcamentoTokens) {
+    Consulta consulta = tokenizar(mensagem, busca.indice());
     List<ContextChunk> selecionados;
-    if (tokens.isEmpty()) {
-      selecionados = obterFallback();
+    if (consulta.vazia()) {
+      selecionados = busca.fallback();
     } else {
-      List<ContextChunk> ranqueados = ranquear(tokens);
-      selecionados = ranqueados.isEmpty() ? obterFallback() : ranqueados;
+      List<ContextChunk> ranqueados = ranquear(busca, consulta, maxPassagens);
+      selecionados = ranqueados.isEmpty() ? busca.fallback() : ranqueados;
     }
-    return limitarPorOrcamento(selecionados, maxPassagens, orcamentoTokens);
+    return List.copyOf(limitarPorOrcamento(selecionados, maxPassagens, orcamentoTokens));
   }
 
-  private List<ContextChunk> ranquear(List<String> tokens) {
-    return contextChunks.stream()
-        .map(chunk -> new ScoredChunk(chunk, calcularScore(chunk, tokens)))
-        .filter(pontuado -> pontuado.score >= MIN_SCORE)
-        .sorted(Comparator.comparingDouble(ScoredChunk::score).reversed())
-        .map(ScoredChunk::chunk)
-        .toList();
-  }
+  /**
+   * Pontua via índice invertido (BM25) apenas as passagens que compartilham ao
+   * menos um termo (exato, similar ou de tag) com a consulta. Tokens sem match
+   * exato são resolvidos uma única vez para seus vizinhos de typo pelo
+   * {@link IndiceSimilaridade}, e esses termos entram no mesmo lookup. A cobertura da
+   * consulta (2 por termo exato, 1 por termo similar) mantém o mesmo corte de
+   * relevância mínima de antes; o score lexical é BM25 + boost de tags. Os
+   * melhores candidatos lexicais (heap limitado) passam por um re-rank com o
+   * cosseno dos vetores TF-IDF, que devolve os {@code k} finais já em ordem.
+   * Os acumuladores por documento vêm do {@link AcumuladorScores} da thread e
+   * só as posições tocadas são zeradas no fim, sem alocar nada do tamanho do
+   * corpus por consulta.
+   */
+  private List<ContextChunk> ranquear(IndiceBusca busca, Consulta consulta, int k) {
+    List<ContextChunk> chunks = busca.chunks();
+    IndiceInvertido indiceAtual = busca.indice();
+    AcumuladorScores acumulador = AcumuladorScores.daThread(chunks.size());
+    double[] scores = acumulador.scores;
+    int[] cobertura = acumulador.cobertura;
+    int[] matchesTag = acumulador.matchesTag;
+    int[] ultimoToken = acumulador.ultimoToken;
 
-  private double calcularScore(ContextChunk chunk, List<String> tokens) {
-    double total = 0;
-    for (String token : tokens) {
-      if (chunk.stems.contains(token)) {
-        total += 2;
-        continue;
+    try {
+      for (int t = 0; t < consulta.total(); t++) {
+        int marcador = t + 1;
+        String token;
+        if (t < consulta.qtdIds()) {
+          int id = consulta.ids()[t];
+          token = indiceAtual.termo(id);
+          IndiceInvertido.Postings postings = indiceAtual.postings(id);
+          double idf = indiceAtual.idf(postings.tamanho());
+          for (int i = 0; i < postings.tamanho(); i++) {
+            int doc = postings.documentos()[i];
+            acumulador.tocar(doc);
+            scores[doc] += indiceAtual.pontuar(doc, postings.frequencias()[i], idf);
+            cobertura[doc] += 2;
+            ultimoToken[doc] = marcador;
+          }
+        } else {
+          token = consulta.desconhecidos().get(t - consulta.qtdIds());
+          for (String similar : busca.similaridade().similares(token)) {
+            IndiceInvertido.Postings postings = indiceAtual.postings(similar);
+            double idf = indiceAtual.idf(postings.tamanho());
+            for (int i = 0; i < postings.tamanho(); i++) {
+              int doc = postings.documentos()[i];
+              acumulador.tocar(doc);
+              scores[doc] += PESO_SIMILAR * indiceAtual.pontuar(doc, postings.frequencias()[i], idf);
+              if (ultimoToken[doc] != marcador) {
+                cobertura[doc] += 1;
+                ultimoToken[doc] = marcador;
+              }
+            }
+          }
+        }
+        for (int doc : busca.chunksPorTag().getOrDefault(token, SEM_CHUNKS)) {
+          acumulador.tocar(doc);
+          matchesTag[doc]++;
+        }
       }
-      if (temSimilaridade(token, chunk.stems)) {
-        total += 1;
+
+      int qtdCandidatos = Math.max(k, Math.min(MAX_CANDIDATOS, k * FATOR_CANDIDATOS));
+      SelecaoTopK selecao = acumulador.candidatos.reiniciar(qtdCandidatos, scores);
+      for (int i = 0; i < acumulador.qtdTocados; i++) {
+        int doc = acumulador.tocados[i];
+        double tagBoost = calcularTagBoost(matchesTag[doc]);
+        double relevancia = (double) cobertura[doc] / consulta.total() + tagBoost;
+        if (relevancia >= MIN_SCORE) {
+          scores[doc] += tagBoost;
+          selecao.oferecer(doc);
+        }
       }
+      int[] candidatos = selecao.ordenados();
+      int[] selecionados = candidatos.length <= 1
+          ? candidatos
+          : reordenarPorCosseno(busca, consulta, candidatos, scores, k, acumulador);
+      List<ContextChunk> resultado = new ArrayList<>(selecionados.length);
+      for (int doc : selecionados) {
+        resultado.add(chunks.get(doc));
+      }
+      return resultado;
+    } finally {
+      acumulador.limpar();
     }
-    double baseScore = total / tokens.size();
-    double tagBoost = calcularTagBoost(chunk, tokens);
-    return baseScore + tagBoost;
   }
 
-  private double calcularTagBoost(ContextChunk chunk, List<String> tokens) {
-    if (chunk.tagStems.isEmpty()) {
-      return 0;
-    }
-    long matches = tokens.stream()
-        .filter(chunk.tagStems::contains)
-        .count();
-    if (matches == 0) {
-      return 0;
+  /**
+   * Segundo estágio: combina o score lexical (normalizado pelo melhor candidato)
+   * com o cosseno entre os vetores TF-IDF da consulta e de cada candidato, e
+   * devolve os {@code k} melhores. Paráfrases que dividem radicais/trigramas
+   * com a pergunta sobem; o custo é proporcional ao número de candidatos.
+   */
+  private int[] reordenarPorCosseno(IndiceBusca busca, Consulta consulta, int[] candidatos, double[] scores,
+      int k, AcumuladorScores acumulador) {
+    VetoresPassagens vetores = busca.vetores();
+    List<String> termos = new ArrayList<>(consulta.total());
+    for (int i = 0; i < consulta.qtdIds(); i++) {
+      termos.add(busca.indice().termo(consulta.ids()[i]));
     }
-    return 1 + (matches - 1) * 0.25;
-  }
+    termos.addAll(consulta.desconhecidos());
+    float[] vetorConsulta = vetores.vetorConsulta(termos);
 
-  private boolean temSimilaridade(String token, Set<String> stems) {
-    Predicate<String> similar = stem -> {
-      int distancia = calcularLevenshtein(token, stem);
-      return distancia <= 2 && distancia < token.length();
-    };
-    return stems.stream().anyMatch(similar);
+    double melhorLexico = scores[candidatos[0]];
+    double[] combinados = acumulador.combinados(candidatos.length);
+    SelecaoTopK selecao = acumulador.finais.reiniciar(k, combinados);
+    for (int i = 0; i < candidatos.length; i++) {
+      int doc = candidatos[i];
+      double lexico = melhorLexico > 0 ? scores[doc] / melhorLexico : 0;
+      combinados[i] = lexico + PESO_COSSENO * vetores.cosseno(vetorConsulta, doc);
+      selecao.oferecer(i);
+    }
+    int[] posicoes = selecao.ordenados();
+    int[] selecionados = new int[posicoes.length];
+    for (int i = 0; i < posicoes.length; i++) {
+      selecionados[i] = candidatos[posicoes[i]];
+    }
+    return selecionados;
   }
 
-  private int calcularLevenshtein(String origem, String destino) {
-    if (origem.equals(destino)) {
+  private double calcularTagBoost(int matches) {
+    if (matches == 0) {
       return 0;
     }
-    int[] custos = new int[destino.length() + 1];
-    for (int j = 0; j <= destino.length(); j++) {
-      custos[j] = j;
-    }
-    for (int i = 1; i <= origem.length(); i++) {
-      int prev = i - 1;
-      custos[0] = i;
-      for (int j = 1; j <= destino.length(); j++) {
-        int temp = custos[j];
-        if (origem.charAt(i - 1) == destino.charAt(j - 1)) {
-          custos[j] = prev;
-        } else {
-          int insercao = custos[j - 1];
-          int delecao = custos[j];
-          custos[j] = Math.min(Math.min(insercao, delecao), prev) + 1;
-        }
-        prev = temp;
-      }
-    }
-    return custos[destino.length()];
+    return 1 + (matches - 1) * 0.25;
   }
 
-  private List<String> tokenizar(String mensagem) {
+  /**
+   * Termos distintos da mensagem (sem stopwords), resolvidos direto do buffer do
+   * {@link Tokenizador} para ids do vocabulário do índice. Só termos fora do
+   * vocabulário (candidatos a typo) viram String.
+   */
+  private Consulta tokenizar(String mensagem, IndiceInvertido indice) {
     if (mensagem == null || mensagem.isBlank()) {
-      return List.of();
+      return Consulta.VAZIA;
     }
-    return Arrays.stream(mensagem.split("\\W+"))
-        .map(this::stemming)
-        .filter(token -> token.length() > 2)
-        .filter(token -> !STOPWORDS.contains(token))
-        .distinct()
-        .collect(Collectors.toList());
-  }
-
-  private Set<String> extrairStems(String texto) {
-    return Arrays.stream(texto.split("\\W+"))
-        .map(this::stemming)
-        .filter(token -> token.length() > 2)
-        .collect(Collectors.toSet());
+    ColetorConsulta coletor = new ColetorConsulta(indice);
+    Tokenizador.tokenizar(mensagem, coletor);
+    return new Consulta(coletor.ids, coletor.qtdIds, coletor.desconhecidos);
   }
 
   private Set<String> normalizarTags(Set<String> tags) {
@@ -226,27 +553,10 @@ public class ContextSearchService {
       return Set.of();
     }
     return tags.stream()
-        .map(this::stemming)
+        .map(Tokenizador::normalizarTermo)
         .collect(Collectors.toSet());
   }
 
-  private String stemming(String palavra) {
-    String normalizada = normalize(palavra);
-    if (normalizada.length() <= 3) {
-      return normalizada;
-    }
-    if (normalizada.endsWith("ções")) {
-      return normalizada.substring(0, normalizada.length() - 4) + "cao";
-    }
-    if (normalizada.endsWith("s")) {
-      return normalizada.substring(0, normalizada.length() - 1);
-    }
-    if (normalizada.endsWith("es")) {
-      return normalizada.substring(0, normalizada.length() - 2);
-    }
-    return normalizada;
-  }
-
   private String normalizarIdioma(String language) {
     if (language == null || language.isBlank()) {
       return "pt";
@@ -255,67 +565,82 @@ public class ContextSearchService {
     return lower.startsWith("en") ? "en" : "pt";
   }
 
-  private String normalize(String palavra) {
-    String semAcento = Normalizer.normalize(palavra, Normalizer.Form.NFD)
-        .replaceAll("\\p{M}", "");
-    return semAcento.toLowerCase(Locale.ROOT);
-  }
-
-  private List<ContextChunk> obterFallback() {
-    if (!fallbackChunks.isEmpty()) {
-      return List.copyOf(fallbackChunks);
-    }
-    return contextChunks.stream()
-        .limit(MAX_FALLBACK)
-        .toList();
-  }
-
-  private void atualizarFallback() {
-    fallbackChunks.clear();
-    contextChunks.stream()
-        .filter(ContextChunk::preferencialFallback)
-        .limit(MAX_FALLBACK)
-        .forEach(fallbackChunks::add);
-    if (fallbackChunks.size() < MAX_FALLBACK) {
-      contextChunks.stream()
-          .filter(chunk -> !chunk.projeto && !fallbackChunks.contains(chunk))
-          .limit(MAX_FALLBACK - fallbackChunks.size())
-          .forEach(fallbackChunks::add);
-    }
-  }
-
   /**
    * Acumula passagens (já ordenadas por relevância) respeitando dois tetos: número
    * de passagens e tokens acumulados. A passagem mais relevante é sempre incluída,
    * mesmo que sozinha estoure o orçamento — evita devolver contexto vazio quando há
-   * match. As demais só entram se couberem no orçamento restante.
+   * match. As demais só entram se couberem no orçamento restante. O custo de cada
+   * passagem vem pronto do índice: aqui é só aritmética de inteiros.
    */
-  private List<String> limitarPorOrcamento(List<ContextChunk> chunks, int maxPassagens, int orcamentoTokens) {
-    List<String> resultado = new ArrayList<>();
+  private List<PassagemContexto> limitarPorOrcamento(List<ContextChunk> chunks, int maxPassagens,
+      int orcamentoTokens) {
+    List<PassagemContexto> resultado = new ArrayList<>();
     int tokensUsados = 0;
     for (ContextChunk chunk : chunks) {
       if (resultado.size() >= maxPassagens) {
         break;
       }
-      int custo = tokenCounter.estimarTokens(chunk.conteudo());
+      int custo = chunk.tokens();
       boolean cabeNoOrcamento = resultado.isEmpty() || tokensUsados + custo <= orcamentoTokens;
       if (cabeNoOrcamento) {
-        resultado.add(chunk.conteudo());
+        resultado.add(new PassagemContexto(chunk.conteudo(), custo));
         tokensUsados += custo;
       }
     }
     return resultado;
   }
 
-  private record ContextChunk(
-      String id,
-      String conteudo,
-      Set<String> stems,
-      boolean projeto,
-      boolean preferencialFallback,
-      Set<String> tagStems) {
+  /**
+   * Termos da consulta: os {@code qtdIds} primeiros já resolvidos para ids do
+   * índice, seguidos dos termos fora do vocabulário.
+   */
+  private record Consulta(int[] ids, int qtdIds, List<String> desconhecidos) {
+
+    static final Consulta VAZIA = new Consulta(new int[0], 0, List.of());
+
+    int total() {
+      return qtdIds + desconhecidos.size();
+    }
+
+    boolean vazia() {
+      return total() == 0;
+    }
   }
 
-  private record ScoredChunk(ContextChunk chunk, double score) {
+  /** Acumula os termos distintos da consulta, ignorando stopwords. */
+  private static final class ColetorConsulta implements Tokenizador.Consumidor {
+
+    private final IndiceInvertido indice;
+    private final List<String> desconhecidos = new ArrayList<>(2);
+    private int[] ids = new int[8];
+    private int qtdIds;
+
+    ColetorConsulta(IndiceInvertido indice) {
+      this.indice = indice;
+    }
+
+    @Override
+    public void aceitar(char[] termo, int tamanho) {
+      if (STOPWORDS.id(termo, tamanho) >= 0) {
+        return;
+      }
+      int id = indice.idTermo(termo, tamanho);
+      if (id < 0) {
+        String desconhecido = new String(termo, 0, tamanho);
+        if (!desconhecidos.contains(desconhecido)) {
+          desconhecidos.add(desconhecido);
+        }
+        return;
+      }
+      for (int i = 0; i < qtdIds; i++) {
+        if (ids[i] == id) {
+          return;
+        }
+      }
+      if (qtdIds == ids.length) {
+        ids = Arrays.copyOf(ids, qtdIds * 2);
+      }
+      ids[qtdIds++] = id;
+    }
   }
 }
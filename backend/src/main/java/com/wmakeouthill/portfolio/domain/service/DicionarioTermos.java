@@ -0,0 +1,160 @@
+package com.wmakeouthill.portfolio.domain.service;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Tabela de interning de termos: cada termo distinto recebe um id denso
+ * (0, 1, 2...) e uma única instância de {@link String}.
+ *
+ * <p>
+ * A consulta aceita o termo direto de um {@code char[]} (o buffer do
+ * {@link Tokenizador}), sem criar String: o hash é o mesmo de
+ * {@link String#hashCode()} e a comparação é feita caractere a caractere.
+ * Endereçamento aberto com sondagem linear sobre um {@code int[]}.
+ * </p>
+ *
+ * <p>
+ * Não é thread-safe durante a construção; depois de publicado (ex.: dentro de
+ * um {@link IndiceInvertido}) é usado só para leitura.
+ * </p>
+ */
+final class DicionarioTermos {
+
+  private static final int SEM_TERMO = -1;
+
+  private String[] termos;
+  /** Slot → id + 1 (0 = vazio). Tamanho sempre potência de 2. */
+  private int[] slots;
+  private int tamanho;
+
+  DicionarioTermos(int capacidadeEsperada) {
+    int capacidade = Integer.highestOneBit(Math.max(8, capacidadeEsperada * 2 - 1)) << 1;
+    this.termos = new String[Math.max(8, capacidadeEsperada)];
+    this.slots = new int[capacidade];
+  }
+
+  static DicionarioTermos de(Collection<String> termos) {
+    DicionarioTermos dicionario = new DicionarioTermos(termos.size());
+    termos.forEach(dicionario::internar);
+    return dicionario;
+  }
+
+  int tamanho() {
+    return tamanho;
+  }
+
+  String termo(int id) {
+    return termos[id];
+  }
+
+  /** Termos na ordem dos ids. */
+  String[] termos() {
+    return Arrays.copyOf(termos, tamanho);
+  }
+
+  /** Id do termo, ou {@code -1} se ausente. */
+  int id(CharSequence termo) {
+    int hash = hash(termo);
+    int mascara = slots.length - 1;
+    for (int slot = espalhar(hash) & mascara; ; slot = (slot + 1) & mascara) {
+      int ocupante = slots[slot];
+      if (ocupante == 0) {
+        return SEM_TERMO;
+      }
+      if (termos[ocupante - 1].contentEquals(termo)) {
+        return ocupante - 1;
+      }
+    }
+  }
+
+  /** Id de {@code buffer[0, tamanhoTermo)}, ou {@code -1} se ausente. Não aloca. */
+  int id(char[] buffer, int tamanhoTermo) {
+    int hash = hash(buffer, tamanhoTermo);
+    int mascara = slots.length - 1;
+    for (int slot = espalhar(hash) & mascara; ; slot = (slot + 1) & mascara) {
+      int ocupante = slots[slot];
+      if (ocupante == 0) {
+        return SEM_TERMO;
+      }
+      if (iguais(termos[ocupante - 1], buffer, tamanhoTermo)) {
+        return ocupante - 1;
+      }
+    }
+  }
+
+  int internar(String termo) {
+    int existente = id(termo);
+    return existente != SEM_TERMO ? existente : adicionar(termo, hash(termo));
+  }
+
+  /** Como {@link #internar(String)}, criando a String só na primeira ocorrência. */
+  int internar(char[] buffer, int tamanhoTermo) {
+    int existente = id(buffer, tamanhoTermo);
+    return existente != SEM_TERMO
+        ? existente
+        : adicionar(new String(buffer, 0, tamanhoTermo), hash(buffer, tamanhoTermo));
+  }
+
+  private int adicionar(String termo, int hash) {
+    if ((tamanho + 1) * 2 > slots.length) {
+      redimensionar();
+    }
+    if (tamanho == termos.length) {
+      termos = Arrays.copyOf(termos, tamanho * 2);
+    }
+    int novoId = tamanho++;
+    termos[novoId] = termo;
+    ocupar(hash, novoId);
+    return novoId;
+  }
+
+  private void redimensionar() {
+    slots = new int[slots.length * 2];
+    for (int id = 0; id < tamanho; id++) {
+      ocupar(termos[id].hashCode(), id);
+    }
+  }
+
+  private void ocupar(int hash, int id) {
+    int mascara = slots.length - 1;
+    int slot = espalhar(hash) & mascara;
+    while (slots[slot] != 0) {
+      slot = (slot + 1) & mascara;
+    }
+    slots[slot] = id + 1;
+  }
+
+  private static boolean iguais(String termo, char[] buffer, int tamanhoTermo) {
+    if (termo.length() != tamanhoTermo) {
+      return false;
+    }
+    for (int i = 0; i < tamanhoTermo; i++) {
+      if (termo.charAt(i) != buffer[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Mesmo valor de {@link String#hashCode()}. */
+  private static int hash(CharSequence termo) {
+    int h = 0;
+    for (int i = 0; i < termo.length(); i++) {
+      h = 31 * h + termo.charAt(i);
+    }
+    return h;
+  }
+
+  private static int hash(char[] buffer, int tamanhoTermo) {
+    int h = 0;
+    for (int i = 0; i < tamanhoTermo; i++) {
+      h = 31 * h + buffer[i];
+    }
+    return h;
+  }
+
+  private static int espalhar(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+}
@@ -0,0 +1,118 @@
+package com.wmakeouthill.portfolio.domain.service;
+
+import com.wmakeouthill.portfolio.domain.model.PortfolioMarkdownResource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snapshot imutável de um idioma: passagens, índice invertido, dicionário de
+ * typos, vetores TF-IDF, índice de tags, fallback e passagens por documento
+ * publicados juntos, para que a busca nunca combine estruturas de recargas
+ * diferentes. {@code versao} muda a cada índice
+ * montado (não quando só o carimbo é renovado) e entra nas chaves de cache.
+ */
+record IndiceBusca(
+    long versao,
+    List<ContextChunk> chunks,
+    IndiceInvertido indice,
+    IndiceSimilaridade similaridade,
+    VetoresPassagens vetores,
+    Map<String, int[]> chunksPorTag,
+    List<ContextChunk> fallback,
+    Map<String, SegmentoDocumento> segmentos,
+    PassagensDocumentos passagens,
+    long carregadoEm) {
+
+  private static final int MAX_FALLBACK = 5;
+  /** Distância de edição máxima para considerar um termo como typo de outro. */
+  private static final int DISTANCIA_MAXIMA_TYPO = 2;
+
+  private static final AtomicLong VERSOES = new AtomicLong();
+
+  static final IndiceBusca VAZIO = new IndiceBusca(0, List.of(), IndiceInvertido.construir(List.of()),
+      IndiceSimilaridade.construir(List.of(), DISTANCIA_MAXIMA_TYPO), VetoresPassagens.construir(List.of()),
+      Map.of(), List.of(), Map.of(), PassagensDocumentos.VAZIO, 0);
+
+  /** Junta os segmentos (na ordem dos documentos) em passagens + índices globais. */
+  static IndiceBusca montar(Map<String, SegmentoDocumento> segmentos, long carregadoEm) {
+    return montar(segmentos, null, carregadoEm);
+  }
+
+  /**
+   * Como {@link #montar(Map, long)}, mas reaproveitando um índice invertido já
+   * pronto (lido do snapshot em disco) em vez de recalculá-lo dos termos.
+   */
+  static IndiceBusca montar(Map<String, SegmentoDocumento> segmentos, IndiceInvertido invertidoPronto,
+      long carregadoEm) {
+    List<ContextChunk> chunks = new ArrayList<>();
+    List<List<String>> termosPorChunk = new ArrayList<>();
+    Map<String, List<Integer>> tagParaChunks = new HashMap<>();
+    for (SegmentoDocumento segmento : segmentos.values()) {
+      PortfolioMarkdownResource recurso = segmento.recurso();
+      for (int i = 0; i < segmento.conteudos().size(); i++) {
+        int posicao = chunks.size();
+        chunks.add(new ContextChunk(
+            recurso.nome() + "-" + posicao,
+            segmento.conteudos().get(i),
+            segmento.tokens()[i],
+            recurso.projeto(),
+            recurso.preferencialFallback()));
+        termosPorChunk.add(segmento.termos().get(i));
+        for (String tag : segmento.tagStems()) {
+          tagParaChunks.computeIfAbsent(tag, t -> new ArrayList<>()).add(posicao);
+        }
+      }
+    }
+    Map<String, int[]> porTag = new HashMap<>();
+    tagParaChunks.forEach((tag, posicoes) -> porTag.put(tag, posicoes.stream().mapToInt(Integer::intValue).toArray()));
+
+    IndiceInvertido invertido = invertidoPronto != null && invertidoPronto.totalDocumentos() == chunks.size()
+        ? invertidoPronto
+        : IndiceInvertido.construir(termosPorChunk);
+    return new IndiceBusca(
+        VERSOES.incrementAndGet(),
+        List.copyOf(chunks),
+        invertido,
+        IndiceSimilaridade.construir(invertido.vocabulario(), DISTANCIA_MAXIMA_TYPO),
+        VetoresPassagens.construir(termosPorChunk),
+        porTag,
+        selecionarFallback(chunks),
+        Collections.unmodifiableMap(segmentos),
+        PassagensDocumentos.de(segmentos.values()),
+        carregadoEm);
+  }
+
+  /** Mesmo conteúdo com carimbo de carga atualizado. */
+  IndiceBusca renovado() {
+    return new IndiceBusca(versao, chunks, indice, similaridade, vetores, chunksPorTag, fallback, segmentos,
+        passagens, System.currentTimeMillis());
+  }
+
+  /**
+   * Passagens usadas quando a pergunta não casa com nada: primeiro as dos
+   * documentos preferenciais (currículo, stacks), completando com passagens
+   * gerais (não-projeto) e, em último caso, as primeiras do corpus.
+   */
+  private static List<ContextChunk> selecionarFallback(List<ContextChunk> chunks) {
+    List<ContextChunk> fallback = new ArrayList<>();
+    chunks.stream()
+        .filter(ContextChunk::preferencialFallback)
+        .limit(MAX_FALLBACK)
+        .forEach(fallback::add);
+    if (fallback.size() < MAX_FALLBACK) {
+      chunks.stream()
+          .filter(chunk -> !chunk.projeto() && !fallback.contains(chunk))
+          .limit(MAX_FALLBACK - fallback.size())
+          .forEach(fallback::add);
+    }
+    if (fallback.isEmpty()) {
+      return chunks.stream().limit(MAX_FALLBACK).toList();
+    }
+    return List.copyOf(fallback);
+  }
+}
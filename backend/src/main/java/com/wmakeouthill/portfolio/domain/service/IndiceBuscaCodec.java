@@ -0,0 +1,235 @@
+package com.wmakeouthill.portfolio.domain.service;
+
+import com.wmakeouthill.portfolio.domain.model.PortfolioMarkdownResource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Formato binário compacto de um {@link IndiceBusca}, para o snapshot em disco
+ * que permite servir contexto logo após um restart, antes de falar com o GitHub.
+ *
+ * <p>
+ * Layout (big-endian, strings como {@code int} tamanho + UTF-8, {@code -1} =
+ * nulo):
+ * </p>
+ * <pre>
+ * cabeçalho   MAGIC, VERSAO, carregadoEm
+ * dicionário  qtd, stem[qtd]                      (id do stem = posição)
+ * segmentos   qtd, { caminho, nome, sha, chave, flags, tags, tagStems,
+ *                    qtdPassagens, { conteudo, tokens, qtdTermos, idTermo[] } }
+ * documentos  qtd, tamanho[qtd]
+ * postings    qtd, { idTermo, df, documento[df], frequencia[df] }
+ * </pre>
+ *
+ * <p>
+ * O conteúdo bruto dos markdowns não é gravado (só as passagens já fatiadas); o
+ * dicionário de typos é recalculado a partir do vocabulário na leitura.
+ * </p>
+ */
+final class IndiceBuscaCodec {
+
+  private static final int MAGIC = 0x50494458; // "PIDX"
+  /**
+   * 2: termos do {@link Tokenizador} (acentos dobrados em vez de quebrar a palavra).
+   * 3: custo em tokens de cada passagem.
+   * 4: limites de passagem do splitter por offsets (parágrafos sem cabeçalho duplicado).
+   * 5: documentos indexados inteiros (sem o corte de 4000 caracteres por arquivo).
+   */
+  private static final int VERSAO = 5;
+
+  private static final int FLAG_PROJETO = 1;
+  private static final int FLAG_PREFERENCIAL = 2;
+
+  private IndiceBuscaCodec() {
+  }
+
+  static byte[] codificar(IndiceBusca indice) {
+    Map<String, Integer> idPorTermo = new LinkedHashMap<>();
+    for (SegmentoDocumento segmento : indice.segmentos().values()) {
+      for (List<String> termos : segmento.termos()) {
+        for (String termo : termos) {
+          idPorTermo.putIfAbsent(termo, idPorTermo.size());
+        }
+      }
+    }
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSAO);
+      out.writeLong(indice.carregadoEm());
+
+      out.writeInt(idPorTermo.size());
+      for (String termo : idPorTermo.keySet()) {
+        escreverString(out, termo);
+      }
+
+      out.writeInt(indice.segmentos().size());
+      for (SegmentoDocumento segmento : indice.segmentos().values()) {
+        PortfolioMarkdownResource recurso = segmento.recurso();
+        escreverString(out, recurso.caminho());
+        escreverString(out, recurso.nome());
+        escreverString(out, recurso.sha());
+        escreverString(out, segmento.chave());
+        out.writeByte((recurso.projeto() ? FLAG_PROJETO : 0)
+            | (recurso.preferencialFallback() ? FLAG_PREFERENCIAL : 0));
+        escreverStrings(out, recurso.tags() == null ? Set.of() : recurso.tags());
+        escreverStrings(out, segmento.tagStems());
+        out.writeInt(segmento.conteudos().size());
+        for (int i = 0; i < segmento.conteudos().size(); i++) {
+          escreverString(out, segmento.conteudos().get(i));
+          out.writeInt(segmento.tokens()[i]);
+          List<String> termos = segmento.termos().get(i);
+          out.writeInt(termos.size());
+          for (String termo : termos) {
+            out.writeInt(idPorTermo.get(termo));
+          }
+        }
+      }
+
+      IndiceInvertido invertido = indice.indice();
+      out.writeInt(invertido.totalDocumentos());
+      for (int doc = 0; doc < invertido.totalDocumentos(); doc++) {
+        out.writeInt(invertido.tamanhoDocumento(doc));
+      }
+
+      out.writeInt(idPorTermo.size());
+      for (Map.Entry<String, Integer> entrada : idPorTermo.entrySet()) {
+        IndiceInvertido.Postings postings = invertido.postings(entrada.getKey());
+        out.writeInt(entrada.getValue());
+        out.writeInt(postings.tamanho());
+        for (int documento : postings.documentos()) {
+          out.writeInt(documento);
+        }
+        for (int frequencia : postings.frequencias()) {
+          out.writeInt(frequencia);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Lê um snapshot gravado por {@link #codificar(IndiceBusca)}. O buffer pode ser
+   * um mapeamento do arquivo em memória: a leitura é sequencial e não o retém.
+   *
+   * @throws IllegalStateException se o formato/versão não for reconhecido
+   * @throws java.nio.BufferUnderflowException se o arquivo estiver truncado
+   */
+  static IndiceBusca decodificar(ByteBuffer buffer) {
+    ByteBuffer in = buffer.duplicate();
+    if (in.getInt() != MAGIC) {
+      throw new IllegalStateException("Snapshot de índice com assinatura desconhecida");
+    }
+    int versao = in.getInt();
+    if (versao != VERSAO) {
+      throw new IllegalStateException("Versão de snapshot de índice não suportada: " + versao);
+    }
+    long carregadoEm = in.getLong();
+
+    String[] dicionario = new String[in.getInt()];
+    for (int i = 0; i < dicionario.length; i++) {
+      dicionario[i] = lerString(in);
+    }
+
+    int qtdSegmentos = in.getInt();
+    Map<String, SegmentoDocumento> segmentos = new LinkedHashMap<>();
+    for (int s = 0; s < qtdSegmentos; s++) {
+      String caminho = lerString(in);
+      String nome = lerString(in);
+      String sha = lerString(in);
+      String chave = lerString(in);
+      int flags = in.get();
+      Set<String> tags = lerStrings(in);
+      Set<String> tagStems = lerStrings(in);
+      int qtdPassagens = in.getInt();
+      List<String> conteudos = new ArrayList<>(qtdPassagens);
+      int[] tokens = new int[qtdPassagens];
+      List<List<String>> termos = new ArrayList<>(qtdPassagens);
+      for (int p = 0; p < qtdPassagens; p++) {
+        conteudos.add(lerString(in));
+        tokens[p] = in.getInt();
+        String[] termosPassagem = new String[in.getInt()];
+        for (int t = 0; t < termosPassagem.length; t++) {
+          termosPassagem[t] = dicionario[in.getInt()];
+        }
+        termos.add(List.of(termosPassagem));
+      }
+      PortfolioMarkdownResource recurso = new PortfolioMarkdownResource(nome, caminho, "",
+          (flags & FLAG_PROJETO) != 0, (flags & FLAG_PREFERENCIAL) != 0, tags, sha);
+      segmentos.put(caminho, new SegmentoDocumento(recurso, chave, List.copyOf(conteudos), tokens,
+          List.copyOf(termos), tagStems));
+    }
+
+    int[] tamanhos = new int[in.getInt()];
+    for (int doc = 0; doc < tamanhos.length; doc++) {
+      tamanhos[doc] = in.getInt();
+    }
+
+    int qtdPostings = in.getInt();
+    Map<String, IndiceInvertido.Postings> postings = new HashMap<>(qtdPostings * 2);
+    for (int i = 0; i < qtdPostings; i++) {
+      String termo = dicionario[in.getInt()];
+      int df = in.getInt();
+      int[] documentos = new int[df];
+      int[] frequencias = new int[df];
+      in.asIntBuffer().get(documentos);
+      in.position(in.position() + df * Integer.BYTES);
+      in.asIntBuffer().get(frequencias);
+      in.position(in.position() + df * Integer.BYTES);
+      postings.put(termo, new IndiceInvertido.Postings(documentos, frequencias));
+    }
+
+    return IndiceBusca.montar(segmentos, IndiceInvertido.restaurar(postings, tamanhos), carregadoEm);
+  }
+
+  private static void escreverStrings(DataOutputStream out, Set<String> valores) throws IOException {
+    out.writeInt(valores.size());
+    for (String valor : valores) {
+      escreverString(out, valor);
+    }
+  }
+
+  private static void escreverString(DataOutputStream out, String valor) throws IOException {
+    if (valor == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] utf8 = valor.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(utf8.length);
+    out.write(utf8);
+  }
+
+  private static Set<String> lerStrings(ByteBuffer in) {
+    int qtd = in.getInt();
+    Set<String> valores = new LinkedHashSet<>(qtd * 2);
+    for (int i = 0; i < qtd; i++) {
+      valores.add(lerString(in));
+    }
+    return Set.copyOf(valores);
+  }
+
+  private static String lerString(ByteBuffer in) {
+    int tamanho = in.getInt();
+    if (tamanho < 0) {
+      return null;
+    }
+    byte[] utf8 = new byte[tamanho];
+    in.get(utf8);
+    return new String(utf8, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,179 @@
+package com.wmakeouthill.portfolio.domain.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Índice invertido imutável (termo → posting list) usado na recuperação de
+ * passagens para o contexto da IA.
+ *
+ * <p>
+ * Cada posting list guarda, em arrays primitivos, os ids dos documentos
+ * (passagens) que contêm o termo e a frequência do termo em cada um. A
+ * pontuação segue o BM25: só os documentos presentes nas posting lists dos
+ * termos da consulta são tocados, então o custo da busca acompanha o número de
+ * postings casados, não o tamanho do corpus.
+ * </p>
+ */
+public final class IndiceInvertido {
+
+  /** Saturação da frequência do termo (valor clássico do BM25). */
+  private static final double K1 = 1.2;
+
+  /** Peso da normalização pelo tamanho do documento. */
+  private static final double B = 0.75;
+
+  private static final Postings VAZIO = new Postings(new int[0], new int[0]);
+
+  private final DicionarioTermos dicionario;
+  /** Posting list de cada termo, indexada pelo id do termo no dicionário. */
+  private final Postings[] postingsPorId;
+  private final int[] tamanhoDocumentos;
+  private final double tamanhoMedio;
+
+  private IndiceInvertido(DicionarioTermos dicionario, Postings[] postingsPorId, int[] tamanhoDocumentos) {
+    this.dicionario = dicionario;
+    this.postingsPorId = postingsPorId;
+    this.tamanhoDocumentos = tamanhoDocumentos;
+    this.tamanhoMedio = Arrays.stream(tamanhoDocumentos).average().orElse(0);
+  }
+
+  /**
+   * Constrói o índice a partir dos termos de cada documento, na ordem dos ids.
+   * Termos repetidos no mesmo documento contam como frequência.
+   *
+   * @param termosPorDocumento termos (com repetição) de cada documento
+   */
+  public static IndiceInvertido construir(List<List<String>> termosPorDocumento) {
+    DicionarioTermos dicionario = new DicionarioTermos(1024);
+    int[] tamanhos = new int[termosPorDocumento.size()];
+    // Documentos chegam em ordem crescente: basta acumular (doc, tf) no fim da
+    // lista do termo, sem mapa por documento nem boxing.
+    int[][] documentos = new int[64][];
+    int[][] frequencias = new int[64][];
+    int[] quantidades = new int[64];
+    for (int doc = 0; doc < termosPorDocumento.size(); doc++) {
+      List<String> termos = termosPorDocumento.get(doc);
+      tamanhos[doc] = termos.size();
+      for (String termo : termos) {
+        int id = dicionario.internar(termo);
+        if (id == documentos.length) {
+          documentos = Arrays.copyOf(documentos, id * 2);
+          frequencias = Arrays.copyOf(frequencias, id * 2);
+          quantidades = Arrays.copyOf(quantidades, id * 2);
+        }
+        if (documentos[id] == null) {
+          documentos[id] = new int[4];
+          frequencias[id] = new int[4];
+        }
+        int qtd = quantidades[id];
+        if (qtd > 0 && documentos[id][qtd - 1] == doc) {
+          frequencias[id][qtd - 1]++;
+          continue;
+        }
+        if (qtd == documentos[id].length) {
+          documentos[id] = Arrays.copyOf(documentos[id], qtd * 2);
+          frequencias[id] = Arrays.copyOf(frequencias[id], qtd * 2);
+        }
+        documentos[id][qtd] = doc;
+        frequencias[id][qtd] = 1;
+        quantidades[id] = qtd + 1;
+      }
+    }
+
+    Postings[] postings = new Postings[dicionario.tamanho()];
+    for (int id = 0; id < postings.length; id++) {
+      postings[id] = new Postings(
+          Arrays.copyOf(documentos[id], quantidades[id]),
+          Arrays.copyOf(frequencias[id], quantidades[id]));
+    }
+    return new IndiceInvertido(dicionario, postings, tamanhos);
+  }
+
+  /**
+   * Recria o índice a partir de posting lists já calculadas (ex.: lidas de um
+   * snapshot em disco), sem reprocessar os termos dos documentos.
+   *
+   * @param postingsPorTermo  posting list de cada termo
+   * @param tamanhoDocumentos número de termos de cada documento, na ordem dos ids
+   */
+  public static IndiceInvertido restaurar(Map<String, Postings> postingsPorTermo, int[] tamanhoDocumentos) {
+    DicionarioTermos dicionario = new DicionarioTermos(postingsPorTermo.size());
+    Postings[] postings = new Postings[postingsPorTermo.size()];
+    postingsPorTermo.forEach((termo, lista) -> postings[dicionario.internar(termo)] = lista);
+    return new IndiceInvertido(dicionario, postings, tamanhoDocumentos.clone());
+  }
+
+  public int totalDocumentos() {
+    return tamanhoDocumentos.length;
+  }
+
+  /** Número de termos (com repetição) do documento {@code doc}. */
+  public int tamanhoDocumento(int doc) {
+    return tamanhoDocumentos[doc];
+  }
+
+  public boolean contem(String termo) {
+    return dicionario.id(termo) >= 0;
+  }
+
+  /**
+   * Id do termo {@code buffer[0, tamanho)} no vocabulário, ou {@code -1}. Não
+   * aloca: é o caminho usado pela consulta tokenizada.
+   */
+  public int idTermo(char[] buffer, int tamanho) {
+    return dicionario.id(buffer, tamanho);
+  }
+
+  /** Termo (instância única) de um id devolvido por {@link #idTermo}. */
+  public String termo(int id) {
+    return dicionario.termo(id);
+  }
+
+  /** Termos distintos indexados (o vocabulário global do corpus), como cópia. */
+  public Set<String> vocabulario() {
+    return Set.of(dicionario.termos());
+  }
+
+  /** Posting list do termo; vazia quando o termo não ocorre no corpus. */
+  public Postings postings(String termo) {
+    int id = dicionario.id(termo);
+    return id >= 0 ? postingsPorId[id] : VAZIO;
+  }
+
+  /** Posting list de um id devolvido por {@link #idTermo}. */
+  public Postings postings(int id) {
+    return postingsPorId[id];
+  }
+
+  /**
+   * IDF do BM25 (variante com +1, sempre positiva) para um termo que ocorre em
+   * {@code df} documentos.
+   */
+  public double idf(int df) {
+    int n = tamanhoDocumentos.length;
+    return Math.log(1 + (n - df + 0.5) / (df + 0.5));
+  }
+
+  /**
+   * Contribuição BM25 de um termo com frequência {@code tf} no documento
+   * {@code doc}, dado o IDF do termo.
+   */
+  public double pontuar(int doc, int tf, double idf) {
+    double normalizacao = tamanhoMedio == 0 ? 1 : tamanhoDocumentos[doc] / tamanhoMedio;
+    return idf * (tf * (K1 + 1)) / (tf + K1 * (1 - B + B * normalizacao));
+  }
+
+  /**
+   * Posting list de um termo: {@code documentos[i]} contém o termo
+   * {@code frequencias[i]} vezes. Ids em ordem crescente.
+   */
+  public record Postings(int[] documentos, int[] frequencias) {
+
+    public int tamanho() {
+      return documentos.length;
+    }
+  }
+}
@@ -0,0 +1,142 @@
+package com.wmakeouthill.portfolio.domain.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dicionário de deleções (estilo SymSpell) sobre o vocabulário de stems do
+ * corpus, para resolver erros de digitação sem comparar o token com cada stem.
+ *
+ * <p>
+ * Na construção, cada termo do vocabulário gera todas as variantes obtidas
+ * removendo até {@code distanciaMaxima} caracteres; o mapa guarda
+ * variante → termos de origem. Na consulta, o token gera as próprias deleções e
+ * cada uma vira um lookup no mapa: dois termos a distância de edição ≤ k
+ * sempre compartilham alguma deleção. Os candidatos encontrados são então
+ * confirmados com um Levenshtein limitado, que aborta assim que a distância
+ * ultrapassa o limite.
+ * </p>
+ */
+public final class IndiceSimilaridade {
+
+  private final int distanciaMaxima;
+  private final Map<String, String[]> termosPorDelecao;
+
+  private IndiceSimilaridade(int distanciaMaxima, Map<String, String[]> termosPorDelecao) {
+    this.distanciaMaxima = distanciaMaxima;
+    this.termosPorDelecao = termosPorDelecao;
+  }
+
+  /**
+   * Pré-computa as deleções de todo o vocabulário.
+   *
+   * @param vocabulario    termos distintos do corpus
+   * @param distanciaMaxima maior distância de edição aceita na consulta
+   */
+  public static IndiceSimilaridade construir(Collection<String> vocabulario, int distanciaMaxima) {
+    Map<String, List<String>> acumulado = new HashMap<>();
+    for (String termo : vocabulario) {
+      for (String delecao : gerarDelecoes(termo, distanciaMaxima)) {
+        acumulado.computeIfAbsent(delecao, d -> new ArrayList<>(1)).add(termo);
+      }
+    }
+    Map<String, String[]> compacto = new HashMap<>(acumulado.size() * 2);
+    acumulado.forEach((delecao, termos) -> compacto.put(delecao, termos.toArray(String[]::new)));
+    return new IndiceSimilaridade(distanciaMaxima, compacto);
+  }
+
+  /**
+   * Termos do vocabulário (diferentes do próprio token) a distância de edição
+   * ≤ {@code distanciaMaxima} e menor que o tamanho do token — palavras curtas
+   * não casam com qualquer coisa.
+   */
+  public List<String> similares(String token) {
+    Set<String> candidatos = new LinkedHashSet<>();
+    for (String delecao : gerarDelecoes(token, distanciaMaxima)) {
+      String[] termos = termosPorDelecao.get(delecao);
+      if (termos != null) {
+        for (String termo : termos) {
+          candidatos.add(termo);
+        }
+      }
+    }
+
+    int limite = Math.min(distanciaMaxima, token.length() - 1);
+    List<String> similares = new ArrayList<>();
+    for (String candidato : candidatos) {
+      if (!candidato.equals(token) && distanciaLimitada(token, candidato, limite) <= limite) {
+        similares.add(candidato);
+      }
+    }
+    return similares;
+  }
+
+  /**
+   * Distância de Levenshtein com corte: devolve {@code limite + 1} assim que fica
+   * provado que a distância real passa do limite (diferença de tamanho grande
+   * demais ou uma linha inteira da matriz acima do limite).
+   */
+  static int distanciaLimitada(CharSequence origem, CharSequence destino, int limite) {
+    int n = origem.length();
+    int m = destino.length();
+    if (limite < 0) {
+      return limite + 1;
+    }
+    if (Math.abs(n - m) > limite) {
+      return limite + 1;
+    }
+    int[] anterior = new int[m + 1];
+    int[] atual = new int[m + 1];
+    for (int j = 0; j <= m; j++) {
+      anterior[j] = j;
+    }
+    for (int i = 1; i <= n; i++) {
+      atual[0] = i;
+      int menorDaLinha = atual[0];
+      char c = origem.charAt(i - 1);
+      for (int j = 1; j <= m; j++) {
+        int custo = c == destino.charAt(j - 1) ? 0 : 1;
+        int valor = Math.min(Math.min(atual[j - 1] + 1, anterior[j] + 1), anterior[j - 1] + custo);
+        atual[j] = valor;
+        if (valor < menorDaLinha) {
+          menorDaLinha = valor;
+        }
+      }
+      if (menorDaLinha > limite) {
+        return limite + 1;
+      }
+      int[] troca = anterior;
+      anterior = atual;
+      atual = troca;
+    }
+    return Math.min(anterior[m], limite + 1);
+  }
+
+  /** O próprio termo mais todas as variantes com até {@code maximo} caracteres removidos. */
+  private static Set<String> gerarDelecoes(String termo, int maximo) {
+    Set<String> delecoes = new LinkedHashSet<>();
+    delecoes.add(termo);
+    List<String> fronteira = List.of(termo);
+    for (int nivel = 0; nivel < maximo; nivel++) {
+      List<String> proxima = new ArrayList<>();
+      for (String palavra : fronteira) {
+        if (palavra.length() <= 1) {
+          continue;
+        }
+        for (int i = 0; i < palavra.length(); i++) {
+          String delecao = palavra.substring(0, i) + palavra.substring(i + 1);
+          if (delecoes.add(delecao)) {
+            proxima.add(delecao);
+          }
+        }
+      }
+      fronteira = proxima;
+    }
+    return delecoes;
+  }
+}
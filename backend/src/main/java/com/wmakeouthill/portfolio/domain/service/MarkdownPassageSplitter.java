@@ -2,9 +2,10 @@ package com.wmakeouthill.portfolio.domain.service;
 
 import org.springframework.stereotype.Service;
 
+import java.nio.CharBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Pattern;
 
 /**
  * Divide um markdown em "passagens" (trechos) para recuperação contextual (RAG).
@@ -23,6 +24,13 @@ import java.util.regex.Pattern;
  * (linha em branco), preservando o cabeçalho da seção como contexto em cada
  * subpassagem. Parágrafos isolados gigantes são quebrados por tamanho.
  * </p>
+ *
+ * <p>
+ * O documento é percorrido uma única vez, linha a linha, sem regex nem cópias:
+ * cabeçalhos são reconhecidos por inspeção de caracteres e cada passagem sai
+ * como offsets ({@link Passagem}) no texto original. A String da passagem só é
+ * criada quando alguém de fato a usa.
+ * </p>
  */
 @Service
 public class MarkdownPassageSplitter {
@@ -30,7 +38,8 @@ public class MarkdownPassageSplitter {
   /** Alvo máximo de caracteres por passagem (~4 chars/token → ~700 tokens). */
   private static final int MAX_CHARS = 2800;
 
-  private static final Pattern LINHA_HEADING = Pattern.compile("^#{1,6}\\s.*");
+  /** Níveis de cabeçalho aceitos ({@code #} a {@code ######}). */
+  private static final int MAX_NIVEL_CABECALHO = 6;
 
   /**
    * Fatiar o markdown em passagens não-vazias, cada uma com no máximo
@@ -40,105 +49,237 @@ public class MarkdownPassageSplitter {
    * @return passagens na ordem original do documento
    */
   public List<String> dividir(String markdown) {
-    if (markdown == null || markdown.isBlank()) {
-      return List.of();
+    List<Passagem> passagens = delimitar(markdown);
+    List<String> textos = new ArrayList<>(passagens.size());
+    for (Passagem passagem : passagens) {
+      textos.add(passagem.texto(markdown));
     }
+    return textos;
+  }
 
-    List<String> passagens = new ArrayList<>();
-    for (String secao : separarPorCabecalho(markdown.strip())) {
-      if (secao.length() <= MAX_CHARS) {
-        passagens.add(secao);
-      } else {
-        passagens.addAll(empacotarParagrafos(secao));
-      }
+  /**
+   * Mesmas passagens de {@link #dividir(String)}, como offsets no texto
+   * original, sem materializar nenhuma String.
+   *
+   * @param markdown conteúdo bruto; {@code null}/vazio retorna lista vazia
+   * @return passagens na ordem original do documento
+   */
+  public List<Passagem> delimitar(String markdown) {
+    if (markdown == null || markdown.isBlank()) {
+      return List.of();
     }
-    return passagens;
+    Varredura varredura = new Varredura(markdown);
+    varredura.executar();
+    return varredura.passagens;
   }
 
   /**
-   * Separa o texto em seções: uma nova seção começa a cada linha de cabeçalho
-   * markdown. O conteúdo antes do primeiro cabeçalho forma sua própria seção.
+   * Trecho do documento: {@code [inicio, fim)} já sem espaços nas pontas. Quando
+   * a passagem é uma subdivisão de uma seção grande, {@code [inicioCabecalho,
+   * fimCabecalho)} aponta o cabeçalho da seção, que é repetido à frente do
+   * trecho; caso contrário ambos são {@code -1}.
    */
-  private List<String> separarPorCabecalho(String texto) {
-    List<String> secoes = new ArrayList<>();
-    StringBuilder atual = new StringBuilder();
+  public record Passagem(int inicio, int fim, int inicioCabecalho, int fimCabecalho) {
+
+    public boolean temCabecalhoSeparado() {
+      return inicioCabecalho >= 0;
+    }
 
-    for (String linha : texto.split("\n", -1)) {
-      boolean ehCabecalho = LINHA_HEADING.matcher(linha).matches();
-      if (ehCabecalho && !atual.isEmpty()) {
-        adicionarSeNaoVazio(secoes, atual.toString());
-        atual.setLength(0);
+    /** Tamanho em caracteres do texto materializado. */
+    public int tamanho() {
+      return temCabecalhoSeparado() ? (fimCabecalho - inicioCabecalho) + 2 + (fim - inicio) : fim - inicio;
+    }
+
+    /** Corpo da passagem como visão sobre o documento (sem cópia). */
+    public CharSequence corpo(String documento) {
+      return CharBuffer.wrap(documento, inicio, fim);
+    }
+
+    /** Cabeçalho repetido como visão sobre o documento; vazio se não houver. */
+    public CharSequence cabecalho(String documento) {
+      return temCabecalhoSeparado() ? CharBuffer.wrap(documento, inicioCabecalho, fimCabecalho) : "";
+    }
+
+    /** Anexa o texto da passagem (cabeçalho + linha em branco + corpo) ao builder. */
+    public void anexarEm(StringBuilder destino, String documento) {
+      if (temCabecalhoSeparado()) {
+        destino.append(documento, inicioCabecalho, fimCabecalho).append("\n\n");
       }
-      atual.append(linha).append('\n');
+      destino.append(documento, inicio, fim);
+    }
+
+    public String texto(String documento) {
+      if (!temCabecalhoSeparado()) {
+        return documento.substring(inicio, fim);
+      }
+      StringBuilder builder = new StringBuilder(tamanho());
+      anexarEm(builder, documento);
+      return builder.toString();
     }
-    adicionarSeNaoVazio(secoes, atual.toString());
-    return secoes;
   }
 
   /**
-   * Reempacota uma seção grande em subpassagens por parágrafo, mantendo o
-   * cabeçalho da seção (se houver) como prefixo de cada subpassagem.
+   * Estado de uma varredura: a seção corrente (limites, cabeçalho e parágrafos
+   * já vistos) é fechada a cada novo cabeçalho e no fim do texto.
    */
-  private List<String> empacotarParagrafos(String secao) {
-    String cabecalho = extrairCabecalho(secao);
-    String prefixo = cabecalho.isEmpty() ? "" : cabecalho + "\n\n";
-
-    List<String> subpassagens = new ArrayList<>();
-    StringBuilder bloco = new StringBuilder();
-
-    for (String paragrafo : secao.split("\n\\s*\n")) {
-      String p = paragrafo.strip();
-      if (p.isEmpty() || p.equals(cabecalho)) {
-        continue;
-      }
-      if (p.length() > MAX_CHARS) {
-        descarregarBloco(subpassagens, prefixo, bloco);
-        for (String fatia : quebrarPorTamanho(p)) {
-          subpassagens.add(prefixo + fatia);
+  private static final class Varredura {
+
+    private final String texto;
+    private final List<Passagem> passagens = new ArrayList<>();
+
+    private int inicioSecao = -1;
+    private int fimSecao = -1;
+    private int inicioCabecalho = -1;
+    private int fimCabecalho = -1;
+
+    /** Parágrafos da seção corrente: pares (início, fim) já sem espaços nas pontas. */
+    private int[] paragrafos = new int[16];
+    private int qtdParagrafos;
+    private int inicioParagrafo = -1;
+    private int fimParagrafo = -1;
+
+    Varredura(String texto) {
+      this.texto = texto;
+    }
+
+    void executar() {
+      int tamanho = texto.length();
+      int inicioLinha = 0;
+      while (inicioLinha <= tamanho) {
+        int quebra = texto.indexOf('\n', inicioLinha);
+        int fimLinha = quebra < 0 ? tamanho : quebra;
+        processarLinha(inicioLinha, fimLinha);
+        if (quebra < 0) {
+          break;
         }
-        continue;
+        inicioLinha = quebra + 1;
       }
-      if (bloco.length() + p.length() > MAX_CHARS && bloco.length() > 0) {
-        descarregarBloco(subpassagens, prefixo, bloco);
+      fecharSecao();
+    }
+
+    private void processarLinha(int inicioLinha, int fimLinha) {
+      int primeiro = pularEspacos(inicioLinha, fimLinha);
+      if (primeiro == fimLinha) {
+        fecharParagrafo();
+        return;
+      }
+      int ultimo = recuarEspacos(inicioLinha, fimLinha);
+      if (ehCabecalho(inicioLinha, fimLinha)) {
+        fecharSecao();
+        inicioSecao = primeiro;
+        fimSecao = ultimo;
+        inicioCabecalho = primeiro;
+        fimCabecalho = ultimo;
+        return;
+      }
+      if (inicioSecao < 0) {
+        inicioSecao = primeiro;
       }
-      if (bloco.length() > 0) {
-        bloco.append("\n\n");
+      fimSecao = ultimo;
+      if (inicioParagrafo < 0) {
+        inicioParagrafo = primeiro;
       }
-      bloco.append(p);
+      fimParagrafo = ultimo;
     }
-    descarregarBloco(subpassagens, prefixo, bloco);
-    return subpassagens;
-  }
 
-  private void descarregarBloco(List<String> destino, String prefixo, StringBuilder bloco) {
-    if (bloco.length() > 0) {
-      destino.add(prefixo + bloco.toString().strip());
-      bloco.setLength(0);
+    /** {@code #} a {@code ######} no início da linha seguidos de espaço/tab. */
+    private boolean ehCabecalho(int inicioLinha, int fimLinha) {
+      int nivel = 0;
+      while (inicioLinha + nivel < fimLinha && texto.charAt(inicioLinha + nivel) == '#') {
+        nivel++;
+      }
+      return nivel >= 1 && nivel <= MAX_NIVEL_CABECALHO
+          && inicioLinha + nivel < fimLinha
+          && Character.isWhitespace(texto.charAt(inicioLinha + nivel));
     }
-  }
 
-  private String extrairCabecalho(String secao) {
-    String primeiraLinha = secao.lines().findFirst().orElse("");
-    return LINHA_HEADING.matcher(primeiraLinha).matches() ? primeiraLinha.strip() : "";
-  }
+    private void fecharParagrafo() {
+      if (inicioParagrafo < 0) {
+        return;
+      }
+      if (qtdParagrafos * 2 == paragrafos.length) {
+        paragrafos = Arrays.copyOf(paragrafos, paragrafos.length * 2);
+      }
+      paragrafos[qtdParagrafos * 2] = inicioParagrafo;
+      paragrafos[qtdParagrafos * 2 + 1] = fimParagrafo;
+      qtdParagrafos++;
+      inicioParagrafo = -1;
+      fimParagrafo = -1;
+    }
 
-  /** Quebra um parágrafo muito grande em fatias de até {@link #MAX_CHARS}. */
-  private List<String> quebrarPorTamanho(String texto) {
-    List<String> fatias = new ArrayList<>();
-    for (int inicio = 0; inicio < texto.length(); inicio += MAX_CHARS) {
-      int fim = Math.min(inicio + MAX_CHARS, texto.length());
-      String fatia = texto.substring(inicio, fim).strip();
-      if (!fatia.isEmpty()) {
-        fatias.add(fatia);
+    private void fecharSecao() {
+      fecharParagrafo();
+      if (inicioSecao >= 0) {
+        if (fimSecao - inicioSecao <= MAX_CHARS) {
+          passagens.add(new Passagem(inicioSecao, fimSecao, -1, -1));
+        } else {
+          empacotarParagrafos();
+        }
+      }
+      inicioSecao = -1;
+      fimSecao = -1;
+      inicioCabecalho = -1;
+      fimCabecalho = -1;
+      qtdParagrafos = 0;
+    }
+
+    /**
+     * Reempacota uma seção grande em subpassagens por parágrafo (parágrafos
+     * vizinhos juntos até o alvo), repetindo o cabeçalho da seção em cada uma.
+     */
+    private void empacotarParagrafos() {
+      int inicioBloco = -1;
+      int fimBloco = -1;
+      for (int i = 0; i < qtdParagrafos; i++) {
+        int inicio = paragrafos[i * 2];
+        int fim = paragrafos[i * 2 + 1];
+        if (fim - inicio > MAX_CHARS) {
+          emitir(inicioBloco, fimBloco);
+          inicioBloco = -1;
+          quebrarPorTamanho(inicio, fim);
+          continue;
+        }
+        if (inicioBloco >= 0 && fim - inicioBloco > MAX_CHARS) {
+          emitir(inicioBloco, fimBloco);
+          inicioBloco = -1;
+        }
+        if (inicioBloco < 0) {
+          inicioBloco = inicio;
+        }
+        fimBloco = fim;
+      }
+      emitir(inicioBloco, fimBloco);
+    }
+
+    /** Quebra um parágrafo muito grande em fatias de até {@link #MAX_CHARS}. */
+    private void quebrarPorTamanho(int inicio, int fim) {
+      for (int fatia = inicio; fatia < fim; fatia += MAX_CHARS) {
+        int fimFatia = Math.min(fatia + MAX_CHARS, fim);
+        int primeiro = pularEspacos(fatia, fimFatia);
+        if (primeiro < fimFatia) {
+          emitir(primeiro, recuarEspacos(primeiro, fimFatia));
+        }
       }
     }
-    return fatias;
-  }
 
-  private void adicionarSeNaoVazio(List<String> destino, String texto) {
-    String limpo = texto.strip();
-    if (!limpo.isEmpty()) {
-      destino.add(limpo);
+    private void emitir(int inicio, int fim) {
+      if (inicio >= 0 && fim > inicio) {
+        passagens.add(new Passagem(inicio, fim, inicioCabecalho, fimCabecalho));
+      }
+    }
+
+    private int pularEspacos(int inicio, int fim) {
+      while (inicio < fim && Character.isWhitespace(texto.charAt(inicio))) {
+        inicio++;
+      }
+      return inicio;
+    }
+
+    private int recuarEspacos(int inicio, int fim) {
+      while (fim > inicio && Character.isWhitespace(texto.charAt(fim - 1))) {
+        fim--;
+      }
+      return fim;
     }
   }
 }
@@ -0,0 +1,86 @@
+package com.wmakeouthill.portfolio.domain.service;
+
+import com.wmakeouthill.portfolio.domain.model.PassagemContexto;
+import com.wmakeouthill.portfolio.domain.model.PortfolioMarkdownResource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Passagens já fatiadas de cada documento indexado, por caminho + sha. É a mesma
+ * divisão feita na indexação, compartilhada com a montagem do prompt: expandir
+ * um projeto mencionado no chat vira um lookup, sem baixar nem refatiar o
+ * markdown a cada requisição.
+ *
+ * <p>
+ * Também guarda, na ordem do índice, as passagens dos documentos preferenciais
+ * (currículo, stacks), que entram em todo prompt como prefixo fixo.
+ * </p>
+ */
+final class PassagensDocumentos {
+
+  static final PassagensDocumentos VAZIO = new PassagensDocumentos(Map.of(), Map.of(), List.of());
+
+  private final Map<String, List<PassagemContexto>> porDocumento;
+  /** Nome do documento (minúsculo) → chave caminho + sha; o primeiro a aparecer vence. */
+  private final Map<String, String> documentoPorNome;
+  private final List<PassagemContexto> preferenciais;
+
+  private PassagensDocumentos(Map<String, List<PassagemContexto>> porDocumento,
+      Map<String, String> documentoPorNome, List<PassagemContexto> preferenciais) {
+    this.porDocumento = porDocumento;
+    this.documentoPorNome = documentoPorNome;
+    this.preferenciais = preferenciais;
+  }
+
+  static PassagensDocumentos de(Collection<SegmentoDocumento> segmentos) {
+    Map<String, List<PassagemContexto>> porDocumento = new HashMap<>(segmentos.size() * 2);
+    Map<String, String> documentoPorNome = new HashMap<>(segmentos.size() * 2);
+    List<PassagemContexto> preferenciais = new ArrayList<>();
+    for (SegmentoDocumento segmento : segmentos) {
+      PortfolioMarkdownResource recurso = segmento.recurso();
+      List<PassagemContexto> passagens = new ArrayList<>(segmento.conteudos().size());
+      for (int i = 0; i < segmento.conteudos().size(); i++) {
+        passagens.add(new PassagemContexto(segmento.conteudos().get(i), segmento.tokens()[i]));
+      }
+      String chave = chave(recurso.caminho(), segmento.chave());
+      porDocumento.put(chave, List.copyOf(passagens));
+      if (recurso.preferencialFallback()) {
+        preferenciais.addAll(passagens);
+      }
+      if (recurso.nome() != null) {
+        documentoPorNome.putIfAbsent(recurso.nome().toLowerCase(Locale.ROOT), chave);
+      }
+    }
+    return new PassagensDocumentos(Map.copyOf(porDocumento), Map.copyOf(documentoPorNome),
+        List.copyOf(preferenciais));
+  }
+
+  /** Passagens do documento {@code caminho} na versão {@code sha}, se indexado. */
+  Optional<List<PassagemContexto>> doDocumento(String caminho, String sha) {
+    return Optional.ofNullable(porDocumento.get(chave(caminho, sha)));
+  }
+
+  /** Passagens do documento com esse nome (ex.: nome normalizado de um projeto). */
+  Optional<List<PassagemContexto>> porNome(String nome) {
+    if (nome == null) {
+      return Optional.empty();
+    }
+    String chave = documentoPorNome.get(nome.toLowerCase(Locale.ROOT));
+    return chave == null ? Optional.empty() : Optional.ofNullable(porDocumento.get(chave));
+  }
+
+  /** Passagens dos documentos preferenciais, na ordem dos documentos. */
+  List<PassagemContexto> preferenciais() {
+    return preferenciais;
+  }
+
+  private static String chave(String caminho, String sha) {
+    return caminho + "@" + sha;
+  }
+}
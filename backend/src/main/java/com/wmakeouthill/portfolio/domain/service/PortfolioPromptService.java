@@ -1,13 +1,23 @@
 package com.wmakeouthill.portfolio.domain.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wmakeouthill.portfolio.domain.model.PassagemContexto;
+import com.wmakeouthill.portfolio.domain.model.PromptEstruturado;
+import com.wmakeouthill.portfolio.domain.model.PromptEstruturado.PassagemPontuada;
+import com.wmakeouthill.portfolio.domain.model.PromptEstruturado.Secao;
+import com.wmakeouthill.portfolio.domain.model.PromptSistema;
 import com.wmakeouthill.portfolio.domain.port.PortfolioContentPort;
 import com.wmakeouthill.portfolio.infrastructure.utils.TokenCounter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
 
 @Service
 @RequiredArgsConstructor
@@ -15,12 +25,28 @@ public class PortfolioPromptService {
 
   /** Teto absoluto de passagens recuperadas, independente do orçamento de tokens. */
   private static final int MAX_PASSAGENS = 28;
+  private static final int MAX_PROMPTS_EM_CACHE = 200;
+  /**
+   * Teto das passagens fixas (currículo, stacks) no prefixo estável. Ficam em
+   * todo prompt, então o teto evita que um currículo grande empurre o contexto
+   * recuperado para fora do orçamento.
+   */
+  private static final int MAX_TOKENS_PREFIXO = 3000;
 
   private final ProjetoKeywordDetector projetoKeywordDetector;
   private final ContextSearchService contextSearchService;
   private final MarkdownPassageSplitter passageSplitter;
   private final TokenCounter tokenCounter = TokenCounter.getInstance();
 
+  /**
+   * Prompts montados recentemente. A chave inclui a versão do índice de contextos
+   * e da lista de projetos, então recargas nunca servem prompt antigo.
+   */
+  private final Cache<String, PromptEstruturado> promptsEmCache = Caffeine.newBuilder()
+      .maximumSize(MAX_PROMPTS_EM_CACHE)
+      .expireAfterWrite(Duration.ofMinutes(30))
+      .build();
+
   private static final String BASE_SYSTEM_PROMPT = """
       Você é a IA oficial do portfólio do desenvolvedor brasileiro Wesley Correia (usuário GitHub "wmakeouthill").
       Seu objetivo é ajudar recrutadores e pessoas interessadas a entenderem rapidamente quem é o Wesley,
@@ -246,52 +272,140 @@ public class PortfolioPromptService {
    * @return system prompt otimizado
    */
   public String obterSystemPromptOtimizado(String mensagemUsuario, String language) {
-    boolean english = language != null && language.toLowerCase().startsWith("en");
-    StringBuilder builder = new StringBuilder(english ? BASE_SYSTEM_PROMPT_EN : BASE_SYSTEM_PROMPT);
+    return obterPromptSistema(mensagemUsuario, language).completo();
+  }
 
+  /**
+   * Como {@link #obterSystemPromptOtimizado(String, String)}, mas separando o
+   * prefixo estável (prompt base + passagens fixas de currículo e stacks, igual
+   * para qualquer pergunta no mesmo idioma) da parte que depende da mensagem.
+   * O prefixo pode ser cacheado no provedor de IA.
+   *
+   * @param mensagemUsuario mensagem do usuário
+   * @param language        idioma preferencial ("pt" | "en")
+   * @return prompt dividido em prefixo estável e parte variável
+   */
+  public PromptSistema obterPromptSistema(String mensagemUsuario, String language) {
+    return obterPromptEstruturado(mensagemUsuario, language).renderizar();
+  }
+
+  /**
+   * Como {@link #obterPromptSistema(String, String)}, mas antes de virar texto:
+   * cada passagem variável traz custo e relevância, para o
+   * {@link TokenBudgetService} descartar as menos relevantes sem fatiar string.
+   *
+   * @param mensagemUsuario mensagem do usuário
+   * @param language        idioma preferencial ("pt" | "en")
+   * @return prompt estruturado
+   */
+  public PromptEstruturado obterPromptEstruturado(String mensagemUsuario, String language) {
     // Orçamento global de tokens para o contexto recuperado (RAG). Em vez de
     // anexar documentos inteiros (o que inflava o prompt a ~70k tokens), as
     // passagens relevantes são acumuladas até esgotar o orçamento.
-    int orcamento = orcamentoTokens(mensagemUsuario);
+    PlanoContexto plano = planejarContexto(mensagemUsuario);
+
+    // Perguntas repetidas (mesmos termos normalizados, mesmo plano) reaproveitam o
+    // prompt inteiro: nem a busca nem a montagem rodam de novo. Os projetos
+    // detectados entram na chave porque o detector olha o texto cru (keywords
+    // compostas, palavras curtas), que a chave normalizada descarta.
+    Set<String> projetosMencionados = projetoKeywordDetector.detectarProjetosRelevantes(mensagemUsuario);
+    String chave = contextSearchService.chaveNormalizada(mensagemUsuario, language)
+        + "|" + contextSearchService.versaoFallback(language)
+        + "|" + plano.maxPassagens() + "|" + plano.orcamentoTokens()
+        + "|" + querListarTodosProjetos(mensagemUsuario)
+        + "|" + String.join(",", new TreeSet<>(projetosMencionados))
+        + "|" + projetoKeywordDetector.versao();
+    return promptsEmCache.get(chave,
+        c -> montarSystemPrompt(mensagemUsuario, language, plano, projetosMencionados));
+  }
+
+  private PromptEstruturado montarSystemPrompt(String mensagemUsuario, String language, PlanoContexto plano,
+      Set<String> projetosMencionados) {
+    boolean english = language != null && language.toLowerCase().startsWith("en");
     Set<String> incluidos = new HashSet<>();
+    String prefixo = montarPrefixoEstavel(english ? BASE_SYSTEM_PROMPT_EN : BASE_SYSTEM_PROMPT, language,
+        incluidos);
 
-    int usadosContexto = anexarContextoRelevante(builder, mensagemUsuario, language, orcamento, incluidos);
-    int restante = Math.max(0, orcamento - usadosContexto);
-    anexarProjetos(builder, mensagemUsuario, language, restante, incluidos);
+    List<Secao> secoes = new ArrayList<>(2);
+    int usadosContexto = anexarContextoRelevante(secoes, mensagemUsuario, language, plano, incluidos);
+    int restante = Math.max(0, plano.orcamentoTokens() - usadosContexto);
+    anexarProjetos(secoes, mensagemUsuario, language, restante, projetosMencionados, incluidos);
 
-    if (english) {
-      builder.append("\n\nYou must always respond in English.");
+    String sufixo = english ? "\n\nYou must always respond in English." : "";
+    return new PromptEstruturado(prefixo, secoes, sufixo);
+  }
+
+  /**
+   * Prompt base seguido das passagens dos documentos preferenciais, na ordem
+   * do índice e até {@link #MAX_TOKENS_PREFIXO}. Só depende do idioma e do
+   * conteúdo indexado, então sai byte a byte igual entre requisições. As
+   * passagens usadas entram em {@code incluidos} para a busca não repeti-las.
+   */
+  private String montarPrefixoEstavel(String base, String language, Set<String> incluidos) {
+    List<PassagemContexto> fixas = contextSearchService.passagensFixas(language);
+    if (fixas.isEmpty()) {
+      return base;
+    }
+    StringBuilder builder = new StringBuilder(base)
+        .append("\n\n---\nCONTEXTO FIXO DO PORTFÓLIO (currículo e stacks):\n");
+    int usados = 0;
+    for (PassagemContexto passagem : fixas) {
+      if (usados > 0 && usados + passagem.tokens() > MAX_TOKENS_PREFIXO) {
+        break;
+      }
+      if (incluidos.add(passagem.conteudo())) {
+        anexarMarkdown(builder, passagem.conteudo());
+        usados += passagem.tokens();
+      }
     }
     return builder.toString();
   }
 
   /**
    * Anexa as passagens mais relevantes recuperadas pelo {@link ContextSearchService},
-   * respeitando o orçamento de tokens. Retorna quantos tokens foram consumidos.
+   * respeitando o orçamento de tokens, com a relevância pela posição no ranking.
+   * Retorna quantos tokens foram consumidos.
    */
-  private int anexarContextoRelevante(StringBuilder builder, String mensagemUsuario, String language,
-      int orcamento, Set<String> incluidos) {
-    List<String> contextos = contextSearchService.buscarContextos(mensagemUsuario, MAX_PASSAGENS, orcamento, language);
+  private int anexarContextoRelevante(List<Secao> secoes, String mensagemUsuario, String language,
+      PlanoContexto plano, Set<String> incluidos) {
+    List<PassagemContexto> contextos = contextSearchService.buscarContextos(mensagemUsuario,
+        plano.maxPassagens(), plano.orcamentoTokens(), language);
     if (contextos.isEmpty()) {
       return 0;
     }
-    builder.append("\n\n---\nCONTEXTOS DO PORTFÓLIO:\n");
+    List<PassagemPontuada> passagens = new ArrayList<>(contextos.size());
     int usados = 0;
-    for (String contexto : contextos) {
-      if (incluidos.add(contexto)) {
-        anexarMarkdown(builder, contexto);
-        usados += tokenCounter.estimarTokens(contexto);
+    for (int i = 0; i < contextos.size(); i++) {
+      PassagemContexto contexto = contextos.get(i);
+      if (incluidos.add(contexto.conteudo())) {
+        passagens.add(new PassagemPontuada(contexto, relevanciaPorPosicao(i)));
+        usados += contexto.tokens();
       }
     }
+    secoes.add(new Secao("\n\n---\nCONTEXTOS DO PORTFÓLIO:\n", passagens));
     return usados;
   }
 
+  /**
+   * Relevância de uma passagem pela posição (0 = primeira) no ranking da busca
+   * ou no documento do projeto: 1, 1/2, 1/3... O orçamento descarta primeiro as
+   * de menor relevância.
+   */
+  private static double relevanciaPorPosicao(int posicao) {
+    return 1.0 / (posicao + 1);
+  }
+
   /**
    * Define o teto de tokens do contexto recuperado conforme o tipo de pergunta.
    * Antes isso era uma contagem de documentos (4/5/8/20); agora é um orçamento de
    * tokens, que limita o tamanho real do prompt independentemente do tamanho de
-   * cada arquivo.
+   * cada arquivo. O número de passagens pedido à busca acompanha o orçamento, para
+   * que o ranking só selecione o que tem chance de caber.
    */
+  private PlanoContexto planejarContexto(String mensagem) {
+    return PlanoContexto.paraOrcamento(orcamentoTokens(mensagem));
+  }
+
   private int orcamentoTokens(String mensagem) {
     if (mensagem == null || mensagem.isBlank()) {
       return 4000;
@@ -321,72 +435,101 @@ public class PortfolioPromptService {
     return 8000;
   }
 
-  private void anexarProjetos(StringBuilder builder, String mensagemUsuario, String language,
-      int orcamento, Set<String> incluidos) {
+  private void anexarProjetos(List<Secao> secoes, String mensagemUsuario, String language,
+      int orcamento, Set<String> projetosMencionados, Set<String> incluidos) {
     if (mensagemUsuario == null || mensagemUsuario.isBlank() || orcamento <= 0) {
       return;
     }
 
-    String lower = mensagemUsuario.toLowerCase();
-    boolean querListarTodos = lower.contains("projeto") &&
-        (lower.contains("list") || lower.contains("todos") || lower.contains("quais") ||
-            lower.contains("mostre") || lower.contains("mostra") || lower.contains("all"));
+    boolean querListarTodos = querListarTodosProjetos(mensagemUsuario);
 
     Set<String> projetosRelevantes;
+    String cabecalho;
 
     if (querListarTodos) {
       // Quando usuário quer listar todos, carrega todos os projetos disponíveis
       projetosRelevantes = projetoKeywordDetector.obterTodosProjetos();
-      builder.append("\n\n")
-          .append("LISTA COMPLETA DE PROJETOS DO PORTFÓLIO:\n")
-          .append("Os seguintes projetos estão disponíveis no portfólio do Wesley. ")
-          .append("Use as informações abaixo para listar e descrever cada um.\n");
+      cabecalho = "\n\n"
+          + "LISTA COMPLETA DE PROJETOS DO PORTFÓLIO:\n"
+          + "Os seguintes projetos estão disponíveis no portfólio do Wesley. "
+          + "Use as informações abaixo para listar e descrever cada um.\n";
     } else {
       // Caso contrário, carrega apenas projetos mencionados
-      projetosRelevantes = projetoKeywordDetector.detectarProjetosRelevantes(mensagemUsuario);
+      projetosRelevantes = projetosMencionados;
       if (projetosRelevantes.isEmpty()) {
         return;
       }
-      builder.append("\n\n")
-          .append("A seguir estão trechos de documentação extraídos do portfólio do Wesley ")
-          .append("relacionados aos projetos mencionados. ")
-          .append(
-              "Use essas informações como contexto adicional para responder perguntas sobre projetos específicos.\n");
+      cabecalho = "\n\n"
+          + "A seguir estão trechos de documentação extraídos do portfólio do Wesley "
+          + "relacionados aos projetos mencionados. "
+          + "Use essas informações como contexto adicional para responder perguntas sobre projetos específicos.\n";
     }
 
     // Ao listar todos, distribui a cobertura: só a 1ª passagem de cada projeto.
     // Caso contrário (projeto específico), traz quantas passagens couberem.
     int passagensPorProjeto = querListarTodos ? 1 : Integer.MAX_VALUE;
+    List<PassagemPontuada> secao = new ArrayList<>();
     int restante = orcamento;
     for (String nomeProjeto : projetosRelevantes) {
       if (restante <= 0) {
         break;
       }
-      var markdown = portfolioContentPort.carregarMarkdownPorProjeto(nomeProjeto, language);
-      if (markdown.isPresent()) {
-        restante -= anexarPassagensProjeto(builder, nomeProjeto, markdown.get(), restante,
-            passagensPorProjeto, incluidos);
-      }
+      List<PassagemContexto> passagens = contextSearchService.passagensDoDocumento(nomeProjeto, language)
+          .orElseGet(() -> fatiarProjeto(nomeProjeto, language));
+      restante -= anexarPassagensProjeto(secao, passagens, restante, passagensPorProjeto, incluidos);
     }
+    secoes.add(new Secao(cabecalho, secao));
   }
 
   /**
-   * Fatiar o markdown do projeto em passagens e anexar as iniciais até esgotar o
-   * orçamento (ou o teto de passagens). Retorna quantos tokens foram consumidos.
+   * Caminho de exceção para projetos fora do índice (ex.: índice ainda sem o
+   * documento): baixa o markdown e fatia na hora, como a indexação faria.
    */
-  private int anexarPassagensProjeto(StringBuilder builder, String nomeProjeto, String markdown,
+  private List<PassagemContexto> fatiarProjeto(String nomeProjeto, String language) {
+    var markdown = portfolioContentPort.carregarMarkdownPorProjeto(nomeProjeto, language);
+    if (markdown.isEmpty()) {
+      return List.of();
+    }
+    String documento = markdown.get();
+    String rotulo = "「" + nomeProjeto + "」\n";
+    List<PassagemContexto> passagens = new ArrayList<>();
+    for (MarkdownPassageSplitter.Passagem passagem : passageSplitter.delimitar(documento)) {
+      StringBuilder texto = new StringBuilder(rotulo.length() + passagem.tamanho()).append(rotulo);
+      passagem.anexarEm(texto, documento);
+      String conteudo = texto.toString();
+      passagens.add(new PassagemContexto(conteudo, tokenCounter.estimarTokens(conteudo)));
+    }
+    return passagens;
+  }
+
+  private boolean querListarTodosProjetos(String mensagemUsuario) {
+    if (mensagemUsuario == null) {
+      return false;
+    }
+    String lower = mensagemUsuario.toLowerCase();
+    return lower.contains("projeto") &&
+        (lower.contains("list") || lower.contains("todos") || lower.contains("quais") ||
+            lower.contains("mostre") || lower.contains("mostra") || lower.contains("all"));
+  }
+
+  /**
+   * Anexa as passagens iniciais do projeto até esgotar o orçamento (ou o teto de
+   * passagens), com a relevância pela posição no documento. Retorna quantos
+   * tokens foram consumidos.
+   */
+  private int anexarPassagensProjeto(List<PassagemPontuada> secao, List<PassagemContexto> passagens,
       int orcamento, int maxPassagens, Set<String> incluidos) {
     int usados = 0;
     int adicionadas = 0;
-    for (String passagem : passageSplitter.dividir(markdown)) {
+    for (int i = 0; i < passagens.size(); i++) {
       if (adicionadas >= maxPassagens) {
         break;
       }
-      String conteudo = "「" + nomeProjeto + "」\n" + passagem;
-      int custo = tokenCounter.estimarTokens(conteudo);
+      PassagemContexto passagem = passagens.get(i);
+      int custo = passagem.tokens();
       boolean cabe = usados == 0 || usados + custo <= orcamento;
-      if (cabe && incluidos.add(conteudo)) {
-        anexarMarkdown(builder, conteudo);
+      if (cabe && incluidos.add(passagem.conteudo())) {
+        secao.add(new PassagemPontuada(passagem, relevanciaPorPosicao(i)));
         usados += custo;
         adicionadas++;
       }
@@ -401,4 +544,23 @@ public class PortfolioPromptService {
     builder.append("\n---\n")
         .append(markdown.trim());
   }
+
+  /**
+   * Quantas passagens pedir à busca ({@code maxPassagens}) e quantos tokens elas
+   * podem somar.
+   */
+  private record PlanoContexto(int maxPassagens, int orcamentoTokens) {
+
+    /**
+     * Custo de uma passagem curta (uma seção pequena do markdown): pedir mais
+     * passagens do que o orçamento comporta nesse tamanho só faria o ranking
+     * selecionar trechos que nunca entram no prompt.
+     */
+    private static final int TOKENS_POR_PASSAGEM_CURTA = 150;
+
+    static PlanoContexto paraOrcamento(int orcamentoTokens) {
+      int passagens = Math.max(1, Math.min(MAX_PASSAGENS, orcamentoTokens / TOKENS_POR_PASSAGEM_CURTA));
+      return new PlanoContexto(passagens, orcamentoTokens);
+    }
+  }
 }
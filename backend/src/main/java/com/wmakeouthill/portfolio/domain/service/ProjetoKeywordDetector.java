@@ -3,12 +3,16 @@ package com.wmakeouthill.portfolio.domain.service;
 import com.wmakeouthill.portfolio.domain.model.PortfolioMarkdownResource;
 import com.wmakeouthill.portfolio.domain.port.PortfolioContentPort;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.text.Normalizer;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Serviço para detectar projetos relevantes baseado em palavras-chave na
@@ -24,17 +28,44 @@ import java.util.*;
 public class ProjetoKeywordDetector {
 
     private static final long CACHE_TTL_MS = 24 * 60 * 60 * 1000; // 24 horas
-    private static final int MAX_DISTANCE = 2;
 
     private final PortfolioContentPort portfolioContentPort;
+    private final ContextSearchService contextSearchService;
 
-    /** Cache de projetos (carregados dinamicamente do repositório) */
-    private final Map<String, List<String>> projetosCache = new HashMap<>();
+    /**
+     * Keywords dos projetos (carregados dinamicamente do repositório) compiladas
+     * num autômato. Substituído inteiro a cada recarga; leitores só leem a
+     * referência e nunca disputam o lock da recarga.
+     */
+    private volatile AutomatoKeywords automato = AutomatoKeywords.VAZIO;
     private volatile long ultimoCarregamento = 0;
+    private volatile long versao = 0;
+    private final AtomicBoolean recargaAgendada = new AtomicBoolean();
 
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "project-keywords");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Semeia as keywords com os documentos do snapshot de contextos restaurado do
+     * disco (sem rede) e agenda a carga completa do GitHub em background, para que
+     * o boot não dependa do GitHub.
+     */
     @PostConstruct
     void carregarProjetosDinamicos() {
-        recarregarProjetosDinamicos();
+        List<PortfolioMarkdownResource> indexados = contextSearchService.recursosIndexados("pt");
+        if (!indexados.isEmpty()) {
+            publicar(indexados);
+            log.info("Projetos semeados do snapshot em disco: {} projetos", automato.projetos().size());
+        }
+        agendarRecarga();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
     }
 
     /**
@@ -44,20 +75,56 @@ public class ProjetoKeywordDetector {
      */
     public synchronized void recarregarProjetosDinamicos() {
         log.info("Carregando TODOS os projetos dinamicamente do repositório GitHub...");
-        projetosCache.clear();
-
         List<PortfolioMarkdownResource> recursos = portfolioContentPort.carregarMarkdownsDetalhados();
+        if (recursos.isEmpty() && !automato.projetos().isEmpty()) {
+            log.warn("Recarga de projetos não trouxe documentos; mantendo a lista anterior");
+            ultimoCarregamento = System.currentTimeMillis();
+            return;
+        }
+        publicar(recursos);
+        log.info("Projetos carregados dinamicamente: {} projetos encontrados", automato.projetos().size());
+    }
+
+    private void publicar(List<PortfolioMarkdownResource> recursos) {
+        Map<String, List<String>> novos = new HashMap<>();
         for (PortfolioMarkdownResource recurso : recursos) {
             if (recurso.projeto()) {
                 String nome = recurso.nome().toLowerCase(Locale.ROOT);
                 List<String> keywords = gerarKeywordsDinamicas(nome, recurso.tags());
-                projetosCache.put(nome, keywords);
+                novos.put(nome, keywords);
                 log.debug("Projeto registrado: {} -> {}", nome, keywords);
             }
         }
-
+        automato = AutomatoKeywords.compilar(novos);
+        versao++;
         ultimoCarregamento = System.currentTimeMillis();
-        log.info("Projetos carregados dinamicamente: {} projetos encontrados", projetosCache.size());
+    }
+
+    private void agendarRecarga() {
+        if (!recargaAgendada.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    recarregarProjetosDinamicos();
+                } catch (RuntimeException e) {
+                    log.error("Falha ao recarregar projetos dinâmicos", e);
+                } finally {
+                    recargaAgendada.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            recargaAgendada.set(false);
+        }
+    }
+
+    /**
+     * Versão da lista de projetos (muda a cada publicação), para quem guarda em
+     * cache resultados derivados dela.
+     */
+    public long versao() {
+        return versao;
     }
 
     /**
@@ -96,21 +163,23 @@ public class ProjetoKeywordDetector {
 
     private void verificarCacheExpirado() {
         if (System.currentTimeMillis() - ultimoCarregamento > CACHE_TTL_MS) {
-            recarregarProjetosDinamicos();
+            agendarRecarga();
         }
     }
 
     /**
-     * Obtém todas as keywords (100% dinâmicas do GitHub).
+     * Obtém o autômato de keywords (100% dinâmicas do GitHub). Com o cache
+     * expirado, agenda a recarga e segue com o autômato atual.
      */
-    private Map<String, List<String>> obterTodasKeywords() {
+    private AutomatoKeywords obterAutomato() {
         verificarCacheExpirado();
-        return new HashMap<>(projetosCache);
+        return automato;
     }
 
     /**
      * Detecta quais projetos são relevantes baseado na mensagem do usuário.
-     * Usa keywords 100% dinâmicas carregadas do repositório GitHub.
+     * Usa keywords 100% dinâmicas carregadas do repositório GitHub, numa única
+     * passada sobre a mensagem.
      * 
      * @param mensagemUsuario mensagem do usuário
      * @return conjunto de nomes de projetos relevantes (nomes normalizados dos
@@ -120,37 +189,7 @@ public class ProjetoKeywordDetector {
         if (mensagemUsuario == null || mensagemUsuario.isBlank()) {
             return Collections.emptySet();
         }
-        String mensagemNormalizada = normalizar(mensagemUsuario);
-        Set<String> stemsMensagem = extrairStems(mensagemNormalizada);
-        Set<String> projetosDetectados = new HashSet<>();
-
-        // Busca em todas as keywords (estáticas + dinâmicas)
-        Map<String, List<String>> todasKeywords = obterTodasKeywords();
-
-        for (Map.Entry<String, List<String>> entry : todasKeywords.entrySet()) {
-            String nomeProjeto = entry.getKey();
-            List<String> keywords = entry.getValue();
-
-            if (contemPalavraChave(mensagemNormalizada, stemsMensagem, keywords)) {
-                projetosDetectados.add(nomeProjeto);
-            }
-        }
-
-        return projetosDetectados;
-    }
-
-    private boolean contemPalavraChave(String mensagem, Set<String> stemsMensagem, List<String> keywords) {
-        for (String keyword : keywords) {
-            String chaveNormalizada = normalizar(keyword);
-            if (mensagem.contains(chaveNormalizada)) {
-                return true;
-            }
-            String chaveStem = stem(chaveNormalizada);
-            if (stemsMensagem.contains(chaveStem) || temSimilaridade(stemsMensagem, chaveStem)) {
-                return true;
-            }
-        }
-        return false;
+        return obterAutomato().detectar(mensagemUsuario);
     }
 
     /**
@@ -169,68 +208,6 @@ public class ProjetoKeywordDetector {
      * @return conjunto de todos os nomes de projetos
      */
     public Set<String> obterTodosProjetos() {
-        return obterTodasKeywords().keySet();
-    }
-
-    private String normalizar(String texto) {
-        return Normalizer.normalize(texto, Normalizer.Form.NFD)
-                .replaceAll("\\p{M}", "")
-                .toLowerCase(Locale.ROOT)
-                .trim();
-    }
-
-    private Set<String> extrairStems(String texto) {
-        String[] tokens = texto.split("\\W+");
-        Set<String> stems = new HashSet<>();
-        for (String token : tokens) {
-            if (token.length() > 2) {
-                stems.add(stem(token));
-            }
-        }
-        return stems;
-    }
-
-    private String stem(String palavra) {
-        if (palavra.length() <= 3) {
-            return palavra;
-        }
-        if (palavra.endsWith("ções")) {
-            return palavra.substring(0, palavra.length() - 4) + "cao";
-        }
-        if (palavra.endsWith("es")) {
-            return palavra.substring(0, palavra.length() - 2);
-        }
-        if (palavra.endsWith("s")) {
-            return palavra.substring(0, palavra.length() - 1);
-        }
-        return palavra;
-    }
-
-    private boolean temSimilaridade(Set<String> stemsMensagem, String chaveStem) {
-        for (String token : stemsMensagem) {
-            if (distancia(token, chaveStem) <= MAX_DISTANCE) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private int distancia(String origem, String destino) {
-        if (origem.equals(destino)) {
-            return 0;
-        }
-        int[] custos = new int[destino.length() + 1];
-        Arrays.setAll(custos, idx -> idx);
-        for (int i = 1; i <= origem.length(); i++) {
-            int prev = i - 1;
-            custos[0] = i;
-            for (int j = 1; j <= destino.length(); j++) {
-                int temp = custos[j];
-                custos[j] = origem.charAt(i - 1) == destino.charAt(j - 1) ? prev
-                        : Math.min(Math.min(custos[j - 1], custos[j]), prev) + 1;
-                prev = temp;
-            }
-        }
-        return custos[destino.length()];
+        return obterAutomato().projetos();
     }
 }
@@ -0,0 +1,20 @@
+package com.wmakeouthill.portfolio.domain.service;
+
+import com.wmakeouthill.portfolio.domain.model.PortfolioMarkdownResource;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Passagens já fatiadas e stemizadas de um documento, indexadas pelo caminho e
+ * válidas enquanto a {@code chave} (blob sha) não mudar. {@code tokens[i]} é o
+ * custo estimado de {@code conteudos.get(i)}.
+ */
+record SegmentoDocumento(
+    PortfolioMarkdownResource recurso,
+    String chave,
+    List<String> conteudos,
+    int[] tokens,
+    List<List<String>> termos,
+    Set<String> tagStems) {
+}
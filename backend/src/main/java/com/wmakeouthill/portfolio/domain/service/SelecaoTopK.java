@@ -0,0 +1,126 @@
+package com.wmakeouthill.portfolio.domain.service;
+
+/**
+ * Seleção dos {@code k} documentos de maior score com um min-heap limitado
+ * sobre {@code int[]}: cada candidato custa O(log k) e quem não entra no top-k
+ * é descartado na hora, sem objeto por candidato nem ordenação da lista toda.
+ *
+ * <p>
+ * Os scores ficam num {@code double[]} indexado pelo id do documento (o mesmo
+ * array usado para acumular o BM25). Empates são resolvidos pela ordem de
+ * oferta: quem foi oferecido antes fica à frente, como num sort estável.
+ * </p>
+ *
+ * <p>
+ * {@link #reiniciar} esvazia a seleção para outra consulta; os arrays do heap
+ * só são realocados quando {@code k} cresce.
+ * </p>
+ */
+final class SelecaoTopK {
+
+  private double[] scores;
+  private int[] heap = new int[0];
+  /** Ordem de oferta de cada elemento do heap, para desempate. */
+  private int[] ordem = new int[0];
+  private int k;
+  private int tamanho;
+  private int ofertas;
+
+  SelecaoTopK(int k, double[] scores) {
+    reiniciar(k, scores);
+  }
+
+  /** Esvazia a seleção para escolher os {@code k} melhores segundo {@code scores}. */
+  SelecaoTopK reiniciar(int k, double[] scores) {
+    this.scores = scores;
+    this.k = Math.max(0, k);
+    if (heap.length < this.k) {
+      heap = new int[this.k];
+      ordem = new int[this.k];
+    }
+    tamanho = 0;
+    ofertas = 0;
+    return this;
+  }
+
+  /** Considera o documento {@code doc}; entra se estiver entre os k melhores até agora. */
+  void oferecer(int doc) {
+    int posicaoOferta = ofertas++;
+    if (k == 0) {
+      return;
+    }
+    if (tamanho < k) {
+      heap[tamanho] = doc;
+      ordem[tamanho] = posicaoOferta;
+      subir(tamanho++);
+      return;
+    }
+    // A raiz é o pior do top-k: o novo só entra se for estritamente melhor.
+    if (scores[doc] > scores[heap[0]]) {
+      heap[0] = doc;
+      ordem[0] = posicaoOferta;
+      descer(0, tamanho);
+    }
+  }
+
+  /** Documentos selecionados, do maior para o menor score. Consome a seleção. */
+  int[] ordenados() {
+    int[] resultado = new int[tamanho];
+    for (int fim = tamanho - 1; fim >= 0; fim--) {
+      resultado[fim] = heap[0];
+      trocar(0, fim);
+      descer(0, fim);
+    }
+    tamanho = 0;
+    return resultado;
+  }
+
+  /** {@code true} se o elemento em {@code a} é pior (deve ficar mais perto da raiz) que o em {@code b}. */
+  private boolean pior(int a, int b) {
+    double scoreA = scores[heap[a]];
+    double scoreB = scores[heap[b]];
+    if (scoreA != scoreB) {
+      return scoreA < scoreB;
+    }
+    return ordem[a] > ordem[b];
+  }
+
+  private void subir(int posicao) {
+    while (posicao > 0) {
+      int pai = (posicao - 1) >>> 1;
+      if (!pior(posicao, pai)) {
+        return;
+      }
+      trocar(posicao, pai);
+      posicao = pai;
+    }
+  }
+
+  private void descer(int posicao, int limite) {
+    while (true) {
+      int esquerdo = 2 * posicao + 1;
+      if (esquerdo >= limite) {
+        return;
+      }
+      int menor = esquerdo;
+      int direito = esquerdo + 1;
+      if (direito < limite && pior(direito, esquerdo)) {
+        menor = direito;
+      }
+      if (!pior(menor, posicao)) {
+        return;
+      }
+      trocar(posicao, menor);
+      posicao = menor;
+    }
+  }
+
+  private void trocar(int a, int b) {
+    int doc = heap[a];
+    heap[a] = heap[b];
+    heap[b] = doc;
+    int posicaoOferta = ordem[a];
+    ordem[a] = ordem[b];
+    ordem[b] = posicaoOferta;
+  }
+}
@@ -1,11 +1,17 @@
 package com.wmakeouthill.portfolio.domain.service;
 
 import com.wmakeouthill.portfolio.domain.entity.MensagemChat;
+import com.wmakeouthill.portfolio.domain.model.HistoricoChat;
+import com.wmakeouthill.portfolio.domain.model.PromptEstruturado;
+import com.wmakeouthill.portfolio.domain.model.PromptEstruturado.PassagemPontuada;
+import com.wmakeouthill.portfolio.domain.model.PromptEstruturado.Secao;
+import com.wmakeouthill.portfolio.domain.model.PromptSistema;
 import com.wmakeouthill.portfolio.infrastructure.utils.TokenCounter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
 /**
@@ -14,8 +20,14 @@ import java.util.List;
  * 
  * Estratégia de redução (em ordem de prioridade):
  * 1. Reduz histórico de mensagens (mantém as mais recentes)
- * 2. Reduz contextos de documentação (mantém os mais relevantes)
+ * 2. Descarta passagens de contexto, das menos relevantes para as mais
  * 3. Trunca system prompt se necessário (último recurso)
+ * 
+ * O histórico chega com os tokens de cada mensagem já contados
+ * ({@link HistoricoChat}): o total parte da soma guardada por sessão e a
+ * redução desconta o custo de cada mensagem removida, sem recontar texto. O
+ * prompt chega estruturado ({@link PromptEstruturado}): as passagens trazem
+ * custo e relevância, e o texto só é montado depois do corte.
  */
 @Slf4j
 @Service
@@ -23,6 +35,7 @@ public class TokenBudgetService {
 
     private static final int MIN_HISTORICO = 2; // Mínimo de mensagens a manter
     private static final int MIN_CONTEXTOS = 1; // Mínimo de contextos a manter
+    private static final int OVERHEAD_MENSAGEM = 10; // Overhead de formato por mensagem do histórico
 
     private final TokenCounter tokenCounter = TokenCounter.getInstance();
 
@@ -30,14 +43,22 @@ public class TokenBudgetService {
      * Resultado da otimização de tokens.
      */
     public record TokenBudgetResult(
-        String systemPromptOtimizado,
+        PromptSistema promptOtimizado,
         List<MensagemChat> historicoOtimizado,
         int tokensEstimados,
         boolean foiReduzido
-    ) {}
+    ) {
+
+        public String systemPromptOtimizado() {
+            return promptOtimizado.completo();
+        }
+    }
 
     /**
-     * Otimiza o histórico e system prompt para caber no limite de tokens.
+     * Otimiza o histórico e system prompt para caber no limite de tokens,
+     * contando o histórico mensagem a mensagem. O prompt já montado não tem
+     * passagens descartáveis: só o histórico é reduzido e, no limite, o texto
+     * é truncado.
      * 
      * @param systemPrompt prompt original
      * @param historico histórico completo de mensagens
@@ -45,120 +66,122 @@ public class TokenBudgetService {
      * @return resultado otimizado
      */
     public TokenBudgetResult otimizar(String systemPrompt, List<MensagemChat> historico, String mensagemAtual) {
-        int tokensSystemPrompt = tokenCounter.estimarTokens(systemPrompt);
+        List<MensagemChat> mensagens = historico != null ? historico : List.of();
+        return otimizar(PromptEstruturado.simples(systemPrompt),
+            new HistoricoChat(mensagens, tokenCounter.estimarTokensHistorico(mensagens)), mensagemAtual);
+    }
+
+    /**
+     * Otimiza o histórico e system prompt para caber no limite de tokens.
+     * 
+     * @param prompt prompt com as passagens de contexto pontuadas
+     * @param historico janela do histórico com os tokens já somados
+     * @param mensagemAtual mensagem atual do usuário
+     * @return resultado otimizado
+     */
+    public TokenBudgetResult otimizar(PromptEstruturado prompt, HistoricoChat historico, String mensagemAtual) {
+        int tokensSystemPrompt = estimarTokensPrompt(prompt);
         int tokensMensagemAtual = tokenCounter.estimarTokens(mensagemAtual);
-        int tokensHistorico = estimarTokensHistorico(historico);
+        int tokensHistorico = tokensHistorico(historico.mensagens().size(), historico.tokens());
         int tokensTotal = tokensSystemPrompt + tokensHistorico + tokensMensagemAtual + 100; // overhead
 
         // Se está dentro do limite, retorna sem alterações
         if (!tokenCounter.precisaReducao(tokensTotal)) {
-            return new TokenBudgetResult(systemPrompt, historico, tokensTotal, false);
+            return new TokenBudgetResult(prompt.renderizar(), historico.mensagens(), tokensTotal, false);
         }
 
         log.warn("Tokens estimados ({}) acima do threshold ({}). Iniciando redução...", 
             tokensTotal, TokenCounter.THRESHOLD_REDUCAO);
 
         // Estratégia 1: Reduzir histórico
-        List<MensagemChat> historicoReduzido = reduzirHistorico(historico, tokensTotal, tokensSystemPrompt, tokensMensagemAtual);
-        int tokensHistoricoReduzido = estimarTokensHistorico(historicoReduzido);
+        HistoricoChat historicoReduzido = reduzirHistorico(historico, tokensTotal);
+        int tokensHistoricoReduzido = tokensHistorico(historicoReduzido.mensagens().size(), historicoReduzido.tokens());
         tokensTotal = tokensSystemPrompt + tokensHistoricoReduzido + tokensMensagemAtual + 100;
 
         if (!tokenCounter.precisaReducao(tokensTotal)) {
             log.info("Redução de histórico suficiente. Tokens finais: {}", tokensTotal);
-            return new TokenBudgetResult(systemPrompt, historicoReduzido, tokensTotal, true);
+            return new TokenBudgetResult(prompt.renderizar(), historicoReduzido.mensagens(), tokensTotal, true);
         }
 
-        // Estratégia 2: Truncar system prompt (reduzir contextos de documentação)
-        String systemPromptReduzido = reduzirSystemPrompt(systemPrompt, tokensTotal);
-        int tokensSystemPromptReduzido = tokenCounter.estimarTokens(systemPromptReduzido);
+        // Estratégia 2: Descartar as passagens de contexto menos relevantes
+        PromptEstruturado promptReduzido = descartarPassagens(prompt, tokenCounter.tokensParaRemover(tokensTotal));
+        int tokensSystemPromptReduzido = estimarTokensPrompt(promptReduzido);
         tokensTotal = tokensSystemPromptReduzido + tokensHistoricoReduzido + tokensMensagemAtual + 100;
 
+        // Estratégia 3: Truncar o texto (último recurso)
+        PromptSistema renderizado = promptReduzido.renderizar();
+        if (tokenCounter.excedeLimit(tokensTotal)) {
+            renderizado = PromptSistema.dividir(renderizado.prefixoEstavel(),
+                truncarSeNecessario(renderizado.completo(), tokensTotal));
+        }
+
         log.info("Redução completa. Tokens finais: {} (system: {}, histórico: {}, mensagem: {})", 
             tokensTotal, tokensSystemPromptReduzido, tokensHistoricoReduzido, tokensMensagemAtual);
 
-        return new TokenBudgetResult(systemPromptReduzido, historicoReduzido, tokensTotal, true);
+        return new TokenBudgetResult(renderizado, historicoReduzido.mensagens(), tokensTotal, true);
     }
 
     /**
-     * Reduz o histórico mantendo as mensagens mais recentes.
+     * Reduz o histórico mantendo as mensagens mais recentes, descontando da
+     * soma o custo já contado de cada mensagem removida.
      */
-    private List<MensagemChat> reduzirHistorico(List<MensagemChat> historico, int tokensTotal, 
-                                                 int tokensSystemPrompt, int tokensMensagemAtual) {
-        if (historico == null || historico.size() <= MIN_HISTORICO) {
-            return historico != null ? new ArrayList<>(historico) : new ArrayList<>();
+    private HistoricoChat reduzirHistorico(HistoricoChat historico, int tokensTotal) {
+        List<MensagemChat> mensagens = historico.mensagens();
+        if (mensagens.size() <= MIN_HISTORICO) {
+            return historico;
         }
 
-        List<MensagemChat> resultado = new ArrayList<>(historico);
         int tokensParaRemover = tokenCounter.tokensParaRemover(tokensTotal);
+        int tokensRestantes = historico.tokens();
+        int inicio = 0;
 
-        while (resultado.size() > MIN_HISTORICO && tokensParaRemover > 0) {
-            // Remove a mensagem mais antiga (índice 0)
-            MensagemChat removida = resultado.remove(0);
-            int tokensRemovidos = tokenCounter.estimarTokens(removida.content());
+        while (mensagens.size() - inicio > MIN_HISTORICO && tokensParaRemover > 0) {
+            // Remove a mensagem mais antiga
+            int tokensRemovidos = tokensMensagem(mensagens.get(inicio++));
+            tokensRestantes -= tokensRemovidos;
             tokensParaRemover -= tokensRemovidos;
             
             log.debug("Removida mensagem do histórico ({} tokens). Restam {} para remover.", 
                 tokensRemovidos, Math.max(0, tokensParaRemover));
         }
 
-        log.info("Histórico reduzido de {} para {} mensagens", historico.size(), resultado.size());
-        return resultado;
+        log.info("Histórico reduzido de {} para {} mensagens", mensagens.size(), mensagens.size() - inicio);
+        return new HistoricoChat(mensagens.subList(inicio, mensagens.size()), tokensRestantes);
     }
 
     /**
-     * Reduz o system prompt removendo seções de contexto menos importantes.
-     * Preserva o prompt base e remove contextos de documentação.
+     * Descarta passagens de contexto da menor para a maior relevância (empate:
+     * a que vem depois no prompt sai antes) até remover {@code tokensParaRemover},
+     * mantendo ao menos {@link #MIN_CONTEXTOS}.
      */
-    private String reduzirSystemPrompt(String systemPrompt, int tokensTotal) {
-        if (systemPrompt == null || systemPrompt.isBlank()) {
-            return systemPrompt;
+    private PromptEstruturado descartarPassagens(PromptEstruturado prompt, int tokensParaRemover) {
+        List<PassagemPontuada> passagens = prompt.passagens();
+        if (passagens.size() <= MIN_CONTEXTOS || tokensParaRemover <= 0) {
+            return prompt;
         }
 
-        // Identifica a seção de contextos do portfólio
-        String marcadorContextos = "---\nCONTEXTOS DO PORTFÓLIO:";
-        int indiceContextos = systemPrompt.indexOf(marcadorContextos);
-        
-        if (indiceContextos == -1) {
-            // Não tem seção de contextos, trunca o final se necessário
-            return truncarSeNecessario(systemPrompt, tokensTotal);
+        Integer[] ordem = new Integer[passagens.size()];
+        for (int i = 0; i < ordem.length; i++) {
+            ordem[i] = i;
         }
-
-        // Separa o prompt base dos contextos
-        String promptBase = systemPrompt.substring(0, indiceContextos);
-        String secaoContextos = systemPrompt.substring(indiceContextos);
-
-        // Reduz os contextos pela metade
-        String contextosReduzidos = reduzirSecaoContextos(secaoContextos);
-        
-        String resultado = promptBase + contextosReduzidos;
-        
-        int tokensResultado = tokenCounter.estimarTokens(resultado);
-        log.info("System prompt reduzido de {} para {} tokens", 
-            tokenCounter.estimarTokens(systemPrompt), tokensResultado);
-        
-        return resultado;
-    }
-
-    /**
-     * Reduz a seção de contextos mantendo apenas os primeiros.
-     */
-    private String reduzirSecaoContextos(String secaoContextos) {
-        String[] partes = secaoContextos.split("(?=### )");
-        
-        if (partes.length <= MIN_CONTEXTOS + 1) { // +1 pelo header
-            return secaoContextos;
+        Arrays.sort(ordem, (a, b) -> {
+            int comparacao = Double.compare(passagens.get(a).relevancia(), passagens.get(b).relevancia());
+            return comparacao != 0 ? comparacao : Integer.compare(b, a);
+        });
+
+        BitSet removidas = new BitSet(passagens.size());
+        int tokensRemovidos = 0;
+        for (int indice : ordem) {
+            if (tokensRemovidos >= tokensParaRemover || passagens.size() - removidas.cardinality() <= MIN_CONTEXTOS) {
+                break;
+            }
+            removidas.set(indice);
+            tokensRemovidos += passagens.get(indice).passagem().tokens();
         }
 
-        // Mantém header + primeiros contextos
-        StringBuilder resultado = new StringBuilder();
-        int contextosParaManter = Math.max(MIN_CONTEXTOS, partes.length / 2);
-        
-        for (int i = 0; i < Math.min(contextosParaManter + 1, partes.length); i++) {
-            resultado.append(partes[i]);
-        }
-
-        log.debug("Contextos reduzidos de {} para {}", partes.length - 1, contextosParaManter);
-        return resultado.toString();
+        log.info("Descartadas {} de {} passagens de contexto ({} tokens)",
+            removidas.cardinality(), passagens.size(), tokensRemovidos);
+        return prompt.sem(removidas);
     }
 
     /**
@@ -179,13 +202,27 @@ public class TokenBudgetService {
         return texto.substring(0, caracteresMaximos) + "\n\n[... conteúdo truncado por limite de tokens ...]";
     }
 
-    private int estimarTokensHistorico(List<MensagemChat> historico) {
-        if (historico == null || historico.isEmpty()) {
-            return 0;
+    /** Custo do prompt: textos fixos contados (com cache) e passagens pelo custo do índice. */
+    private int estimarTokensPrompt(PromptEstruturado prompt) {
+        int tokens = tokenCounter.estimarTokens(prompt.prefixoEstavel()) + tokenCounter.estimarTokens(prompt.sufixo());
+        for (Secao secao : prompt.secoes()) {
+            if (secao.passagens().isEmpty()) {
+                continue;
+            }
+            tokens += tokenCounter.estimarTokens(secao.cabecalho());
+            for (PassagemPontuada passagem : secao.passagens()) {
+                tokens += passagem.passagem().tokens();
+            }
         }
-        return historico.stream()
-            .mapToInt(msg -> tokenCounter.estimarTokens(msg.content()) + 10) // +10 overhead por msg
-            .sum();
+        return tokens;
+    }
+
+    private int tokensHistorico(int mensagens, int tokensConteudo) {
+        return tokensConteudo + mensagens * OVERHEAD_MENSAGEM;
+    }
+
+    private int tokensMensagem(MensagemChat mensagem) {
+        return mensagem.tokensContados() ? mensagem.tokens() : tokenCounter.estimarTokens(mensagem.content());
     }
 }
 
@@ -0,0 +1,157 @@
+package com.wmakeouthill.portfolio.domain.service;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+
+/**
+ * Tokenizador + stemmer de passagem única sobre {@code char}, usado tanto na
+ * indexação das passagens quanto na consulta do chat.
+ *
+ * <p>
+ * Cada caractere passa por uma tabela que já devolve a forma final (minúscula e
+ * sem acento) ou marca o caractere como separador; o termo é montado num buffer
+ * reaproveitado e entregue ao {@link Consumidor} sem criar String, regex ou
+ * {@link Normalizer} por palavra. A tabela cobre Latin-1 e Latin Extended-A/B
+ * (todo o português/inglês); acima disso letras e dígitos seguem como estão, em
+ * minúsculas.
+ * </p>
+ *
+ * <p>
+ * Stemming mínimo, aplicado no buffer: termos com até 3 letras ficam como estão,
+ * {@code -coes} vira {@code -cao} e um {@code s} final é removido. Termos com
+ * menos de 3 letras após o stemming são descartados.
+ * </p>
+ */
+final class Tokenizador {
+
+  /** Separador: encerra o termo atual. */
+  private static final char SEPARADOR = 0;
+  /** Marca combinante (acento solto de texto já decomposto): ignorada. */
+  private static final char IGNORAR = 1;
+
+  private static final int TAMANHO_MINIMO = 3;
+  private static final char[] SUFIXO_COES = {'c', 'o', 'e', 's'};
+
+  private static final char[] DOBRA = criarTabela();
+
+  private Tokenizador() {
+  }
+
+  /** Recebe cada termo já normalizado e stemizado: {@code termo[0, tamanho)}. */
+  @FunctionalInterface
+  interface Consumidor {
+    void aceitar(char[] termo, int tamanho);
+  }
+
+  /**
+   * Percorre o texto uma única vez entregando os termos em ordem (com
+   * repetição). O buffer passado ao consumidor é reaproveitado entre termos.
+   */
+  static void tokenizar(CharSequence texto, Consumidor consumidor) {
+    if (texto == null) {
+      return;
+    }
+    char[] buffer = new char[32];
+    int tamanho = 0;
+    int total = texto.length();
+    for (int i = 0; i <= total; i++) {
+      char dobrado = i < total ? dobrar(texto.charAt(i)) : SEPARADOR;
+      if (dobrado == IGNORAR) {
+        continue;
+      }
+      if (dobrado != SEPARADOR) {
+        if (tamanho == buffer.length) {
+          buffer = Arrays.copyOf(buffer, tamanho * 2);
+        }
+        buffer[tamanho++] = dobrado;
+        continue;
+      }
+      if (tamanho > 0) {
+        int tamanhoStem = stem(buffer, tamanho);
+        if (tamanhoStem >= TAMANHO_MINIMO) {
+          consumidor.aceitar(buffer, tamanhoStem);
+        }
+        tamanho = 0;
+      }
+    }
+  }
+
+  /**
+   * Forma normalizada de um termo inteiro (ex.: uma tag): minúsculas, sem acento
+   * e com o mesmo stemming da tokenização. Caracteres que não são letra/dígito
+   * são mantidos, para que tags com espaço não virem vários termos.
+   */
+  static String normalizarTermo(String termo) {
+    char[] buffer = new char[termo.length()];
+    int tamanho = 0;
+    for (int i = 0; i < termo.length(); i++) {
+      char original = termo.charAt(i);
+      char dobrado = dobrar(original);
+      if (dobrado == IGNORAR) {
+        continue;
+      }
+      buffer[tamanho++] = dobrado == SEPARADOR ? original : dobrado;
+    }
+    return new String(buffer, 0, stem(buffer, tamanho));
+  }
+
+  /** Aplica o stemming no próprio buffer e devolve o novo tamanho. */
+  static int stem(char[] termo, int tamanho) {
+    if (tamanho <= 3) {
+      return tamanho;
+    }
+    if (terminaCom(termo, tamanho, SUFIXO_COES)) {
+      termo[tamanho - 3] = 'a';
+      termo[tamanho - 2] = 'o';
+      return tamanho - 1;
+    }
+    if (termo[tamanho - 1] == 's') {
+      return tamanho - 1;
+    }
+    return tamanho;
+  }
+
+  private static boolean terminaCom(char[] termo, int tamanho, char[] sufixo) {
+    if (tamanho < sufixo.length) {
+      return false;
+    }
+    int inicio = tamanho - sufixo.length;
+    for (int i = 0; i < sufixo.length; i++) {
+      if (termo[inicio + i] != sufixo[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static char dobrar(char c) {
+    if (c < DOBRA.length) {
+      return DOBRA[c];
+    }
+    if (c >= '\u0300' && c <= '\u036F') {
+      return IGNORAR;
+    }
+    return Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : SEPARADOR;
+  }
+
+  /**
+   * Monta a tabela uma única vez com o mesmo resultado do antigo
+   * {@code Normalizer.normalize(NFD) + replaceAll("\\p{M}", "") + toLowerCase}
+   * aplicado caractere a caractere.
+   */
+  private static char[] criarTabela() {
+    char[] tabela = new char[0x250];
+    for (char c = 0; c < tabela.length; c++) {
+      if (c == '_' || (c < 0x80 && Character.isLetterOrDigit(c))) {
+        tabela[c] = Character.toLowerCase(c);
+      } else if (c >= 0x80 && Character.isLetterOrDigit(c)) {
+        String decomposto = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+        char base = Character.toLowerCase(decomposto.charAt(0));
+        tabela[c] = base > IGNORAR ? base : SEPARADOR;
+      } else {
+        tabela[c] = SEPARADOR;
+      }
+    }
+    return tabela;
+  }
+}
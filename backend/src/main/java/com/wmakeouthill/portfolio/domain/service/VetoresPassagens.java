@@ -0,0 +1,139 @@
+package com.wmakeouthill.portfolio.domain.service;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Vetores TF-IDF esparsos das passagens, projetados por feature hashing num
+ * espaço fixo de {@link #DIMENSOES} posições e guardados num único
+ * {@code float[]} contíguo ({@code passagem * DIMENSOES + dimensão}).
+ *
+ * <p>
+ * As features de um termo são o próprio termo e seus trigramas de caractere
+ * (com marcadores de início/fim), para que variações morfológicas e compostos
+ * ("microsservico" × "microservico", "deploy" × "deployment") ainda fiquem
+ * próximos quando o match exato do BM25 falha. Cada feature cai numa dimensão
+ * com sinal ±1 derivado do hash, o que reduz o viés das colisões. Os pesos são
+ * TF × IDF por dimensão e cada linha é normalizada (norma L2 = 1), então o
+ * cosseno vira um produto escalar.
+ * </p>
+ *
+ * <p>
+ * Usado como segundo estágio: só os candidatos do ranking lexical são
+ * comparados com a consulta, então o custo é limitado pelo tamanho desse
+ * conjunto, não pelo corpus.
+ * </p>
+ */
+final class VetoresPassagens {
+
+  static final int DIMENSOES = 256;
+  private static final int MASCARA = DIMENSOES - 1;
+  /** Peso de cada trigrama em relação ao termo inteiro. */
+  private static final float PESO_TRIGRAMA = 0.35f;
+
+  private final float[] vetores;
+  private final float[] idf;
+  private final int total;
+
+  private VetoresPassagens(float[] vetores, float[] idf, int total) {
+    this.vetores = vetores;
+    this.idf = idf;
+    this.total = total;
+  }
+
+  /** Calcula e normaliza os vetores de todas as passagens (termos na ordem dos ids). */
+  static VetoresPassagens construir(List<List<String>> termosPorPassagem) {
+    int total = termosPorPassagem.size();
+    float[] vetores = new float[total * DIMENSOES];
+    int[] df = new int[DIMENSOES];
+    for (int passagem = 0; passagem < total; passagem++) {
+      int base = passagem * DIMENSOES;
+      for (String termo : termosPorPassagem.get(passagem)) {
+        acumular(vetores, base, termo);
+      }
+      for (int d = 0; d < DIMENSOES; d++) {
+        if (vetores[base + d] != 0) {
+          df[d]++;
+        }
+      }
+    }
+
+    float[] idf = new float[DIMENSOES];
+    for (int d = 0; d < DIMENSOES; d++) {
+      idf[d] = (float) (Math.log((total + 1.0) / (df[d] + 1.0)) + 1.0);
+    }
+    for (int passagem = 0; passagem < total; passagem++) {
+      ponderarENormalizar(vetores, passagem * DIMENSOES, idf);
+    }
+    return new VetoresPassagens(vetores, idf, total);
+  }
+
+  int total() {
+    return total;
+  }
+
+  /** Vetor normalizado da consulta, no mesmo espaço (e com o mesmo IDF) das passagens. */
+  float[] vetorConsulta(Collection<String> termos) {
+    float[] consulta = new float[DIMENSOES];
+    for (String termo : termos) {
+      acumular(consulta, 0, termo);
+    }
+    ponderarENormalizar(consulta, 0, idf);
+    return consulta;
+  }
+
+  /**
+   * Cosseno entre a consulta e a passagem (ambas normalizadas). Laço único
+   * sobre arrays primitivos, com acumuladores independentes para não serializar
+   * as somas.
+   */
+  float cosseno(float[] consulta, int passagem) {
+    int base = passagem * DIMENSOES;
+    float s0 = 0;
+    float s1 = 0;
+    float s2 = 0;
+    float s3 = 0;
+    for (int d = 0; d < DIMENSOES; d += 4) {
+      s0 += consulta[d] * vetores[base + d];
+      s1 += consulta[d + 1] * vetores[base + d + 1];
+      s2 += consulta[d + 2] * vetores[base + d + 2];
+      s3 += consulta[d + 3] * vetores[base + d + 3];
+    }
+    return (s0 + s1) + (s2 + s3);
+  }
+
+  private static void acumular(float[] destino, int base, String termo) {
+    adicionar(destino, base, termo.hashCode(), 1f);
+    int tamanho = termo.length();
+    // Trigramas de "^termo$": o primeiro e o último carregam as bordas.
+    for (int i = -1; i + 2 <= tamanho; i++) {
+      char a = i < 0 ? '^' : termo.charAt(i);
+      char b = termo.charAt(i + 1);
+      char c = i + 2 < tamanho ? termo.charAt(i + 2) : '$';
+      adicionar(destino, base, ((a * 31) + b) * 31 + c + 0x9E3779B9, PESO_TRIGRAMA);
+    }
+  }
+
+  private static void adicionar(float[] destino, int base, int hash, float peso) {
+    int h = hash * 0x85EBCA6B;
+    h ^= h >>> 15;
+    float sinal = (h & 0x10000) == 0 ? 1f : -1f;
+    destino[base + (h & MASCARA)] += sinal * peso;
+  }
+
+  private static void ponderarENormalizar(float[] vetores, int base, float[] idf) {
+    double norma = 0;
+    for (int d = 0; d < DIMENSOES; d++) {
+      float valor = vetores[base + d] * idf[d];
+      vetores[base + d] = valor;
+      norma += valor * valor;
+    }
+    if (norma == 0) {
+      return;
+    }
+    float inverso = (float) (1 / Math.sqrt(norma));
+    for (int d = 0; d < DIMENSOES; d++) {
+      vetores[base + d] *= inverso;
+    }
+  }
+}
@@ -3,11 +3,14 @@ package com.wmakeouthill.portfolio.infrastructure.ai;
 import com.wmakeouthill.portfolio.application.dto.ChatResponse;
 import com.wmakeouthill.portfolio.application.port.out.AIChatPort;
 import com.wmakeouthill.portfolio.domain.entity.MensagemChat;
+import com.wmakeouthill.portfolio.domain.model.PromptSistema;
+import com.wmakeouthill.portfolio.infrastructure.ai.SaudeModelos.Situacao;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Router que permite selecionar entre Gemini e GPT em tempo de execução.
@@ -21,20 +24,34 @@ import java.util.List;
  * Se apenas um adapter estiver disponível, usa-o independente do modelo
  * solicitado.
  * </p>
+ *
+ * <p>
+ * Prompts divididos ({@link PromptSistema}) chegam inteiros ao Gemini, que
+ * cacheia o prefixo estável; o GPT recebe o prompt completo.
+ * </p>
+ *
+ * <p>
+ * O provedor pedido só é trocado pelo outro quando a {@link SaudeModelos}
+ * mostra o outro em situação melhor: todos os modelos do pedido com circuito
+ * aberto, ou todos lentos enquanto o outro responde rápido.
+ * </p>
  */
 @Slf4j
 @Component
 public class AIChatRouter implements AIChatPort {
 
-    private final AIChatPort geminiAdapter;
-    private final AIChatPort openaiAdapter;
+    private final GeminiAdapter geminiAdapter;
+    private final OpenAIAdapter openaiAdapter;
+    private final SaudeModelos saude;
 
     @Autowired
     public AIChatRouter(
             @Autowired(required = false) GeminiAdapter geminiAdapter,
-            @Autowired(required = false) OpenAIAdapter openaiAdapter) {
+            @Autowired(required = false) OpenAIAdapter openaiAdapter,
+            SaudeModelos saude) {
         this.geminiAdapter = geminiAdapter;
         this.openaiAdapter = openaiAdapter;
+        this.saude = saude;
 
         log.info("AIChatRouter configurado - Gemini: {}, OpenAI: {}",
                 geminiAdapter != null ? "disponível" : "indisponível",
@@ -46,30 +63,75 @@ public class AIChatRouter implements AIChatPort {
      * Usa Gemini como padrão.
      */
     public ChatResponse chat(String systemPrompt, List<MensagemChat> historico, String mensagemAtual, String modelo) {
-        boolean useGpt = "gpt".equalsIgnoreCase(modelo) || "openai".equalsIgnoreCase(modelo);
+        return chat(new PromptSistema("", systemPrompt), historico, mensagemAtual, modelo);
+    }
 
-        if (useGpt) {
-            if (openaiAdapter != null) {
-                log.info("Roteando para OpenAI/GPT (modelo solicitado: {})", modelo);
-                return openaiAdapter.chat(systemPrompt, historico, mensagemAtual);
-            } else {
-                log.warn("GPT solicitado mas OpenAI adapter não disponível. Fallback para Gemini.");
-            }
+    /**
+     * Como {@link #chat(String, List, String, String)}, preservando a divisão
+     * entre prefixo estável e parte variável do system prompt.
+     */
+    public ChatResponse chat(PromptSistema prompt, List<MensagemChat> historico, String mensagemAtual,
+            String modelo) {
+        if (geminiAdapter == null && openaiAdapter == null) {
+            return new ChatResponse("Nenhum provedor de IA configurado. Configure o Vertex AI ou OPENAI_API_KEY.");
+        }
+        if (usarGpt(modelo)) {
+            log.info("Roteando para OpenAI/GPT (modelo solicitado: {})", modelo);
+            return openaiAdapter.chat(prompt.completo(), historico, mensagemAtual);
         }
+        log.info("Roteando para Gemini (modelo solicitado: {})", modelo);
+        return geminiAdapter.chat(prompt, historico, mensagemAtual);
+    }
 
-        // Padrão: Gemini
-        if (geminiAdapter != null) {
-            log.info("Roteando para Gemini (modelo solicitado: {})", modelo);
-            return geminiAdapter.chat(systemPrompt, historico, mensagemAtual);
+    /**
+     * Variante em streaming: mesmo roteamento de
+     * {@link #chat(PromptSistema, List, String, String)}, entregando o texto em
+     * trechos para {@code aoReceberTrecho} e devolvendo a resposta completa.
+     */
+    public ChatResponse chatStream(PromptSistema prompt, List<MensagemChat> historico, String mensagemAtual,
+            String modelo, Consumer<String> aoReceberTrecho) {
+        if (geminiAdapter == null && openaiAdapter == null) {
+            return new ChatResponse("Nenhum provedor de IA configurado. Configure o Vertex AI ou OPENAI_API_KEY.");
         }
+        if (usarGpt(modelo)) {
+            log.info("Roteando streaming para OpenAI/GPT (modelo solicitado: {})", modelo);
+            return openaiAdapter.chatStream(prompt.completo(), historico, mensagemAtual, aoReceberTrecho);
+        }
+        log.info("Roteando streaming para Gemini (modelo solicitado: {})", modelo);
+        return geminiAdapter.chatStream(prompt, historico, mensagemAtual, aoReceberTrecho);
+    }
 
-        // Último fallback: OpenAI se Gemini não disponível
-        if (openaiAdapter != null) {
-            log.warn("Gemini não disponível. Fallback para OpenAI.");
-            return openaiAdapter.chat(systemPrompt, historico, mensagemAtual);
+    /**
+     * Decide o provedor: o pedido pelo usuário (Gemini por padrão), a menos que
+     * não esteja configurado ou que o outro esteja em situação melhor. Exige ao
+     * menos um adapter disponível.
+     */
+    private boolean usarGpt(String modelo) {
+        boolean pediuGpt = "gpt".equalsIgnoreCase(modelo) || "openai".equalsIgnoreCase(modelo);
+        if (openaiAdapter == null) {
+            if (pediuGpt) {
+                log.warn("GPT solicitado mas OpenAI adapter não disponível. Fallback para Gemini.");
+            }
+            return false;
+        }
+        if (geminiAdapter == null) {
+            if (!pediuGpt) {
+                log.warn("Gemini não disponível. Fallback para OpenAI.");
+            }
+            return true;
         }
 
-        return new ChatResponse("Nenhum provedor de IA configurado. Configure o Vertex AI ou OPENAI_API_KEY.");
+        Situacao gemini = saude.situacao(geminiAdapter.modelos());
+        Situacao gpt = saude.situacao(openaiAdapter.modelos());
+        if (pediuGpt && gemini.compareTo(gpt) < 0 && geminiAdapter.isConfigurado()) {
+            log.warn("OpenAI {} e Gemini {}: roteando para Gemini", gpt, gemini);
+            return false;
+        }
+        if (!pediuGpt && gpt.compareTo(gemini) < 0 && openaiAdapter.isConfigurado()) {
+            log.warn("Gemini {} e OpenAI {}: roteando para OpenAI", gemini, gpt);
+            return true;
+        }
+        return pediuGpt;
     }
 
     /**
@@ -86,11 +148,16 @@ public class AIChatRouter implements AIChatPort {
      */
     public ChatResponse chat(String systemPrompt, List<MensagemChat> historico, String mensagemAtual,
             String modelo, List<com.wmakeouthill.portfolio.application.dto.MediaPart> media) {
+        return chat(new PromptSistema("", systemPrompt), historico, mensagemAtual, modelo, media);
+    }
+
+    public ChatResponse chat(PromptSistema prompt, List<MensagemChat> historico, String mensagemAtual,
+            String modelo, List<com.wmakeouthill.portfolio.application.dto.MediaPart> media) {
         if (media != null && !media.isEmpty() && geminiAdapter != null) {
             log.info("Roteando requisição multimodal ({} anexo(s)) para Gemini", media.size());
-            return geminiAdapter.chat(systemPrompt, historico, mensagemAtual, media);
+            return geminiAdapter.chat(prompt, historico, mensagemAtual, media);
         }
-        return chat(systemPrompt, historico, mensagemAtual, modelo);
+        return chat(prompt, historico, mensagemAtual, modelo);
     }
 
     /**
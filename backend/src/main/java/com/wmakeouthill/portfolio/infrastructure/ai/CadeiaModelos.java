@@ -0,0 +1,348 @@
+package com.wmakeouthill.portfolio.infrastructure.ai;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Percorre a cadeia de modelos de um provedor (principal + fallbacks).
+ *
+ * <p>
+ * Sem hedge, tenta um modelo por vez, na ordem, até um responder. Com hedge
+ * ligado, se o modelo atual não responder (ou, em streaming, não entregar o
+ * primeiro trecho) dentro do percentil configurado da sua latência recente, o
+ * próximo modelo é disparado em paralelo: vale o que responder primeiro e o
+ * outro é cancelado. Em streaming, só o vencedor chega a repassar trechos.
+ * Hedges simultâneos são limitados para não dobrar a carga justamente quando o
+ * provedor está lento.
+ * </p>
+ *
+ * <p>
+ * A ordem e os modelos tentados passam pela {@link SaudeModelos}: modelos com o
+ * circuito aberto são pulados sem chamada ao provedor e os lentos vão para o
+ * fim. Cada tentativa registra sucesso ou falha (com a latência) no circuito do
+ * modelo; as canceladas pelo hedge não contam.
+ * </p>
+ */
+@Slf4j
+public class CadeiaModelos {
+
+    /**
+     * Uma tentativa em um modelo. Erros que devem levar ao próximo modelo
+     * chegam como {@link IOException}; os que não são culpa do modelo, como
+     * {@link SaudeModelos.RequisicaoRejeitadaException}. {@code aoReceberTrecho}
+     * é null fora do streaming.
+     */
+    @FunctionalInterface
+    public interface Tentativa<T> {
+        T executar(String modelo, Consumer<String> aoReceberTrecho) throws IOException, InterruptedException;
+    }
+
+    private record Evento<T>(int indice, T valor, Exception erro, boolean reivindicou) {
+    }
+
+    private static final int TAMANHO_JANELA = 100;
+    private static final int AMOSTRAS_MINIMAS = 20;
+
+    private final String provedor;
+    private final SaudeModelos saude;
+    private final boolean hedgeHabilitado;
+    private final double percentil;
+    private final long atrasoMinimoMs;
+    private final long atrasoPadraoMs;
+    private final Semaphore hedgesDisponiveis;
+    private final ExecutorService executor;
+    private final Map<String, JanelaLatencia> latencias = new ConcurrentHashMap<>();
+
+    public CadeiaModelos(String provedor, SaudeModelos saude, boolean hedgeHabilitado, double percentil,
+            long atrasoMinimoMs, long atrasoPadraoMs, int maxHedgesSimultaneos) {
+        this.provedor = provedor;
+        this.saude = saude;
+        this.hedgeHabilitado = hedgeHabilitado;
+        this.percentil = Math.min(1, Math.max(0, percentil));
+        this.atrasoMinimoMs = Math.max(0, atrasoMinimoMs);
+        this.atrasoPadraoMs = Math.max(this.atrasoMinimoMs, atrasoPadraoMs);
+        this.hedgesDisponiveis = new Semaphore(Math.max(0, maxHedgesSimultaneos));
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "hedge-" + provedor + "-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (hedgeHabilitado) {
+            log.info("Hedge de modelos '{}' ligado: p{} da latência (mín. {}ms, padrão {}ms), até {} em paralelo",
+                    provedor, Math.round(this.percentil * 100), this.atrasoMinimoMs, this.atrasoPadraoMs,
+                    maxHedgesSimultaneos);
+        }
+    }
+
+    /**
+     * Executa {@code tentativa} pela cadeia {@code modelos} e devolve a primeira
+     * resposta bem-sucedida. Se todos falharem, lança o último erro.
+     */
+    public <T> T executar(List<String> modelos, Consumer<String> aoReceberTrecho, Tentativa<T> tentativa)
+            throws IOException, InterruptedException {
+        if (modelos.isEmpty()) {
+            throw new IOException("Nenhum modelo configurado para " + provedor);
+        }
+        List<String> candidatos = saude.ordenar(modelos);
+        if (candidatos.isEmpty()) {
+            throw new IOException("Todos os modelos de " + provedor + " estão com o circuito aberto");
+        }
+        if (!candidatos.equals(modelos)) {
+            log.info("Cadeia de {} reordenada pela saúde dos modelos: {}", provedor, candidatos);
+        }
+        Tentativa<T> monitorada = monitorar(tentativa);
+        if (!hedgeHabilitado || candidatos.size() < 2) {
+            return emSequencia(candidatos, aoReceberTrecho, monitorada);
+        }
+        return comHedge(candidatos, aoReceberTrecho, monitorada);
+    }
+
+    /**
+     * Envolve a tentativa com o circuit breaker do modelo: nega na hora se o
+     * circuito estiver aberto e registra o resultado. Erros de IO contam como
+     * falha do modelo; cancelamento (hedge perdedor), requisições rejeitadas
+     * com 4xx e erros do lado do cliente não dão veredito.
+     */
+    private <T> Tentativa<T> monitorar(Tentativa<T> tentativa) {
+        return (modelo, aoReceberTrecho) -> {
+            saude.liberar(modelo);
+            long inicio = System.nanoTime();
+            boolean veredito = false;
+            try {
+                T valor = tentativa.executar(modelo, aoReceberTrecho);
+                saude.registrarSucesso(modelo, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+                veredito = true;
+                return valor;
+            } catch (SaudeModelos.RequisicaoRejeitadaException e) {
+                throw e;
+            } catch (IOException e) {
+                if (!Thread.currentThread().isInterrupted()) {
+                    saude.registrarFalha(modelo, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+                    veredito = true;
+                }
+                throw e;
+            } finally {
+                if (!veredito) {
+                    saude.descartar(modelo);
+                }
+            }
+        };
+    }
+
+    /**
+     * Atraso até disparar o próximo modelo: percentil das últimas latências do
+     * modelo (tempo até o primeiro trecho, em streaming), ou o padrão enquanto
+     * não houver amostras suficientes.
+     */
+    long atrasoHedgeMs(String modelo, boolean streaming) {
+        JanelaLatencia janela = latencias.get(chave(modelo, streaming));
+        if (janela == null) {
+            return atrasoPadraoMs;
+        }
+        long estimado = janela.percentil(percentil, AMOSTRAS_MINIMAS);
+        return estimado < 0 ? atrasoPadraoMs : Math.max(atrasoMinimoMs, estimado);
+    }
+
+    void registrarLatencia(String modelo, boolean streaming, long duracaoNanos) {
+        latencias.computeIfAbsent(chave(modelo, streaming), k -> new JanelaLatencia(TAMANHO_JANELA))
+                .registrar(TimeUnit.NANOSECONDS.toMillis(duracaoNanos));
+    }
+
+    private <T> T emSequencia(List<String> modelos, Consumer<String> aoReceberTrecho, Tentativa<T> tentativa)
+            throws IOException, InterruptedException {
+        IOException ultimoErro = null;
+        for (int i = 0; i < modelos.size(); i++) {
+            String modelo = modelos.get(i);
+            try {
+                return tentativa.executar(modelo, aoReceberTrecho);
+            } catch (IOException e) {
+                ultimoErro = e;
+                if (i < modelos.size() - 1) {
+                    log.warn("Erro ao comunicar com modelo {}: {}. Tentando próximo modelo...",
+                            modelo, e.getMessage());
+                }
+            }
+        }
+        throw ultimoErro;
+    }
+
+    private <T> T comHedge(List<String> modelos, Consumer<String> aoReceberTrecho, Tentativa<T> tentativa)
+            throws IOException, InterruptedException {
+        boolean streaming = aoReceberTrecho != null;
+        BlockingQueue<Evento<T>> eventos = new LinkedBlockingQueue<>();
+        AtomicInteger vencedor = new AtomicInteger(-1);
+        Map<Integer, Future<?>> emVoo = new HashMap<>();
+        int iniciadas = 0;
+        long inicioUltima = 0;
+        boolean podeHedge = true;
+        Exception ultimoErro = null;
+        try {
+            while (true) {
+                if (emVoo.isEmpty()) {
+                    if (iniciadas == modelos.size()) {
+                        break;
+                    }
+                    inicioUltima = System.nanoTime();
+                    emVoo.put(iniciadas, iniciar(iniciadas, modelos.get(iniciadas), false, aoReceberTrecho,
+                            tentativa, eventos, vencedor));
+                    iniciadas++;
+                    podeHedge = true;
+                    continue;
+                }
+
+                Evento<T> evento;
+                if (podeHedge && vencedor.get() < 0 && iniciadas < modelos.size()) {
+                    String atual = modelos.get(iniciadas - 1);
+                    long atrasoMs = atrasoHedgeMs(atual, streaming);
+                    long restante = TimeUnit.MILLISECONDS.toNanos(atrasoMs) - (System.nanoTime() - inicioUltima);
+                    evento = eventos.poll(Math.max(0, restante), TimeUnit.NANOSECONDS);
+                    if (evento == null) {
+                        if (!hedgesDisponiveis.tryAcquire()) {
+                            log.debug("Limite de hedges simultâneos de {} atingido; aguardando {}", provedor, atual);
+                            podeHedge = false;
+                            continue;
+                        }
+                        String proximo = modelos.get(iniciadas);
+                        log.info("Modelo {} sem {} em {}ms; disparando {} em paralelo",
+                                atual, streaming ? "primeiro trecho" : "resposta", atrasoMs, proximo);
+                        inicioUltima = System.nanoTime();
+                        emVoo.put(iniciadas, iniciar(iniciadas, proximo, true, aoReceberTrecho, tentativa,
+                                eventos, vencedor));
+                        iniciadas++;
+                        continue;
+                    }
+                } else {
+                    evento = eventos.take();
+                }
+
+                int indice = evento.indice();
+                if (!emVoo.containsKey(indice)) {
+                    continue;
+                }
+                if (evento.reivindicou()) {
+                    cancelarOutras(emVoo, indice);
+                    continue;
+                }
+                emVoo.remove(indice);
+                if (evento.erro() == null) {
+                    return evento.valor();
+                }
+                if (vencedor.get() >= 0 && vencedor.get() != indice) {
+                    // Perdeu a corrida do primeiro trecho enquanto o vencedor se anunciava.
+                    continue;
+                }
+                if (evento.erro() instanceof RuntimeException erro) {
+                    throw erro;
+                }
+                if (vencedor.get() == indice) {
+                    throw comoIOException(evento.erro());
+                }
+                ultimoErro = evento.erro();
+                if (iniciadas < modelos.size() || !emVoo.isEmpty()) {
+                    log.warn("Erro ao comunicar com modelo {}: {}. Seguindo com o próximo...",
+                            modelos.get(indice), ultimoErro.getMessage());
+                }
+            }
+        } finally {
+            emVoo.values().forEach(tarefa -> tarefa.cancel(true));
+        }
+        throw comoIOException(ultimoErro);
+    }
+
+    private <T> Future<?> iniciar(int indice, String modelo, boolean hedge, Consumer<String> aoReceberTrecho,
+            Tentativa<T> tentativa, BlockingQueue<Evento<T>> eventos, AtomicInteger vencedor) {
+        long inicio = System.nanoTime();
+        Consumer<String> portao = aoReceberTrecho == null ? null : trecho -> {
+            if (vencedor.get() != indice) {
+                if (!vencedor.compareAndSet(-1, indice)) {
+                    throw new CancellationException("Outro modelo respondeu primeiro");
+                }
+                registrarLatencia(modelo, true, System.nanoTime() - inicio);
+                eventos.add(new Evento<>(indice, null, null, true));
+            }
+            aoReceberTrecho.accept(trecho);
+        };
+        return executor.submit(() -> {
+            try {
+                T valor = tentativa.executar(modelo, portao);
+                if (portao == null) {
+                    registrarLatencia(modelo, false, System.nanoTime() - inicio);
+                }
+                eventos.add(new Evento<>(indice, valor, null, false));
+            } catch (Exception e) {
+                eventos.add(new Evento<>(indice, null, e, false));
+            } finally {
+                if (hedge) {
+                    hedgesDisponiveis.release();
+                }
+            }
+        });
+    }
+
+    private static void cancelarOutras(Map<Integer, Future<?>> emVoo, int manter) {
+        emVoo.entrySet().removeIf(entrada -> {
+            if (entrada.getKey() == manter) {
+                return false;
+            }
+            entrada.getValue().cancel(true);
+            return true;
+        });
+    }
+
+    private static IOException comoIOException(Exception erro) {
+        return erro instanceof IOException io ? io : new IOException(erro.getMessage(), erro);
+    }
+
+    private static String chave(String modelo, boolean streaming) {
+        return streaming ? modelo + "#stream" : modelo;
+    }
+
+    /**
+     * Últimas latências de um modelo, em ordem de chegada (buffer circular).
+     */
+    static final class JanelaLatencia {
+        private final long[] amostras;
+        private int proxima;
+        private int total;
+
+        JanelaLatencia(int tamanho) {
+            this.amostras = new long[tamanho];
+        }
+
+        synchronized void registrar(long ms) {
+            amostras[proxima] = ms;
+            proxima = (proxima + 1) % amostras.length;
+            total = Math.min(total + 1, amostras.length);
+        }
+
+        /**
+         * Percentil das amostras, ou -1 se houver menos que {@code minimo}.
+         */
+        synchronized long percentil(double p, int minimo) {
+            if (total < Math.max(1, minimo)) {
+                return -1;
+            }
+            long[] ordenadas = Arrays.copyOf(amostras, total);
+            Arrays.sort(ordenadas);
+            int posicao = (int) Math.ceil(p * total) - 1;
+            return ordenadas[Math.max(0, Math.min(total - 1, posicao))];
+        }
+    }
+}
@@ -1,24 +1,36 @@
 package com.wmakeouthill.portfolio.infrastructure.ai;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wmakeouthill.portfolio.application.dto.ChatResponse;
 import com.wmakeouthill.portfolio.application.port.out.AIChatPort;
 import com.wmakeouthill.portfolio.domain.entity.MensagemChat;
+import com.wmakeouthill.portfolio.domain.model.PromptSistema;
+import com.wmakeouthill.portfolio.infrastructure.ai.LimitadorConcorrencia.Prioridade;
+import com.wmakeouthill.portfolio.infrastructure.config.CadeiaModelosConfig;
+import com.wmakeouthill.portfolio.infrastructure.config.LimitadorIaConfig;
 import com.wmakeouthill.portfolio.infrastructure.utils.TokenCounter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -45,6 +57,30 @@ import java.util.stream.Collectors;
  * gemini.models.fallback=gemini-2.5-flash
  * </pre>
  * </p>
+ *
+ * <p>
+ * Quando o prompt chega como {@link PromptSistema}, o prefixo estável é enviado
+ * uma única vez como cache de contexto ({@link VertexContextCache}) e as
+ * chamadas seguintes só o referenciam; a parte variável vai junto da mensagem
+ * do usuário.
+ * </p>
+ *
+ * <p>
+ * {@link #chatStream} usa o {@code streamGenerateContent} e repassa cada trecho
+ * de texto assim que ele chega, lendo o array JSON da resposta com o parser de
+ * streaming do Jackson (um objeto por vez, sem esperar o corpo inteiro).
+ * </p>
+ *
+ * <p>
+ * Toda chamada passa pelo {@link LimitadorConcorrencia} do Gemini: o chat entra
+ * como interativo e a geração de currículo ({@link #chatComTemperatura}) como
+ * trabalho de fundo. Sem vaga, a resposta é um aviso para tentar de novo.
+ * </p>
+ *
+ * <p>
+ * O modelo principal e os fallbacks são percorridos pela {@link CadeiaModelos},
+ * que pode disparar o próximo modelo em paralelo (hedge) quando o atual demora.
+ * </p>
  */
 @Component
 @Primary
@@ -56,12 +92,18 @@ public class GeminiAdapter implements AIChatPort {
     private final ObjectMapper mapper = new ObjectMapper();
     private final TokenCounter tokenCounter = TokenCounter.getInstance();
     private final VertexAiClient vertexAiClient;
+    private final VertexContextCache contextCache;
+    private final LimitadorConcorrencia limitador;
+    private final CadeiaModelos cadeia;
     private final List<String> modelosFallback;
     private final int maxTokens;
     private final String thinkingLevel;
 
     public GeminiAdapter(
             VertexAiClient vertexAiClient,
+            VertexContextCache contextCache,
+            @Qualifier(LimitadorIaConfig.LIMITADOR_GEMINI) LimitadorConcorrencia limitador,
+            @Qualifier(CadeiaModelosConfig.CADEIA_GEMINI) CadeiaModelos cadeia,
             @Value("${gemini.model:" + MODELO_PADRAO + "}") String modelo,
             @Value("${gemini.models.fallback:}") String modelosFallbackStr,
             @Value("${gemini.max-tokens:" + MAX_TOKENS_PADRAO + "}") int maxTokens,
@@ -69,6 +111,9 @@ public class GeminiAdapter implements AIChatPort {
         this.maxTokens = maxTokens;
         this.thinkingLevel = thinkingLevel == null || thinkingLevel.isBlank() ? "low" : thinkingLevel.trim();
         this.vertexAiClient = vertexAiClient;
+        this.contextCache = contextCache;
+        this.limitador = limitador;
+        this.cadeia = cadeia;
 
         // Constrói lista de modelos: modelo principal + fallbacks
         List<String> modelos = new ArrayList<>();
@@ -87,109 +132,269 @@ public class GeminiAdapter implements AIChatPort {
                 this.modelosFallback.size(), this.modelosFallback, this.maxTokens);
     }
 
+    /**
+     * Modelo principal seguido dos fallbacks, na ordem configurada.
+     */
+    public List<String> modelos() {
+        return List.copyOf(modelosFallback);
+    }
+
+    public boolean isConfigurado() {
+        return vertexAiClient.isConfigured();
+    }
+
     @Override
     public ChatResponse chat(String systemPrompt, List<MensagemChat> historico, String mensagemAtual) {
-        return chatInterno(systemPrompt, historico, mensagemAtual, java.util.Collections.emptyList());
+        return chat(new PromptSistema("", systemPrompt), historico, mensagemAtual);
     }
 
     @Override
     public ChatResponse chat(String systemPrompt, List<MensagemChat> historico, String mensagemAtual,
             List<com.wmakeouthill.portfolio.application.dto.MediaPart> media) {
-        return chatInterno(systemPrompt, historico, mensagemAtual,
+        return chat(new PromptSistema("", systemPrompt), historico, mensagemAtual, media);
+    }
+
+    public ChatResponse chat(PromptSistema prompt, List<MensagemChat> historico, String mensagemAtual) {
+        return chatInterno(prompt, historico, mensagemAtual, java.util.Collections.emptyList());
+    }
+
+    public ChatResponse chat(PromptSistema prompt, List<MensagemChat> historico, String mensagemAtual,
+            List<com.wmakeouthill.portfolio.application.dto.MediaPart> media) {
+        return chatInterno(prompt, historico, mensagemAtual,
                 media == null ? java.util.Collections.emptyList() : media);
     }
 
-    private ChatResponse chatInterno(String systemPrompt, List<MensagemChat> historico, String mensagemAtual,
+    private ChatResponse chatInterno(PromptSistema prompt, List<MensagemChat> historico, String mensagemAtual,
             List<com.wmakeouthill.portfolio.application.dto.MediaPart> media) {
-        return chatInterno(systemPrompt, historico, mensagemAtual, media, 0.9);
+        return chatInterno(prompt, historico, mensagemAtual, media, 0.9, Prioridade.INTERATIVA);
     }
 
+    /**
+     * Usado pela geração de currículo, que roda em segundo plano: cede a vez ao
+     * chat quando o Vertex está disputado.
+     */
     public ChatResponse chatComTemperatura(String systemPrompt, List<MensagemChat> historico, String mensagemAtual,
             double temperature) {
-        return chatInterno(systemPrompt, historico, mensagemAtual, java.util.Collections.emptyList(), temperature);
+        return chatInterno(new PromptSistema("", systemPrompt), historico, mensagemAtual,
+                java.util.Collections.emptyList(), temperature, Prioridade.FUNDO);
+    }
+
+    private ChatResponse chatInterno(PromptSistema prompt, List<MensagemChat> historico, String mensagemAtual,
+            List<com.wmakeouthill.portfolio.application.dto.MediaPart> media, double temperature,
+            Prioridade prioridade) {
+        if (!vertexAiClient.isConfigured()) {
+            return new ChatResponse("Serviço de IA não configurado. Configure o Vertex AI.");
+        }
+        return limitador.executar(prioridade,
+                () -> chamarModelos(prompt, historico, mensagemAtual, media, temperature),
+                () -> new ChatResponse(LimitadorConcorrencia.MENSAGEM_RECUSA));
     }
 
-    private ChatResponse chatInterno(String systemPrompt, List<MensagemChat> historico, String mensagemAtual,
+    private ChatResponse chamarModelos(PromptSistema prompt, List<MensagemChat> historico, String mensagemAtual,
             List<com.wmakeouthill.portfolio.application.dto.MediaPart> media, double temperature) {
+        try {
+            ChatResponse resposta = cadeia.executar(modelosFallback, null,
+                    (modelo, semTrechos) -> tentarModelo(prompt, historico, mensagemAtual, media, temperature, modelo));
+
+            log.info("Resposta obtida com modelo {} - Tokens estimados de saída: {}",
+                    resposta.modelo(), tokenCounter.estimarTokens(resposta.reply()));
+            return resposta;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Chamada ao Vertex AI interrompida: {}", e.getMessage());
+            return new ChatResponse("Erro ao comunicar com Gemini: " + e.getMessage());
+        } catch (IOException e) {
+            log.error("Todos os modelos Gemini falharam. Último erro: {}", e.getMessage());
+            return new ChatResponse("Erro ao comunicar com Gemini: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Uma chamada ao modelo indicado. Erros recuperáveis (cota, sobrecarga)
+     * viram {@link IOException} para a cadeia seguir ao próximo modelo.
+     */
+    private ChatResponse tentarModelo(PromptSistema prompt, List<MensagemChat> historico, String mensagemAtual,
+            List<com.wmakeouthill.portfolio.application.dto.MediaPart> media, double temperature, String modelo)
+            throws IOException, InterruptedException {
+        log.info("Tentando modelo Gemini {}", modelo);
+        HttpResponse<String> resp = enviar(prompt, historico, mensagemAtual, media, temperature, modelo);
+
+        // Verifica se é erro recuperável
+        if (isErroRecuperavel(resp)) {
+            String erroMsg = extrairMensagemErro(resp.body());
+            log.warn("Modelo {} retornou erro recuperável (status {}): {}",
+                    modelo, resp.statusCode(), erroMsg);
+            throw new IOException("Erro recuperável: " + erroMsg);
+        }
+        return processarResposta(resp, modelo);
+    }
+
+    /**
+     * Como {@link #chat(PromptSistema, List, String)}, mas entregando o texto em
+     * trechos para {@code aoReceberTrecho} conforme o modelo gera. Devolve a
+     * resposta completa no fim. O fallback entre modelos só acontece enquanto
+     * nada foi entregue; depois disso, uma falha encerra com o texto parcial.
+     */
+    public ChatResponse chatStream(PromptSistema prompt, List<MensagemChat> historico, String mensagemAtual,
+            Consumer<String> aoReceberTrecho) {
         if (!vertexAiClient.isConfigured()) {
             return new ChatResponse("Serviço de IA não configurado. Configure o Vertex AI.");
         }
+        return limitador.executar(Prioridade.INTERATIVA,
+                () -> transmitirModelos(prompt, historico, mensagemAtual, aoReceberTrecho),
+                () -> new ChatResponse(LimitadorConcorrencia.MENSAGEM_RECUSA));
+    }
 
-        // Log de tokens de entrada antes da requisição
-        int tokensEntrada = tokenCounter.estimarTokens(systemPrompt) +
-                tokenCounter.estimarTokens(mensagemAtual) +
-                historico.stream().mapToInt(m -> tokenCounter.estimarTokens(m.content())).sum();
-        log.info("Tokens estimados de entrada: {} (system prompt: {}, mensagem: {}, histórico: {})",
-                tokensEntrada,
-                tokenCounter.estimarTokens(systemPrompt),
-                tokenCounter.estimarTokens(mensagemAtual),
-                historico.size());
-
-        // Tenta cada modelo em sequência até um funcionar
-        Exception ultimoErro = null;
-        for (int i = 0; i < modelosFallback.size(); i++) {
-            String modeloAtual = modelosFallback.get(i);
-            boolean isUltimoModelo = (i == modelosFallback.size() - 1);
-
-            try {
-                log.info("Tentando modelo Gemini {} ({}/{})",
-                        modeloAtual, i + 1, modelosFallback.size());
-
-                Map<String, Object> payload = criarPayload(systemPrompt, historico, mensagemAtual, media, temperature,
-                        modeloAtual);
-                String body = mapper.writeValueAsString(payload);
-                HttpResponse<String> resp = vertexAiClient.generateContent(modeloAtual, body);
-
-                // Verifica se é erro recuperável
-                if (isErroRecuperavel(resp)) {
-                    String erroMsg = extrairMensagemErro(resp.body());
-                    log.warn("Modelo {} retornou erro recuperável (status {}): {}. Tentando próximo modelo...",
-                            modeloAtual, resp.statusCode(), erroMsg);
-                    ultimoErro = new IOException("Erro recuperável: " + erroMsg);
-                    continue;
-                }
+    private ChatResponse transmitirModelos(PromptSistema prompt, List<MensagemChat> historico, String mensagemAtual,
+            Consumer<String> aoReceberTrecho) {
+        try {
+            return cadeia.executar(modelosFallback, aoReceberTrecho,
+                    (modelo, trechos) -> transmitirModelo(prompt, historico, mensagemAtual, modelo, trechos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Streaming do Vertex AI interrompido: {}", e.getMessage());
+            return new ChatResponse("Erro ao comunicar com Gemini: " + e.getMessage());
+        } catch (IOException e) {
+            log.warn("Todos os modelos Gemini falharam em streaming. Último erro: {}", e.getMessage());
+            return new ChatResponse("Erro ao comunicar com Gemini: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Streaming em um modelo. Falhas antes do primeiro trecho viram
+     * {@link IOException} (a cadeia tenta o próximo modelo); depois dele, a
+     * resposta termina com o texto parcial.
+     */
+    private ChatResponse transmitirModelo(PromptSistema prompt, List<MensagemChat> historico, String mensagemAtual,
+            String modelo, Consumer<String> aoReceberTrecho) throws IOException, InterruptedException {
+        log.info("Tentando modelo Gemini {} em streaming", modelo);
+        StringBuilder texto = new StringBuilder();
+        try {
+            HttpResponse<InputStream> resp = abrirStream(prompt, historico, mensagemAtual, modelo);
+            ChatResponse resposta = lerStream(resp, modelo, texto, aoReceberTrecho);
+            log.info("Streaming concluído com modelo {} - Tokens estimados de saída: {}",
+                    modelo, tokenCounter.estimarTokens(resposta.reply()));
+            return resposta;
+        } catch (IOException e) {
+            if (texto.isEmpty()) {
+                throw e;
+            }
+            log.warn("Streaming do modelo {} falhou após {} caracteres: {}",
+                    modelo, texto.length(), e.getMessage());
+            return new ChatResponse(texto.toString().trim(), modelo);
+        }
+    }
+
+    /**
+     * Abre o {@code streamGenerateContent}, com o mesmo tratamento de cache de
+     * contexto de {@link #enviar}. Respostas de erro são lidas por inteiro e
+     * viram {@link IOException}, para a cadeia seguir ao próximo modelo.
+     */
+    private HttpResponse<InputStream> abrirStream(PromptSistema prompt, List<MensagemChat> historico,
+            String mensagemAtual, String modelo) throws IOException, InterruptedException {
+        Optional<String> cache = prompt.temPrefixo()
+                ? contextCache.referenciar(modelo, prompt.prefixoEstavel())
+                : Optional.empty();
+        HttpResponse<InputStream> resp = vertexAiClient.streamGenerateContent(modelo, mapper.writeValueAsString(
+                criarPayload(prompt, cache, historico, mensagemAtual, List.of(), 0.9, modelo)));
+        if (isSucesso(resp.statusCode())) {
+            return resp;
+        }
+        String corpo = lerCorpo(resp);
+        if (cache.isPresent() && isCacheRejeitado(resp.statusCode(), corpo)) {
+            log.warn("Cache de contexto {} rejeitado pelo modelo {} (status {}); reenviando sem cache",
+                    cache.get(), modelo, resp.statusCode());
+            contextCache.invalidar(modelo, prompt.prefixoEstavel());
+            resp = vertexAiClient.streamGenerateContent(modelo, mapper.writeValueAsString(
+                    criarPayload(prompt, Optional.empty(), historico, mensagemAtual, List.of(), 0.9, modelo)));
+            if (isSucesso(resp.statusCode())) {
+                return resp;
+            }
+            corpo = lerCorpo(resp);
+        }
+        log.warn("Erro na API Gemini em streaming (modelo {}): status={}, body={}",
+                modelo, resp.statusCode(), extrairMensagemErro(corpo));
+        throw SaudeModelos.erroHttp("Erro ao chamar API Gemini: status=" + resp.statusCode(), resp.statusCode());
+    }
 
-                ChatResponse resposta = processarResposta(resp, modeloAtual);
-
-                // Log de tokens de saída
-                int tokensSaida = tokenCounter.estimarTokens(resposta.reply());
-                log.info("Resposta obtida com modelo {} - Tokens estimados de saída: {}, total estimado: {}",
-                        modeloAtual, tokensSaida, tokensEntrada + tokensSaida);
-
-                return resposta;
-
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                ultimoErro = e;
-                log.warn("Chamada ao Vertex AI interrompida no modelo {}: {}", modeloAtual, e.getMessage());
-                break;
-            } catch (IOException e) {
-                ultimoErro = e;
-
-                if (isUltimoModelo) {
-                    log.error("Todos os modelos Gemini falharam. Último erro (modelo {}): {}",
-                            modeloAtual, e.getMessage());
-                } else {
-                    log.warn("Erro ao comunicar com modelo {}: {}. Tentando próximo modelo...",
-                            modeloAtual, e.getMessage());
+    /**
+     * Percorre o array de respostas parciais com o {@link JsonParser}: cada
+     * objeto é materializado assim que termina de chegar e seus textos são
+     * repassados na hora. Partes de raciocínio ({@code thought}) não são
+     * exibidas.
+     */
+    private ChatResponse lerStream(HttpResponse<InputStream> resp, String modelo, StringBuilder texto,
+            Consumer<String> aoReceberTrecho) throws IOException {
+        JsonNode ultimoComUso = null;
+        try (InputStream corpo = resp.body(); JsonParser parser = mapper.getFactory().createParser(corpo)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Resposta em streaming inesperada do Gemini");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                JsonNode parcial = mapper.readTree(parser);
+                for (JsonNode part : parcial.path("candidates").path(0).path("content").path("parts")) {
+                    String trecho = part.path("thought").asBoolean(false) ? "" : part.path("text").asText("");
+                    if (!trecho.isEmpty()) {
+                        texto.append(trecho);
+                        aoReceberTrecho.accept(trecho);
+                    }
+                }
+                if (parcial.has("usageMetadata")) {
+                    ultimoComUso = parcial;
                 }
             }
         }
+        if (ultimoComUso != null) {
+            logarUsoTokens(ultimoComUso, modelo);
+        }
+        String reply = texto.toString().trim();
+        return new ChatResponse(reply.isBlank() ? "(sem resposta)" : reply, modelo);
+    }
+
+    private String lerCorpo(HttpResponse<InputStream> resp) throws IOException {
+        try (InputStream corpo = resp.body()) {
+            return new String(corpo.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
 
-        String mensagemErro = ultimoErro != null
-                ? "Erro ao comunicar com Gemini: " + ultimoErro.getMessage()
-                : "Todos os modelos Gemini configurados falharam";
-        return new ChatResponse(mensagemErro);
+    /**
+     * Chama o modelo referenciando o cache de contexto do prefixo quando houver.
+     * Se o Vertex rejeitar o cache (expirado ou removido fora daqui), esquece-o e
+     * repete a chamada uma vez com o prompt inteiro.
+     */
+    private HttpResponse<String> enviar(PromptSistema prompt, List<MensagemChat> historico, String mensagemAtual,
+            List<com.wmakeouthill.portfolio.application.dto.MediaPart> media, double temperature, String modelo)
+            throws IOException, InterruptedException {
+        Optional<String> cache = prompt.temPrefixo()
+                ? contextCache.referenciar(modelo, prompt.prefixoEstavel())
+                : Optional.empty();
+        HttpResponse<String> resp = vertexAiClient.generateContent(modelo, mapper.writeValueAsString(
+                criarPayload(prompt, cache, historico, mensagemAtual, media, temperature, modelo)));
+        if (cache.isPresent() && isCacheRejeitado(resp.statusCode(), resp.body())) {
+            log.warn("Cache de contexto {} rejeitado pelo modelo {} (status {}); reenviando sem cache",
+                    cache.get(), modelo, resp.statusCode());
+            contextCache.invalidar(modelo, prompt.prefixoEstavel());
+            resp = vertexAiClient.generateContent(modelo, mapper.writeValueAsString(
+                    criarPayload(prompt, Optional.empty(), historico, mensagemAtual, media, temperature, modelo)));
+        }
+        return resp;
     }
 
-    private Map<String, Object> criarPayload(String systemPrompt, List<MensagemChat> historico, String mensagemAtual,
+    private Map<String, Object> criarPayload(PromptSistema prompt, Optional<String> cache,
+            List<MensagemChat> historico, String mensagemAtual,
             List<com.wmakeouthill.portfolio.application.dto.MediaPart> media, double temperature, String modelo) {
         Map<String, Object> payload = new HashMap<>();
 
-        // System instruction (Gemini usa formato diferente do OpenAI)
-        Map<String, Object> systemInstruction = new HashMap<>();
-        systemInstruction.put("parts", List.of(Map.of("text", systemPrompt)));
-        payload.put("systemInstruction", systemInstruction);
+        if (cache.isPresent()) {
+            // O prefixo já está no cache de contexto, que também carrega a system
+            // instruction (o Vertex não aceita as duas juntas).
+            payload.put("cachedContent", cache.get());
+        } else {
+            // System instruction (Gemini usa formato diferente do OpenAI)
+            Map<String, Object> systemInstruction = new HashMap<>();
+            systemInstruction.put("parts", List.of(Map.of("text", prompt.completo())));
+            payload.put("systemInstruction", systemInstruction);
+        }
 
         // Conteúdos (histórico + mensagem atual)
         List<Map<String, Object>> contents = new ArrayList<>();
@@ -207,6 +412,9 @@ public class GeminiAdapter implements AIChatPort {
         Map<String, Object> userMessage = new HashMap<>();
         userMessage.put("role", "user");
         List<Map<String, Object>> userParts = new ArrayList<>();
+        if (cache.isPresent() && !prompt.variavel().isBlank()) {
+            userParts.add(Map.of("text", prompt.variavel().strip()));
+        }
         if (mensagemAtual != null && !mensagemAtual.isBlank()) {
             userParts.add(Map.of("text", mensagemAtual));
         }
@@ -278,7 +486,7 @@ public class GeminiAdapter implements AIChatPort {
         } else {
             String body = resp.body();
             log.error("Erro na API Gemini (modelo {}): status={}, body={}", modeloUsado, resp.statusCode(), body);
-            throw new IOException("Erro ao chamar API Gemini: status=" + resp.statusCode());
+            throw SaudeModelos.erroHttp("Erro ao chamar API Gemini: status=" + resp.statusCode(), resp.statusCode());
         }
     }
 
@@ -302,6 +510,17 @@ public class GeminiAdapter implements AIChatPort {
         return false;
     }
 
+    private static boolean isSucesso(int statusCode) {
+        return statusCode >= 200 && statusCode < 300;
+    }
+
+    private boolean isCacheRejeitado(int statusCode, String body) {
+        if (statusCode != 400 && statusCode != 403 && statusCode != 404) {
+            return false;
+        }
+        return body != null && body.toLowerCase(Locale.ROOT).contains("cachedcontent");
+    }
+
     private String extrairMensagemErro(String body) {
         if (body == null || body.isBlank()) {
             return "Erro desconhecido";
@@ -330,10 +549,11 @@ public class GeminiAdapter implements AIChatPort {
                 int promptTokens = usageMetadata.path("promptTokenCount").asInt(0);
                 int candidatesTokens = usageMetadata.path("candidatesTokenCount").asInt(0);
                 int totalTokens = usageMetadata.path("totalTokenCount").asInt(0);
+                int cachedTokens = usageMetadata.path("cachedContentTokenCount").asInt(0);
 
                 if (totalTokens > 0) {
-                    log.info("Uso de tokens (Gemini {}): entrada={}, saída={}, total={}",
-                            modeloUsado, promptTokens, candidatesTokens, totalTokens);
+                    log.info("Uso de tokens (Gemini {}): entrada={} (do cache: {}), saída={}, total={}",
+                            modeloUsado, promptTokens, cachedTokens, candidatesTokens, totalTokens);
                 }
             }
         } catch (Exception e) {
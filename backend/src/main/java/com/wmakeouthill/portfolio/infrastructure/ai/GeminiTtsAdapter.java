@@ -2,7 +2,10 @@ package com.wmakeouthill.portfolio.infrastructure.ai;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wmakeouthill.portfolio.infrastructure.ai.LimitadorConcorrencia.Prioridade;
+import com.wmakeouthill.portfolio.infrastructure.config.LimitadorIaConfig;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -26,14 +29,17 @@ public class GeminiTtsAdapter {
 
     private final ObjectMapper mapper = new ObjectMapper();
     private final VertexAiClient vertexAiClient;
+    private final LimitadorConcorrencia limitador;
     private final String model;
     private final String voiceName;
 
     public GeminiTtsAdapter(
             VertexAiClient vertexAiClient,
+            @Qualifier(LimitadorIaConfig.LIMITADOR_GEMINI) LimitadorConcorrencia limitador,
             @Value("${gemini.tts.model:gemini-2.5-flash-tts}") String model,
             @Value("${gemini.tts.voice:Puck}") String voiceName) {
         this.vertexAiClient = vertexAiClient;
+        this.limitador = limitador;
         this.model = model;
         this.voiceName = voiceName;
     }
@@ -42,7 +48,11 @@ public class GeminiTtsAdapter {
         if (!vertexAiClient.isConfigured() || texto == null || texto.isBlank()) {
             return Optional.empty();
         }
+        // O áudio é um extra da resposta: divide a cota do Vertex com o chat, mas cede a vez a ele.
+        return limitador.executar(Prioridade.FUNDO, () -> sintetizar(texto), Optional::empty);
+    }
 
+    private Optional<String> sintetizar(String texto) {
         try {
             String body = mapper.writeValueAsString(criarPayload(texto));
             HttpResponse<String> response = vertexAiClient.generateContent(model, body);
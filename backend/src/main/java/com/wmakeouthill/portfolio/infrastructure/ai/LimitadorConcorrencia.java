@@ -0,0 +1,197 @@
+package com.wmakeouthill.portfolio.infrastructure.ai;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Bulkhead das chamadas a um provedor de IA: limita quantas chamadas ficam
+ * abertas ao mesmo tempo e quantas podem esperar por uma vaga.
+ *
+ * <p>
+ * Chamadas interativas (chat do visitante) têm prioridade sobre as de fundo
+ * (currículo, TTS): as de fundo nunca ocupam as últimas {@code reservaInterativa}
+ * vagas e só entram quando não há chat esperando. Com a fila cheia, ou se a
+ * vaga não abre dentro de {@code esperaMaxMs}, a chamada é recusada na hora e
+ * quem chamou devolve uma resposta amigável, em vez de empilhar threads e
+ * estourar a cota do provedor para todo mundo.
+ * </p>
+ */
+@Slf4j
+public class LimitadorConcorrencia {
+
+    public static final String MENSAGEM_RECUSA =
+            "Estou atendendo muitas conversas agora. Tente novamente em alguns segundos.";
+
+    public enum Prioridade {
+        INTERATIVA, FUNDO
+    }
+
+    /**
+     * Retrato das métricas do limitador. Tempos de fila em milissegundos,
+     * contando só as chamadas admitidas.
+     */
+    public record Estatisticas(
+            String provedor,
+            int maxConcorrentes,
+            int emUso,
+            int aguardando,
+            long admitidas,
+            long recusadas,
+            double esperaMediaMs,
+            long esperaMaximaMs) {
+    }
+
+    private final String provedor;
+    private final int maxConcorrentes;
+    private final int reservaInterativa;
+    private final int maxFila;
+    private final long esperaMaxNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition vagaInterativa = lock.newCondition();
+    private final Condition vagaFundo = lock.newCondition();
+    private int emUso;
+    private int aguardandoInterativas;
+    private int aguardandoFundo;
+
+    private final LongAdder admitidas = new LongAdder();
+    private final LongAdder recusadas = new LongAdder();
+    private final LongAdder esperaTotalNanos = new LongAdder();
+    private final AtomicLong esperaMaximaNanos = new AtomicLong();
+
+    public LimitadorConcorrencia(String provedor, int maxConcorrentes, int reservaInterativa, int maxFila,
+            long esperaMaxMs) {
+        this.provedor = provedor;
+        this.maxConcorrentes = Math.max(1, maxConcorrentes);
+        this.reservaInterativa = Math.max(0, Math.min(reservaInterativa, this.maxConcorrentes - 1));
+        this.maxFila = Math.max(0, maxFila);
+        this.esperaMaxNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, esperaMaxMs));
+        log.info("Limitador de IA '{}': {} chamada(s) simultânea(s), {} reservada(s) ao chat, "
+                + "fila {}, espera máx. {}ms",
+                provedor, this.maxConcorrentes, this.reservaInterativa, this.maxFila, esperaMaxMs);
+    }
+
+    /**
+     * Executa {@code chamada} ocupando uma vaga do provedor. Se não houver vaga
+     * a tempo, devolve {@code aoRecusar} sem chamar o provedor.
+     */
+    public <T> T executar(Prioridade prioridade, Supplier<T> chamada, Supplier<T> aoRecusar) {
+        if (!adquirir(prioridade)) {
+            return aoRecusar.get();
+        }
+        try {
+            return chamada.get();
+        } finally {
+            liberar();
+        }
+    }
+
+    boolean adquirir(Prioridade prioridade) {
+        boolean interativa = prioridade == Prioridade.INTERATIVA;
+        long inicio = System.nanoTime();
+        lock.lock();
+        try {
+            if (podeEntrar(interativa)) {
+                admitir(0);
+                return true;
+            }
+            int aguardando = interativa ? aguardandoInterativas : aguardandoInterativas + aguardandoFundo;
+            if (aguardando >= maxFila) {
+                return recusar(prioridade, "fila cheia");
+            }
+
+            Condition vaga = interativa ? vagaInterativa : vagaFundo;
+            long restante = esperaMaxNanos;
+            if (interativa) {
+                aguardandoInterativas++;
+            } else {
+                aguardandoFundo++;
+            }
+            try {
+                while (!podeEntrar(interativa)) {
+                    if (restante <= 0) {
+                        return recusar(prioridade, "sem vaga a tempo");
+                    }
+                    restante = vaga.awaitNanos(restante);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return recusar(prioridade, "interrompida na fila");
+            } finally {
+                if (interativa) {
+                    // Último chat saiu da fila: as de fundo podem voltar a disputar.
+                    if (--aguardandoInterativas == 0 && aguardandoFundo > 0) {
+                        vagaFundo.signal();
+                    }
+                } else {
+                    aguardandoFundo--;
+                }
+            }
+            admitir(System.nanoTime() - inicio);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void liberar() {
+        lock.lock();
+        try {
+            emUso--;
+            // Chat primeiro; as de fundo reavaliam a reserva ao acordar.
+            if (aguardandoInterativas > 0) {
+                vagaInterativa.signal();
+            } else if (aguardandoFundo > 0) {
+                vagaFundo.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Estatisticas estatisticas() {
+        long totalAdmitidas = admitidas.sum();
+        double esperaMediaMs = totalAdmitidas == 0
+                ? 0
+                : esperaTotalNanos.sum() / 1_000_000.0 / totalAdmitidas;
+        lock.lock();
+        try {
+            return new Estatisticas(provedor, maxConcorrentes, emUso, aguardandoInterativas + aguardandoFundo,
+                    totalAdmitidas, recusadas.sum(), esperaMediaMs,
+                    TimeUnit.NANOSECONDS.toMillis(esperaMaximaNanos.get()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean podeEntrar(boolean interativa) {
+        if (interativa) {
+            return emUso < maxConcorrentes;
+        }
+        return aguardandoInterativas == 0 && emUso < maxConcorrentes - reservaInterativa;
+    }
+
+    private void admitir(long esperaNanos) {
+        emUso++;
+        admitidas.increment();
+        esperaTotalNanos.add(esperaNanos);
+        esperaMaximaNanos.accumulateAndGet(esperaNanos, Math::max);
+        if (esperaNanos > 0) {
+            log.debug("Chamada ao provedor {} esperou {}ms na fila ({} em uso)",
+                    provedor, TimeUnit.NANOSECONDS.toMillis(esperaNanos), emUso);
+        }
+    }
+
+    private boolean recusar(Prioridade prioridade, String motivo) {
+        recusadas.increment();
+        log.warn("Chamada {} ao provedor {} recusada ({}): {} em uso, {} aguardando",
+                prioridade, provedor, motivo, emUso, aguardandoInterativas + aguardandoFundo);
+        return false;
+    }
+}
@@ -5,24 +5,33 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wmakeouthill.portfolio.application.dto.ChatResponse;
 import com.wmakeouthill.portfolio.application.port.out.AIChatPort;
 import com.wmakeouthill.portfolio.domain.entity.MensagemChat;
+import com.wmakeouthill.portfolio.infrastructure.ai.LimitadorConcorrencia.Prioridade;
+import com.wmakeouthill.portfolio.infrastructure.config.CadeiaModelosConfig;
+import com.wmakeouthill.portfolio.infrastructure.config.LimitadorIaConfig;
+import com.wmakeouthill.portfolio.infrastructure.http.ClienteHttp;
+import com.wmakeouthill.portfolio.infrastructure.http.ClientesHttp;
 import com.wmakeouthill.portfolio.infrastructure.utils.TokenCounter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Adapter para integração com a API da OpenAI com suporte a fallback
@@ -56,6 +65,17 @@ import java.util.stream.Collectors;
  * openai.models.fallback=gpt-3.5-turbo
  * </pre>
  * </p>
+ *
+ * <p>
+ * {@link #chatStream} pede {@code stream=true} e repassa cada delta dos eventos
+ * SSE da OpenAI assim que a linha chega.
+ * </p>
+ *
+ * <p>
+ * As chamadas passam pelo {@link LimitadorConcorrencia} da OpenAI; sem vaga, a
+ * resposta é um aviso para tentar de novo. Os modelos de fallback são
+ * percorridos pela {@link CadeiaModelos} (com hedge opcional).
+ * </p>
  */
 @Component
 public class OpenAIAdapter implements AIChatPort {
@@ -65,9 +85,11 @@ public class OpenAIAdapter implements AIChatPort {
     private static final int MAX_TOKENS_PADRAO = 4000;
     private static final String KEY_CONTENT = "content";
 
-    private final HttpClient http = HttpClient.newHttpClient();
+    private final ClienteHttp http;
     private final ObjectMapper mapper = new ObjectMapper();
-    private final TokenCounter tokenCounter = TokenCounter.getInstance();
+    private final TokenCounter tokenCounter = TokenCounter.para(TokenCounter.Provedor.OPENAI);
+    private final LimitadorConcorrencia limitador;
+    private final CadeiaModelos cadeia;
     private final String apiKey;
     private final List<String> modelosFallback;
     private final int maxTokens;
@@ -76,8 +98,14 @@ public class OpenAIAdapter implements AIChatPort {
             @Value("${openai.api.key:}") String openaiApiKey,
             @Value("${openai.model:" + MODELO_PADRAO_FALLBACK + "}") String modelo,
             @Value("${openai.models.fallback:}") String modelosFallbackStr,
-            @Value("${openai.max-tokens:" + MAX_TOKENS_PADRAO + "}") int maxTokens) {
+            @Value("${openai.max-tokens:" + MAX_TOKENS_PADRAO + "}") int maxTokens,
+            @Qualifier(LimitadorIaConfig.LIMITADOR_OPENAI) LimitadorConcorrencia limitador,
+            @Qualifier(CadeiaModelosConfig.CADEIA_OPENAI) CadeiaModelos cadeia,
+            ClientesHttp clientesHttp) {
+        this.http = clientesHttp.cliente(ClientesHttp.Destino.OPENAI);
         this.maxTokens = maxTokens;
+        this.limitador = limitador;
+        this.cadeia = cadeia;
 
         // Constrói lista de modelos: modelo principal + fallbacks
         List<String> modelos = new ArrayList<>();
@@ -112,76 +140,180 @@ public class OpenAIAdapter implements AIChatPort {
                 this.modelosFallback.size(), this.modelosFallback, this.maxTokens);
     }
 
+    /**
+     * Modelo principal seguido dos fallbacks, na ordem configurada.
+     */
+    public List<String> modelos() {
+        return List.copyOf(modelosFallback);
+    }
+
+    public boolean isConfigurado() {
+        return apiKey != null && !apiKey.isBlank();
+    }
+
     @Override
     public ChatResponse chat(String systemPrompt, List<MensagemChat> historico, String mensagemAtual) {
         if (apiKey == null || apiKey.isBlank()) {
             return new ChatResponse("Serviço de IA não configurado. Defina a variável OPENAI_API_KEY.");
         }
+        return limitador.executar(Prioridade.INTERATIVA,
+                () -> chamarModelos(systemPrompt, historico, mensagemAtual),
+                () -> new ChatResponse(LimitadorConcorrencia.MENSAGEM_RECUSA));
+    }
 
+    private ChatResponse chamarModelos(String systemPrompt, List<MensagemChat> historico, String mensagemAtual) {
         List<Map<String, Object>> mensagens = construirMensagens(systemPrompt, historico, mensagemAtual);
 
-        // Log de tokens de entrada antes da requisição
-        int tokensEntrada = tokenCounter.estimarTokensEntrada(systemPrompt, mensagens);
-        log.info("Tokens estimados de entrada: {} (system prompt: {}, mensagens: {}, histórico: {})",
-                tokensEntrada,
-                tokenCounter.estimarTokensSystemPrompt(systemPrompt),
-                mensagens.size(),
-                historico.size());
-
-        // Tenta cada modelo em sequência até um funcionar
-        Exception ultimoErro = null;
-        for (int i = 0; i < modelosFallback.size(); i++) {
-            String modeloAtual = modelosFallback.get(i);
-            boolean isUltimoModelo = (i == modelosFallback.size() - 1);
-
-            try {
-                boolean usaNovoFormato = requerMaxCompletionTokens(modeloAtual);
-                log.info("Tentando modelo {} ({}/{}) - formato: {}",
-                        modeloAtual, i + 1, modelosFallback.size(),
-                        usaNovoFormato ? "max_completion_tokens (sem temperature)" : "max_tokens + temperature");
-
-                Map<String, Object> payload = criarPayload(mensagens, modeloAtual);
-                String body = mapper.writeValueAsString(payload);
-                HttpRequest req = criarRequisicao(body);
-                HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString());
-
-                // Verifica se é erro de rate limit ou outro erro recuperável
-                if (isErroRecuperavel(resp)) {
-                    String erroMsg = extrairMensagemErro(resp.body());
-                    log.warn("Modelo {} retornou erro recuperável (status {}): {}. Tentando próximo modelo...",
-                            modeloAtual, resp.statusCode(), erroMsg);
-                    ultimoErro = new IOException("Erro recuperável: " + erroMsg);
-                    continue; // Tenta próximo modelo
-                }
+        try {
+            ChatResponse resposta = cadeia.executar(modelosFallback, null,
+                    (modelo, semTrechos) -> tentarModelo(mensagens, modelo));
+
+            log.info("Resposta obtida com modelo {} - Tokens estimados de saída: {}",
+                    resposta.modelo(), tokenCounter.estimarTokensResposta(resposta.reply()));
+            return resposta;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ChatResponse("Erro ao comunicar com IA: " + e.getMessage());
+        } catch (IOException e) {
+            log.error("Todos os modelos falharam. Último erro ao comunicar com OpenAI: {}", e.getMessage());
+            return new ChatResponse("Erro ao comunicar com IA: " + e.getMessage());
+        }
+    }
 
-                ChatResponse resposta = processarResposta(resp, modeloAtual);
+    /**
+     * Uma chamada ao modelo indicado. Rate limit e outros erros recuperáveis
+     * viram {@link IOException} para a cadeia seguir ao próximo modelo.
+     */
+    private ChatResponse tentarModelo(List<Map<String, Object>> mensagens, String modelo)
+            throws IOException, InterruptedException {
+        boolean usaNovoFormato = requerMaxCompletionTokens(modelo);
+        log.info("Tentando modelo {} - formato: {}", modelo,
+                usaNovoFormato ? "max_completion_tokens (sem temperature)" : "max_tokens + temperature");
+
+        Map<String, Object> payload = criarPayload(mensagens, modelo);
+        String body = mapper.writeValueAsString(payload);
+        HttpRequest req = criarRequisicao(body);
+        HttpResponse<String> resp = http.enviarTexto(req);
+
+        // Verifica se é erro de rate limit ou outro erro recuperável
+        if (isErroRecuperavel(resp)) {
+            String erroMsg = extrairMensagemErro(resp.body());
+            log.warn("Modelo {} retornou erro recuperável (status {}): {}",
+                    modelo, resp.statusCode(), erroMsg);
+            throw new IOException("Erro recuperável: " + erroMsg);
+        }
+        return processarResposta(resp, modelo);
+    }
 
-                // Log de tokens de saída após a requisição
-                int tokensSaida = tokenCounter.estimarTokensResposta(resposta.reply());
-                log.info("Resposta obtida com modelo {} - Tokens estimados de saída: {}, total estimado: {}",
-                        modeloAtual, tokensSaida, tokensEntrada + tokensSaida);
+    /**
+     * Como {@link #chat}, mas entregando o texto em trechos para
+     * {@code aoReceberTrecho} conforme o modelo gera. O fallback entre modelos
+     * só acontece enquanto nada foi entregue.
+     */
+    public ChatResponse chatStream(String systemPrompt, List<MensagemChat> historico, String mensagemAtual,
+            Consumer<String> aoReceberTrecho) {
+        if (apiKey == null || apiKey.isBlank()) {
+            return new ChatResponse("Serviço de IA não configurado. Defina a variável OPENAI_API_KEY.");
+        }
+        return limitador.executar(Prioridade.INTERATIVA,
+                () -> transmitirModelos(systemPrompt, historico, mensagemAtual, aoReceberTrecho),
+                () -> new ChatResponse(LimitadorConcorrencia.MENSAGEM_RECUSA));
+    }
 
-                return resposta;
+    private ChatResponse transmitirModelos(String systemPrompt, List<MensagemChat> historico, String mensagemAtual,
+            Consumer<String> aoReceberTrecho) {
+        List<Map<String, Object>> mensagens = construirMensagens(systemPrompt, historico, mensagemAtual);
+        try {
+            return cadeia.executar(modelosFallback, aoReceberTrecho,
+                    (modelo, trechos) -> transmitirModelo(mensagens, modelo, trechos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ChatResponse("Erro ao comunicar com IA: " + e.getMessage());
+        } catch (IOException e) {
+            log.warn("Todos os modelos falharam em streaming. Último erro: {}", e.getMessage());
+            return new ChatResponse("Erro ao comunicar com IA: " + e.getMessage());
+        }
+    }
 
-            } catch (IOException | InterruptedException e) {
-                Thread.currentThread().interrupt();
-                ultimoErro = e;
+    /**
+     * Streaming em um modelo. Falhas antes do primeiro trecho viram
+     * {@link IOException}; depois dele, a resposta termina com o texto parcial.
+     */
+    private ChatResponse transmitirModelo(List<Map<String, Object>> mensagens, String modelo,
+            Consumer<String> aoReceberTrecho) throws IOException, InterruptedException {
+        log.info("Tentando modelo {} em streaming", modelo);
+        Map<String, Object> payload = criarPayload(mensagens, modelo);
+        payload.put("stream", true);
+        payload.put("stream_options", Map.of("include_usage", true));
+        HttpResponse<Stream<String>> resp = http.enviar(criarRequisicao(mapper.writeValueAsString(payload)),
+                HttpResponse.BodyHandlers.ofLines());
+
+        if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
+            String corpo;
+            try (Stream<String> linhas = resp.body()) {
+                corpo = linhas.collect(Collectors.joining("\n"));
+            }
+            log.warn("Modelo {} falhou em streaming (status {}): {}",
+                    modelo, resp.statusCode(), extrairMensagemErro(corpo));
+            throw SaudeModelos.erroHttp("Erro ao chamar API de IA: status=" + resp.statusCode(), resp.statusCode());
+        }
 
-                if (isUltimoModelo) {
-                    log.error("Todos os modelos falharam. Último erro ao comunicar com OpenAI (modelo {}): {}",
-                            modeloAtual, e.getMessage());
-                } else {
-                    log.warn("Erro ao comunicar com modelo {}: {}. Tentando próximo modelo...",
-                            modeloAtual, e.getMessage());
-                }
+        StringBuilder texto = new StringBuilder();
+        try {
+            lerEventos(resp, modelo, texto, aoReceberTrecho);
+        } catch (IOException e) {
+            if (texto.isEmpty()) {
+                throw e;
             }
+            log.warn("Streaming do modelo {} falhou após {} caracteres: {}",
+                    modelo, texto.length(), e.getMessage());
+            return new ChatResponse(texto.toString().trim(), modelo);
         }
+        String reply = texto.toString().trim();
+        log.info("Streaming concluído com modelo {} - Tokens estimados de saída: {}",
+                modelo, tokenCounter.estimarTokensResposta(reply));
+        return new ChatResponse(reply.isBlank() ? "(sem resposta)" : reply, modelo);
+    }
 
-        // Se chegou aqui, todos os modelos falharam
-        String mensagemErro = ultimoErro != null
-                ? "Erro ao comunicar com IA: " + ultimoErro.getMessage()
-                : "Todos os modelos configurados falharam";
-        return new ChatResponse(mensagemErro);
+    /**
+     * Consome as linhas {@code data: {...}} do SSE da OpenAI até {@code [DONE]}:
+     * cada evento é um JSON pequeno e independente, parseado assim que a linha
+     * chega. O último evento (com {@code include_usage}) traz o uso de tokens.
+     */
+    private void lerEventos(HttpResponse<Stream<String>> resp, String modeloUsado, StringBuilder texto,
+            Consumer<String> aoReceberTrecho) throws IOException {
+        try (Stream<String> linhas = resp.body()) {
+            Iterator<String> it = linhas.iterator();
+            while (true) {
+                String linha;
+                try {
+                    if (!it.hasNext()) {
+                        break;
+                    }
+                    linha = it.next();
+                } catch (UncheckedIOException e) {
+                    // Conexão caiu no meio do stream: vira IOException como no
+                    // caminho não-streaming, preservando o texto já entregue.
+                    throw e.getCause();
+                }
+                if (!linha.startsWith("data:")) {
+                    continue;
+                }
+                String dados = linha.substring(5).trim();
+                if ("[DONE]".equals(dados)) {
+                    break;
+                }
+                JsonNode evento = mapper.readTree(dados);
+                String trecho = evento.path("choices").path(0).path("delta").path(KEY_CONTENT).asText("");
+                if (!trecho.isEmpty()) {
+                    texto.append(trecho);
+                    aoReceberTrecho.accept(trecho);
+                }
+                if (evento.path("usage").isObject()) {
+                    logarUsoTokens(evento, modeloUsado);
+                }
+            }
+        }
     }
 
     private List<Map<String, Object>> construirMensagens(String systemPrompt, List<MensagemChat> historico,
@@ -249,7 +381,7 @@ public class OpenAIAdapter implements AIChatPort {
         } else {
             String body = resp.body();
             log.error("Erro na API OpenAI (modelo {}): status={}, body={}", modeloUsado, resp.statusCode(), body);
-            throw new IOException("Erro ao chamar API de IA: status=" + resp.statusCode());
+            throw SaudeModelos.erroHttp("Erro ao chamar API de IA: status=" + resp.statusCode(), resp.statusCode());
         }
     }
 
@@ -0,0 +1,283 @@
+package com.wmakeouthill.portfolio.infrastructure.ai;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saúde de cada modelo de IA: taxa de erro e latência das últimas chamadas,
+ * com um circuit breaker por modelo.
+ *
+ * <p>
+ * Quando a taxa de erro (429, 5xx, timeout) das últimas chamadas passa do
+ * limite, o circuito abre e o modelo é pulado na hora, sem gastar uma ida e
+ * volta ao provedor. Depois de {@code open-seconds}, o circuito fica meio
+ * aberto: algumas chamadas de sonda passam; sucesso fecha o circuito, falha o
+ * reabre. Modelos cuja latência mediana recente passa de
+ * {@code slow-latency-ms} continuam disponíveis, mas vão para o fim da cadeia.
+ * </p>
+ */
+@Slf4j
+@Component
+public class SaudeModelos {
+
+    public enum Estado {
+        FECHADO, ABERTO, MEIO_ABERTO
+    }
+
+    /** Situação de um provedor, do melhor para o pior. */
+    public enum Situacao {
+        DISPONIVEL, LENTO, INDISPONIVEL
+    }
+
+    /** Retrato de um circuito para o endpoint de status. */
+    public record Retrato(String modelo, Estado estado, int chamadas, double taxaErro, long latenciaMedianaMs) {
+    }
+
+    /** Chamada negada porque o circuito do modelo está aberto. */
+    public static class CircuitoAbertoException extends IOException {
+        public CircuitoAbertoException(String modelo) {
+            super("Circuito aberto para o modelo " + modelo);
+        }
+    }
+
+    /**
+     * Requisição recusada pelo provedor com um 4xx que não se resolve tentando de
+     * novo (payload inválido, conteúdo bloqueado, credencial): a culpa é da
+     * requisição, não do modelo, então não conta para o circuito. 408 e 429
+     * continuam sendo falhas do modelo.
+     */
+    public static class RequisicaoRejeitadaException extends IOException {
+        private final int status;
+
+        public RequisicaoRejeitadaException(String mensagem, int status) {
+            super(mensagem);
+            this.status = status;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+    }
+
+    /**
+     * Erro para uma resposta HTTP sem sucesso: {@link RequisicaoRejeitadaException}
+     * para 4xx definitivos, {@link IOException} comum para o resto.
+     */
+    public static IOException erroHttp(String mensagem, int status) {
+        boolean definitivo = status >= 400 && status < 500 && status != 408 && status != 429;
+        return definitivo ? new RequisicaoRejeitadaException(mensagem, status) : new IOException(mensagem);
+    }
+
+    private final int janela;
+    private final double taxaErroMaxima;
+    private final int chamadasMinimas;
+    private final long aberturaNanos;
+    private final int sondas;
+    private final long latenciaLentaMs;
+    private final Map<String, Circuito> circuitos = new ConcurrentHashMap<>();
+
+    public SaudeModelos(
+            @Value("${ai.circuit-breaker.window:20}") int janela,
+            @Value("${ai.circuit-breaker.failure-rate:0.5}") double taxaErroMaxima,
+            @Value("${ai.circuit-breaker.min-calls:5}") int chamadasMinimas,
+            @Value("${ai.circuit-breaker.open-seconds:30}") int aberturaSegundos,
+            @Value("${ai.circuit-breaker.half-open-probes:1}") int sondas,
+            @Value("${ai.routing.slow-latency-ms:20000}") long latenciaLentaMs) {
+        this.janela = Math.max(1, janela);
+        this.taxaErroMaxima = taxaErroMaxima;
+        this.chamadasMinimas = Math.max(1, Math.min(chamadasMinimas, this.janela));
+        this.aberturaNanos = TimeUnit.SECONDS.toNanos(Math.max(1, aberturaSegundos));
+        this.sondas = Math.max(1, sondas);
+        this.latenciaLentaMs = latenciaLentaMs;
+    }
+
+    /**
+     * Reserva a chamada ao modelo. Lança {@link CircuitoAbertoException} se o
+     * circuito estiver aberto, ou meio aberto com todas as sondas em andamento.
+     * Toda chamada liberada deve terminar em {@link #registrarSucesso},
+     * {@link #registrarFalha} ou {@link #descartar}.
+     */
+    public void liberar(String modelo) throws CircuitoAbertoException {
+        if (!circuito(modelo).permitir(System.nanoTime())) {
+            throw new CircuitoAbertoException(modelo);
+        }
+    }
+
+    public void registrarSucesso(String modelo, long latenciaMs) {
+        circuito(modelo).registrar(false, latenciaMs, System.nanoTime());
+    }
+
+    public void registrarFalha(String modelo, long latenciaMs) {
+        circuito(modelo).registrar(true, latenciaMs, System.nanoTime());
+    }
+
+    /**
+     * Chamada liberada que terminou sem veredito sobre o modelo (cancelada pelo
+     * hedge, cliente desconectou): só devolve a vaga de sonda, se era uma.
+     */
+    public void descartar(String modelo) {
+        circuito(modelo).descartar();
+    }
+
+    /**
+     * Cadeia na ordem em que vale a pena tentar: sem os modelos de circuito
+     * aberto (que ainda não podem ser sondados) e com os lentos no fim, mantendo
+     * a ordem configurada entre os demais.
+     */
+    public List<String> ordenar(List<String> modelos) {
+        long agora = System.nanoTime();
+        List<String> candidatos = new ArrayList<>();
+        for (String modelo : modelos) {
+            if (circuito(modelo).situacao(agora) != Situacao.INDISPONIVEL) {
+                candidatos.add(modelo);
+            }
+        }
+        candidatos.sort(Comparator.comparing(modelo -> circuito(modelo).situacao(agora)));
+        return candidatos;
+    }
+
+    /** Melhor situação entre os modelos de um provedor. */
+    public Situacao situacao(List<String> modelos) {
+        long agora = System.nanoTime();
+        return modelos.stream()
+                .map(modelo -> circuito(modelo).situacao(agora))
+                .min(Comparator.naturalOrder())
+                .orElse(Situacao.INDISPONIVEL);
+    }
+
+    public List<Retrato> retratos() {
+        return circuitos.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entrada -> entrada.getValue().retrato(entrada.getKey()))
+                .toList();
+    }
+
+    private Circuito circuito(String modelo) {
+        return circuitos.computeIfAbsent(modelo, Circuito::new);
+    }
+
+    /**
+     * Circuito de um modelo. Resultados das últimas {@code janela} chamadas num
+     * buffer circular; todo acesso sob o monitor do próprio circuito.
+     */
+    private final class Circuito {
+        private final String modelo;
+        private final boolean[] falhas = new boolean[janela];
+        private final long[] latencias = new long[janela];
+        private int proxima;
+        private int total;
+        private int totalFalhas;
+        private Estado estado = Estado.FECHADO;
+        private long abertoAte;
+        private int sondasEmAndamento;
+
+        Circuito(String modelo) {
+            this.modelo = modelo;
+        }
+
+        synchronized boolean permitir(long agora) {
+            if (estado == Estado.ABERTO) {
+                if (agora - abertoAte < 0) {
+                    return false;
+                }
+                estado = Estado.MEIO_ABERTO;
+                sondasEmAndamento = 0;
+                log.info("Circuito do modelo {} meio aberto: liberando sonda", modelo);
+            }
+            if (estado == Estado.MEIO_ABERTO) {
+                if (sondasEmAndamento >= sondas) {
+                    return false;
+                }
+                sondasEmAndamento++;
+            }
+            return true;
+        }
+
+        synchronized void registrar(boolean falha, long latenciaMs, long agora) {
+            if (estado == Estado.MEIO_ABERTO) {
+                sondasEmAndamento = Math.max(0, sondasEmAndamento - 1);
+                if (falha) {
+                    abrir(agora, "sonda falhou");
+                    return;
+                }
+                estado = Estado.FECHADO;
+                limpar();
+                log.info("Circuito do modelo {} fechado: sonda respondeu em {}ms", modelo, latenciaMs);
+            } else if (estado == Estado.ABERTO) {
+                // Chamada liberada antes da abertura terminando agora: não muda o estado.
+                return;
+            }
+
+            if (total == janela && falhas[proxima]) {
+                totalFalhas--;
+            }
+            falhas[proxima] = falha;
+            latencias[proxima] = falha ? -1 : latenciaMs;
+            proxima = (proxima + 1) % janela;
+            total = Math.min(total + 1, janela);
+            if (falha) {
+                totalFalhas++;
+            }
+            if (total >= chamadasMinimas && taxaErro() >= taxaErroMaxima) {
+                abrir(agora, totalFalhas + "/" + total + " falhas");
+            }
+        }
+
+        synchronized void descartar() {
+            if (estado == Estado.MEIO_ABERTO) {
+                sondasEmAndamento = Math.max(0, sondasEmAndamento - 1);
+            }
+        }
+
+        synchronized Situacao situacao(long agora) {
+            if (estado == Estado.ABERTO && agora - abertoAte < 0) {
+                return Situacao.INDISPONIVEL;
+            }
+            if (estado != Estado.FECHADO) {
+                // Aberto vencido ou meio aberto: só serve como sonda, depois dos saudáveis.
+                return Situacao.LENTO;
+            }
+            long mediana = latenciaMediana();
+            return mediana >= 0 && mediana > latenciaLentaMs ? Situacao.LENTO : Situacao.DISPONIVEL;
+        }
+
+        synchronized Retrato retrato(String nome) {
+            return new Retrato(nome, estado, total, taxaErro(), latenciaMediana());
+        }
+
+        private void abrir(long agora, String motivo) {
+            estado = Estado.ABERTO;
+            abertoAte = agora + aberturaNanos;
+            log.warn("Circuito do modelo {} aberto por {}s ({})",
+                    modelo, TimeUnit.NANOSECONDS.toSeconds(aberturaNanos), motivo);
+        }
+
+        private void limpar() {
+            proxima = 0;
+            total = 0;
+            totalFalhas = 0;
+        }
+
+        private double taxaErro() {
+            return total == 0 ? 0 : (double) totalFalhas / total;
+        }
+
+        private long latenciaMediana() {
+            long[] sucessos = Arrays.stream(latencias, 0, total).filter(l -> l >= 0).sorted().toArray();
+            if (sucessos.length < chamadasMinimas) {
+                return -1;
+            }
+            return sucessos[sucessos.length / 2];
+        }
+    }
+}
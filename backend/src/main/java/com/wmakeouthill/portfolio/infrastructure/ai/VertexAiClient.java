@@ -3,13 +3,16 @@ package com.wmakeouthill.portfolio.infrastructure.ai;
 import com.google.auth.oauth2.AccessToken;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.auth.oauth2.ServiceAccountCredentials;
+import com.wmakeouthill.portfolio.infrastructure.http.ClienteHttp;
+import com.wmakeouthill.portfolio.infrastructure.http.ClientesHttp;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
@@ -21,23 +24,42 @@ import java.util.regex.Pattern;
 public class VertexAiClient {
     private static final String CLOUD_PLATFORM_SCOPE = "https://www.googleapis.com/auth/cloud-platform";
     private static final Pattern RESOURCE_ID = Pattern.compile("[a-zA-Z0-9._:-]+");
+    private static final Pattern CACHED_CONTENT_NAME = Pattern.compile(
+            "projects/[a-zA-Z0-9._:-]+/locations/[a-zA-Z0-9._:-]+/cachedContents/[a-zA-Z0-9._:-]+");
 
-    private final HttpClient http = HttpClient.newHttpClient();
+    private final ClienteHttp http;
     private final GoogleCredentials credentials;
     private final String projectId;
     private final String location;
     private final int defaultTimeoutSeconds;
+    /** Raiz da API ({@code https://host}); só é sobrescrita em testes com servidor local. */
+    private final String baseUrl;
 
+    @Autowired
     public VertexAiClient(
+            ClientesHttp clientesHttp,
             @Value("${vertex.ai.enabled:true}") boolean enabled,
             @Value("${vertex.ai.project-id:}") String projectId,
             @Value("${vertex.ai.location:global}") String location,
             @Value("${vertex.ai.timeout-seconds:120}") int timeoutSeconds) {
+        this(clientesHttp.cliente(ClientesHttp.Destino.VERTEX), enabled ? carregarCredenciais() : null,
+                projectId, location, timeoutSeconds, null);
+    }
+
+    VertexAiClient(GoogleCredentials credentials, String projectId, String location, int timeoutSeconds,
+            String baseUrl) {
+        this(ClienteHttp.padrao("vertex"), credentials, projectId, location, timeoutSeconds, baseUrl);
+    }
+
+    private VertexAiClient(ClienteHttp http, GoogleCredentials credentials, String projectId, String location,
+            int timeoutSeconds, String baseUrl) {
+        this.http = http;
         String configuredProjectId = projectId == null ? "" : projectId.trim();
         this.location = location == null || location.isBlank() ? "global" : location.trim();
         this.defaultTimeoutSeconds = timeoutSeconds > 0 ? timeoutSeconds : 120;
-        this.credentials = enabled ? carregarCredenciais() : null;
+        this.credentials = credentials;
         this.projectId = resolverProjectId(configuredProjectId, this.credentials);
+        this.baseUrl = baseUrl;
 
         if (isConfigured()) {
             log.info("Vertex AI configurado no projeto {} e localização {}", this.projectId, this.location);
@@ -54,27 +76,93 @@ public class VertexAiClient {
         if (!isConfigured()) {
             throw new IOException("Vertex AI não configurado");
         }
+        return http.enviarTexto(post(buildEndpoint(model), body));
+    }
+
+    /**
+     * Variante em streaming ({@code streamGenerateContent}): o corpo é um array
+     * JSON de respostas parciais, entregue à medida que o modelo gera; o
+     * chamador lê o {@link InputStream} incrementalmente e deve fechá-lo.
+     */
+    public HttpResponse<InputStream> streamGenerateContent(String model, String body)
+            throws IOException, InterruptedException {
+        if (!isConfigured()) {
+            throw new IOException("Vertex AI não configurado");
+        }
+        return http.enviar(post(buildStreamEndpoint(model), body), HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    /**
+     * Registra um cache de contexto ({@code cachedContents}) com o corpo JSON
+     * informado; a resposta traz o {@code name} a referenciar no
+     * {@code generateContent}.
+     */
+    public HttpResponse<String> createCachedContent(String body) throws IOException, InterruptedException {
+        if (!isConfigured()) {
+            throw new IOException("Vertex AI não configurado");
+        }
+
+        return http.enviarTexto(post(buildCachedContentsEndpoint(), body));
+    }
+
+    /** Remove um cache de contexto pelo {@code name} devolvido na criação. */
+    public HttpResponse<String> deleteCachedContent(String name) throws IOException, InterruptedException {
+        if (!isConfigured()) {
+            throw new IOException("Vertex AI não configurado");
+        }
+        if (name == null || !CACHED_CONTENT_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Nome de cache de contexto inválido");
+        }
 
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(buildEndpoint(model)))
+                .uri(URI.create(raiz() + "/v1/" + name))
                 .timeout(Duration.ofSeconds(defaultTimeoutSeconds))
                 .header("Authorization", "Bearer " + getAccessToken())
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .DELETE()
                 .build();
-        return http.send(request, HttpResponse.BodyHandlers.ofString());
+        return http.enviarTexto(request);
     }
 
     String buildEndpoint(String model) {
+        return raiz() + "/v1/" + modelResourceName(model) + ":generateContent";
+    }
+
+    String buildStreamEndpoint(String model) {
+        return raiz() + "/v1/" + modelResourceName(model) + ":streamGenerateContent";
+    }
+
+    String buildCachedContentsEndpoint() {
+        validarResourceId("project-id", projectId);
+        validarResourceId("location", location);
+        return raiz() + "/v1/projects/" + projectId + "/locations/" + location + "/cachedContents";
+    }
+
+    /** Nome completo do modelo, como exigido no corpo de {@code cachedContents}. */
+    public String modelResourceName(String model) {
         validarResourceId("project-id", projectId);
         validarResourceId("location", location);
         validarResourceId("model", model);
+        return "projects/" + projectId + "/locations/" + location + "/publishers/google/models/" + model;
+    }
+
+    private HttpRequest post(String endpoint, String body) throws IOException {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(endpoint))
+                .timeout(Duration.ofSeconds(defaultTimeoutSeconds))
+                .header("Authorization", "Bearer " + getAccessToken())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
 
+    private String raiz() {
+        if (baseUrl != null) {
+            return baseUrl;
+        }
         String host = "global".equals(location)
                 ? "aiplatform.googleapis.com"
                 : location + "-aiplatform.googleapis.com";
-        return "https://" + host + "/v1/projects/" + projectId + "/locations/" + location
-                + "/publishers/google/models/" + model + ":generateContent";
+        return "https://" + host;
     }
 
     private String getAccessToken() throws IOException {
@@ -90,7 +178,7 @@ public class VertexAiClient {
         return accessToken.getTokenValue();
     }
 
-    private GoogleCredentials carregarCredenciais() {
+    private static GoogleCredentials carregarCredenciais() {
         try {
             return GoogleCredentials.getApplicationDefault().createScoped(List.of(CLOUD_PLATFORM_SCOPE));
         } catch (IOException e) {
@@ -99,7 +187,7 @@ public class VertexAiClient {
         }
     }
 
-    private String resolverProjectId(String configuredProjectId, GoogleCredentials loadedCredentials) {
+    private static String resolverProjectId(String configuredProjectId, GoogleCredentials loadedCredentials) {
         if (!configuredProjectId.isBlank()) {
             return configuredProjectId;
         }
@@ -0,0 +1,186 @@
+package com.wmakeouthill.portfolio.infrastructure.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wmakeouthill.portfolio.infrastructure.utils.TokenCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches de contexto ({@code cachedContents}) do Vertex AI para o prefixo
+ * estável do system prompt.
+ *
+ * <p>
+ * O prefixo (prompt base + currículo/stacks) é igual em todas as mensagens;
+ * registrado uma vez por modelo, as chamadas seguintes só referenciam o
+ * {@code name} do cache, pagando menos pelos tokens de entrada e reduzindo o
+ * tempo até o primeiro token. A chave é modelo + SHA-256 do prefixo: o cache só
+ * é recriado quando o conteúdo muda (o anterior do mesmo modelo é removido) ou
+ * quando o TTL está para vencer. Falhas na criação deixam o modelo sem cache
+ * por alguns minutos, sem bloquear o chat.
+ * </p>
+ *
+ * <p>
+ * Só uma requisição por chave cria o cache; as que chegam enquanto a criação
+ * está em andamento não esperam por ela e seguem com o cache anterior, se ainda
+ * não venceu, ou sem cache.
+ * </p>
+ */
+@Slf4j
+@Component
+public class VertexContextCache {
+
+    /** Recria o cache um pouco antes do fim do TTL, para nunca referenciar um expirado. */
+    private static final long MARGEM_EXPIRACAO_MS = 2 * 60 * 1000;
+    private static final long ESPERA_APOS_FALHA_MS = 10 * 60 * 1000;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TokenCounter tokenCounter = TokenCounter.getInstance();
+    private final VertexAiClient vertexAiClient;
+    private final boolean habilitado;
+    private final Duration ttl;
+    private final int minTokens;
+
+    private final Map<String, Registro> registrosPorChave = new ConcurrentHashMap<>();
+    /** Chave do cache vigente de cada modelo, para remover o anterior quando o prefixo muda. */
+    private final Map<String, String> chaveAtualPorModelo = new ConcurrentHashMap<>();
+    /** Chaves com criação em andamento. */
+    private final Set<String> emCriacao = ConcurrentHashMap.newKeySet();
+
+    public VertexContextCache(
+            VertexAiClient vertexAiClient,
+            @Value("${gemini.context-cache.enabled:true}") boolean habilitado,
+            @Value("${gemini.context-cache.ttl-minutes:60}") int ttlMinutos,
+            @Value("${gemini.context-cache.min-tokens:1024}") int minTokens) {
+        this.vertexAiClient = vertexAiClient;
+        this.habilitado = habilitado;
+        this.ttl = Duration.ofMinutes(Math.max(5, ttlMinutos));
+        this.minTokens = Math.max(0, minTokens);
+    }
+
+    /**
+     * Nome do cache de contexto com esse prefixo para o modelo, criando-o se
+     * ainda não existe ou está para expirar. Vazio quando o cache está
+     * desligado, o prefixo é pequeno demais ou o Vertex recusou a criação.
+     */
+    public Optional<String> referenciar(String modelo, String prefixo) {
+        if (!habilitado || prefixo == null || prefixo.isBlank() || !vertexAiClient.isConfigured()) {
+            return Optional.empty();
+        }
+        String hash = sha256(prefixo);
+        String chave = modelo + "@" + hash;
+        Registro registro = registrosPorChave.get(chave);
+        long agora = System.currentTimeMillis();
+        if (registro != null && registro.validoAte() > agora) {
+            return Optional.ofNullable(registro.nome());
+        }
+        if (tokenCounter.estimarTokens(prefixo) < minTokens) {
+            return Optional.empty();
+        }
+        if (!emCriacao.add(chave)) {
+            // Outra requisição está criando (até o timeout da chamada ao Vertex): não espera por ela.
+            return registro != null && registro.validoAte() + MARGEM_EXPIRACAO_MS > agora
+                    ? Optional.ofNullable(registro.nome())
+                    : Optional.empty();
+        }
+        try {
+            registro = registrosPorChave.get(chave);
+            if (registro == null || registro.validoAte() <= System.currentTimeMillis()) {
+                registro = criar(modelo, prefixo, hash);
+                registrosPorChave.put(chave, registro);
+                if (registro.nome() != null) {
+                    substituirAnterior(modelo, chave);
+                }
+            }
+            return Optional.ofNullable(registro.nome());
+        } finally {
+            emCriacao.remove(chave);
+        }
+    }
+
+    /**
+     * Esquece o cache desse prefixo (ex.: o Vertex respondeu que ele não existe
+     * mais); a próxima chamada recria.
+     */
+    public void invalidar(String modelo, String prefixo) {
+        if (prefixo != null) {
+            registrosPorChave.remove(modelo + "@" + sha256(prefixo));
+        }
+    }
+
+    private Registro criar(String modelo, String prefixo, String hash) {
+        long agora = System.currentTimeMillis();
+        try {
+            Map<String, Object> corpo = Map.of(
+                    "model", vertexAiClient.modelResourceName(modelo),
+                    "displayName", "portfolio-prompt-" + hash.substring(0, 12),
+                    "systemInstruction", Map.of("parts", List.of(Map.of("text", prefixo))),
+                    "ttl", ttl.toSeconds() + "s");
+            HttpResponse<String> resp = vertexAiClient.createCachedContent(mapper.writeValueAsString(corpo));
+            if (resp.statusCode() >= 200 && resp.statusCode() < 300) {
+                JsonNode root = mapper.readTree(resp.body());
+                String nome = root.path("name").asText("");
+                if (!nome.isBlank()) {
+                    log.info("Cache de contexto criado para o modelo {}: {} (~{} tokens, TTL {} min)",
+                            modelo, nome, tokenCounter.estimarTokens(prefixo), ttl.toMinutes());
+                    return new Registro(nome, agora + ttl.toMillis() - MARGEM_EXPIRACAO_MS);
+                }
+            }
+            log.warn("Vertex recusou o cache de contexto do modelo {} (status {}); seguindo sem cache",
+                    modelo, resp.statusCode());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Criação do cache de contexto interrompida (modelo {})", modelo);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Falha ao criar cache de contexto do modelo {}: {}", modelo, e.getMessage());
+        }
+        return new Registro(null, agora + ESPERA_APOS_FALHA_MS);
+    }
+
+    /** Remove (best-effort) o cache anterior do modelo, que deixou de ser referenciado. */
+    private void substituirAnterior(String modelo, String chave) {
+        String anterior = chaveAtualPorModelo.put(modelo, chave);
+        if (anterior == null || anterior.equals(chave)) {
+            return;
+        }
+        Registro antigo = registrosPorChave.remove(anterior);
+        if (antigo == null || antigo.nome() == null) {
+            return;
+        }
+        try {
+            vertexAiClient.deleteCachedContent(antigo.nome());
+            log.info("Cache de contexto anterior removido: {}", antigo.nome());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            log.debug("Não foi possível remover o cache de contexto {}: {}", antigo.nome(), e.getMessage());
+        }
+    }
+
+    private static String sha256(String texto) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(texto.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    /** {@code nome} nulo = criação falhou; não tenta de novo até {@code validoAte}. */
+    private record Registro(String nome, long validoAte) {
+    }
+}
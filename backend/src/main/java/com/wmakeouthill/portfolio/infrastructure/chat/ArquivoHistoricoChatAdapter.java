@@ -0,0 +1,391 @@
+package com.wmakeouthill.portfolio.infrastructure.chat;
+
+import com.wmakeouthill.portfolio.domain.entity.MensagemChat;
+import com.wmakeouthill.portfolio.domain.port.HistoricoChatStorePort;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Guarda o histórico do chat em segmentos append-only
+ * ({@code historico-<sequência>.log}) no diretório {@code chat.historico.dir}.
+ *
+ * Cada mensagem vira um registro binário prefixado por tamanho e CRC32; limpar
+ * uma sessão grava um registro de limpeza. A escrita só acrescenta ao segmento
+ * ativo, trocado por um novo ao passar de {@code chat.historico.segmento-bytes}.
+ * No boot os segmentos são mapeados em memória e relidos em ordem, mantendo só
+ * as últimas mensagens de cada sessão; um registro incompleto ou corrompido no
+ * fim (crash no meio da escrita) encerra a leitura daquele segmento.
+ *
+ * A compactação periódica sela o segmento ativo e reescreve os selados como um
+ * único segmento com o estado vivo (sem sessões limpas ou expiradas), publicado
+ * com um move atômico. Diretório vazio desliga a persistência.
+ */
+@Slf4j
+@Component
+public class ArquivoHistoricoChatAdapter implements HistoricoChatStorePort {
+
+    private static final String PREFIXO = "historico-";
+    private static final String EXTENSAO = ".log";
+    private static final byte TIPO_MENSAGEM = 1;
+    private static final byte TIPO_LIMPEZA = 2;
+    /**
+     * Primeiro registro de um segmento compactado: ele já contém tudo o que os
+     * segmentos anteriores diziam, então a leitura descarta o estado acumulado.
+     * Cobre o crash entre publicar o compactado e apagar os segmentos antigos.
+     */
+    private static final byte TIPO_COMPACTADO = 3;
+    /** Tamanho do registro + CRC32, antes de cada registro. */
+    private static final int CABECALHO = 8;
+
+    private final Path diretorio;
+    private final long bytesPorSegmento;
+    private final long ttlMillis;
+    private final Object compactacao = new Object();
+
+    /** Mensagens por sessão mantidas pela compactação; definido em {@link #carregar}. */
+    private volatile int maxMensagens;
+    private FileChannel ativo;
+    private long bytesAtivos;
+    /** Há registros desde a última compactação (ou segmentos antigos no boot). */
+    private boolean pendente;
+
+    public ArquivoHistoricoChatAdapter(
+            @Value("${chat.historico.dir:}") String diretorio,
+            @Value("${chat.historico.segmento-bytes:8388608}") long bytesPorSegmento,
+            @Value("${chat.historico.ttl-minutos:30}") long ttlMinutos) {
+        this.diretorio = diretorio == null || diretorio.isBlank() ? null : Path.of(diretorio);
+        this.bytesPorSegmento = bytesPorSegmento;
+        this.ttlMillis = Duration.ofMinutes(ttlMinutos).toMillis();
+    }
+
+    @Override
+    public Map<String, List<MensagemChat>> carregar(int maxMensagens) {
+        this.maxMensagens = maxMensagens;
+        if (diretorio == null) {
+            return Map.of();
+        }
+        long inicio = System.nanoTime();
+        List<Path> segmentos = segmentos(Long.MAX_VALUE);
+        Map<String, Sessao> sessoes = reconstruir(segmentos, maxMensagens);
+        synchronized (this) {
+            pendente = !segmentos.isEmpty();
+        }
+
+        Map<String, List<MensagemChat>> vivas = new LinkedHashMap<>();
+        sessoes.forEach((sessionId, sessao) -> vivas.put(sessionId, List.copyOf(sessao.mensagens)));
+        log.info("Histórico do chat lido de {} segmentos: {} sessões em {} ms",
+                segmentos.size(), vivas.size(), (System.nanoTime() - inicio) / 1_000_000);
+        return vivas;
+    }
+
+    @Override
+    public void registrar(String sessionId, MensagemChat mensagem) {
+        if (diretorio == null) {
+            return;
+        }
+        gravar(registroMensagem(sessionId, mensagem, System.currentTimeMillis()));
+    }
+
+    @Override
+    public void removerSessao(String sessionId) {
+        if (diretorio == null) {
+            return;
+        }
+        gravar(fechar(novoRegistro(TIPO_LIMPEZA, System.currentTimeMillis(), texto(sessionId), 0)));
+    }
+
+    /**
+     * Reescreve os segmentos selados como um só, com as sessões vivas. Roda fora
+     * do caminho das requisições: só a selagem do segmento ativo segura a trava
+     * das escritas, que seguem num segmento novo enquanto a compactação lê os
+     * antigos. Sem nada gravado desde a última execução, não reescreve nada.
+     */
+    @Scheduled(
+            initialDelayString = "${chat.historico.compactacao-ms:600000}",
+            fixedDelayString = "${chat.historico.compactacao-ms:600000}")
+    public void compactar() {
+        int limite = maxMensagens;
+        if (diretorio == null || limite <= 0) {
+            return;
+        }
+        synchronized (compactacao) {
+            long selado;
+            synchronized (this) {
+                if (!pendente) {
+                    return;
+                }
+                pendente = false;
+                fecharAtivo();
+                selado = ultimaSequencia();
+            }
+            List<Path> segmentos = segmentos(selado);
+            if (segmentos.isEmpty()) {
+                return;
+            }
+            Map<String, Sessao> sessoes = reconstruir(segmentos, limite);
+
+            Path destino = arquivo(selado);
+            Path temporario = null;
+            try {
+                temporario = Files.createTempFile(diretorio, PREFIXO, ".tmp");
+                try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.WRITE)) {
+                    escrever(canal, fechar(novoRegistro(TIPO_COMPACTADO, System.currentTimeMillis(), null, 0)));
+                    for (Map.Entry<String, Sessao> sessao : sessoes.entrySet()) {
+                        for (MensagemChat mensagem : sessao.getValue().mensagens) {
+                            escrever(canal, registroMensagem(sessao.getKey(), mensagem, sessao.getValue().ultimaEscrita));
+                        }
+                    }
+                    canal.force(true);
+                }
+                Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                for (Path segmento : segmentos) {
+                    if (!segmento.equals(destino)) {
+                        Files.deleteIfExists(segmento);
+                    }
+                }
+                log.info("Histórico do chat compactado: {} segmentos -> 1 ({} sessões, {} bytes)",
+                        segmentos.size(), sessoes.size(), Files.size(destino));
+            } catch (IOException | UnsupportedOperationException e) {
+                log.warn("Falha ao compactar histórico do chat em {}: {}", diretorio, e.getMessage());
+                apagarSilenciosamente(temporario);
+                synchronized (this) {
+                    pendente = true;
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void encerrar() {
+        fecharAtivo();
+    }
+
+    private synchronized void gravar(ByteBuffer registro) {
+        try {
+            if (ativo == null || bytesAtivos >= bytesPorSegmento) {
+                abrirSegmento();
+            }
+            bytesAtivos += escrever(ativo, registro);
+            pendente = true;
+        } catch (IOException e) {
+            log.warn("Falha ao gravar histórico do chat em {}: {}", diretorio, e.getMessage());
+        }
+    }
+
+    /** Fecha o ativo e abre o próximo; nunca reabre um segmento que pode ter cauda quebrada. */
+    private void abrirSegmento() throws IOException {
+        fecharAtivo();
+        Files.createDirectories(diretorio);
+        ativo = FileChannel.open(arquivo(ultimaSequencia() + 1),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        bytesAtivos = 0;
+    }
+
+    private void fecharAtivo() {
+        if (ativo == null) {
+            return;
+        }
+        try {
+            ativo.force(false);
+            ativo.close();
+        } catch (IOException e) {
+            log.warn("Falha ao fechar segmento do histórico do chat: {}", e.getMessage());
+        }
+        ativo = null;
+    }
+
+    private static int escrever(FileChannel canal, ByteBuffer registro) throws IOException {
+        int bytes = registro.remaining();
+        while (registro.hasRemaining()) {
+            canal.write(registro);
+        }
+        return bytes;
+    }
+
+    private static ByteBuffer registroMensagem(String sessionId, MensagemChat mensagem, long registradoEm) {
+        byte[] role = texto(mensagem.role());
+        byte[] conteudo = texto(mensagem.content());
+        LocalDateTime timestamp = mensagem.timestamp() != null ? mensagem.timestamp() : LocalDateTime.now();
+        ByteBuffer registro = novoRegistro(TIPO_MENSAGEM, registradoEm, texto(sessionId),
+                2 + role.length + 8 + 4 + 4 + 4 + conteudo.length);
+        registro.putShort((short) role.length).put(role)
+                .putLong(timestamp.toEpochSecond(ZoneOffset.UTC)).putInt(timestamp.getNano())
+                .putInt(mensagem.tokens())
+                .putInt(conteudo.length).put(conteudo);
+        return fechar(registro);
+    }
+
+    /**
+     * Registro com espaço para o cabeçalho, tipo, instante da escrita e sessão
+     * ({@code null} só no marcador de compactação), posicionado para o corpo.
+     */
+    private static ByteBuffer novoRegistro(byte tipo, long registradoEm, byte[] sessao, int corpo) {
+        int tamanhoSessao = sessao == null ? 0 : 2 + sessao.length;
+        ByteBuffer registro = ByteBuffer.allocate(CABECALHO + 1 + 8 + tamanhoSessao + corpo);
+        registro.position(CABECALHO);
+        registro.put(tipo).putLong(registradoEm);
+        if (sessao != null) {
+            registro.putShort((short) sessao.length).put(sessao);
+        }
+        return registro;
+    }
+
+    /** Preenche tamanho e CRC32 do corpo e deixa o registro pronto para escrita. */
+    private static ByteBuffer fechar(ByteBuffer registro) {
+        int tamanho = registro.position() - CABECALHO;
+        CRC32 crc = new CRC32();
+        crc.update(registro.array(), CABECALHO, tamanho);
+        registro.putInt(0, tamanho).putInt(4, (int) crc.getValue());
+        return registro.flip();
+    }
+
+    private Map<String, Sessao> reconstruir(List<Path> segmentos, int maxMensagens) {
+        Map<String, Sessao> sessoes = new HashMap<>();
+        for (Path segmento : segmentos) {
+            try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.READ)) {
+                aplicarSegmento(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()), sessoes, maxMensagens);
+            } catch (IOException e) {
+                log.warn("Falha ao ler segmento do histórico do chat {}: {}", segmento, e.getMessage());
+            }
+        }
+        long limiteExpiracao = System.currentTimeMillis() - ttlMillis;
+        sessoes.values().removeIf(sessao -> sessao.ultimaEscrita < limiteExpiracao);
+        return sessoes;
+    }
+
+    private static void aplicarSegmento(ByteBuffer segmento, Map<String, Sessao> sessoes, int maxMensagens) {
+        CRC32 crc = new CRC32();
+        while (segmento.remaining() >= CABECALHO) {
+            int tamanho = segmento.getInt();
+            int esperado = segmento.getInt();
+            if (tamanho <= 0 || tamanho > segmento.remaining()) {
+                return;
+            }
+            ByteBuffer registro = segmento.slice(segmento.position(), tamanho);
+            crc.reset();
+            crc.update(registro.duplicate());
+            if ((int) crc.getValue() != esperado) {
+                return;
+            }
+            segmento.position(segmento.position() + tamanho);
+            aplicarRegistro(registro, sessoes, maxMensagens);
+        }
+    }
+
+    private static void aplicarRegistro(ByteBuffer registro, Map<String, Sessao> sessoes, int maxMensagens) {
+        byte tipo = registro.get();
+        long registradoEm = registro.getLong();
+        if (tipo == TIPO_COMPACTADO) {
+            sessoes.clear();
+            return;
+        }
+        String sessionId = lerTexto(registro, registro.getShort() & 0xFFFF);
+        if (tipo == TIPO_LIMPEZA) {
+            sessoes.remove(sessionId);
+            return;
+        }
+        if (tipo != TIPO_MENSAGEM) {
+            return;
+        }
+        String role = lerTexto(registro, registro.getShort() & 0xFFFF);
+        LocalDateTime timestamp = LocalDateTime.ofEpochSecond(registro.getLong(), registro.getInt(), ZoneOffset.UTC);
+        int tokens = registro.getInt();
+        String conteudo = lerTexto(registro, registro.getInt());
+        sessoes.computeIfAbsent(sessionId, k -> new Sessao())
+                .adicionar(new MensagemChat(role, conteudo, timestamp, tokens), registradoEm, maxMensagens);
+    }
+
+    private static byte[] texto(String valor) {
+        return valor == null ? new byte[0] : valor.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String lerTexto(ByteBuffer registro, int tamanho) {
+        byte[] bytes = new byte[tamanho];
+        registro.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private List<Path> segmentos(long ateSequencia) {
+        if (!Files.isDirectory(diretorio)) {
+            return List.of();
+        }
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos
+                    .filter(arquivo -> sequencia(arquivo) > 0 && sequencia(arquivo) <= ateSequencia)
+                    .sorted(Comparator.comparingLong(ArquivoHistoricoChatAdapter::sequencia))
+                    .toList();
+        } catch (IOException e) {
+            log.warn("Falha ao listar segmentos do histórico do chat em {}: {}", diretorio, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private long ultimaSequencia() {
+        List<Path> existentes = segmentos(Long.MAX_VALUE);
+        return existentes.isEmpty() ? 0 : sequencia(existentes.get(existentes.size() - 1));
+    }
+
+    private static long sequencia(Path arquivo) {
+        String nome = arquivo.getFileName().toString();
+        if (!nome.startsWith(PREFIXO) || !nome.endsWith(EXTENSAO)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(nome.substring(PREFIXO.length(), nome.length() - EXTENSAO.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private Path arquivo(long sequencia) {
+        return diretorio.resolve(String.format("%s%019d%s", PREFIXO, sequencia, EXTENSAO));
+    }
+
+    private void apagarSilenciosamente(Path arquivo) {
+        if (arquivo == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(arquivo);
+        } catch (IOException e) {
+            log.debug("Não foi possível remover temporário {}: {}", arquivo, e.getMessage());
+        }
+    }
+
+    /** Últimas mensagens de uma sessão durante a releitura do log. */
+    private static final class Sessao {
+        private final ArrayDeque<MensagemChat> mensagens = new ArrayDeque<>();
+        private long ultimaEscrita;
+
+        void adicionar(MensagemChat mensagem, long registradoEm, int maxMensagens) {
+            mensagens.addLast(mensagem);
+            if (mensagens.size() > maxMensagens) {
+                mensagens.removeFirst();
+            }
+            ultimaEscrita = Math.max(ultimaEscrita, registradoEm);
+        }
+    }
+}
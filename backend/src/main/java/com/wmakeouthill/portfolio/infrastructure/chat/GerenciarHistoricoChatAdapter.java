@@ -1,155 +1,178 @@
 package com.wmakeouthill.portfolio.infrastructure.chat;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.wmakeouthill.portfolio.application.port.in.GerenciarHistoricoChatPort;
 import com.wmakeouthill.portfolio.domain.entity.MensagemChat;
+import com.wmakeouthill.portfolio.domain.model.HistoricoChat;
+import com.wmakeouthill.portfolio.domain.port.HistoricoChatStorePort;
+import com.wmakeouthill.portfolio.infrastructure.utils.TokenCounter;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Adaptador para gerenciar o histórico de mensagens do chat em memória.
  * Mantém histórico separado por sessão para isolar conversas de diferentes usuários/navegadores.
  * Retorna apenas as últimas N mensagens para otimização de tokens.
- * 
- * Implementa limpeza automática de sessões antigas para economia de memória.
+ *
+ * Cada sessão guarda só as últimas N mensagens num buffer circular de tamanho
+ * fixo, com os tokens já contados e a soma corrente da janela: o orçamento de
+ * tokens e os adapters de IA reaproveitam esses números em vez de recontar o
+ * histórico a cada turno, e a memória por sessão é constante.
+ *
+ * As sessões ficam num cache Caffeine com expiração por inatividade e teto de
+ * sessões: a limpeza é amortizada pelo próprio cache, sem varrer todas as
+ * sessões a cada leitura.
+ *
+ * Esta é a camada quente; toda escrita também vai para o
+ * {@link HistoricoChatStorePort}, de onde as sessões são recuperadas no boot,
+ * então um deploy não derruba as conversas em andamento.
  */
 @Slf4j
 @Component
 public class GerenciarHistoricoChatAdapter implements GerenciarHistoricoChatPort {
-    
+
     /**
      * Número máximo de mensagens do histórico a serem enviadas para a IA.
      * Limita o uso de tokens mantendo apenas o contexto mais recente.
      */
     private static final int MAX_HISTORICO_MENSAGENS = 10;
-    
-    /**
-     * Tempo em minutos para considerar uma sessão como inativa e removê-la.
-     * Reduz uso de memória limpando sessões antigas automaticamente.
-     */
-    private static final int TTL_SESSAO_MINUTOS = 30;
-    
+
+    private final TokenCounter tokenCounter = TokenCounter.getInstance();
+    private final HistoricoChatStorePort store;
+
     /**
      * Histórico separado por sessão.
      * Key: Session ID (identificador único do navegador/sessão)
-     * Value: Lista de mensagens da sessão
+     * Value: Últimas mensagens da sessão e total de tokens da janela
      */
-    private final Map<String, List<MensagemChat>> historicoPorSessao = new ConcurrentHashMap<>();
-    
-    /**
-     * Registro de última atividade por sessão para limpeza automática.
-     * Key: Session ID
-     * Value: Timestamp da última atividade
-     */
-    private final Map<String, LocalDateTime> ultimaAtividadePorSessao = new ConcurrentHashMap<>();
-    
+    private final Cache<String, HistoricoSessao> historicoPorSessao;
+
+    public GerenciarHistoricoChatAdapter(
+            HistoricoChatStorePort store,
+            @Value("${chat.historico.max-sessoes:10000}") long maxSessoes,
+            @Value("${chat.historico.ttl-minutos:30}") long ttlMinutos) {
+        this.store = store;
+        this.historicoPorSessao = Caffeine.newBuilder()
+            .maximumSize(maxSessoes)
+            .expireAfterAccess(Duration.ofMinutes(ttlMinutos))
+            .build();
+        log.info("Histórico do chat em memória (maxSessoes={}, ttlMinutos={}, mensagens por sessão={})",
+            maxSessoes, ttlMinutos, MAX_HISTORICO_MENSAGENS);
+    }
+
+    /** Repovoa a camada quente com as sessões persistidas que ainda não expiraram. */
+    @PostConstruct
+    void recuperar() {
+        long inicio = System.nanoTime();
+        Map<String, List<MensagemChat>> sessoes = store.carregar(MAX_HISTORICO_MENSAGENS);
+        sessoes.forEach((sessionId, mensagens) -> {
+            HistoricoSessao historico = new HistoricoSessao();
+            mensagens.forEach(historico::adicionar);
+            historicoPorSessao.put(sessionId, historico);
+        });
+        if (!sessoes.isEmpty()) {
+            log.info("{} sessões de chat recuperadas em {} ms", sessoes.size(), (System.nanoTime() - inicio) / 1_000_000);
+        }
+    }
+
     @Override
     public void adicionarMensagem(String sessionId, MensagemChat mensagem) {
         if (sessionId == null || sessionId.isBlank()) {
             log.warn("Tentativa de adicionar mensagem sem sessionId - ignorando");
             return;
         }
-        
-        atualizarAtividade(sessionId);
-        
-        List<MensagemChat> historico = historicoPorSessao.computeIfAbsent(
-            sessionId, 
-            k -> Collections.synchronizedList(new ArrayList<>())
-        );
-        
-        historico.add(mensagem);
-        log.debug("Mensagem adicionada ao histórico da sessão {} (total: {})", sessionId, historico.size());
+
+        HistoricoSessao historico = historicoPorSessao.get(sessionId, k -> new HistoricoSessao());
+
+        MensagemChat contada = mensagem.tokensContados()
+            ? mensagem
+            : mensagem.comTokens(tokenCounter.estimarTokens(mensagem.content()));
+        long total = historico.adicionar(contada);
+        store.registrar(sessionId, contada);
+        log.debug("Mensagem adicionada ao histórico da sessão {} (total: {}, {} tokens)",
+            sessionId, total, contada.tokens());
     }
-    
+
     @Override
     public List<MensagemChat> obterHistorico(String sessionId) {
+        return obterHistoricoContado(sessionId).mensagens();
+    }
+
+    @Override
+    public HistoricoChat obterHistoricoContado(String sessionId) {
         if (sessionId == null || sessionId.isBlank()) {
             log.warn("Tentativa de obter histórico sem sessionId - retornando vazio");
-            return new ArrayList<>();
-        }
-        
-        limparSessoesAntigas();
-        
-        List<MensagemChat> historico = historicoPorSessao.get(sessionId);
-        if (historico == null || historico.isEmpty()) {
-            return new ArrayList<>();
-        }
-        
-        List<MensagemChat> historicoCompleto = new ArrayList<>(historico);
-        
-        if (historicoCompleto.size() <= MAX_HISTORICO_MENSAGENS) {
-            return historicoCompleto;
+            return HistoricoChat.vazio();
         }
-        
-        return obterUltimasMensagens(historicoCompleto);
+
+        HistoricoSessao historico = historicoPorSessao.getIfPresent(sessionId);
+        return historico == null ? HistoricoChat.vazio() : historico.janela();
     }
-    
+
     @Override
     public void limparHistorico(String sessionId) {
         if (sessionId == null || sessionId.isBlank()) {
             log.warn("Tentativa de limpar histórico sem sessionId - ignorando");
             return;
         }
-        
-        List<MensagemChat> removido = historicoPorSessao.remove(sessionId);
-        ultimaAtividadePorSessao.remove(sessionId);
-        
+
+        HistoricoSessao removido = historicoPorSessao.asMap().remove(sessionId);
+        store.removerSessao(sessionId);
+
         if (removido != null) {
-            log.info("Histórico da sessão {} limpo ({} mensagens removidas)", sessionId, removido.size());
+            log.info("Histórico da sessão {} limpo ({} mensagens removidas)", sessionId, removido.total());
         }
     }
-    
-    private List<MensagemChat> obterUltimasMensagens(List<MensagemChat> historicoCompleto) {
-        int tamanho = historicoCompleto.size();
-        int inicio = Math.max(0, tamanho - MAX_HISTORICO_MENSAGENS);
-        return new ArrayList<>(historicoCompleto.subList(inicio, tamanho));
-    }
-    
-    private void atualizarAtividade(String sessionId) {
-        ultimaAtividadePorSessao.put(sessionId, LocalDateTime.now());
-    }
-    
+
     /**
-     * Remove sessões que não foram usadas há mais de TTL_SESSAO_MINUTOS.
-     * Executado automaticamente ao acessar histórico para economia de memória.
+     * Buffer circular com as últimas {@link #MAX_HISTORICO_MENSAGENS} mensagens
+     * de uma sessão e a soma corrente dos seus tokens: cada mensagem nova soma
+     * seus tokens e desconta os da que ela sobrescreve. A janela montada fica
+     * guardada até a próxima escrita, então leituras seguidas não copiam nada.
      */
-    private void limparSessoesAntigas() {
-        List<String> sessoesParaRemover = identificarSessoesAntigas();
-        removerSessoes(sessoesParaRemover);
-    }
-    
-    private List<String> identificarSessoesAntigas() {
-        LocalDateTime agora = LocalDateTime.now();
-        List<String> sessoesParaRemover = new ArrayList<>();
-        
-        for (Map.Entry<String, LocalDateTime> entry : ultimaAtividadePorSessao.entrySet()) {
-            String sessionId = entry.getKey();
-            LocalDateTime ultimaAtividade = entry.getValue();
-            
-            if (ultimaAtividade.plusMinutes(TTL_SESSAO_MINUTOS).isBefore(agora)) {
-                sessoesParaRemover.add(sessionId);
+    private static final class HistoricoSessao {
+        private final MensagemChat[] mensagens = new MensagemChat[MAX_HISTORICO_MENSAGENS];
+        private int proxima;
+        private int tamanho;
+        private long total;
+        private int tokensJanela;
+        private HistoricoChat janela = HistoricoChat.vazio();
+
+        synchronized long adicionar(MensagemChat mensagem) {
+            if (tamanho == mensagens.length) {
+                tokensJanela -= mensagens[proxima].tokens();
+            } else {
+                tamanho++;
             }
+            mensagens[proxima] = mensagem;
+            proxima = (proxima + 1) % mensagens.length;
+            tokensJanela += mensagem.tokens();
+            janela = null;
+            return ++total;
         }
-        
-        return sessoesParaRemover;
-    }
-    
-    private void removerSessoes(List<String> sessoesParaRemover) {
-        for (String sessionId : sessoesParaRemover) {
-            historicoPorSessao.remove(sessionId);
-            ultimaAtividadePorSessao.remove(sessionId);
-            log.debug("Sessão {} removida por inatividade (TTL: {} minutos)", sessionId, TTL_SESSAO_MINUTOS);
+
+        synchronized HistoricoChat janela() {
+            if (janela == null) {
+                int inicio = (proxima - tamanho + mensagens.length) % mensagens.length;
+                MensagemChat[] ordenadas = new MensagemChat[tamanho];
+                for (int i = 0; i < tamanho; i++) {
+                    ordenadas[i] = mensagens[(inicio + i) % mensagens.length];
+                }
+                janela = new HistoricoChat(Arrays.asList(ordenadas), tokensJanela);
+            }
+            return janela;
         }
-        
-        if (!sessoesParaRemover.isEmpty()) {
-            log.info("{} sessões antigas removidas automaticamente", sessoesParaRemover.size());
+
+        synchronized long total() {
+            return total;
         }
     }
 }
-
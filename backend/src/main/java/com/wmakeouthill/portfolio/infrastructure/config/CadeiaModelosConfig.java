@@ -0,0 +1,43 @@
+package com.wmakeouthill.portfolio.infrastructure.config;
+
+import com.wmakeouthill.portfolio.infrastructure.ai.CadeiaModelos;
+import com.wmakeouthill.portfolio.infrastructure.ai.SaudeModelos;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Uma {@link CadeiaModelos} por provedor de IA, com o hedge entre modelo
+ * principal e fallbacks configurado em {@code gemini.hedging.*} e
+ * {@code openai.hedging.*}. Desligado, a cadeia é percorrida em sequência como
+ * antes. As duas compartilham a {@link SaudeModelos} (circuit breaker por
+ * modelo), que o roteador também consulta.
+ */
+@Configuration
+public class CadeiaModelosConfig {
+
+  public static final String CADEIA_GEMINI = "cadeiaModelosGemini";
+  public static final String CADEIA_OPENAI = "cadeiaModelosOpenAI";
+
+  @Bean(name = CADEIA_GEMINI)
+  public CadeiaModelos cadeiaModelosGemini(
+      SaudeModelos saude,
+      @Value("${gemini.hedging.enabled:false}") boolean habilitado,
+      @Value("${gemini.hedging.percentile:0.9}") double percentil,
+      @Value("${gemini.hedging.min-delay-ms:1500}") long atrasoMinimoMs,
+      @Value("${gemini.hedging.default-delay-ms:8000}") long atrasoPadraoMs,
+      @Value("${gemini.hedging.max-parallel:2}") int maxHedges) {
+    return new CadeiaModelos("gemini", saude, habilitado, percentil, atrasoMinimoMs, atrasoPadraoMs, maxHedges);
+  }
+
+  @Bean(name = CADEIA_OPENAI)
+  public CadeiaModelos cadeiaModelosOpenAI(
+      SaudeModelos saude,
+      @Value("${openai.hedging.enabled:false}") boolean habilitado,
+      @Value("${openai.hedging.percentile:0.9}") double percentil,
+      @Value("${openai.hedging.min-delay-ms:1500}") long atrasoMinimoMs,
+      @Value("${openai.hedging.default-delay-ms:8000}") long atrasoPadraoMs,
+      @Value("${openai.hedging.max-parallel:2}") int maxHedges) {
+    return new CadeiaModelos("openai", saude, habilitado, percentil, atrasoMinimoMs, atrasoPadraoMs, maxHedges);
+  }
+}
@@ -0,0 +1,41 @@
+package com.wmakeouthill.portfolio.infrastructure.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool das chamadas de chat à IA (respostas normais, multimodais, TTS, email
+ * e streaming SSE). Os endpoints devolvem um future/emitter e liberam a thread
+ * do Tomcat na hora; a espera pelo Vertex/OpenAI, que leva segundos, acontece
+ * aqui. Assim uma rajada de conversas não ocupa as threads que servem páginas
+ * SSR, thumbnails e o health check. O pool e a fila são limitados: acima disso
+ * a requisição é recusada (503) em vez de acumular conexões abertas.
+ */
+@Configuration
+public class ChatAsyncConfig {
+
+  public static final String EXECUTOR_CHAT = "chatExecutor";
+
+  @Bean(name = EXECUTOR_CHAT)
+  public Executor chatExecutor(
+      @Value("${chat.async.threads:8}") int threads,
+      @Value("${chat.async.queue:16}") int fila) {
+    AtomicInteger contador = new AtomicInteger();
+    ThreadFactory factory = runnable -> {
+      Thread thread = new Thread(runnable, "chat-ia-" + contador.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+    int tamanho = Math.max(1, threads);
+    return new ThreadPoolExecutor(tamanho, tamanho, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(Math.max(1, fila)), factory, new ThreadPoolExecutor.AbortPolicy());
+  }
+}
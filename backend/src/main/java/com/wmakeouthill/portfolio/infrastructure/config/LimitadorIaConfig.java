@@ -0,0 +1,36 @@
+package com.wmakeouthill.portfolio.infrastructure.config;
+
+import com.wmakeouthill.portfolio.infrastructure.ai.LimitadorConcorrencia;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Um {@link LimitadorConcorrencia} por provedor de IA. O do Gemini é
+ * compartilhado pelo chat, pela geração de currículo e pelo TTS, que disputam a
+ * mesma cota do Vertex; o da OpenAI só atende o chat.
+ */
+@Configuration
+public class LimitadorIaConfig {
+
+  public static final String LIMITADOR_GEMINI = "limitadorGemini";
+  public static final String LIMITADOR_OPENAI = "limitadorOpenAI";
+
+  @Bean(name = LIMITADOR_GEMINI)
+  public LimitadorConcorrencia limitadorGemini(
+      @Value("${gemini.concurrency.max:6}") int maxConcorrentes,
+      @Value("${gemini.concurrency.reserved-interactive:2}") int reservaInterativa,
+      @Value("${gemini.concurrency.queue:12}") int fila,
+      @Value("${gemini.concurrency.max-wait-ms:5000}") long esperaMaxMs) {
+    return new LimitadorConcorrencia("gemini", maxConcorrentes, reservaInterativa, fila, esperaMaxMs);
+  }
+
+  @Bean(name = LIMITADOR_OPENAI)
+  public LimitadorConcorrencia limitadorOpenAI(
+      @Value("${openai.concurrency.max:4}") int maxConcorrentes,
+      @Value("${openai.concurrency.reserved-interactive:0}") int reservaInterativa,
+      @Value("${openai.concurrency.queue:8}") int fila,
+      @Value("${openai.concurrency.max-wait-ms:5000}") long esperaMaxMs) {
+    return new LimitadorConcorrencia("openai", maxConcorrentes, reservaInterativa, fila, esperaMaxMs);
+  }
+}
@@ -0,0 +1,89 @@
+package com.wmakeouthill.portfolio.infrastructure.content;
+
+import com.wmakeouthill.portfolio.domain.port.IndiceContextoStorePort;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Guarda o snapshot do índice de contextos em um arquivo por idioma
+ * ({@code context-index-<idioma>.bin}) no diretório {@code context.index.dir}.
+ *
+ * A leitura mapeia o arquivo em memória (somente leitura), então o restart só
+ * paga as páginas efetivamente lidas na decodificação. A escrita vai para um
+ * arquivo temporário e é publicada com um move atômico, para que um crash no
+ * meio da gravação nunca deixe um snapshot pela metade. Diretório vazio desliga
+ * a persistência.
+ */
+@Slf4j
+@Component
+public class ArquivoIndiceContextoAdapter implements IndiceContextoStorePort {
+
+    private final Path diretorio;
+
+    public ArquivoIndiceContextoAdapter(@Value("${context.index.dir:}") String diretorio) {
+        this.diretorio = diretorio == null || diretorio.isBlank() ? null : Path.of(diretorio);
+    }
+
+    @Override
+    public Optional<ByteBuffer> carregar(String idioma) {
+        if (diretorio == null) {
+            return Optional.empty();
+        }
+        Path arquivo = arquivoDoIdioma(idioma);
+        if (!Files.isRegularFile(arquivo)) {
+            log.info("Nenhum snapshot de índice de contextos em disco (lang={})", idioma);
+            return Optional.empty();
+        }
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            // O mapeamento continua válido depois de fechar o canal.
+            return Optional.of(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+        } catch (IOException e) {
+            log.warn("Falha ao mapear snapshot de índice {}: {}", arquivo, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void salvar(String idioma, byte[] conteudo) {
+        if (diretorio == null) {
+            return;
+        }
+        Path arquivo = arquivoDoIdioma(idioma);
+        Path temporario = null;
+        try {
+            Files.createDirectories(diretorio);
+            temporario = Files.createTempFile(diretorio, arquivo.getFileName().toString(), ".tmp");
+            Files.write(temporario, conteudo);
+            Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Snapshot de índice de contextos gravado: {} ({} bytes)", arquivo, conteudo.length);
+        } catch (IOException | UnsupportedOperationException e) {
+            log.warn("Falha ao gravar snapshot de índice {}: {}", arquivo, e.getMessage());
+            apagarSilenciosamente(temporario);
+        }
+    }
+
+    private Path arquivoDoIdioma(String idioma) {
+        return diretorio.resolve("context-index-" + idioma + ".bin");
+    }
+
+    private void apagarSilenciosamente(Path arquivo) {
+        if (arquivo == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(arquivo);
+        } catch (IOException e) {
+            log.debug("Não foi possível remover temporário {}: {}", arquivo, e.getMessage());
+        }
+    }
+}
@@ -34,6 +34,7 @@ public class ClasspathPortfolioContentAdapter implements PortfolioContentPort {
   private static final String MARKDOWN_LOCATION_PATTERN = "classpath*:portfolio-content/*.md";
   private static final String PROJECT_MARKDOWN_PATTERN = "classpath*:portfolio-content/projects/*.md";
   private static final String PROJECT_MARKDOWN_PATTERN_SINGLE = "classpath*:portfolio-content/projects/%s.md";
+  /** Corte por arquivo, exceto na variante incremental (índice de contexto, que divide em passagens). */
   private static final int MAX_CHARS_PER_FILE = 4000;
   private static final Map<String, MarkdownMetadata> METADADOS = Map.ofEntries(
       Map.entry("curriculo", metadata(true, Set.of("curriculo", "perfil", "experiencia", "contato"))),
@@ -66,6 +67,18 @@ public class ClasspathPortfolioContentAdapter implements PortfolioContentPort {
 
   @Override
   public List<PortfolioMarkdownResource> carregarMarkdownsDetalhados() {
+    return carregarMarkdownsCompletos().stream()
+        .map(this::limitadorDeTamanho)
+        .toList();
+  }
+
+  @Override
+  public List<PortfolioMarkdownResource> carregarMarkdownsDetalhados(String language,
+      Map<String, PortfolioMarkdownResource> conhecidosPorCaminho) {
+    return carregarMarkdownsCompletos();
+  }
+
+  private List<PortfolioMarkdownResource> carregarMarkdownsCompletos() {
     List<PortfolioMarkdownResource> gerais = carregarRecursosGenericos();
     List<PortfolioMarkdownResource> projetos = carregarRecursosDeProjetos();
     log.info(
@@ -131,7 +144,7 @@ public class ClasspathPortfolioContentAdapter implements PortfolioContentPort {
       return Optional.of(new PortfolioMarkdownResource(
           nome,
           resource.getURI().toString(),
-          limitadorDeTamanho(conteudo),
+          conteudo,
           projeto,
           metadata.preferencialFallback(),
           metadata.tags()));
@@ -194,10 +207,12 @@ public class ClasspathPortfolioContentAdapter implements PortfolioContentPort {
     }
   }
 
-  private String limitadorDeTamanho(String conteudo) {
+  private PortfolioMarkdownResource limitadorDeTamanho(PortfolioMarkdownResource recurso) {
+    String conteudo = recurso.conteudo();
     if (conteudo.length() <= MAX_CHARS_PER_FILE) {
-      return conteudo;
+      return recurso;
     }
-    return conteudo.substring(0, MAX_CHARS_PER_FILE);
+    return new PortfolioMarkdownResource(recurso.nome(), recurso.caminho(), conteudo.substring(0, MAX_CHARS_PER_FILE),
+        recurso.projeto(), recurso.preferencialFallback(), recurso.tags(), recurso.sha());
   }
 }
@@ -27,6 +27,11 @@ import java.util.Set;
 @RequiredArgsConstructor
 public class GithubPortfolioMarkdownAdapter implements PortfolioContentPort {
 
+  /**
+   * Corte por arquivo para quem usa o markdown inteiro (sitemap, detector de
+   * projetos). O índice de contexto recebe o conteúdo integral pela variante
+   * incremental e o divide em passagens.
+   */
   private static final int MAX_CHARS_PER_FILE = 4000;
   private static final String ENGLISH_SUFFIX = "-english";
 
@@ -55,6 +60,20 @@ public class GithubPortfolioMarkdownAdapter implements PortfolioContentPort {
 
   @Override
   public List<PortfolioMarkdownResource> carregarMarkdownsDetalhados(String language) {
+    return carregarMarkdownsDetalhados(language, Map.of()).stream()
+        .map(this::limitarTamanho)
+        .toList();
+  }
+
+  /**
+   * Lista os markdowns (a listagem já traz o blob sha de cada arquivo) e só baixa
+   * o conteúdo dos documentos novos ou cujo sha mudou; os demais são devolvidos a
+   * partir de {@code conhecidosPorCaminho}. Devolve o conteúdo sem o corte de
+   * {@link #MAX_CHARS_PER_FILE}.
+   */
+  @Override
+  public List<PortfolioMarkdownResource> carregarMarkdownsDetalhados(String language,
+      Map<String, PortfolioMarkdownResource> conhecidosPorCaminho) {
     List<PortfolioMarkdownResource> recursos = new ArrayList<>();
     boolean english = isEnglish(language);
 
@@ -66,17 +85,17 @@ public class GithubPortfolioMarkdownAdapter implements PortfolioContentPort {
         english);
 
     for (RepositoryFileDto doc : docsGerais) {
-      converterParaResource(doc, false).ifPresent(recursos::add);
+      reaproveitarOuConverter(doc, conhecidosPorCaminho, false).ifPresent(recursos::add);
     }
 
     // Carrega markdowns de projetos
     for (RepositoryFileDto doc : filtrarPorIdioma(githubContentPort.listarDocumentacoesProjetos(), english)) {
-      converterParaResource(doc, true).ifPresent(recursos::add);
+      reaproveitarOuConverter(doc, conhecidosPorCaminho, true).ifPresent(recursos::add);
     }
 
     // Carrega markdowns de trabalhos (também são projetos/experiências)
     for (RepositoryFileDto doc : filtrarPorIdioma(githubContentPort.listarDocumentacoesTrabalhos(), english)) {
-      converterParaResource(doc, true).ifPresent(recursos::add);
+      reaproveitarOuConverter(doc, conhecidosPorCaminho, true).ifPresent(recursos::add);
     }
 
     log.info("Carregados {} markdowns do GitHub para contexto da IA (lang={})", recursos.size(), english ? "en" : "pt");
@@ -164,13 +183,22 @@ public class GithubPortfolioMarkdownAdapter implements PortfolioContentPort {
     return Optional.empty();
   }
 
+  private Optional<PortfolioMarkdownResource> reaproveitarOuConverter(RepositoryFileDto doc,
+      Map<String, PortfolioMarkdownResource> conhecidosPorCaminho, boolean projeto) {
+    PortfolioMarkdownResource conhecido = conhecidosPorCaminho.get(doc.path());
+    if (conhecido != null && doc.sha() != null && !doc.sha().isBlank() && doc.sha().equals(conhecido.sha())) {
+      return Optional.of(conhecido);
+    }
+    return converterParaResource(doc, projeto);
+  }
+
   private Optional<PortfolioMarkdownResource> converterParaResource(RepositoryFileDto doc, boolean projeto) {
     Optional<String> conteudoOpt = githubContentPort.obterMarkdownConteudo(doc.path());
     if (conteudoOpt.isEmpty() || conteudoOpt.get().isBlank()) {
       return Optional.empty();
     }
 
-    String conteudo = limitarTamanho(conteudoOpt.get());
+    String conteudo = conteudoOpt.get();
     String nomeBase = baseName(doc.displayName());
     MarkdownMetadata metadata = obterMetadata(nomeBase, projeto);
 
@@ -180,7 +208,8 @@ public class GithubPortfolioMarkdownAdapter implements PortfolioContentPort {
         conteudo,
         projeto,
         metadata.preferencialFallback(),
-        metadata.tags()));
+        metadata.tags(),
+        doc.sha()));
   }
 
   /**
@@ -230,11 +259,13 @@ public class GithubPortfolioMarkdownAdapter implements PortfolioContentPort {
     return tags;
   }
 
-  private String limitarTamanho(String conteudo) {
+  private PortfolioMarkdownResource limitarTamanho(PortfolioMarkdownResource recurso) {
+    String conteudo = recurso.conteudo();
     if (conteudo.length() <= MAX_CHARS_PER_FILE) {
-      return conteudo;
+      return recurso;
     }
-    return conteudo.substring(0, MAX_CHARS_PER_FILE);
+    return new PortfolioMarkdownResource(recurso.nome(), recurso.caminho(), conteudo.substring(0, MAX_CHARS_PER_FILE),
+        recurso.projeto(), recurso.preferencialFallback(), recurso.tags(), recurso.sha());
   }
 
   private List<RepositoryFileDto> filtrarPorIdioma(List<RepositoryFileDto> docs, boolean english) {
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wmakeouthill.portfolio.application.dto.CertificadoPdfDto;
 import com.wmakeouthill.portfolio.application.port.out.CertificadosPort;
+import com.wmakeouthill.portfolio.infrastructure.http.ClienteHttp;
+import com.wmakeouthill.portfolio.infrastructure.http.ClientesHttp;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -11,7 +13,6 @@ import org.springframework.stereotype.Component;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URLEncoder;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
@@ -40,7 +41,7 @@ public class GithubCertificadosAdapter implements CertificadosPort {
   /** Nome exato do arquivo de currículo (EN) */
   private static final String CURRICULO_EN_FILE_NAME = "Wesley de Carvalho Augusto Correia - Resume.pdf";
 
-  private final HttpClient httpClient = HttpClient.newHttpClient();
+  private final ClienteHttp httpClient;
   private final ObjectMapper objectMapper = new ObjectMapper();
 
   @Value("${github.api.username:wmakeouthill}")
@@ -49,6 +50,10 @@ public class GithubCertificadosAdapter implements CertificadosPort {
   @Value("${github.api.token:}")
   private String tokenFromConfig;
 
+  public GithubCertificadosAdapter(ClientesHttp clientesHttp) {
+    this.httpClient = clientesHttp.cliente(ClientesHttp.Destino.GITHUB);
+  }
+
   @Override
   public List<CertificadoPdfDto> listarCertificados() {
     List<CertificadoPdfDto> todosPdfs = listarTodosPdfs();
@@ -116,7 +121,7 @@ public class GithubCertificadosAdapter implements CertificadosPort {
           .GET()
           .build();
 
-      HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+      HttpResponse<byte[]> response = httpClient.enviarBytes(request);
 
       if (response.statusCode() >= 200 && response.statusCode() < 300) {
         log.info("PDF baixado com sucesso: {} ({} bytes)", fileName, response.body().length);
@@ -147,7 +152,7 @@ public class GithubCertificadosAdapter implements CertificadosPort {
           .GET()
           .build();
 
-      HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+      HttpResponse<String> response = httpClient.enviarTexto(request);
 
       if (response.statusCode() >= 200 && response.statusCode() < 300) {
         return mapArquivos(response.body());
@@ -3,6 +3,8 @@ package com.wmakeouthill.portfolio.infrastructure.github;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wmakeouthill.portfolio.infrastructure.cache.ConditionalResponse;
+import com.wmakeouthill.portfolio.infrastructure.http.ClienteHttp;
+import com.wmakeouthill.portfolio.infrastructure.http.ClientesHttp;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -10,7 +12,6 @@ import org.springframework.stereotype.Component;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URLEncoder;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
@@ -31,7 +32,7 @@ public class GithubHttpClient {
   private static final String RAW_URL = "https://raw.githubusercontent.com";
   private static final Duration TIMEOUT = Duration.ofSeconds(30);
 
-  private final HttpClient httpClient = HttpClient.newHttpClient();
+  private final ClienteHttp httpClient;
   private final ObjectMapper objectMapper = new ObjectMapper();
 
   @Value("${github.api.username:wmakeouthill}")
@@ -40,6 +41,10 @@ public class GithubHttpClient {
   @Value("${github.api.token:}")
   private String tokenFromConfig;
 
+  public GithubHttpClient(ClientesHttp clientesHttp) {
+    this.httpClient = clientesHttp.cliente(ClientesHttp.Destino.GITHUB);
+  }
+
   // ─────────────────────────────────────────────────────────────────────────────
   // Métodos condicionais (ETag / If-None-Match)
   // ─────────────────────────────────────────────────────────────────────────────
@@ -75,7 +80,7 @@ public class GithubHttpClient {
           .POST(HttpRequest.BodyPublishers.ofString(query, StandardCharsets.UTF_8))
           .build();
 
-      HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+      HttpResponse<String> response = httpClient.enviarTexto(request);
 
       if (response.statusCode() >= 200 && response.statusCode() < 300) {
         JsonNode total = objectMapper.readTree(response.body())
@@ -146,7 +151,7 @@ public class GithubHttpClient {
           .GET()
           .build();
 
-      HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+      HttpResponse<String> response = httpClient.enviarTexto(request);
 
       if (response.statusCode() >= 200 && response.statusCode() < 300) {
         return Optional.of(objectMapper.readTree(response.body()));
@@ -174,7 +179,7 @@ public class GithubHttpClient {
           .GET()
           .build();
 
-      HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+      HttpResponse<byte[]> response = httpClient.enviarBytes(request);
 
       if (response.statusCode() >= 200 && response.statusCode() < 300) {
         log.debug("Download OK: {} ({} bytes)", path, response.body().length);
@@ -211,7 +216,7 @@ public class GithubHttpClient {
       }
 
       HttpRequest request = builder.build();
-      HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+      HttpResponse<String> response = httpClient.enviarTexto(request);
 
       if (response.statusCode() == 304) {
         log.debug("304 Not Modified: {}", url);
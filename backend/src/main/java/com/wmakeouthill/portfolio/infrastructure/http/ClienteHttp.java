@@ -0,0 +1,199 @@
+package com.wmakeouthill.portfolio.infrastructure.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Cliente HTTP de saída para um destino (Vertex, OpenAI, GitHub...), com as
+ * métricas comuns a todas as integrações: latência, bytes recebidos e status.
+ *
+ * <p>
+ * Cada destino tem um único {@link HttpClient}, criado em {@link ClientesHttp}
+ * e reaproveitado por todas as chamadas: as conexões (e as sessões TLS) ficam
+ * no pool do cliente e são multiplexadas em HTTP/2, em vez de um pool (e um
+ * handshake TLS) por classe de integração.
+ * </p>
+ *
+ * <p>
+ * {@link #enviarTexto} e {@link #enviarBytes} pedem a resposta comprimida
+ * ({@code Accept-Encoding: gzip}) quando o gzip está ligado e a descomprimem
+ * antes de entregar o corpo; {@link #enviar} repassa o pedido como veio, para
+ * os handlers de streaming.
+ * </p>
+ */
+public class ClienteHttp {
+
+    /**
+     * Retrato das métricas do destino. A latência vai do envio até o
+     * {@code send} retornar: com o corpo inteiro para texto e bytes, com os
+     * cabeçalhos para streams.
+     */
+    public record Estatisticas(
+            String destino,
+            String protocolo,
+            long requisicoes,
+            long falhas,
+            long bytesRecebidos,
+            double latenciaMediaMs,
+            long latenciaMaximaMs,
+            Map<Integer, Long> status) {
+    }
+
+    private final String destino;
+    private final HttpClient http;
+    private final boolean gzip;
+
+    private final LongAdder requisicoes = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder bytesRecebidos = new LongAdder();
+    private final LongAdder latenciaTotalNanos = new LongAdder();
+    private final AtomicLong latenciaMaximaNanos = new AtomicLong();
+    private final Map<Integer, LongAdder> status = new ConcurrentHashMap<>();
+
+    public ClienteHttp(String destino, HttpClient http, boolean gzip) {
+        this.destino = destino;
+        this.http = http;
+        this.gzip = gzip;
+    }
+
+    /** Cliente com as configurações padrão do JDK, para testes e usos fora do Spring. */
+    public static ClienteHttp padrao(String destino) {
+        return new ClienteHttp(destino, HttpClient.newHttpClient(), false);
+    }
+
+    public String destino() {
+        return destino;
+    }
+
+    public <T> HttpResponse<T> enviar(HttpRequest requisicao, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        long inicio = System.nanoTime();
+        try {
+            HttpResponse<T> resposta = http.send(requisicao, info -> new Contador<>(handler.apply(info)));
+            status.computeIfAbsent(resposta.statusCode(), codigo -> new LongAdder()).increment();
+            return resposta;
+        } catch (IOException | RuntimeException e) {
+            falhas.increment();
+            throw e;
+        } finally {
+            long decorrido = System.nanoTime() - inicio;
+            requisicoes.increment();
+            latenciaTotalNanos.add(decorrido);
+            latenciaMaximaNanos.accumulateAndGet(decorrido, Math::max);
+        }
+    }
+
+    /** Corpo como texto, no charset do {@code Content-Type} (UTF-8 se ausente). */
+    public HttpResponse<String> enviarTexto(HttpRequest requisicao) throws IOException, InterruptedException {
+        return enviar(comGzip(requisicao), info -> HttpResponse.BodySubscribers.mapping(
+                HttpResponse.BodySubscribers.ofByteArray(),
+                bytes -> new String(descomprimir(info, bytes), charset(info))));
+    }
+
+    public HttpResponse<byte[]> enviarBytes(HttpRequest requisicao) throws IOException, InterruptedException {
+        return enviar(comGzip(requisicao), info -> HttpResponse.BodySubscribers.mapping(
+                HttpResponse.BodySubscribers.ofByteArray(),
+                bytes -> descomprimir(info, bytes)));
+    }
+
+    public Estatisticas estatisticas() {
+        long total = requisicoes.sum();
+        double latenciaMediaMs = total == 0 ? 0 : latenciaTotalNanos.sum() / 1_000_000.0 / total;
+        Map<Integer, Long> porStatus = new TreeMap<>();
+        status.forEach((codigo, contador) -> porStatus.put(codigo, contador.sum()));
+        return new Estatisticas(destino, http.version().name(), total, falhas.sum(), bytesRecebidos.sum(),
+                latenciaMediaMs, TimeUnit.NANOSECONDS.toMillis(latenciaMaximaNanos.get()), porStatus);
+    }
+
+    private HttpRequest comGzip(HttpRequest requisicao) {
+        if (!gzip || requisicao.headers().firstValue("Accept-Encoding").isPresent()) {
+            return requisicao;
+        }
+        return HttpRequest.newBuilder(requisicao, (nome, valor) -> true)
+                .header("Accept-Encoding", "gzip")
+                .build();
+    }
+
+    private static byte[] descomprimir(HttpResponse.ResponseInfo info, byte[] bytes) {
+        boolean comprimido = info.headers().firstValue("Content-Encoding")
+                .map(codificacao -> codificacao.trim().equalsIgnoreCase("gzip"))
+                .orElse(false);
+        if (!comprimido || bytes.length == 0) {
+            return bytes;
+        }
+        try (GZIPInputStream entrada = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return entrada.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Resposta gzip inválida", e);
+        }
+    }
+
+    private static Charset charset(HttpResponse.ResponseInfo info) {
+        String tipo = info.headers().firstValue("Content-Type").orElse("");
+        for (String parametro : tipo.split(";")) {
+            String[] chaveValor = parametro.trim().split("=", 2);
+            if (chaveValor.length == 2 && chaveValor[0].equalsIgnoreCase("charset")) {
+                try {
+                    return Charset.forName(chaveValor[1].trim().replace("\"", ""));
+                } catch (IllegalArgumentException e) {
+                    return StandardCharsets.UTF_8;
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    /** Repassa o corpo ao subscriber original contando os bytes que chegam pela rede. */
+    private final class Contador<T> implements HttpResponse.BodySubscriber<T> {
+        private final HttpResponse.BodySubscriber<T> original;
+
+        Contador(HttpResponse.BodySubscriber<T> original) {
+            this.original = original;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return original.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription assinatura) {
+            original.onSubscribe(assinatura);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            for (ByteBuffer buffer : buffers) {
+                bytesRecebidos.add(buffer.remaining());
+            }
+            original.onNext(buffers);
+        }
+
+        @Override
+        public void onError(Throwable erro) {
+            original.onError(erro);
+        }
+
+        @Override
+        public void onComplete() {
+            original.onComplete();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.wmakeouthill.portfolio.infrastructure.http;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Módulo único de clientes HTTP de saída: um {@link ClienteHttp} por destino,
+ * todos com timeout de conexão e o mesmo executor limitado.
+ *
+ * <p>
+ * Destinos remotos usam HTTP/2 (negociado via ALPN; servidores só HTTP/1.1
+ * continuam funcionando). O renderer SSR local fica em HTTP/1.1, porque sobre
+ * {@code http://} o JDK tentaria o upgrade para h2c a cada conexão nova. As
+ * conexões ociosas ficam vivas por {@code keep-alive-seconds}; a propriedade
+ * do JDK é global e só vale se nenhum {@link HttpClient} tiver sido criado
+ * antes deste componente.
+ * </p>
+ */
+@Slf4j
+@Component
+public class ClientesHttp {
+
+    private static final String PROPRIEDADE_KEEP_ALIVE = "jdk.httpclient.keepalive.timeout";
+
+    public enum Destino {
+        VERTEX("vertex", true, HttpClient.Redirect.NEVER),
+        OPENAI("openai", true, HttpClient.Redirect.NEVER),
+        GITHUB("github", true, HttpClient.Redirect.NEVER),
+        SSR("ssr", false, HttpClient.Redirect.NEVER),
+        EDGE("edge", true, HttpClient.Redirect.NORMAL);
+
+        private final String nome;
+        private final boolean http2;
+        private final HttpClient.Redirect redirecionamento;
+
+        Destino(String nome, boolean http2, HttpClient.Redirect redirecionamento) {
+            this.nome = nome;
+            this.http2 = http2;
+            this.redirecionamento = redirecionamento;
+        }
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final Map<Destino, ClienteHttp> clientes = new EnumMap<>(Destino.class);
+
+    public ClientesHttp(
+            @Value("${http.client.threads:8}") int threads,
+            @Value("${http.client.keep-alive-seconds:300}") int keepAliveSegundos,
+            @Value("${http.client.gzip:true}") boolean gzip,
+            @Value("${http.client.connect-timeout-ms:5000}") long connectTimeoutMs) {
+        if (System.getProperty(PROPRIEDADE_KEEP_ALIVE) == null) {
+            System.setProperty(PROPRIEDADE_KEEP_ALIVE, String.valueOf(Math.max(1, keepAliveSegundos)));
+        }
+
+        int tamanho = Math.max(1, threads);
+        AtomicInteger sequencia = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(tamanho, tamanho, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), tarefa -> {
+                    Thread thread = new Thread(tarefa, "http-saida-" + sequencia.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+
+        Duration connectTimeout = Duration.ofMillis(Math.max(1, connectTimeoutMs));
+        for (Destino destino : Destino.values()) {
+            HttpClient http = HttpClient.newBuilder()
+                    .version(destino.http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(connectTimeout)
+                    .followRedirects(destino.redirecionamento)
+                    .executor(executor)
+                    .build();
+            clientes.put(destino, new ClienteHttp(destino.nome, http, gzip));
+        }
+        log.info("Clientes HTTP de saída: {} thread(s), keep-alive {}s, connect timeout {}ms, gzip {}",
+                tamanho, System.getProperty(PROPRIEDADE_KEEP_ALIVE), connectTimeoutMs, gzip);
+    }
+
+    public ClienteHttp cliente(Destino destino) {
+        return clientes.get(destino);
+    }
+
+    public List<ClienteHttp.Estatisticas> estatisticas() {
+        return Arrays.stream(Destino.values())
+                .map(destino -> clientes.get(destino).estatisticas())
+                .toList();
+    }
+
+    @PreDestroy
+    void encerrar() {
+        executor.shutdownNow();
+    }
+}
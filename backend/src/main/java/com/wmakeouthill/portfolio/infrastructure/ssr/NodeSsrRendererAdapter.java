@@ -3,12 +3,12 @@ package com.wmakeouthill.portfolio.infrastructure.ssr;
 import com.wmakeouthill.portfolio.application.cache.ResultadoRenderizacao;
 import com.wmakeouthill.portfolio.application.port.out.SsrRendererPort;
 import com.wmakeouthill.portfolio.infrastructure.config.SsrProperties;
-import lombok.RequiredArgsConstructor;
+import com.wmakeouthill.portfolio.infrastructure.http.ClienteHttp;
+import com.wmakeouthill.portfolio.infrastructure.http.ClientesHttp;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
@@ -25,22 +25,23 @@ import java.time.Duration;
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class NodeSsrRendererAdapter implements SsrRendererPort {
 
   private static final int STATUS_FALHA_GATEWAY = 502;
 
   private final SsrProperties ssrProperties;
+  private final ClienteHttp httpClient;
 
-  private final HttpClient httpClient = HttpClient.newBuilder()
-      .connectTimeout(Duration.ofSeconds(5))
-      .build();
+  public NodeSsrRendererAdapter(SsrProperties ssrProperties, ClientesHttp clientesHttp) {
+    this.ssrProperties = ssrProperties;
+    this.httpClient = clientesHttp.cliente(ClientesHttp.Destino.SSR);
+  }
 
   @Override
   public ResultadoRenderizacao renderizar(String caminho, String idioma) {
     String url = ssrProperties.renderer().baseUrlSemBarraFinal() + normalizar(caminho);
     try {
-      HttpResponse<String> resposta = httpClient.send(
+      HttpResponse<String> resposta = httpClient.enviar(
           montarRequisicao(url, idioma), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
       return new ResultadoRenderizacao(resposta.body(), resposta.statusCode());
     } catch (InterruptedException e) {
@@ -1,18 +1,40 @@
 package com.wmakeouthill.portfolio.infrastructure.utils;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wmakeouthill.portfolio.domain.entity.MensagemChat;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
- * Utilitário singleton para estimar contagem de tokens para API OpenAI.
+ * Contagem de tokens por provedor de IA (um contador por {@link Provedor}).
  * 
- * Regra geral: ~4 caracteres por token (aproximação da OpenAI).
- * Para textos em português, pode variar entre 3.5-4.5 caracteres por token.
+ * Com o vocabulário BPE do provedor no classpath
+ * ({@code tokenizers/<provedor>.tiktoken}, formato do tiktoken; o build põe o
+ * {@code cl100k_base} conferido por SHA-256 como {@code openai.tiktoken}), a contagem é
+ * exata via {@link TokenizadorBpe}, com um LRU das contagens por texto (system
+ * prompt e histórico se repetem a cada turno). O Gemini usa SentencePiece, sem
+ * vocabulário público nesse formato: sem arquivo próprio, reaproveita o da
+ * OpenAI, bem mais próximo do real que a regra de caracteres. Sem nenhum
+ * vocabulário, cai na regra geral de ~4 caracteres por token.
  */
+@Slf4j
 public class TokenCounter {
     
     private static final double CARACTERES_POR_TOKEN = 4.0;
-    private static final TokenCounter INSTANCE = new TokenCounter();
+    private static final String VOCABULARIO = "tokenizers/%s.tiktoken";
+    /** Peso máximo do LRU de contagens, em caracteres dos textos guardados. */
+    private static final long CACHE_MAX_CARACTERES = 4_000_000;
+    private static final Map<Provedor, TokenCounter> INSTANCIAS = new EnumMap<>(Provedor.class);
+
+    public enum Provedor {
+        GEMINI, OPENAI
+    }
     
     /** Limite de contexto dos modelos GPT (128k para GPT-4, usamos margem segura) */
     private static final int LIMITE_CONTEXTO_MODELO = 120_000;
@@ -26,12 +48,50 @@ public class TokenCounter {
     /** Threshold para começar a reduzir (80% do limite) */
     public static final int THRESHOLD_REDUCAO = (int) (LIMITE_ENTRADA_SEGURO * 0.8);
     
-    private TokenCounter() {
-        // Singleton privado
+    private final TokenizadorBpe bpe;
+    private final Cache<String, Integer> contagens;
+
+    TokenCounter(TokenizadorBpe bpe) {
+        this.bpe = bpe;
+        this.contagens = bpe == null ? null : Caffeine.newBuilder()
+                .maximumWeight(CACHE_MAX_CARACTERES)
+                .weigher((String texto, Integer tokens) -> texto.length())
+                .build();
     }
     
+    /** Contador do provedor padrão do chat (Gemini). */
     public static TokenCounter getInstance() {
-        return INSTANCE;
+        return para(Provedor.GEMINI);
+    }
+
+    public static synchronized TokenCounter para(Provedor provedor) {
+        return INSTANCIAS.computeIfAbsent(provedor, p -> new TokenCounter(carregarVocabulario(p).orElse(null)));
+    }
+
+    private static Optional<TokenizadorBpe> carregarVocabulario(Provedor provedor) {
+        for (Provedor origem : provedor == Provedor.GEMINI
+                ? List.of(Provedor.GEMINI, Provedor.OPENAI)
+                : List.of(Provedor.OPENAI)) {
+            String recurso = String.format(VOCABULARIO, origem.name().toLowerCase());
+            try {
+                Optional<TokenizadorBpe> bpe = TokenizadorBpe.carregar(recurso);
+                if (bpe.isPresent()) {
+                    log.info("Contagem de tokens {}: BPE de {} ({} tokens no vocabulário)",
+                            provedor, recurso, bpe.get().tamanhoVocabulario());
+                    return bpe;
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Vocabulário BPE {} inválido: {}", recurso, e.getMessage());
+            }
+        }
+        log.info("Contagem de tokens {}: sem vocabulário BPE, usando ~{} caracteres por token",
+                provedor, CARACTERES_POR_TOKEN);
+        return Optional.empty();
+    }
+
+    /** Indica se a contagem é feita pelo vocabulário BPE (e não pela regra de caracteres). */
+    public boolean usaBpe() {
+        return bpe != null;
     }
     
     /**
@@ -68,10 +128,36 @@ public class TokenCounter {
         if (texto == null || texto.isBlank()) {
             return 0;
         }
-        
+        if (bpe == null) {
+            return estimarPorCaracteres(texto);
+        }
+        return contagens.get(texto, bpe::contar);
+    }
+
+    /** Regra de ~4 caracteres por token, usada sem vocabulário BPE. */
+    static int estimarPorCaracteres(String texto) {
         return (int) Math.ceil(texto.length() / CARACTERES_POR_TOKEN);
     }
     
+    /**
+     * Soma os tokens do conteúdo de um histórico, reaproveitando o custo que
+     * cada mensagem já traz ({@link MensagemChat#tokens()}) e contando só as
+     * que ainda não foram contadas.
+     * 
+     * @param historico mensagens do histórico
+     * @return soma dos tokens do conteúdo
+     */
+    public int estimarTokensHistorico(List<MensagemChat> historico) {
+        if (historico == null || historico.isEmpty()) {
+            return 0;
+        }
+        int total = 0;
+        for (MensagemChat mensagem : historico) {
+            total += mensagem.tokensContados() ? mensagem.tokens() : estimarTokens(mensagem.content());
+        }
+        return total;
+    }
+    
     /**
      * Estima tokens de uma lista de mensagens (formato OpenAI).
      * 
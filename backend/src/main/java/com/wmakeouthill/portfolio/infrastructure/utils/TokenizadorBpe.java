@@ -0,0 +1,155 @@
+package com.wmakeouthill.portfolio.infrastructure.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Contador de tokens por byte-pair encoding, no formato de vocabulário do
+ * tiktoken (uma linha {@code <bytes em base64> <rank>} por token).
+ *
+ * <p>
+ * O texto é quebrado pela mesma expressão de pré-tokenização do
+ * {@code cl100k_base}/{@code o200k_base}; cada pedaço que não está inteiro no
+ * vocabulário é fundido par a par, sempre pelo par de menor rank, até não
+ * sobrar fusão possível. Só conta os tokens: não guarda ids nem devolve a
+ * sequência.
+ * </p>
+ *
+ * <p>
+ * As chaves do vocabulário são os bytes do token lidos como ISO-8859-1 (um
+ * {@code char} por byte). Pedaços só ASCII já têm essa forma e dispensam a
+ * conversão para UTF-8, que é o caso da maior parte do markdown e do código.
+ * </p>
+ */
+public final class TokenizadorBpe {
+
+    private static final Pattern PRE_TOKENIZACAO = Pattern.compile(
+            "(?i:'s|'t|'re|'ve|'m|'ll|'d)|[^\\r\\n\\p{L}\\p{N}]?\\p{L}+|\\p{N}{1,3}"
+                    + "| ?[^\\s\\p{L}\\p{N}]+[\\r\\n]*|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+");
+
+    private final Map<String, Integer> ranks;
+
+    private TokenizadorBpe(Map<String, Integer> ranks) {
+        this.ranks = ranks;
+    }
+
+    /** Carrega o vocabulário do classpath; vazio se o recurso não existir. */
+    public static Optional<TokenizadorBpe> carregar(String recurso) throws IOException {
+        ClassLoader loader = TokenizadorBpe.class.getClassLoader();
+        try (InputStream entrada = loader.getResourceAsStream(recurso)) {
+            return entrada == null ? Optional.empty() : Optional.of(ler(entrada));
+        }
+    }
+
+    public static TokenizadorBpe ler(InputStream entrada) throws IOException {
+        Map<String, Integer> ranks = new HashMap<>(1 << 18);
+        Base64.Decoder base64 = Base64.getDecoder();
+        BufferedReader leitor = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.US_ASCII));
+        String linha;
+        while ((linha = leitor.readLine()) != null) {
+            int espaco = linha.indexOf(' ');
+            if (espaco <= 0) {
+                continue;
+            }
+            byte[] bytes = base64.decode(linha.substring(0, espaco));
+            ranks.put(new String(bytes, StandardCharsets.ISO_8859_1),
+                    Integer.parseInt(linha.substring(espaco + 1).trim()));
+        }
+        if (ranks.isEmpty()) {
+            throw new IOException("Vocabulário BPE vazio");
+        }
+        return new TokenizadorBpe(ranks);
+    }
+
+    public int tamanhoVocabulario() {
+        return ranks.size();
+    }
+
+    public int contar(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return 0;
+        }
+        int total = 0;
+        Matcher pedacos = PRE_TOKENIZACAO.matcher(texto);
+        while (pedacos.find()) {
+            String pedaco = pedacos.group();
+            total += contarPedaco(ascii(pedaco)
+                    ? pedaco
+                    : new String(pedaco.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1));
+        }
+        return total;
+    }
+
+    /**
+     * Fusão BPE de um pedaço (bytes como ISO-8859-1). {@code inicios} guarda o
+     * início de cada parte ainda não fundida e {@code ranksPares} o rank do par
+     * que começa em cada uma; a cada passo o par de menor rank vira uma parte.
+     */
+    private int contarPedaco(String bytes) {
+        int tamanho = bytes.length();
+        if (tamanho <= 1 || ranks.containsKey(bytes)) {
+            return 1;
+        }
+
+        int[] inicios = new int[tamanho + 1];
+        int[] ranksPares = new int[tamanho + 1];
+        for (int i = 0; i <= tamanho; i++) {
+            inicios[i] = i;
+        }
+        int partes = tamanho;
+        for (int i = 0; i < partes - 1; i++) {
+            ranksPares[i] = rank(bytes, inicios[i], inicios[i + 2]);
+        }
+        ranksPares[partes - 1] = Integer.MAX_VALUE;
+
+        while (partes > 1) {
+            int menor = Integer.MAX_VALUE;
+            int posicao = -1;
+            for (int i = 0; i < partes - 1; i++) {
+                if (ranksPares[i] < menor) {
+                    menor = ranksPares[i];
+                    posicao = i;
+                }
+            }
+            if (posicao < 0) {
+                break;
+            }
+
+            // Funde as partes posicao e posicao + 1.
+            System.arraycopy(inicios, posicao + 2, inicios, posicao + 1, partes - posicao - 1);
+            System.arraycopy(ranksPares, posicao + 2, ranksPares, posicao + 1, partes - posicao - 2);
+            partes--;
+            ranksPares[partes - 1] = Integer.MAX_VALUE;
+            if (posicao < partes - 1) {
+                ranksPares[posicao] = rank(bytes, inicios[posicao], inicios[posicao + 2]);
+            }
+            if (posicao > 0) {
+                ranksPares[posicao - 1] = rank(bytes, inicios[posicao - 1], inicios[posicao + 1]);
+            }
+        }
+        return partes;
+    }
+
+    private int rank(String bytes, int inicio, int fim) {
+        Integer rank = ranks.get(bytes.substring(inicio, fim));
+        return rank == null ? Integer.MAX_VALUE : rank;
+    }
+
+    private static boolean ascii(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,6 +1,8 @@
 package com.wmakeouthill.portfolio.infrastructure.warmup;
 
 import com.wmakeouthill.portfolio.application.seo.GerarSitemapUseCase;
+import com.wmakeouthill.portfolio.infrastructure.http.ClienteHttp;
+import com.wmakeouthill.portfolio.infrastructure.http.ClientesHttp;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,7 +11,6 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
@@ -46,11 +47,7 @@ public class EdgeCacheWarmupScheduler {
 
   private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
 
-  private final HttpClient httpClient = HttpClient.newBuilder()
-      .connectTimeout(Duration.ofSeconds(10))
-      .followRedirects(HttpClient.Redirect.NORMAL)
-      .build();
-
+  private final ClienteHttp httpClient;
   private final GerarSitemapUseCase gerarSitemapUseCase;
 
   @Value("${public.site.base-url:https://wmakeouthill.dev}")
@@ -62,8 +59,9 @@ public class EdgeCacheWarmupScheduler {
   @Value("${edge.warmup.routes:/,/en,/projects,/en/projects}")
   private String routesCsv;
 
-  public EdgeCacheWarmupScheduler(GerarSitemapUseCase gerarSitemapUseCase) {
+  public EdgeCacheWarmupScheduler(GerarSitemapUseCase gerarSitemapUseCase, ClientesHttp clientesHttp) {
     this.gerarSitemapUseCase = gerarSitemapUseCase;
+    this.httpClient = clientesHttp.cliente(ClientesHttp.Destino.EDGE);
   }
 
   @PostConstruct
@@ -137,7 +135,7 @@ public class EdgeCacheWarmupScheduler {
           .header("User-Agent", "PortfolioEdgeWarmer/1.0 (+backend-oracle)")
           .GET()
           .build();
-      HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+      HttpResponse<Void> response = httpClient.enviar(request, HttpResponse.BodyHandlers.discarding());
       boolean sucesso = response.statusCode() >= 200 && response.statusCode() < 400;
       if (!sucesso) {
         log.warn("Edge warmup {} respondeu status {}", url, response.statusCode());
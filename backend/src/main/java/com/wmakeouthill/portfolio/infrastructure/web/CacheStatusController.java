@@ -5,8 +5,12 @@ import com.wmakeouthill.portfolio.application.dto.CacheStatusDto.CacheInfo;
 import com.wmakeouthill.portfolio.application.dto.CacheStatusDto.GithubApiInfo;
 import com.wmakeouthill.portfolio.domain.service.ContextSearchService;
 import com.wmakeouthill.portfolio.domain.service.ProjetoKeywordDetector;
+import com.wmakeouthill.portfolio.infrastructure.ai.LimitadorConcorrencia;
+import com.wmakeouthill.portfolio.infrastructure.ai.SaudeModelos;
 import com.wmakeouthill.portfolio.infrastructure.config.CaffeineCacheConfig;
 import com.wmakeouthill.portfolio.infrastructure.github.GithubContentCache;
+import com.wmakeouthill.portfolio.infrastructure.http.ClienteHttp;
+import com.wmakeouthill.portfolio.infrastructure.http.ClientesHttp;
 import com.wmakeouthill.portfolio.infrastructure.pdf.ThumbnailCacheService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -17,7 +21,6 @@ import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
@@ -41,8 +44,9 @@ public class CacheStatusController {
     private final ProjetoKeywordDetector projetoKeywordDetector;
     private final ContextSearchService contextSearchService;
     private final CacheManager cacheManager;
-
-    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final List<LimitadorConcorrencia> limitadoresIa;
+    private final SaudeModelos saudeModelos;
+    private final ClientesHttp clientesHttp;
 
     @Value("${github.api.token:}")
     private String githubToken;
@@ -92,6 +96,35 @@ public class CacheStatusController {
         return ResponseEntity.ok(status);
     }
 
+    /**
+     * Ocupação e tempo de fila dos limitadores de chamadas à IA (um por
+     * provedor). Só lê contadores em memória.
+     */
+    @GetMapping("/ia/limites")
+    public ResponseEntity<List<LimitadorConcorrencia.Estatisticas>> getLimitesIa() {
+        return ResponseEntity.ok(limitadoresIa.stream()
+                .map(LimitadorConcorrencia::estatisticas)
+                .toList());
+    }
+
+    /**
+     * Estado do circuit breaker, taxa de erro e latência mediana recentes de
+     * cada modelo de IA já chamado.
+     */
+    @GetMapping("/ia/circuitos")
+    public ResponseEntity<List<SaudeModelos.Retrato>> getCircuitosIa() {
+        return ResponseEntity.ok(saudeModelos.retratos());
+    }
+
+    /**
+     * Latência, bytes recebidos e status das chamadas de saída, por destino
+     * (Vertex, OpenAI, GitHub, SSR, edge).
+     */
+    @GetMapping("/http")
+    public ResponseEntity<List<ClienteHttp.Estatisticas>> getClientesHttp() {
+        return ResponseEntity.ok(clientesHttp.estatisticas());
+    }
+
     /**
      * Força invalidação de todo o cache.
      * Próxima requisição vai buscar dados frescos do GitHub.
@@ -131,7 +164,7 @@ public class CacheStatusController {
                     .GET()
                     .build();
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = clientesHttp.cliente(ClientesHttp.Destino.GITHUB).enviarTexto(request);
 
             if (response.statusCode() == 200) {
                 return parseRateLimit(response.body());
@@ -12,10 +12,11 @@ import com.wmakeouthill.portfolio.application.usecase.ChatUseCase;
 import com.wmakeouthill.portfolio.application.usecase.CurriculoJobService;
 import com.wmakeouthill.portfolio.application.usecase.EnviarEmailChatUseCase;
 import com.wmakeouthill.portfolio.infrastructure.ai.GeminiTtsAdapter;
+import com.wmakeouthill.portfolio.infrastructure.config.ChatAsyncConfig;
 import com.wmakeouthill.portfolio.infrastructure.document.DocumentTextExtractor;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -28,10 +29,18 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/chat")
@@ -39,48 +48,150 @@ import java.util.List;
         RequestMethod.OPTIONS })
 // Limites de upload multipart configurados em application.properties
 // (spring.servlet.multipart.max-file-size / max-request-size)
-@RequiredArgsConstructor
+// Endpoints que chamam a IA respondem com CompletableFuture (servlet async): a
+// thread do Tomcat é liberada e a chamada roda no pool ChatAsyncConfig.
 public class ChatController {
     private static final String HEADER_SESSION_ID = "X-Session-ID";
+    /** Teto de uma resposta em streaming; acima do timeout do Vertex com folga. */
+    private static final long TIMEOUT_STREAM_MS = 180_000L;
+    private static final String MENSAGEM_SOBRECARGA = "Muitas conversas em andamento. Tente novamente em instantes.";
 
     private final ChatUseCase chatUseCase;
     private final CurriculoJobService curriculoJobService;
     private final EnviarEmailChatUseCase enviarEmailChatUseCase;
     private final DocumentTextExtractor documentTextExtractor;
     private final GeminiTtsAdapter geminiTtsAdapter;
+    private final Executor chatExecutor;
+
+    public ChatController(
+            ChatUseCase chatUseCase,
+            CurriculoJobService curriculoJobService,
+            EnviarEmailChatUseCase enviarEmailChatUseCase,
+            DocumentTextExtractor documentTextExtractor,
+            GeminiTtsAdapter geminiTtsAdapter,
+            @Qualifier(ChatAsyncConfig.EXECUTOR_CHAT) Executor chatExecutor) {
+        this.chatUseCase = chatUseCase;
+        this.curriculoJobService = curriculoJobService;
+        this.enviarEmailChatUseCase = enviarEmailChatUseCase;
+        this.documentTextExtractor = documentTextExtractor;
+        this.geminiTtsAdapter = geminiTtsAdapter;
+        this.chatExecutor = chatExecutor;
+    }
 
     @PostMapping
-    public ResponseEntity<ChatResponse> chat(
+    public CompletableFuture<ResponseEntity<ChatResponse>> chat(
             @Valid @RequestBody ChatRequest request,
             HttpServletRequest httpRequest) {
+        // Headers são lidos aqui: o HttpServletRequest não deve ser usado fora
+        // da thread da requisição.
+        String sessionId = extrairSessionId(httpRequest);
+        String language = extrairIdioma(httpRequest);
+        return emSegundoPlano(() -> {
+            try {
+                ChatResponse response = chatUseCase.execute(request, sessionId, language);
+                return ResponseEntity.ok(response);
+            } catch (Exception e) {
+                // Log do erro para debug
+                org.slf4j.LoggerFactory.getLogger(ChatController.class)
+                        .error("Erro ao processar mensagem de chat", e);
+                // Retorna resposta de erro amigável
+                return ResponseEntity
+                        .status(org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(new ChatResponse("Erro ao processar mensagem. Tente novamente."));
+            }
+        }, new ChatResponse(MENSAGEM_SOBRECARGA));
+    }
+
+    /**
+     * Mesmo fluxo de {@link #chat}, mas com a resposta em Server-Sent Events:
+     * eventos {@code delta} ({@code {"text": ...}}) conforme o modelo gera e um
+     * {@code done} final com o {@link ChatResponse} completo (ou {@code error}).
+     * A thread do Tomcat é liberada na hora; o stream roda no pool dedicado.
+     */
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter chatStream(
+            @Valid @RequestBody ChatRequest request,
+            HttpServletRequest httpRequest) {
+        String sessionId = extrairSessionId(httpRequest);
+        String language = extrairIdioma(httpRequest);
+        SseEmitter emitter = new SseEmitter(TIMEOUT_STREAM_MS);
         try {
-            String sessionId = extrairSessionId(httpRequest);
-            String language = extrairIdioma(httpRequest);
-            ChatResponse response = chatUseCase.execute(request, sessionId, language);
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            // Log do erro para debug
+            chatExecutor.execute(() -> transmitir(emitter, request, sessionId, language));
+        } catch (RejectedExecutionException e) {
             org.slf4j.LoggerFactory.getLogger(ChatController.class)
-                    .error("Erro ao processar mensagem de chat", e);
-            // Retorna resposta de erro amigável
-            return ResponseEntity
-                    .status(org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new ChatResponse("Erro ao processar mensagem. Tente novamente."));
+                    .warn("Pool do chat cheio; streaming recusado");
+            enviarErro(emitter, MENSAGEM_SOBRECARGA);
         }
+        return emitter;
     }
 
-    @PostMapping("/email")
-    public ResponseEntity<ChatEmailResponse> email(@Valid @RequestBody ChatEmailRequest request) {
+    private void transmitir(SseEmitter emitter, ChatRequest request, String sessionId, String language) {
         try {
-            return ResponseEntity.ok(enviarEmailChatUseCase.executar(request));
+            ChatResponse response = chatUseCase.executeStream(request, sessionId, language,
+                    trecho -> enviarEvento(emitter, "delta", Map.of("text", trecho)));
+            enviarEvento(emitter, "done", response);
+            emitter.complete();
+        } catch (UncheckedIOException e) {
+            // Cliente fechou a conexão: o stream do provedor já foi abortado.
+            org.slf4j.LoggerFactory.getLogger(ChatController.class)
+                    .info("Cliente desconectou durante o streaming do chat: {}", e.getMessage());
+            emitter.complete();
         } catch (Exception e) {
             org.slf4j.LoggerFactory.getLogger(ChatController.class)
-                    .error("Erro ao enviar email pelo chat", e);
-            return ResponseEntity.internalServerError()
-                    .body(ChatEmailResponse.erro("Não foi possível enviar o email agora."));
+                    .error("Erro ao processar mensagem de chat em streaming", e);
+            enviarErro(emitter, "Erro ao processar mensagem. Tente novamente.");
+        }
+    }
+
+    private void enviarEvento(SseEmitter emitter, String nome, Object dados) {
+        try {
+            emitter.send(SseEmitter.event().name(nome).data(dados, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void enviarErro(SseEmitter emitter, String mensagem) {
+        try {
+            emitter.send(SseEmitter.event().name("error")
+                    .data(new ChatResponse(mensagem), MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
         }
     }
 
+    /**
+     * Executa {@code tarefa} no pool do chat. Com o pool e a fila cheios,
+     * responde 503 com {@code corpoRecusa} na hora, sem segurar a thread.
+     */
+    private <T> CompletableFuture<ResponseEntity<T>> emSegundoPlano(Supplier<ResponseEntity<T>> tarefa,
+            T corpoRecusa) {
+        try {
+            return CompletableFuture.supplyAsync(tarefa, chatExecutor);
+        } catch (RejectedExecutionException e) {
+            org.slf4j.LoggerFactory.getLogger(ChatController.class)
+                    .warn("Pool do chat cheio; requisição recusada");
+            return CompletableFuture.completedFuture(ResponseEntity
+                    .status(org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(corpoRecusa));
+        }
+    }
+
+    @PostMapping("/email")
+    public CompletableFuture<ResponseEntity<ChatEmailResponse>> email(@Valid @RequestBody ChatEmailRequest request) {
+        return emSegundoPlano(() -> {
+            try {
+                return ResponseEntity.ok(enviarEmailChatUseCase.executar(request));
+            } catch (Exception e) {
+                org.slf4j.LoggerFactory.getLogger(ChatController.class)
+                        .error("Erro ao enviar email pelo chat", e);
+                return ResponseEntity.internalServerError()
+                        .body(ChatEmailResponse.erro("Não foi possível enviar o email agora."));
+            }
+        }, ChatEmailResponse.erro(MENSAGEM_SOBRECARGA));
+    }
+
     /**
      * Inicia a geração do currículo em background e devolve o id do job na hora
      * (não bloqueia até o Vertex responder — evita o 504 do teto de ~58s do proxy).
@@ -113,48 +224,55 @@ public class ChatController {
     }
 
     @PostMapping("/tts")
-    public ResponseEntity<ChatResponse> tts(@RequestBody ChatTtsRequest request) {
+    public CompletableFuture<ResponseEntity<ChatResponse>> tts(@RequestBody ChatTtsRequest request) {
         String texto = request == null || request.text() == null ? "" : request.text().trim();
         if (texto.isBlank()) {
-            return ResponseEntity.badRequest().body(new ChatResponse("Texto obrigatório para gerar áudio."));
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body(new ChatResponse("Texto obrigatório para gerar áudio.")));
         }
 
-        return geminiTtsAdapter.sintetizarWavBase64(texto)
+        return emSegundoPlano(() -> geminiTtsAdapter.sintetizarWavBase64(texto)
                 .map(audio -> ResponseEntity.ok(new ChatResponse("", null, audio, null, null)))
                 .orElseGet(() -> ResponseEntity
                         .status(org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE)
-                        .body(new ChatResponse("Não foi possível gerar áudio agora.")));
+                        .body(new ChatResponse("Não foi possível gerar áudio agora."))),
+                new ChatResponse(MENSAGEM_SOBRECARGA));
     }
 
     private static final int MAX_ARQUIVOS = 5;
     private static final long MAX_TAMANHO_BYTES = 20L * 1024 * 1024; // 20MB por arquivo
 
     @PostMapping(value = "/multimodal", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<ChatResponse> chatMultimodal(
+    public CompletableFuture<ResponseEntity<ChatResponse>> chatMultimodal(
             @RequestParam(value = "message", required = false) String message,
             @RequestParam(value = "model", required = false) String model,
             @RequestParam(value = "audioResponse", required = false, defaultValue = "false") boolean audioResponse,
             @RequestParam(value = "files", required = false) MultipartFile[] files,
             HttpServletRequest httpRequest) {
+        // Os anexos são lidos na thread da requisição (o multipart pertence a
+        // ela); só a chamada à IA vai para o pool do chat.
+        List<MediaPart> media = new ArrayList<>();
+        ChatRequest request;
+        String sessionId;
+        String language;
         try {
-            List<MediaPart> media = new ArrayList<>();
             StringBuilder textoDocumentos = new StringBuilder();
             if (files != null) {
                 if (files.length > MAX_ARQUIVOS) {
-                    return ResponseEntity.badRequest()
-                            .body(new ChatResponse("Máximo de " + MAX_ARQUIVOS + " arquivos por mensagem."));
+                    return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                            .body(new ChatResponse("Máximo de " + MAX_ARQUIVOS + " arquivos por mensagem.")));
                 }
                 for (MultipartFile file : files) {
                     if (file == null || file.isEmpty()) {
                         continue;
                     }
                     if (file.getSize() > MAX_TAMANHO_BYTES) {
-                        return ResponseEntity.badRequest().body(new ChatResponse(
-                                "O arquivo '" + file.getOriginalFilename() + "' excede o limite de 20MB."));
+                        return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(new ChatResponse(
+                                "O arquivo '" + file.getOriginalFilename() + "' excede o limite de 20MB.")));
                     }
                     if (isVideo(file.getContentType())) {
-                        return ResponseEntity.badRequest()
-                                .body(new ChatResponse("Envio de vídeo não é suportado no chat."));
+                        return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                                .body(new ChatResponse("Envio de vídeo não é suportado no chat.")));
                     }
                     String filename = file.getOriginalFilename();
 
@@ -177,23 +295,35 @@ public class ChatController {
                 }
             }
 
-            String sessionId = extrairSessionId(httpRequest);
-            String language = extrairIdioma(httpRequest);
+            sessionId = extrairSessionId(httpRequest);
+            language = extrairIdioma(httpRequest);
             String mensagemFinal = (message == null ? "" : message);
             if (textoDocumentos.length() > 0) {
                 mensagemFinal += textoDocumentos;
             }
-            ChatRequest request = new ChatRequest(mensagemFinal,
+            request = new ChatRequest(mensagemFinal,
                     model == null || model.isBlank() ? "gemini" : model);
-            ChatResponse response = chatUseCase.executeMultimodal(request, media, sessionId, language, audioResponse);
-            return ResponseEntity.ok(response);
         } catch (Exception e) {
-            org.slf4j.LoggerFactory.getLogger(ChatController.class)
-                    .error("Erro ao processar mensagem multimodal", e);
-            return ResponseEntity
-                    .status(org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new ChatResponse("Erro ao processar mensagem. Tente novamente."));
+            return CompletableFuture.completedFuture(erroMultimodal(e));
         }
+
+        return emSegundoPlano(() -> {
+            try {
+                ChatResponse response = chatUseCase.executeMultimodal(request, media, sessionId, language,
+                        audioResponse);
+                return ResponseEntity.ok(response);
+            } catch (Exception e) {
+                return erroMultimodal(e);
+            }
+        }, new ChatResponse(MENSAGEM_SOBRECARGA));
+    }
+
+    private ResponseEntity<ChatResponse> erroMultimodal(Exception e) {
+        org.slf4j.LoggerFactory.getLogger(ChatController.class)
+                .error("Erro ao processar mensagem multimodal", e);
+        return ResponseEntity
+                .status(org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ChatResponse("Erro ao processar mensagem. Tente novamente."));
     }
 
     @PostMapping("/clear")
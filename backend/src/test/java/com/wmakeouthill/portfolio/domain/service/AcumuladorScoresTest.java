@@ -0,0 +1,56 @@
+package com.wmakeouthill.portfolio.domain.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AcumuladorScoresTest {
+
+  @Test
+  void anotaCadaDocumentoTocadoUmaVez() {
+    AcumuladorScores acumulador = AcumuladorScores.daThread(10);
+    try {
+      acumulador.tocar(7);
+      acumulador.cobertura[7] += 2;
+      acumulador.tocar(7);
+      acumulador.tocar(3);
+      acumulador.matchesTag[3]++;
+      acumulador.tocar(3);
+
+      assertThat(acumulador.qtdTocados).isEqualTo(2);
+      assertThat(acumulador.tocados[0]).isEqualTo(7);
+      assertThat(acumulador.tocados[1]).isEqualTo(3);
+    } finally {
+      acumulador.limpar();
+    }
+  }
+
+  @Test
+  void limparZeraSoOQueFoiTocadoEOAcumuladorVoltaZerado() {
+    AcumuladorScores acumulador = AcumuladorScores.daThread(4);
+    acumulador.tocar(2);
+    acumulador.scores[2] = 1.5;
+    acumulador.cobertura[2] = 2;
+    acumulador.ultimoToken[2] = 1;
+
+    acumulador.limpar();
+
+    assertThat(acumulador.qtdTocados).isZero();
+    assertThat(acumulador.scores[2]).isEqualTo(0.0);
+    assertThat(acumulador.cobertura[2]).isZero();
+    assertThat(acumulador.ultimoToken[2]).isZero();
+  }
+
+  @Test
+  void reaproveitaOMesmoAcumuladorNaThreadECresceQuandoPrecisa() {
+    AcumuladorScores pequeno = AcumuladorScores.daThread(4);
+    double[] scores = pequeno.scores;
+
+    assertThat(AcumuladorScores.daThread(2)).isSameAs(pequeno);
+    assertThat(pequeno.scores).isSameAs(scores);
+
+    AcumuladorScores maior = AcumuladorScores.daThread(scores.length + 100);
+    assertThat(maior).isSameAs(pequeno);
+    assertThat(maior.scores.length).isGreaterThan(scores.length + 99);
+  }
+}
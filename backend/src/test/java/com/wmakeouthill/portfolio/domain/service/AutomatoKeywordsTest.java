@@ -0,0 +1,51 @@
+package com.wmakeouthill.portfolio.domain.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AutomatoKeywordsTest {
+
+  private final AutomatoKeywords automato = AutomatoKeywords.compilar(Map.of(
+      "lol-matchmaking", List.of("lol-matchmaking", "lol matchmaking", "lolmatchmaking", "matchmaking", "electron"),
+      "mercearia-r-v", List.of("mercearia-r-v", "mercearia", "estoque"),
+      "aa-space", List.of("aa-space", "space", "")));
+
+  @Test
+  void casaKeywordComoSubstringDaMensagem() {
+    assertThat(automato.detectar("Me fala do LoL Matchmaking")).containsExactly("lol-matchmaking");
+    assertThat(automato.detectar("como funciona o controle de estoque?")).containsExactly("mercearia-r-v");
+  }
+
+  @Test
+  void casaVariosProjetosNumaUnicaPassada() {
+    assertThat(automato.detectar("compare a mercearia com o lolmatchmaking e o aa-space"))
+        .containsExactlyInAnyOrder("lol-matchmaking", "mercearia-r-v", "aa-space");
+  }
+
+  @Test
+  void ignoraAcentosECaixa() {
+    assertThat(automato.detectar("ELÉCTRON")).containsExactly("lol-matchmaking");
+  }
+
+  @Test
+  void toleraTyposNaCamadaAproximada() {
+    assertThat(automato.detectar("o projeto da mercaria")).containsExactly("mercearia-r-v");
+    assertThat(automato.detectar("matchmakng")).containsExactly("lol-matchmaking");
+  }
+
+  @Test
+  void mensagemSemKeywordNaoCasaNada() {
+    assertThat(automato.detectar("qual seu email de contato?")).isEmpty();
+    assertThat(automato.detectar("   ")).isEmpty();
+    assertThat(AutomatoKeywords.VAZIO.detectar("lol matchmaking")).isEmpty();
+  }
+
+  @Test
+  void expoeTodosOsProjetosCompilados() {
+    assertThat(automato.projetos()).containsExactlyInAnyOrder("lol-matchmaking", "mercearia-r-v", "aa-space");
+  }
+}
@@ -0,0 +1,89 @@
+package com.wmakeouthill.portfolio.domain.service;
+
+import com.wmakeouthill.portfolio.domain.model.PassagemContexto;
+import com.wmakeouthill.portfolio.domain.model.PortfolioMarkdownResource;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IndiceBuscaCodecTest {
+
+  private final IndiceBusca original = IndiceBusca.montar(segmentos(), 1234L);
+
+  @Test
+  void snapshotRestauradoPreservaPassagensEPostings() {
+    IndiceBusca restaurado = IndiceBuscaCodec.decodificar(ByteBuffer.wrap(IndiceBuscaCodec.codificar(original)));
+
+    assertThat(restaurado.chunks()).isEqualTo(original.chunks());
+    assertThat(restaurado.chunks()).extracting(ContextChunk::tokens).containsExactly(5, 5, 7);
+    assertThat(restaurado.fallback()).isEqualTo(original.fallback());
+    assertThat(restaurado.carregadoEm()).isEqualTo(1234L);
+    assertThat(restaurado.indice().vocabulario()).isEqualTo(original.indice().vocabulario());
+    assertThat(restaurado.indice().postings("java").documentos()).containsExactly(0, 2);
+    assertThat(restaurado.indice().postings("java").frequencias()).containsExactly(2, 1);
+    assertThat(restaurado.chunksPorTag().get("angular")).containsExactly(1, 2);
+    assertThat(restaurado.similaridade().similares("angulr")).containsExactly("angular");
+  }
+
+  @Test
+  void snapshotRestauradoGuardaShaEChaveDosDocumentos() {
+    IndiceBusca restaurado = IndiceBuscaCodec.decodificar(ByteBuffer.wrap(IndiceBuscaCodec.codificar(original)));
+
+    SegmentoDocumento projeto = restaurado.segmentos().get("portfolio-content/projects/loja.md");
+    assertThat(projeto.chave()).isEqualTo("sha-loja");
+    assertThat(projeto.recurso().sha()).isEqualTo("sha-loja");
+    assertThat(projeto.recurso().projeto()).isTrue();
+    assertThat(projeto.recurso().tags()).containsExactlyInAnyOrder("angular", "docker");
+    assertThat(projeto.termos()).isEqualTo(original.segmentos().get("portfolio-content/projects/loja.md").termos());
+  }
+
+  @Test
+  void passagensDoSnapshotRestauradoSaoEncontradasPorNomeECaminhoMaisSha() {
+    IndiceBusca restaurado = IndiceBuscaCodec.decodificar(ByteBuffer.wrap(IndiceBuscaCodec.codificar(original)));
+
+    assertThat(restaurado.passagens().porNome("LOJA")).hasValueSatisfying(passagens -> {
+      assertThat(passagens).extracting(PassagemContexto::conteudo)
+          .containsExactly("「loja」\nFrontend Angular", "「loja」\nDeploy com Docker e Java");
+      assertThat(passagens).extracting(PassagemContexto::tokens).containsExactly(5, 7);
+    });
+    assertThat(restaurado.passagens().doDocumento("portfolio-content/projects/loja.md", "sha-loja")).isPresent();
+    assertThat(restaurado.passagens().doDocumento("portfolio-content/projects/loja.md", "sha-antigo")).isEmpty();
+    assertThat(restaurado.passagens().porNome("inexistente")).isEmpty();
+  }
+
+  @Test
+  void rejeitaArquivoComAssinaturaDesconhecida() {
+    byte[] bytes = IndiceBuscaCodec.codificar(original);
+    bytes[0] = 0;
+
+    assertThatThrownBy(() -> IndiceBuscaCodec.decodificar(ByteBuffer.wrap(bytes)))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  private static Map<String, SegmentoDocumento> segmentos() {
+    PortfolioMarkdownResource curriculo = new PortfolioMarkdownResource("curriculo",
+        "portfolio-content/curriculo.md", "", false, true, Set.of("curriculo"), null);
+    PortfolioMarkdownResource loja = new PortfolioMarkdownResource("loja",
+        "portfolio-content/projects/loja.md", "", true, false, Set.of("angular", "docker"), "sha-loja");
+
+    Map<String, SegmentoDocumento> segmentos = new LinkedHashMap<>();
+    segmentos.put(curriculo.caminho(), new SegmentoDocumento(curriculo, "len10-abc",
+        List.of("「curriculo」\nJava e Spring"),
+        new int[] {5},
+        List.of(List.of("java", "spring", "java")),
+        Set.of("curriculo")));
+    segmentos.put(loja.caminho(), new SegmentoDocumento(loja, "sha-loja",
+        List.of("「loja」\nFrontend Angular", "「loja」\nDeploy com Docker e Java"),
+        new int[] {5, 7},
+        List.of(List.of("frontend", "angular"), List.of("deploy", "docker", "java")),
+        Set.of("angular", "docker")));
+    return segmentos;
+  }
+}
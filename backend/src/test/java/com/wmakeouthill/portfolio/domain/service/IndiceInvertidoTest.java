@@ -0,0 +1,55 @@
+package com.wmakeouthill.portfolio.domain.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndiceInvertidoTest {
+
+  private final IndiceInvertido indice = IndiceInvertido.construir(List.of(
+      List.of("java", "spring", "java"),
+      List.of("angular", "typescript"),
+      List.of("java", "angular", "docker", "kubernetes", "oracle")));
+
+  @Test
+  void postingListGuardaDocumentosEFrequencias() {
+    IndiceInvertido.Postings java = indice.postings("java");
+
+    assertThat(java.documentos()).containsExactly(0, 2);
+    assertThat(java.frequencias()).containsExactly(2, 1);
+  }
+
+  @Test
+  void termoAusenteRetornaPostingVazia() {
+    assertThat(indice.contem("python")).isFalse();
+    assertThat(indice.postings("python").tamanho()).isZero();
+  }
+
+  @Test
+  void termoMaisRaroTemIdfMaior() {
+    double idfRaro = indice.idf(indice.postings("docker").tamanho());
+    double idfComum = indice.idf(indice.postings("java").tamanho());
+
+    assertThat(idfRaro).isGreaterThan(idfComum);
+    assertThat(idfComum).isPositive();
+  }
+
+  @Test
+  void documentoMaisCurtoEComMaiorFrequenciaPontuaMais() {
+    double idf = indice.idf(indice.postings("java").tamanho());
+
+    double curtoRepetido = indice.pontuar(0, 2, idf);
+    double longoUnico = indice.pontuar(2, 1, idf);
+
+    assertThat(curtoRepetido).isGreaterThan(longoUnico);
+  }
+
+  @Test
+  void vocabularioContemTodosOsTermosDistintos() {
+    assertThat(indice.vocabulario())
+        .containsExactlyInAnyOrder("java", "spring", "angular", "typescript", "docker", "kubernetes", "oracle");
+    assertThat(indice.totalDocumentos()).isEqualTo(3);
+  }
+}
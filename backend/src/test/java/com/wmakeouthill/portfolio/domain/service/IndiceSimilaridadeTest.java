@@ -0,0 +1,42 @@
+package com.wmakeouthill.portfolio.domain.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndiceSimilaridadeTest {
+
+  private final IndiceSimilaridade indice = IndiceSimilaridade.construir(
+      List.of("angular", "spring", "estoque", "docker", "java", "kubernete"), 2);
+
+  @Test
+  void encontraTermosComAteDuasEdicoes() {
+    assertThat(indice.similares("angulr")).containsExactly("angular");
+    assertThat(indice.similares("sprnig")).containsExactly("spring");
+    assertThat(indice.similares("stoque")).containsExactly("estoque");
+    assertThat(indice.similares("kubernets")).containsExactly("kubernete");
+  }
+
+  @Test
+  void ignoraTermosDistantesEOProprioToken() {
+    assertThat(indice.similares("python")).isEmpty();
+    assertThat(indice.similares("docker")).isEmpty();
+  }
+
+  @Test
+  void tokenCurtoNaoCasaComQualquerTermo() {
+    // "jav" está a 1 edição de "java", mas "ja" exigiria 2 edições em 2 letras.
+    assertThat(indice.similares("jav")).containsExactly("java");
+    assertThat(indice.similares("ja")).isEmpty();
+  }
+
+  @Test
+  void distanciaLimitadaAbortaAcimaDoLimite() {
+    assertThat(IndiceSimilaridade.distanciaLimitada("kitten", "sitting", 3)).isEqualTo(3);
+    assertThat(IndiceSimilaridade.distanciaLimitada("kitten", "sitting", 2)).isEqualTo(3);
+    assertThat(IndiceSimilaridade.distanciaLimitada("abc", "abcdefgh", 2)).isEqualTo(3);
+    assertThat(IndiceSimilaridade.distanciaLimitada("spring", "spring", 2)).isZero();
+  }
+}
@@ -97,4 +97,27 @@ class MarkdownPassageSplitterTest {
     assertThat(passagens).isNotEmpty();
     assertThat(passagens).allSatisfy(p -> assertThat(p.isBlank()).isFalse());
   }
+
+  @Test
+  void delimitarDevolveOffsetsQueMaterializamAsMesmasPassagens() {
+    String paragrafo = "Linha de conteúdo repetida. ".repeat(60);
+    String markdown = "Intro\n# Curto\nCorpo.\n\n## Seção Grande\n\n" + paragrafo + "\n\n" + paragrafo;
+
+    List<MarkdownPassageSplitter.Passagem> offsets = splitter.delimitar(markdown);
+
+    assertThat(offsets).extracting(p -> p.texto(markdown)).containsExactlyElementsOf(splitter.dividir(markdown));
+    assertThat(offsets.get(1).temCabecalhoSeparado()).isFalse();
+    assertThat(offsets.get(2).temCabecalhoSeparado()).isTrue();
+    assertThat(offsets.get(2).cabecalho(markdown).toString()).isEqualTo("## Seção Grande");
+    assertThat(offsets).allSatisfy(p -> assertThat(p.texto(markdown)).hasSize(p.tamanho()));
+  }
+
+  @Test
+  void reconheceCabecalhoSoComUmASeisCerquilhasSeguidasDeEspaco() {
+    String markdown = "# A\nx\n####### sete\n#sem-espaco\n###### B\ny\r\n## C\r\nz";
+
+    List<String> passagens = splitter.dividir(markdown);
+
+    assertThat(passagens).containsExactly("# A\nx\n####### sete\n#sem-espaco", "###### B\ny", "## C\r\nz");
+  }
 }
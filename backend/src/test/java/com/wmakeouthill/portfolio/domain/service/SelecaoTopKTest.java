@@ -0,0 +1,59 @@
+package com.wmakeouthill.portfolio.domain.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SelecaoTopKTest {
+
+  private final double[] scores = {0.5, 3.0, 1.0, 3.0, 2.0, 0.1};
+
+  @Test
+  void mantemSoOsKMaioresEmOrdemDecrescente() {
+    SelecaoTopK selecao = new SelecaoTopK(3, scores);
+    for (int doc = 0; doc < scores.length; doc++) {
+      selecao.oferecer(doc);
+    }
+
+    assertThat(selecao.ordenados()).containsExactly(1, 3, 4);
+  }
+
+  @Test
+  void empateFavoreceQuemFoiOferecidoAntes() {
+    SelecaoTopK selecao = new SelecaoTopK(1, scores);
+    selecao.oferecer(3);
+    selecao.oferecer(1);
+
+    assertThat(selecao.ordenados()).containsExactly(3);
+  }
+
+  @Test
+  void menosCandidatosQueKDevolveTodos() {
+    SelecaoTopK selecao = new SelecaoTopK(10, scores);
+    selecao.oferecer(5);
+    selecao.oferecer(2);
+
+    assertThat(selecao.ordenados()).containsExactly(2, 5);
+  }
+
+  @Test
+  void reiniciarEsvaziaASelecaoParaOutroKEOutrosScores() {
+    SelecaoTopK selecao = new SelecaoTopK(1, scores);
+    selecao.oferecer(4);
+
+    selecao.reiniciar(2, new double[] {1.0, 0.0, 2.0});
+    selecao.oferecer(0);
+    selecao.oferecer(1);
+    selecao.oferecer(2);
+
+    assertThat(selecao.ordenados()).containsExactly(2, 0);
+  }
+
+  @Test
+  void kZeroNaoSelecionaNada() {
+    SelecaoTopK selecao = new SelecaoTopK(0, scores);
+    selecao.oferecer(1);
+
+    assertThat(selecao.ordenados()).isEmpty();
+  }
+}
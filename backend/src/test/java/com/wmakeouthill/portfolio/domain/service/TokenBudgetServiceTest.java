@@ -0,0 +1,65 @@
+package com.wmakeouthill.portfolio.domain.service;
+
+import com.wmakeouthill.portfolio.domain.model.HistoricoChat;
+import com.wmakeouthill.portfolio.domain.model.PassagemContexto;
+import com.wmakeouthill.portfolio.domain.model.PromptEstruturado;
+import com.wmakeouthill.portfolio.domain.model.PromptEstruturado.PassagemPontuada;
+import com.wmakeouthill.portfolio.domain.model.PromptEstruturado.Secao;
+import com.wmakeouthill.portfolio.domain.service.TokenBudgetService.TokenBudgetResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBudgetServiceTest {
+
+  private final TokenBudgetService service = new TokenBudgetService();
+
+  /** Passagem de texto curto com custo arbitrário: o orçamento usa o custo do índice. */
+  private static PassagemPontuada passagem(String conteudo, int tokens, double relevancia) {
+    return new PassagemPontuada(new PassagemContexto(conteudo, tokens), relevancia);
+  }
+
+  @Test
+  void dentroDoOrcamentoSoRenderizaOPrompt() {
+    PromptEstruturado prompt = new PromptEstruturado("BASE",
+        List.of(new Secao("\nCONTEXTOS:\n", List.of(passagem(" alfa ", 10, 1.0), passagem("beta", 10, 0.5))),
+            new Secao("\nPROJETOS:\n", List.of())),
+        "\nFIM");
+
+    TokenBudgetResult resultado = service.otimizar(prompt, HistoricoChat.vazio(), "oi");
+
+    assertThat(resultado.foiReduzido()).isFalse();
+    assertThat(resultado.promptOtimizado().prefixoEstavel()).isEqualTo("BASE");
+    assertThat(resultado.promptOtimizado().variavel()).isEqualTo("\nCONTEXTOS:\n\n---\nalfa\n---\nbeta\nFIM");
+  }
+
+  @Test
+  void acimaDoOrcamentoDescartaAsPassagensMenosRelevantes() {
+    PromptEstruturado prompt = new PromptEstruturado("BASE",
+        List.of(new Secao("\nCONTEXTOS:\n", List.of(passagem("alfa", 50_000, 1.0), passagem("gama", 30_000, 1.0 / 3))),
+            new Secao("\nPROJETOS:\n", List.of(passagem("beta", 30_000, 0.5)))),
+        "");
+
+    TokenBudgetResult resultado = service.otimizar(prompt, HistoricoChat.vazio(), "oi");
+
+    assertThat(resultado.foiReduzido()).isTrue();
+    assertThat(resultado.promptOtimizado().prefixoEstavel()).isEqualTo("BASE");
+    assertThat(resultado.promptOtimizado().variavel()).isEqualTo("\nCONTEXTOS:\n\n---\nalfa\nPROJETOS:\n\n---\nbeta");
+    assertThat(resultado.tokensEstimados()).isLessThan(90_000);
+  }
+
+  @Test
+  void secaoSemPassagensRestantesSomeDoPrompt() {
+    PromptEstruturado prompt = new PromptEstruturado("BASE",
+        List.of(new Secao("\nCONTEXTOS:\n", List.of(passagem("alfa", 60_000, 1.0))),
+            new Secao("\nPROJETOS:\n", List.of(passagem("beta", 40_000, 0.5), passagem("gama", 10_000, 0.5)))),
+        "");
+
+    TokenBudgetResult resultado = service.otimizar(prompt, HistoricoChat.vazio(), "oi");
+
+    // Empate de relevância: sai primeiro a que vem depois no prompt.
+    assertThat(resultado.promptOtimizado().variavel()).isEqualTo("\nCONTEXTOS:\n\n---\nalfa");
+  }
+}
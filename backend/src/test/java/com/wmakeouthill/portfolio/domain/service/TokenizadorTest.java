@@ -0,0 +1,53 @@
+package com.wmakeouthill.portfolio.domain.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenizadorTest {
+
+  @Test
+  void dobraAcentosEMinusculasSemQuebrarAPalavra() {
+    assertThat(tokens("Integrações em São Paulo, Node.js e APIs!"))
+        .containsExactly("integracao", "sao", "paulo", "node", "api");
+  }
+
+  @Test
+  void ignoraMarcasDeTextoJaDecomposto() {
+    String decomposto = Normalizer.normalize("Experiência em São Paulo", Normalizer.Form.NFD);
+
+    assertThat(tokens(decomposto)).containsExactly("experiencia", "sao", "paulo");
+  }
+
+  @Test
+  void descartaTermosCurtosEMantemUnderscore() {
+    assertThat(tokens("x1 ab café_bar")).containsExactly("cafe_bar");
+  }
+
+  @Test
+  void normalizarTermoUsaOMesmoStemmingDaTokenizacao() {
+    assertThat(Tokenizador.normalizarTermo("Soluções")).isEqualTo("solucao");
+    assertThat(Tokenizador.normalizarTermo("Microsserviços")).isEqualTo("microsservico");
+    assertThat(Tokenizador.normalizarTermo("tech stack")).isEqualTo("tech stack");
+  }
+
+  @Test
+  void dicionarioResolveTermoDoBufferSemCriarString() {
+    DicionarioTermos dicionario = DicionarioTermos.de(List.of("java", "spring", "angular"));
+
+    assertThat(dicionario.id("spring".toCharArray(), 6)).isEqualTo(1);
+    assertThat(dicionario.id("springboot".toCharArray(), 6)).isEqualTo(1);
+    assertThat(dicionario.id("docker".toCharArray(), 6)).isEqualTo(-1);
+    assertThat(dicionario.internar("docker")).isEqualTo(3);
+  }
+
+  private static List<String> tokens(String texto) {
+    List<String> termos = new ArrayList<>();
+    Tokenizador.tokenizar(texto, (termo, tamanho) -> termos.add(new String(termo, 0, tamanho)));
+    return termos;
+  }
+}
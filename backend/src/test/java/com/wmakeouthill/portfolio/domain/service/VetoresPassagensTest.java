@@ -0,0 +1,48 @@
+package com.wmakeouthill.portfolio.domain.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class VetoresPassagensTest {
+
+  private final VetoresPassagens vetores = VetoresPassagens.construir(List.of(
+      List.of("arquitetura", "microsservico", "kubernete"),
+      List.of("frontend", "angular", "typescript"),
+      List.of("deployment", "docker", "pipeline")));
+
+  @Test
+  void consultaIgualAPassagemTemCossenoUm() {
+    float[] consulta = vetores.vetorConsulta(List.of("frontend", "angular", "typescript"));
+
+    assertThat(vetores.cosseno(consulta, 1)).isCloseTo(1f, within(1e-4f));
+  }
+
+  @Test
+  void variacaoMorfologicaAindaFicaMaisPertoDaPassagemCerta() {
+    float[] consulta = vetores.vetorConsulta(List.of("microservico"));
+
+    float passagemCerta = vetores.cosseno(consulta, 0);
+    assertThat(passagemCerta).isGreaterThan(vetores.cosseno(consulta, 1));
+    assertThat(passagemCerta).isGreaterThan(vetores.cosseno(consulta, 2));
+  }
+
+  @Test
+  void prefixoCompartilhadoAproximaTermosDiferentes() {
+    float[] consulta = vetores.vetorConsulta(List.of("deploy"));
+
+    assertThat(vetores.cosseno(consulta, 2)).isGreaterThan(vetores.cosseno(consulta, 1));
+    assertThat(vetores.cosseno(consulta, 2)).isPositive();
+  }
+
+  @Test
+  void consultaSemTermosDaVetorZero() {
+    float[] consulta = vetores.vetorConsulta(List.of());
+
+    assertThat(vetores.cosseno(consulta, 0)).isZero();
+    assertThat(vetores.total()).isEqualTo(3);
+  }
+}
@@ -0,0 +1,145 @@
+package com.wmakeouthill.portfolio.infrastructure.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CadeiaModelosTest {
+
+    private final SaudeModelos saude = new SaudeModelos(4, 0.5, 2, 30, 1, 20_000);
+    private final List<String> chamados = new CopyOnWriteArrayList<>();
+
+    @Test
+    void semHedgeTentaOsModelosEmSequencia() throws Exception {
+        CadeiaModelos cadeia = new CadeiaModelos("teste", saude, false, 0.9, 0, 100, 1);
+
+        String resposta = cadeia.executar(List.of("principal", "fallback"), null, (modelo, trechos) -> {
+            chamados.add(modelo);
+            if (modelo.equals("principal")) {
+                throw new IOException("429");
+            }
+            return modelo;
+        });
+
+        assertThat(resposta).isEqualTo("fallback");
+        assertThat(chamados).containsExactly("principal", "fallback");
+    }
+
+    @Test
+    void principalLentoDisparaOFallbackEmParaleloECancelaOPerdedor() throws Exception {
+        CadeiaModelos cadeia = new CadeiaModelos("teste", saude, true, 0.9, 0, 100, 1);
+        CountDownLatch principalCancelado = new CountDownLatch(1);
+
+        long inicio = System.nanoTime();
+        String resposta = cadeia.executar(List.of("principal", "fallback"), null, (modelo, trechos) -> {
+            chamados.add(modelo);
+            if (modelo.equals("principal")) {
+                try {
+                    Thread.sleep(5_000);
+                } catch (InterruptedException e) {
+                    principalCancelado.countDown();
+                    throw e;
+                }
+            }
+            return modelo;
+        });
+
+        assertThat(resposta).isEqualTo("fallback");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio)).isLessThan(2_000);
+        assertThat(principalCancelado.await(2, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void principalRapidoNaoDisparaHedge() throws Exception {
+        CadeiaModelos cadeia = new CadeiaModelos("teste", saude, true, 0.9, 0, 500, 1);
+
+        String resposta = cadeia.executar(List.of("principal", "fallback"), null, (modelo, trechos) -> {
+            chamados.add(modelo);
+            return modelo;
+        });
+
+        assertThat(resposta).isEqualTo("principal");
+        assertThat(chamados).containsExactly("principal");
+    }
+
+    @Test
+    void emStreamingSoOPrimeiroATransmitirRepassaTrechos() throws Exception {
+        CadeiaModelos cadeia = new CadeiaModelos("teste", saude, true, 0.9, 0, 100, 1);
+        List<String> trechos = new CopyOnWriteArrayList<>();
+
+        String resposta = cadeia.executar(List.of("principal", "fallback"), trechos::add, (modelo, aoReceber) -> {
+            if (modelo.equals("principal")) {
+                Thread.sleep(1_000);
+                aoReceber.accept("atrasado");
+                return modelo;
+            }
+            aoReceber.accept("Olá, ");
+            aoReceber.accept("recrutador!");
+            return modelo;
+        });
+
+        assertThat(resposta).isEqualTo("fallback");
+        assertThat(trechos).containsExactly("Olá, ", "recrutador!");
+    }
+
+    @Test
+    void modeloComCircuitoAbertoEPuladoSemChamarOProvedor() throws Exception {
+        CadeiaModelos cadeia = new CadeiaModelos("teste", saude, false, 0.9, 0, 100, 1);
+        CadeiaModelos.Tentativa<String> tentativa = (modelo, trechos) -> {
+            chamados.add(modelo);
+            if (modelo.equals("principal")) {
+                throw new IOException("503");
+            }
+            return modelo;
+        };
+        cadeia.executar(List.of("principal", "fallback"), null, tentativa);
+        cadeia.executar(List.of("principal", "fallback"), null, tentativa);
+        chamados.clear();
+
+        String resposta = cadeia.executar(List.of("principal", "fallback"), null, tentativa);
+
+        assertThat(resposta).isEqualTo("fallback");
+        assertThat(chamados).containsExactly("fallback");
+    }
+
+    @Test
+    void requisicaoRejeitadaCom400NuncaAbreOCircuito() throws Exception {
+        CadeiaModelos cadeia = new CadeiaModelos("teste", saude, false, 0.9, 0, 100, 1);
+        CadeiaModelos.Tentativa<String> tentativa = (modelo, trechos) -> {
+            chamados.add(modelo);
+            if (modelo.equals("principal")) {
+                throw SaudeModelos.erroHttp("400", 400);
+            }
+            return modelo;
+        };
+        for (int i = 0; i < 10; i++) {
+            cadeia.executar(List.of("principal", "fallback"), null, tentativa);
+        }
+        chamados.clear();
+
+        cadeia.executar(List.of("principal", "fallback"), null, tentativa);
+
+        assertThat(chamados).containsExactly("principal", "fallback");
+        assertThat(saude.retratos()).extracting(SaudeModelos.Retrato::estado)
+                .containsExactly(SaudeModelos.Estado.FECHADO, SaudeModelos.Estado.FECHADO);
+    }
+
+    @Test
+    void atrasoDoHedgeSegueOPercentilDasLatenciasRecentes() {
+        CadeiaModelos cadeia = new CadeiaModelos("teste", saude, true, 0.9, 0, 8_000, 1);
+        assertThat(cadeia.atrasoHedgeMs("principal", false)).isEqualTo(8_000);
+
+        for (int i = 1; i <= 20; i++) {
+            cadeia.registrarLatencia("principal", false, TimeUnit.MILLISECONDS.toNanos(i * 100L));
+        }
+
+        assertThat(cadeia.atrasoHedgeMs("principal", false)).isEqualTo(1_800);
+        assertThat(cadeia.atrasoHedgeMs("principal", true)).isEqualTo(8_000);
+    }
+}
@@ -0,0 +1,103 @@
+package com.wmakeouthill.portfolio.infrastructure.ai;
+
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import com.sun.net.httpserver.HttpServer;
+import com.wmakeouthill.portfolio.application.dto.ChatResponse;
+import com.wmakeouthill.portfolio.domain.model.PromptSistema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeminiAdapterStreamTest {
+
+    private final List<String> caminhos = new CopyOnWriteArrayList<>();
+    private HttpServer servidor;
+    private VertexAiClient client;
+
+    @BeforeEach
+    void iniciarServidor() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.createContext("/", troca -> {
+            String caminho = troca.getRequestURI().getPath();
+            caminhos.add(caminho);
+            troca.getRequestBody().readAllBytes();
+            if (caminho.contains("/models/modelo-sem-cota:")) {
+                byte[] erro = "{\"error\":{\"message\":\"RESOURCE_EXHAUSTED\"}}".getBytes(StandardCharsets.UTF_8);
+                troca.sendResponseHeaders(429, erro.length);
+                troca.getResponseBody().write(erro);
+                troca.close();
+                return;
+            }
+            // Resposta em pedaços (chunked), como o streamGenerateContent.
+            troca.sendResponseHeaders(200, 0);
+            try (OutputStream saida = troca.getResponseBody()) {
+                for (String parte : List.of(
+                        "[{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"pensando\",\"thought\":true}]}}]}",
+                        ",{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"Olá, \"}]}}]}",
+                        ",{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"recrutador!\"}]}}],"
+                                + "\"usageMetadata\":{\"promptTokenCount\":10,\"candidatesTokenCount\":3,"
+                                + "\"totalTokenCount\":13}}]")) {
+                    saida.write(parte.getBytes(StandardCharsets.UTF_8));
+                    saida.flush();
+                }
+            }
+        });
+        servidor.start();
+
+        GoogleCredentials credenciais = GoogleCredentials.create(
+                new AccessToken("token-teste", new Date(System.currentTimeMillis() + 3_600_000)));
+        client = new VertexAiClient(credenciais, "p", "global", 5,
+                "http://127.0.0.1:" + servidor.getAddress().getPort());
+    }
+
+    @AfterEach
+    void pararServidor() {
+        servidor.stop(0);
+    }
+
+    @Test
+    void repassaOsTrechosNaOrdemSemOsDeRaciocinio() {
+        GeminiAdapter adapter = novoAdapter("gemini-2.5-flash", "");
+        List<String> trechos = new ArrayList<>();
+
+        ChatResponse resposta = adapter.chatStream(new PromptSistema("", "prompt"), List.of(), "oi", trechos::add);
+
+        assertThat(trechos).containsExactly("Olá, ", "recrutador!");
+        assertThat(resposta.reply()).isEqualTo("Olá, recrutador!");
+        assertThat(resposta.modelo()).isEqualTo("gemini-2.5-flash");
+        assertThat(caminhos).containsExactly(
+                "/v1/projects/p/locations/global/publishers/google/models/gemini-2.5-flash:streamGenerateContent");
+    }
+
+    @Test
+    void erroAntesDoPrimeiroTrechoCaiParaOProximoModelo() {
+        GeminiAdapter adapter = novoAdapter("modelo-sem-cota", "gemini-2.5-flash");
+        List<String> trechos = new ArrayList<>();
+
+        ChatResponse resposta = adapter.chatStream(new PromptSistema("", "prompt"), List.of(), "oi", trechos::add);
+
+        assertThat(resposta.reply()).isEqualTo("Olá, recrutador!");
+        assertThat(resposta.modelo()).isEqualTo("gemini-2.5-flash");
+        assertThat(caminhos).hasSize(2);
+    }
+
+    private GeminiAdapter novoAdapter(String modelo, String fallbacks) {
+        VertexContextCache cache = new VertexContextCache(client, false, 60, 0);
+        CadeiaModelos cadeia = new CadeiaModelos("gemini", new SaudeModelos(20, 0.5, 5, 30, 1, 20_000),
+                false, 0.9, 0, 1000, 1);
+        return new GeminiAdapter(client, cache, new LimitadorConcorrencia("gemini", 4, 1, 4, 1000), cadeia,
+                modelo, fallbacks, 100, "low");
+    }
+}
@@ -0,0 +1,69 @@
+package com.wmakeouthill.portfolio.infrastructure.ai;
+
+import com.wmakeouthill.portfolio.infrastructure.ai.LimitadorConcorrencia.Prioridade;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LimitadorConcorrenciaTest {
+
+    @Test
+    void filaCheiaRecusaNaHoraSemChamarOProvedor() {
+        LimitadorConcorrencia limitador = new LimitadorConcorrencia("teste", 1, 0, 0, 5_000);
+        assertThat(limitador.adquirir(Prioridade.INTERATIVA)).isTrue();
+
+        long inicio = System.nanoTime();
+        String resposta = limitador.executar(Prioridade.INTERATIVA, () -> "chamou", () -> "recusada");
+
+        assertThat(resposta).isEqualTo("recusada");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio)).isLessThan(1_000);
+        assertThat(limitador.estatisticas().recusadas()).isEqualTo(1);
+    }
+
+    @Test
+    void trabalhoDeFundoNaoOcupaAsVagasReservadasAoChat() {
+        LimitadorConcorrencia limitador = new LimitadorConcorrencia("teste", 2, 1, 4, 50);
+        assertThat(limitador.adquirir(Prioridade.INTERATIVA)).isTrue();
+
+        assertThat(limitador.adquirir(Prioridade.FUNDO)).isFalse();
+        assertThat(limitador.adquirir(Prioridade.INTERATIVA)).isTrue();
+        assertThat(limitador.estatisticas().emUso()).isEqualTo(2);
+    }
+
+    @Test
+    void chatEsperandoPassaNaFrenteDoTrabalhoDeFundo() throws Exception {
+        LimitadorConcorrencia limitador = new LimitadorConcorrencia("teste", 1, 0, 4, 5_000);
+        List<String> ordem = new CopyOnWriteArrayList<>();
+        assertThat(limitador.adquirir(Prioridade.INTERATIVA)).isTrue();
+
+        Thread fundo = new Thread(() -> limitador.executar(Prioridade.FUNDO,
+                () -> ordem.add("curriculo"), () -> ordem.add("curriculo recusado")));
+        fundo.start();
+        aguardarFila(limitador, 1);
+        Thread chat = new Thread(() -> limitador.executar(Prioridade.INTERATIVA,
+                () -> ordem.add("chat"), () -> ordem.add("chat recusado")));
+        chat.start();
+        aguardarFila(limitador, 2);
+
+        limitador.liberar();
+        fundo.join(5_000);
+        chat.join(5_000);
+
+        assertThat(ordem).containsExactly("chat", "curriculo");
+        LimitadorConcorrencia.Estatisticas estatisticas = limitador.estatisticas();
+        assertThat(estatisticas.admitidas()).isEqualTo(3);
+        assertThat(estatisticas.emUso()).isZero();
+        assertThat(estatisticas.esperaMaximaMs()).isPositive();
+    }
+
+    private void aguardarFila(LimitadorConcorrencia limitador, int aguardando) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5_000;
+        while (limitador.estatisticas().aguardando() < aguardando && System.currentTimeMillis() < limite) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.wmakeouthill.portfolio.infrastructure.ai;
+
+import com.wmakeouthill.portfolio.infrastructure.ai.SaudeModelos.Situacao;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SaudeModelosTest {
+
+    private static final String MODELO = "gemini-teste";
+
+    @Test
+    void abreOCircuitoQuandoATaxaDeErroPassaDoLimite() throws Exception {
+        SaudeModelos saude = new SaudeModelos(10, 0.5, 4, 30, 1, 20_000);
+        registrar(saude, false);
+        registrar(saude, true);
+        registrar(saude, false);
+        assertThat(saude.situacao(List.of(MODELO))).isEqualTo(Situacao.DISPONIVEL);
+
+        registrar(saude, true);
+
+        assertThat(saude.situacao(List.of(MODELO))).isEqualTo(Situacao.INDISPONIVEL);
+        assertThat(saude.ordenar(List.of(MODELO, "fallback"))).containsExactly("fallback");
+        assertThatThrownBy(() -> saude.liberar(MODELO)).isInstanceOf(SaudeModelos.CircuitoAbertoException.class);
+    }
+
+    @Test
+    void meioAbertoLiberaUmaSondaEFechaComSucesso() throws Exception {
+        SaudeModelos saude = new SaudeModelos(4, 0.5, 2, 1, 1, 20_000);
+        registrar(saude, true);
+        registrar(saude, true);
+        Thread.sleep(1_100);
+
+        saude.liberar(MODELO);
+        assertThatThrownBy(() -> saude.liberar(MODELO)).isInstanceOf(SaudeModelos.CircuitoAbertoException.class);
+        saude.registrarSucesso(MODELO, 50);
+
+        assertThat(saude.situacao(List.of(MODELO))).isEqualTo(Situacao.DISPONIVEL);
+        saude.liberar(MODELO);
+        saude.liberar(MODELO);
+    }
+
+    @Test
+    void sondaComFalhaReabreOCircuito() throws Exception {
+        SaudeModelos saude = new SaudeModelos(4, 0.5, 2, 1, 1, 20_000);
+        registrar(saude, true);
+        registrar(saude, true);
+        Thread.sleep(1_100);
+
+        saude.liberar(MODELO);
+        saude.registrarFalha(MODELO, 50);
+
+        assertThat(saude.situacao(List.of(MODELO))).isEqualTo(Situacao.INDISPONIVEL);
+    }
+
+    @Test
+    void modeloLentoVaiParaOFimDaCadeia() throws Exception {
+        SaudeModelos saude = new SaudeModelos(10, 0.5, 3, 30, 1, 1_000);
+        for (int i = 0; i < 3; i++) {
+            saude.liberar(MODELO);
+            saude.registrarSucesso(MODELO, 5_000);
+        }
+
+        assertThat(saude.ordenar(List.of(MODELO, "fallback"))).containsExactly("fallback", MODELO);
+        assertThat(saude.situacao(List.of(MODELO))).isEqualTo(Situacao.LENTO);
+        assertThat(saude.situacao(List.of(MODELO, "fallback"))).isEqualTo(Situacao.DISPONIVEL);
+    }
+
+    private void registrar(SaudeModelos saude, boolean falha) throws Exception {
+        saude.liberar(MODELO);
+        if (falha) {
+            saude.registrarFalha(MODELO, 100);
+        } else {
+            saude.registrarSucesso(MODELO, 100);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.wmakeouthill.portfolio.infrastructure.ai;
+
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VertexContextCacheTest {
+
+    private static final String MODELO = "gemini-2.5-flash";
+
+    private final List<String> requisicoes = new CopyOnWriteArrayList<>();
+    private final AtomicInteger criados = new AtomicInteger();
+    private final CountDownLatch criacaoRecebida = new CountDownLatch(1);
+    private volatile CountDownLatch liberarCriacao = new CountDownLatch(0);
+    private HttpServer servidor;
+    private VertexAiClient client;
+
+    @BeforeEach
+    void iniciarServidor() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.createContext("/", troca -> {
+            String corpo = new String(troca.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            requisicoes.add(troca.getRequestMethod() + " " + troca.getRequestURI().getPath() + " " + corpo);
+            if ("POST".equals(troca.getRequestMethod())) {
+                criacaoRecebida.countDown();
+                try {
+                    liberarCriacao.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            String resposta = "POST".equals(troca.getRequestMethod())
+                    ? "{\"name\":\"projects/p/locations/global/cachedContents/c" + criados.incrementAndGet() + "\"}"
+                    : "{}";
+            byte[] bytes = resposta.getBytes(StandardCharsets.UTF_8);
+            troca.sendResponseHeaders(200, bytes.length);
+            troca.getResponseBody().write(bytes);
+            troca.close();
+        });
+        servidor.start();
+
+        GoogleCredentials credenciais = GoogleCredentials.create(
+                new AccessToken("token-teste", new Date(System.currentTimeMillis() + 3_600_000)));
+        client = new VertexAiClient(credenciais, "p", "global", 5,
+                "http://127.0.0.1:" + servidor.getAddress().getPort());
+    }
+
+    @AfterEach
+    void pararServidor() {
+        servidor.stop(0);
+    }
+
+    @Test
+    void criaOCacheUmaVezEReaproveitaParaOMesmoPrefixo() {
+        VertexContextCache cache = new VertexContextCache(client, true, 60, 0);
+
+        assertThat(cache.referenciar(MODELO, "prompt base")).contains("projects/p/locations/global/cachedContents/c1");
+        assertThat(cache.referenciar(MODELO, "prompt base")).contains("projects/p/locations/global/cachedContents/c1");
+
+        assertThat(requisicoes).hasSize(1);
+        assertThat(requisicoes.get(0))
+                .startsWith("POST /v1/projects/p/locations/global/cachedContents ")
+                .contains("publishers/google/models/" + MODELO)
+                .contains("prompt base")
+                .contains("\"ttl\":\"3600s\"");
+    }
+
+    @Test
+    void prefixoNovoCriaOutroCacheERemoveOAnterior() {
+        VertexContextCache cache = new VertexContextCache(client, true, 60, 0);
+
+        cache.referenciar(MODELO, "prompt v1");
+        assertThat(cache.referenciar(MODELO, "prompt v2")).contains("projects/p/locations/global/cachedContents/c2");
+
+        assertThat(requisicoes).hasSize(3);
+        assertThat(requisicoes.get(2)).startsWith("DELETE /v1/projects/p/locations/global/cachedContents/c1");
+    }
+
+    @Test
+    void quemChegaDuranteACriacaoSegueSemCacheEmVezDeEsperar() throws Exception {
+        VertexContextCache cache = new VertexContextCache(client, true, 60, 0);
+        liberarCriacao = new CountDownLatch(1);
+
+        CompletableFuture<Optional<String>> criador = CompletableFuture.supplyAsync(
+                () -> cache.referenciar(MODELO, "prompt base"));
+        assertThat(criacaoRecebida.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(cache.referenciar(MODELO, "prompt base")).isEmpty();
+        liberarCriacao.countDown();
+
+        assertThat(criador.get(5, TimeUnit.SECONDS)).contains("projects/p/locations/global/cachedContents/c1");
+        assertThat(cache.referenciar(MODELO, "prompt base")).contains("projects/p/locations/global/cachedContents/c1");
+        assertThat(requisicoes).hasSize(1);
+    }
+
+    @Test
+    void invalidarForcaNovaCriacao() {
+        VertexContextCache cache = new VertexContextCache(client, true, 60, 0);
+
+        cache.referenciar(MODELO, "prompt base");
+        cache.invalidar(MODELO, "prompt base");
+
+        assertThat(cache.referenciar(MODELO, "prompt base")).contains("projects/p/locations/global/cachedContents/c2");
+    }
+
+    @Test
+    void naoCriaCacheQuandoDesligadoOuPrefixoPequeno() {
+        assertThat(new VertexContextCache(client, false, 60, 0).referenciar(MODELO, "prompt base")).isEmpty();
+        assertThat(new VertexContextCache(client, true, 60, 10_000).referenciar(MODELO, "prompt base")).isEmpty();
+
+        assertThat(requisicoes).isEmpty();
+    }
+}
@@ -0,0 +1,156 @@
+package com.wmakeouthill.portfolio.infrastructure.chat;
+
+import com.wmakeouthill.portfolio.domain.entity.MensagemChat;
+import com.wmakeouthill.portfolio.domain.model.HistoricoChat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArquivoHistoricoChatAdapterTest {
+
+    private static final int MAX_MENSAGENS = 10;
+
+    @TempDir
+    Path diretorio;
+
+    private ArquivoHistoricoChatAdapter abrir(long bytesPorSegmento) {
+        ArquivoHistoricoChatAdapter store = new ArquivoHistoricoChatAdapter(diretorio.toString(), bytesPorSegmento, 30);
+        store.carregar(MAX_MENSAGENS);
+        return store;
+    }
+
+    private static MensagemChat mensagem(String conteudo, int tokens) {
+        return MensagemChat.criarMensagemUsuario(conteudo).comTokens(tokens);
+    }
+
+    private long segmentos() throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos.filter(arquivo -> arquivo.toString().endsWith(".log")).count();
+        }
+    }
+
+    /** Identidade (inode) do único segmento: muda se a compactação o reescrever. */
+    private Object segmentoUnico() throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            Path segmento = arquivos.filter(arquivo -> arquivo.toString().endsWith(".log")).findFirst().orElseThrow();
+            assertThat(segmentos()).isEqualTo(1);
+            return Files.readAttributes(segmento, BasicFileAttributes.class).fileKey();
+        }
+    }
+
+    @Test
+    void recuperaAsUltimasMensagensDeCadaSessaoDepoisDoRestart() {
+        ArquivoHistoricoChatAdapter store = abrir(1 << 20);
+        for (int i = 1; i <= 12; i++) {
+            store.registrar("a", mensagem("ção " + i, i));
+        }
+        store.registrar("b", MensagemChat.criarMensagemAssistente("resposta").comTokens(3));
+        store.encerrar();
+
+        Map<String, List<MensagemChat>> sessoes = abrir(1 << 20).carregar(MAX_MENSAGENS);
+
+        assertThat(sessoes).hasSize(2);
+        assertThat(sessoes.get("a")).hasSize(10);
+        assertThat(sessoes.get("a").get(0).content()).isEqualTo("ção 3");
+        assertThat(sessoes.get("a").get(0).tokens()).isEqualTo(3);
+        assertThat(sessoes.get("b").get(0).role()).isEqualTo("assistant");
+    }
+
+    @Test
+    void sessaoLimpaNaoVoltaNoRestart() {
+        ArquivoHistoricoChatAdapter store = abrir(1 << 20);
+        store.registrar("a", mensagem("oi", 1));
+        store.registrar("b", mensagem("olá", 1));
+        store.removerSessao("a");
+        store.encerrar();
+
+        assertThat(abrir(1 << 20).carregar(MAX_MENSAGENS).keySet()).containsExactly("b");
+    }
+
+    @Test
+    void registroIncompletoNoFimDoSegmentoEhIgnorado() throws IOException {
+        ArquivoHistoricoChatAdapter store = abrir(1 << 20);
+        store.registrar("a", mensagem("inteira", 1));
+        store.encerrar();
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            Path segmento = arquivos.filter(arquivo -> arquivo.toString().endsWith(".log")).findFirst().orElseThrow();
+            Files.write(segmento, new byte[] { 0, 0, 0, 40, 1, 2, 3 }, StandardOpenOption.APPEND);
+        }
+
+        ArquivoHistoricoChatAdapter reaberto = abrir(1 << 20);
+        reaberto.registrar("a", mensagem("depois do crash", 1));
+        reaberto.encerrar();
+
+        assertThat(abrir(1 << 20).carregar(MAX_MENSAGENS).get("a"))
+            .extracting(MensagemChat::content)
+            .containsExactly("inteira", "depois do crash");
+    }
+
+    @Test
+    void compactacaoJuntaOsSegmentosMantendoOEstado() throws IOException {
+        ArquivoHistoricoChatAdapter store = abrir(256);
+        for (int i = 1; i <= 30; i++) {
+            store.registrar("s" + (i % 3), mensagem("mensagem número " + i, 1));
+        }
+        store.removerSessao("s0");
+        assertThat(segmentos()).isGreaterThan(1);
+
+        store.compactar();
+        store.registrar("s1", mensagem("nova", 1));
+        store.encerrar();
+
+        Map<String, List<MensagemChat>> sessoes = abrir(256).carregar(MAX_MENSAGENS);
+        assertThat(segmentos()).isEqualTo(2);
+        assertThat(sessoes.keySet()).containsExactlyInAnyOrder("s1", "s2");
+        assertThat(sessoes.get("s1")).hasSize(10);
+        assertThat(sessoes.get("s1").get(9).content()).isEqualTo("nova");
+        assertThat(sessoes.get("s2").get(9).content()).isEqualTo("mensagem número 29");
+    }
+
+    @Test
+    void compactacaoSemNadaNovoNaoReescreveOSegmento() throws IOException {
+        ArquivoHistoricoChatAdapter store = abrir(256);
+        for (int i = 1; i <= 10; i++) {
+            store.registrar("a", mensagem("mensagem número " + i, 1));
+        }
+        store.compactar();
+        Object compactado = segmentoUnico();
+
+        store.compactar();
+
+        assertThat(segmentoUnico()).isEqualTo(compactado);
+    }
+
+    @Test
+    void recuperaMilharesDeSessoesEmMenosDeUmSegundo() {
+        ArquivoHistoricoChatAdapter store = abrir(8 << 20);
+        String conteudo = "Quais projetos usam Spring Boot e Angular? ".repeat(4);
+        for (int sessao = 0; sessao < 5_000; sessao++) {
+            for (int i = 0; i < MAX_MENSAGENS; i++) {
+                store.registrar("sessao-" + sessao, mensagem(conteudo, 40));
+            }
+        }
+        store.encerrar();
+
+        long inicio = System.nanoTime();
+        GerenciarHistoricoChatAdapter historico = new GerenciarHistoricoChatAdapter(
+            new ArquivoHistoricoChatAdapter(diretorio.toString(), 8 << 20, 30), 10_000, 30);
+        historico.recuperar();
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+
+        HistoricoChat recuperado = historico.obterHistoricoContado("sessao-4999");
+        assertThat(recuperado.mensagens()).hasSize(MAX_MENSAGENS);
+        assertThat(recuperado.tokens()).isEqualTo(400);
+        assertThat(ms).isLessThan(1_000);
+    }
+}
@@ -0,0 +1,61 @@
+package com.wmakeouthill.portfolio.infrastructure.chat;
+
+import com.wmakeouthill.portfolio.domain.entity.MensagemChat;
+import com.wmakeouthill.portfolio.domain.model.HistoricoChat;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GerenciarHistoricoChatAdapterTest {
+
+    private final GerenciarHistoricoChatAdapter adapter =
+        new GerenciarHistoricoChatAdapter(new ArquivoHistoricoChatAdapter("", 0, 30), 100, 30);
+
+    @Test
+    void somaOsTokensDaJanelaEDescontaAMensagemQueSai() {
+        for (int i = 1; i <= 12; i++) {
+            adapter.adicionarMensagem("sessao", MensagemChat.criarMensagemUsuario("msg " + i).comTokens(i));
+        }
+
+        HistoricoChat historico = adapter.obterHistoricoContado("sessao");
+
+        // Janela das 10 últimas: 3 + 4 + ... + 12.
+        assertThat(historico.mensagens()).hasSize(10);
+        assertThat(historico.mensagens().get(0).content()).isEqualTo("msg 3");
+        assertThat(historico.tokens()).isEqualTo(75);
+    }
+
+    @Test
+    void bufferCircularMantemAOrdemDepoisDeDarVariasVoltas() {
+        for (int i = 1; i <= 25; i++) {
+            adapter.adicionarMensagem("sessao", MensagemChat.criarMensagemUsuario("msg " + i).comTokens(1));
+        }
+
+        HistoricoChat historico = adapter.obterHistoricoContado("sessao");
+
+        assertThat(historico.mensagens()).extracting(MensagemChat::content)
+            .containsExactly("msg 16", "msg 17", "msg 18", "msg 19", "msg 20",
+                "msg 21", "msg 22", "msg 23", "msg 24", "msg 25");
+        assertThat(historico.tokens()).isEqualTo(10);
+        assertThat(adapter.obterHistoricoContado("sessao")).isSameAs(historico);
+    }
+
+    @Test
+    void contaUmaVezAMensagemQueChegaSemTokens() {
+        adapter.adicionarMensagem("sessao", MensagemChat.criarMensagemUsuario("Olá, tudo bem?"));
+
+        HistoricoChat historico = adapter.obterHistoricoContado("sessao");
+
+        assertThat(historico.mensagens().get(0).tokensContados()).isTrue();
+        assertThat(historico.tokens()).isEqualTo(historico.mensagens().get(0).tokens()).isPositive();
+    }
+
+    @Test
+    void sessaoLimpaOuDesconhecidaDevolveHistoricoVazio() {
+        adapter.adicionarMensagem("sessao", MensagemChat.criarMensagemUsuario("oi").comTokens(1));
+        adapter.limparHistorico("sessao");
+
+        assertThat(adapter.obterHistoricoContado("sessao")).isEqualTo(HistoricoChat.vazio());
+        assertThat(adapter.obterHistoricoContado("outra").tokens()).isZero();
+    }
+}
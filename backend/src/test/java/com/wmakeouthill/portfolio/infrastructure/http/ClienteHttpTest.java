@@ -0,0 +1,100 @@
+package com.wmakeouthill.portfolio.infrastructure.http;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClienteHttpTest {
+
+    private static final String CORPO = "{\"mensagem\":\"Olá, recrutador!\"}";
+
+    private HttpServer servidor;
+    private String base;
+
+    @BeforeEach
+    void iniciarServidor() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.createContext("/", troca -> {
+            boolean aceitaGzip = troca.getRequestHeaders().getOrDefault("Accept-Encoding", List.of())
+                    .stream().anyMatch(valor -> valor.contains("gzip"));
+            byte[] bytes = CORPO.getBytes(StandardCharsets.UTF_8);
+            if (aceitaGzip) {
+                bytes = comprimir(bytes);
+                troca.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+            troca.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+            int status = troca.getRequestURI().getPath().equals("/ausente") ? 404 : 200;
+            troca.sendResponseHeaders(status, bytes.length);
+            troca.getResponseBody().write(bytes);
+            troca.close();
+        });
+        servidor.start();
+        base = "http://127.0.0.1:" + servidor.getAddress().getPort();
+    }
+
+    @AfterEach
+    void pararServidor() {
+        servidor.stop(0);
+    }
+
+    @Test
+    void pedeGzipEDescomprimeOCorpo() throws Exception {
+        ClienteHttp cliente = new ClienteHttp("teste", HttpClient.newHttpClient(), true);
+
+        HttpResponse<String> resposta = cliente.enviarTexto(get("/"));
+
+        assertThat(resposta.body()).isEqualTo(CORPO);
+        assertThat(resposta.headers().firstValue("Content-Encoding")).contains("gzip");
+    }
+
+    @Test
+    void semGzipRecebeOCorpoComoVeio() throws Exception {
+        ClienteHttp cliente = new ClienteHttp("teste", HttpClient.newHttpClient(), false);
+
+        HttpResponse<String> resposta = cliente.enviarTexto(get("/"));
+
+        assertThat(resposta.body()).isEqualTo(CORPO);
+        assertThat(resposta.headers().firstValue("Content-Encoding")).isEmpty();
+    }
+
+    @Test
+    void registraRequisicoesStatusEBytesRecebidos() throws Exception {
+        ClienteHttp cliente = new ClienteHttp("teste", HttpClient.newHttpClient(), false);
+
+        cliente.enviarTexto(get("/"));
+        cliente.enviarBytes(get("/ausente"));
+        cliente.enviar(get("/"), HttpResponse.BodyHandlers.discarding());
+
+        ClienteHttp.Estatisticas estatisticas = cliente.estatisticas();
+        assertThat(estatisticas.requisicoes()).isEqualTo(3);
+        assertThat(estatisticas.falhas()).isZero();
+        assertThat(estatisticas.status()).containsEntry(200, 2L).containsEntry(404, 1L);
+        assertThat(estatisticas.bytesRecebidos()).isEqualTo(3L * CORPO.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    private HttpRequest get(String caminho) {
+        return HttpRequest.newBuilder(URI.create(base + caminho)).GET().build();
+    }
+
+    private static byte[] comprimir(byte[] bytes) throws IOException {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(saida)) {
+            gzip.write(bytes);
+        }
+        return saida.toByteArray();
+    }
+}
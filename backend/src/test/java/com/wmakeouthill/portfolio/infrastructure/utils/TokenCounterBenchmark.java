@@ -0,0 +1,101 @@
+package com.wmakeouthill.portfolio.infrastructure.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+/**
+ * Vazão da contagem de tokens sobre o markdown do repositório: regra de
+ * caracteres, BPE sem cache e BPE com o LRU do {@link TokenCounter}.
+ *
+ * <p>
+ * Não roda no {@code mvn test} (não termina em {@code Test}). Uso, a partir de
+ * {@code backend/}:
+ * </p>
+ *
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) \
+ *     com.wmakeouthill.portfolio.infrastructure.utils.TokenCounterBenchmark ..
+ * </pre>
+ *
+ * <p>
+ * O primeiro argumento é a pasta com os {@code .md} (padrão {@code ..}); o
+ * segundo, opcional, um arquivo {@code .tiktoken} no lugar do vocabulário que
+ * o build põe no classpath.
+ * </p>
+ */
+public class TokenCounterBenchmark {
+
+    private static final int RODADAS = 20;
+
+    public static void main(String[] args) throws IOException {
+        Path raiz = Path.of(args.length > 0 ? args[0] : "..");
+        List<String> documentos = lerMarkdown(raiz);
+        long caracteres = documentos.stream().mapToLong(String::length).sum();
+        System.out.printf("Corpus: %d arquivos .md, %d caracteres%n", documentos.size(), caracteres);
+
+        medir("caracteres / 4", documentos, caracteres, TokenCounter::estimarPorCaracteres);
+        TokenizadorBpe bpe = carregarVocabulario(args);
+        if (bpe == null) {
+            System.out.println("Sem vocabulário BPE: rode o build com rede (generate-resources) ou informe o .tiktoken.");
+            return;
+        }
+        TokenCounter comCache = new TokenCounter(bpe);
+        medir("BPE sem cache", documentos, caracteres, bpe::contar);
+        medir("BPE com LRU", documentos, caracteres, comCache::estimarTokens);
+    }
+
+    private static TokenizadorBpe carregarVocabulario(String[] args) throws IOException {
+        if (args.length < 2) {
+            return TokenizadorBpe.carregar("tokenizers/openai.tiktoken").orElse(null);
+        }
+        try (InputStream entrada = Files.newInputStream(Path.of(args[1]))) {
+            return TokenizadorBpe.ler(entrada);
+        }
+    }
+
+    private static void medir(String nome, List<String> documentos, long caracteres, ToIntFunction<String> contador) {
+        long tokens = contar(documentos, contador);
+        for (int i = 0; i < RODADAS / 2; i++) {
+            contar(documentos, contador);
+        }
+        long inicio = System.nanoTime();
+        for (int i = 0; i < RODADAS; i++) {
+            contar(documentos, contador);
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        System.out.printf("%-16s %10d tokens  %6.2f chars/token  %8.1f M chars/s%n",
+                nome, tokens, (double) caracteres / tokens, caracteres * (double) RODADAS / segundos / 1e6);
+    }
+
+    private static long contar(List<String> documentos, ToIntFunction<String> contador) {
+        long total = 0;
+        for (String documento : documentos) {
+            total += contador.applyAsInt(documento);
+        }
+        return total;
+    }
+
+    private static List<String> lerMarkdown(Path raiz) throws IOException {
+        try (Stream<Path> arquivos = Files.walk(raiz)) {
+            return arquivos
+                    .filter(arquivo -> arquivo.toString().endsWith(".md"))
+                    .filter(arquivo -> !arquivo.toString().contains("node_modules"))
+                    .map(arquivo -> {
+                        try {
+                            return Files.readString(arquivo, StandardCharsets.UTF_8);
+                        } catch (IOException e) {
+                            return "";
+                        }
+                    })
+                    .filter(texto -> !texto.isBlank())
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.wmakeouthill.portfolio.infrastructure.utils;
+
+import com.wmakeouthill.portfolio.infrastructure.utils.TokenCounter.Provedor;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class TokenCounterTest {
+
+    @Test
+    void contadoresUsamOVocabularioBpeDoBuild() {
+        assumeTrue(TokenCounter.para(Provedor.OPENAI).usaBpe());
+
+        assertThat(TokenCounter.para(Provedor.GEMINI).usaBpe()).isTrue();
+    }
+
+    @Test
+    void contagemBpeSegueOCl100k() {
+        TokenCounter contador = TokenCounter.para(Provedor.OPENAI);
+        assumeTrue(contador.usaBpe());
+
+        assertThat(contador.estimarTokens("hello world")).isEqualTo(2);
+        assertThat(contador.estimarTokens("")).isZero();
+    }
+}
@@ -0,0 +1,62 @@
+package com.wmakeouthill.portfolio.infrastructure.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenizadorBpeTest {
+
+    /** Os 256 bytes isolados (ranks 0-255), como em todo vocabulário do tiktoken, mais algumas fusões. */
+    private static TokenizadorBpe vocabulario(String... fusoes) throws IOException {
+        StringBuilder linhas = new StringBuilder();
+        for (int b = 0; b < 256; b++) {
+            linhas.append(Base64.getEncoder().encodeToString(new byte[] { (byte) b })).append(' ').append(b).append('\n');
+        }
+        int rank = 256;
+        for (String fusao : fusoes) {
+            linhas.append(Base64.getEncoder().encodeToString(fusao.getBytes(StandardCharsets.UTF_8)))
+                    .append(' ').append(rank++).append('\n');
+        }
+        return TokenizadorBpe.ler(new ByteArrayInputStream(linhas.toString().getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void pedacoInteiroNoVocabularioContaUmToken() throws IOException {
+        TokenizadorBpe bpe = vocabulario(" recrutador", "Ol");
+
+        assertThat(bpe.contar(" recrutador")).isEqualTo(1);
+        assertThat(bpe.contar("Olá recrutador")).isEqualTo(4);
+    }
+
+    @Test
+    void fundeSempreOParDeMenorRank() throws IOException {
+        TokenizadorBpe bpe = vocabulario("aa", "aaa");
+
+        // aa|a|a -> aa|aa: o par "aa" (256) vence "aaa" (257).
+        assertThat(bpe.contar("aaaa")).isEqualTo(2);
+        assertThat(bpe.contar("aaa")).isEqualTo(1);
+    }
+
+    @Test
+    void textoNaoAsciiContaOsBytesUtf8() throws IOException {
+        assertThat(vocabulario().contar("ção")).isEqualTo(5);
+        assertThat(vocabulario("ç", "ã", "ção").contar("ção")).isEqualTo(1);
+    }
+
+    @Test
+    void contadorComBpeReaproveitaAContagemEContadorSemVocabularioUsaCaracteres() throws IOException {
+        TokenCounter comBpe = new TokenCounter(vocabulario(" mundo"));
+        TokenCounter semBpe = new TokenCounter(null);
+
+        assertThat(comBpe.estimarTokens("oi mundo")).isEqualTo(3);
+        assertThat(comBpe.estimarTokens("oi mundo")).isEqualTo(3);
+        assertThat(comBpe.usaBpe()).isTrue();
+        assertThat(semBpe.estimarTokens("oi mundo")).isEqualTo(2);
+        assertThat(semBpe.usaBpe()).isFalse();
+    }
+}
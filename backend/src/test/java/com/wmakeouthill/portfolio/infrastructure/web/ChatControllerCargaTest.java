@@ -0,0 +1,145 @@
+package com.wmakeouthill.portfolio.infrastructure.web;
+
+import com.wmakeouthill.portfolio.application.dto.ChatResponse;
+import com.wmakeouthill.portfolio.application.usecase.ChatUseCase;
+import com.wmakeouthill.portfolio.application.usecase.CurriculoJobService;
+import com.wmakeouthill.portfolio.application.usecase.EnviarEmailChatUseCase;
+import com.wmakeouthill.portfolio.infrastructure.ai.GeminiTtsAdapter;
+import com.wmakeouthill.portfolio.infrastructure.config.ChatAsyncConfig;
+import com.wmakeouthill.portfolio.infrastructure.document.DocumentTextExtractor;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Teste de carga do chat: com o Tomcat limitado a 4 threads, uma rajada de
+ * conversas lentas (cada uma "esperando o Vertex" por 1,5s) não pode travar os
+ * demais endpoints. Com os handlers síncronos de antes, o health check ficava
+ * na fila até alguma conversa terminar.
+ */
+@SpringBootTest(
+        classes = { ChatController.class, HealthController.class, ChatAsyncConfig.class },
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "server.tomcat.threads.max=4",
+                "server.tomcat.threads.min-spare=1",
+                "chat.async.threads=16",
+                "chat.async.queue=16"
+        })
+@ImportAutoConfiguration({
+        ServletWebServerFactoryAutoConfiguration.class,
+        DispatcherServletAutoConfiguration.class,
+        WebMvcAutoConfiguration.class,
+        HttpMessageConvertersAutoConfiguration.class,
+        JacksonAutoConfiguration.class
+})
+class ChatControllerCargaTest {
+
+    private static final int CONVERSAS_SIMULTANEAS = 12;
+    private static final long LATENCIA_IA_MS = 1500;
+
+    @LocalServerPort
+    private int porta;
+
+    @MockBean
+    private ChatUseCase chatUseCase;
+    @MockBean
+    private CurriculoJobService curriculoJobService;
+    @MockBean
+    private EnviarEmailChatUseCase enviarEmailChatUseCase;
+    @MockBean
+    private DocumentTextExtractor documentTextExtractor;
+    @MockBean
+    private GeminiTtsAdapter geminiTtsAdapter;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+
+    @Test
+    void healthContinuaRespondendoDuranteRajadaDeChat() throws Exception {
+        when(chatUseCase.execute(any(), anyString(), anyString())).thenAnswer(invocacao -> {
+            Thread.sleep(LATENCIA_IA_MS);
+            return new ChatResponse("ok", "gemini-teste");
+        });
+
+        List<CompletableFuture<HttpResponse<String>>> conversas = new ArrayList<>();
+        for (int i = 0; i < CONVERSAS_SIMULTANEAS; i++) {
+            conversas.add(http.sendAsync(HttpRequest.newBuilder(uri("/api/chat"))
+                    .header("Content-Type", "application/json")
+                    .header("X-Session-ID", "sessao-" + i)
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"message\":\"oi\",\"model\":\"gemini\"}"))
+                    .build(), HttpResponse.BodyHandlers.ofString()));
+        }
+        // Deixa a rajada chegar ao servidor antes de medir.
+        Thread.sleep(300);
+
+        long inicio = System.nanoTime();
+        HttpResponse<String> health = http.send(HttpRequest.newBuilder(uri("/api/health"))
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        long latenciaHealthMs = (System.nanoTime() - inicio) / 1_000_000;
+
+        assertThat(health.statusCode()).isEqualTo(200);
+        assertThat(latenciaHealthMs).isLessThan(LATENCIA_IA_MS / 2);
+
+        for (CompletableFuture<HttpResponse<String>> conversa : conversas) {
+            HttpResponse<String> resposta = conversa.get();
+            assertThat(resposta.statusCode()).isEqualTo(200);
+            assertThat(resposta.body()).contains("\"reply\":\"ok\"");
+        }
+    }
+
+    @Test
+    void poolCheioRecusaCom503SemBloquear() throws Exception {
+        when(chatUseCase.execute(any(), anyString(), anyString())).thenAnswer(invocacao -> {
+            Thread.sleep(LATENCIA_IA_MS);
+            return new ChatResponse("ok", "gemini-teste");
+        });
+
+        // 16 threads + 16 na fila: a partir da 33ª conversa simultânea há recusa.
+        List<CompletableFuture<HttpResponse<String>>> conversas = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            conversas.add(http.sendAsync(HttpRequest.newBuilder(uri("/api/chat"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"message\":\"oi\"}"))
+                    .build(), HttpResponse.BodyHandlers.ofString()));
+        }
+
+        long recusadas = 0;
+        for (CompletableFuture<HttpResponse<String>> conversa : conversas) {
+            int status = conversa.get().statusCode();
+            assertThat(status).isIn(200, 503);
+            if (status == 503) {
+                recusadas++;
+            }
+        }
+        assertThat(recusadas).isPositive();
+    }
+
+    private URI uri(String caminho) {
+        return URI.create("http://127.0.0.1:" + porta + caminho);
+    }
+}